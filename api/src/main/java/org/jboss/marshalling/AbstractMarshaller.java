@@ -47,6 +47,14 @@ public abstract class AbstractMarshaller extends AbstractObjectOutput implements
     /** The configured version to write. */
     protected final int configuredVersion;
 
+    private final AbstractMarshallerFactory marshallerFactory;
+    // the statistics of the current stream, or null if statistics are not enabled
+    private final MarshallingStatistics statistics;
+    private final CompressingByteOutput compressingOutput;
+    private CountingByteOutput countingOutput;
+    private boolean counting;
+    private Object streamEvent;
+
     /**
      * Construct a new marshaller instance.
      *
@@ -80,6 +88,10 @@ public abstract class AbstractMarshaller extends AbstractObjectOutput implements
         this.serializabilityChecker = serializabilityChecker == null ? SerializabilityChecker.DEFAULT : serializabilityChecker;
         final int configuredVersion = configuration.getVersion();
         this.configuredVersion = configuredVersion == -1 ? marshallerFactory.getDefaultVersion() : configuredVersion;
+        this.marshallerFactory = marshallerFactory;
+        statistics = configuration.isStatisticsEnabled() ? new MarshallingStatistics() : null;
+        final CompressionCodec compressionCodec = configuration.getCompressionCodec();
+        compressingOutput = compressionCodec == null ? null : new CompressingByteOutput(compressionCodec);
     }
 
     private static int calcBufferSize(final AbstractMarshallerFactory marshallerFactory, final MarshallingConfiguration configuration) {
@@ -90,15 +102,114 @@ public abstract class AbstractMarshaller extends AbstractObjectOutput implements
 
     /** {@inheritDoc} */
     public void start(final ByteOutput byteOutput) throws IOException {
-        this.byteOutput = byteOutput;
-        buffer = new byte[bufferSize];
+        final MarshallingStatistics statistics = this.statistics;
+        final Object event = MarshallingEvents.beginMarshal();
+        final boolean eventEnabled = event != null;
+        if (statistics != null) {
+            statistics.reset();
+            statistics.recordStream();
+        }
+        // the counting output counts the bytes which are actually written, so it goes below the compressing output
+        ByteOutput output = byteOutput;
+        counting = statistics != null || eventEnabled;
+        if (counting) {
+            CountingByteOutput countingOutput = this.countingOutput;
+            if (countingOutput == null) {
+                countingOutput = this.countingOutput = new CountingByteOutput();
+            }
+            countingOutput.start(output);
+            output = countingOutput;
+        }
+        final CompressingByteOutput compressingOutput = this.compressingOutput;
+        if (compressingOutput != null) {
+            compressingOutput.start(output);
+            output = compressingOutput;
+        }
+        super.start(output);
+        streamEvent = event;
         streamHeader.writeHeader(this);
     }
 
+    /**
+     * Get a snapshot of the statistics of the current or most recently finished stream.
+     *
+     * @return the statistics, or {@code null} if statistics are not enabled in the configuration
+     */
+    public MarshallingStatistics getStatistics() {
+        final MarshallingStatistics statistics = this.statistics;
+        return statistics == null ? null : statistics.copy();
+    }
+
+    /**
+     * Record a back-reference to a previously written object, if statistics are enabled.
+     */
+    protected final void recordBackReference() {
+        final MarshallingStatistics statistics = this.statistics;
+        if (statistics != null) {
+            statistics.recordBackReference();
+        }
+    }
+
+    /**
+     * Record an object written by the object table, if statistics are enabled.
+     */
+    protected final void recordObjectTableHit() {
+        final MarshallingStatistics statistics = this.statistics;
+        if (statistics != null) {
+            statistics.recordObjectTableHit();
+        }
+    }
+
+    /**
+     * Record a class written by the class table, if statistics are enabled.
+     */
+    protected final void recordClassTableHit() {
+        final MarshallingStatistics statistics = this.statistics;
+        if (statistics != null) {
+            statistics.recordClassTableHit();
+        }
+    }
+
+    /**
+     * Record a back-reference to a previously written class descriptor, if statistics are enabled.
+     */
+    protected final void recordRepeatedClassDescriptor() {
+        final MarshallingStatistics statistics = this.statistics;
+        if (statistics != null) {
+            statistics.recordRepeatedClassDescriptor();
+        }
+    }
+
+    /**
+     * Record the contents of an instance cache which is about to be cleared, if statistics are enabled.
+     *
+     * @param size the number of entries in the instance cache
+     */
+    protected final void recordInstanceCache(final int size) {
+        final MarshallingStatistics statistics = this.statistics;
+        if (statistics != null) {
+            statistics.recordInstanceCache(size);
+        }
+    }
+
+    /**
+     * Record the contents of a class cache which is about to be cleared, if statistics are enabled.
+     *
+     * @param size the number of entries in the class cache
+     */
+    protected final void recordClassCache(final int size) {
+        final MarshallingStatistics statistics = this.statistics;
+        if (statistics != null) {
+            statistics.recordClassCache(size);
+        }
+    }
+
     /** {@inheritDoc} */
     public final void writeObjectUnshared(final Object obj) throws IOException {
+        final Object event = MarshallingEvents.beginWriteObject();
         try {
             super.writeObjectUnshared(obj);
+            MarshallingEvents.commitWriteObject(event, obj, true);
         } catch (IOException e) {
             TraceInformation.addObjectInformation(e, obj);
             exceptionListener.handleMarshallingException(e, obj);
@@ -112,8 +223,10 @@ public abstract class AbstractMarshaller extends AbstractObjectOutput implements
 
     /** {@inheritDoc} */
     public final void writeObject(final Object obj) throws IOException {
+        final Object event = MarshallingEvents.beginWriteObject();
         try {
             super.writeObject(obj);
+            MarshallingEvents.commitWriteObject(event, obj, false);
         } catch (IOException e) {
             TraceInformation.addObjectInformation(e, obj);
             exceptionListener.handleMarshallingException(e, obj);
@@ -127,10 +240,34 @@ public abstract class AbstractMarshaller extends AbstractObjectOutput implements
 
     /** {@inheritDoc} */
     public void finish() throws IOException {
+        final CountingByteOutput countingOutput = this.countingOutput;
+        final boolean counting = this.counting;
+        final CompressingByteOutput compressingOutput = byteOutput == null ? null : this.compressingOutput;
+        this.counting = false;
         try {
             super.finish();
+            if (compressingOutput != null) {
+                compressingOutput.finish();
+            }
         } finally {
             clearClassCache();
+            if (compressingOutput != null) {
+                compressingOutput.release();
+            }
+            if (counting) {
+                final long bytes = countingOutput.getCount();
+                countingOutput.start(null);
+                final MarshallingStatistics statistics = this.statistics;
+                if (statistics != null) {
+                    statistics.recordBytes(bytes);
+                    marshallerFactory.addMarshallingStatistics(statistics);
+                }
+                final Object event = streamEvent;
+                if (event != null) {
+                    streamEvent = null;
+                    MarshallingEvents.commitMarshal(event, getClass().getName(), configuredVersion, bytes);
+                }
+            }
         }
     }
 
@@ -18,6 +18,9 @@
 
 package org.jboss.marshalling;
 
+import java.util.Map;
+import java.util.WeakHashMap;
+
 /**
  * An abstract implementation of the {@code MarshallerFactory} interface.  This
  * instance can be configured at any time; however any marshallers and unmarshallers
@@ -25,6 +28,10 @@ package org.jboss.marshalling;
  * configuration.
  */
 public abstract class AbstractMarshallerFactory implements MarshallerFactory {
+    private final Map<MarshallingConfiguration, MarshallerPool> pools = new WeakHashMap<MarshallingConfiguration, MarshallerPool>();
+    private final MarshallingStatistics marshallingStatistics = new MarshallingStatistics();
+    private final MarshallingStatistics unmarshallingStatistics = new MarshallingStatistics();
+
     /**
      * Construct a new marshaller factory instance.
      */
@@ -117,4 +124,84 @@ public abstract class AbstractMarshallerFactory implements MarshallerFactory {
     protected int getMinimumBufferSize() {
         return 64;
     }
+
+    /**
+     * Get the default maximum number of idle instances retained by a pool created by {@link #getPool(MarshallingConfiguration)}.
+     * This base implementation returns twice the number of available processors.
+     *
+     * @return the default maximum number of idle instances
+     */
+    protected int getDefaultPoolSize() {
+        return Runtime.getRuntime().availableProcessors() << 1;
+    }
+
+    /**
+     * Get the shared pool of marshallers and unmarshallers for the given configuration, creating it if needed.  Pools
+     * are keyed by the identity of the configuration object, and the configuration is copied when the pool is first
+     * created, so later changes to the configuration object are not reflected in the pool.  A pool is released once
+     * its configuration object is no longer referenced.
+     *
+     * @param configuration the configuration
+     * @return the pool
+     */
+    public MarshallerPool getPool(final MarshallingConfiguration configuration) {
+        if (configuration == null) {
+            throw new IllegalArgumentException("configuration is null");
+        }
+        synchronized (pools) {
+            MarshallerPool pool = pools.get(configuration);
+            if (pool == null) {
+                pools.put(configuration, pool = new MarshallerPool(this, configuration, getDefaultPoolSize()));
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Get the combined statistics of all finished streams written by marshallers of this factory which have
+     * {@linkplain MarshallingConfiguration#setStatisticsEnabled(boolean) statistics enabled}.
+     *
+     * @return a copy of the combined statistics
+     */
+    public MarshallingStatistics getMarshallingStatistics() {
+        synchronized (marshallingStatistics) {
+            return marshallingStatistics.copy();
+        }
+    }
+
+    /**
+     * Get the combined statistics of all finished streams read by unmarshallers of this factory which have
+     * {@linkplain MarshallingConfiguration#setStatisticsEnabled(boolean) statistics enabled}.
+     *
+     * @return a copy of the combined statistics
+     */
+    public MarshallingStatistics getUnmarshallingStatistics() {
+        synchronized (unmarshallingStatistics) {
+            return unmarshallingStatistics.copy();
+        }
+    }
+
+    /**
+     * Reset the combined marshalling and unmarshalling statistics of this factory.
+     */
+    public void resetStatistics() {
+        synchronized (marshallingStatistics) {
+            marshallingStatistics.reset();
+        }
+        synchronized (unmarshallingStatistics) {
+            unmarshallingStatistics.reset();
+        }
+    }
+
+    void addMarshallingStatistics(final MarshallingStatistics statistics) {
+        synchronized (marshallingStatistics) {
+            marshallingStatistics.add(statistics);
+        }
+    }
+
+    void addUnmarshallingStatistics(final MarshallingStatistics statistics) {
+        synchronized (unmarshallingStatistics) {
+            unmarshallingStatistics.add(statistics);
+        }
+    }
 }
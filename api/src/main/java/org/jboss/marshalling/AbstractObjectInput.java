@@ -38,7 +38,7 @@ public abstract class AbstractObjectInput extends SimpleDataInput implements Obj
 
     /** {@inheritDoc} */
     public final Object readObject() throws ClassNotFoundException, IOException {
-        return doReadObject(false);
+        return readObjectEvent(false);
     }
 
     /**
@@ -49,7 +49,14 @@ public abstract class AbstractObjectInput extends SimpleDataInput implements Obj
      * @throws IOException if an error occurs
      */
     public final Object readObjectUnshared() throws ClassNotFoundException, IOException {
-        return doReadObject(true);
+        return readObjectEvent(true);
+    }
+
+    private Object readObjectEvent(final boolean unshared) throws ClassNotFoundException, IOException {
+        final Object event = MarshallingEvents.beginReadObject();
+        final Object obj = doReadObject(unshared);
+        MarshallingEvents.commitReadObject(event, obj, unshared);
+        return obj;
     }
 
     /**
@@ -73,7 +80,7 @@ public abstract class AbstractObjectInput extends SimpleDataInput implements Obj
      * @throws IOException if an error occurs
      */
     public <T> T readObject(final Class<T> type) throws ClassNotFoundException, IOException {
-        final Object obj = doReadObject(false);
+        final Object obj = readObjectEvent(false);
         try {
             return type.cast(obj);
         } catch (ClassCastException e) {
@@ -92,7 +99,7 @@ public abstract class AbstractObjectInput extends SimpleDataInput implements Obj
      * @throws IOException if an error occurs
      */
     public <T> T readObjectUnshared(final Class<T> type) throws ClassNotFoundException, IOException {
-        final Object obj = doReadObject(true);
+        final Object obj = readObjectEvent(true);
         try {
             return type.cast(obj);
         } catch (ClassCastException e) {
@@ -55,6 +55,14 @@ public abstract class AbstractUnmarshaller extends AbstractObjectInput implement
     /** The configured version. */
     protected final int configuredVersion;
 
+    private final AbstractMarshallerFactory marshallerFactory;
+    // the statistics of the current stream, or null if statistics are not enabled
+    private final MarshallingStatistics statistics;
+    private final DecompressingByteInput decompressingInput;
+    private CountingByteInput countingInput;
+    private boolean counting;
+    private Object streamEvent;
+
     /**
      * Construct a new unmarshaller instance.
      *
@@ -90,26 +98,177 @@ public abstract class AbstractUnmarshaller extends AbstractObjectInput implement
         this.unmarshallingFilter = unmarshallingFilter == null ? UnmarshallingObjectInputFilter.ACCEPTING : unmarshallingFilter;
         final int configuredVersion = configuration.getVersion();
         this.configuredVersion = configuredVersion == -1 ? marshallerFactory.getDefaultVersion() : configuredVersion;
+        this.marshallerFactory = marshallerFactory;
+        statistics = configuration.isStatisticsEnabled() ? new MarshallingStatistics() : null;
+        final CompressionCodec compressionCodec = configuration.getCompressionCodec();
+        decompressingInput = compressionCodec == null ? null : new DecompressingByteInput(compressionCodec);
     }
 
     /** {@inheritDoc} */
     public void start(final ByteInput byteInput) throws IOException {
-        this.byteInput = byteInput;
+        final MarshallingStatistics statistics = this.statistics;
+        final Object event = MarshallingEvents.beginUnmarshal();
+        final boolean eventEnabled = event != null;
+        if (statistics != null) {
+            statistics.reset();
+            statistics.recordStream();
+        }
+        ByteInput input = byteInput;
+        counting = statistics != null || eventEnabled;
+        if (counting) {
+            CountingByteInput countingInput = this.countingInput;
+            if (countingInput == null) {
+                countingInput = this.countingInput = new CountingByteInput();
+            }
+            countingInput.start(input);
+            input = countingInput;
+        }
+        streamEvent = event;
         position = limit = 0;
+        final DecompressingByteInput decompressingInput = this.decompressingInput;
+        if (decompressingInput != null) {
+            decompressingInput.start(input);
+            input = decompressingInput;
+        }
+        this.byteInput = input;
         streamHeader.readHeader(this);
     }
 
+    /**
+     * Get a snapshot of the statistics of the current or most recently finished stream.
+     *
+     * @return the statistics, or {@code null} if statistics are not enabled in the configuration
+     */
+    public MarshallingStatistics getStatistics() {
+        final MarshallingStatistics statistics = this.statistics;
+        return statistics == null ? null : statistics.copy();
+    }
+
+    /**
+     * Record a back-reference to a previously read object, if statistics are enabled.
+     */
+    protected final void recordBackReference() {
+        final MarshallingStatistics statistics = this.statistics;
+        if (statistics != null) {
+            statistics.recordBackReference();
+        }
+    }
+
+    /**
+     * Record an object read by the object table, if statistics are enabled.
+     */
+    protected final void recordObjectTableHit() {
+        final MarshallingStatistics statistics = this.statistics;
+        if (statistics != null) {
+            statistics.recordObjectTableHit();
+        }
+    }
+
+    /**
+     * Record a class read by the class table, if statistics are enabled.
+     */
+    protected final void recordClassTableHit() {
+        final MarshallingStatistics statistics = this.statistics;
+        if (statistics != null) {
+            statistics.recordClassTableHit();
+        }
+    }
+
+    /**
+     * Record a back-reference to a previously read class descriptor, if statistics are enabled.
+     */
+    protected final void recordRepeatedClassDescriptor() {
+        final MarshallingStatistics statistics = this.statistics;
+        if (statistics != null) {
+            statistics.recordRepeatedClassDescriptor();
+        }
+    }
+
+    /**
+     * Record the contents of an instance cache which is about to be cleared, if statistics are enabled.
+     *
+     * @param size the number of entries in the instance cache
+     */
+    protected final void recordInstanceCache(final int size) {
+        final MarshallingStatistics statistics = this.statistics;
+        if (statistics != null) {
+            statistics.recordInstanceCache(size);
+        }
+    }
+
+    /**
+     * Record the contents of a class cache which is about to be cleared, if statistics are enabled.
+     *
+     * @param size the number of entries in the class cache
+     */
+    protected final void recordClassCache(final int size) {
+        final MarshallingStatistics statistics = this.statistics;
+        if (statistics != null) {
+            statistics.recordClassCache(size);
+        }
+    }
+
     /** {@inheritDoc} */
     public void finish() throws IOException {
+        final CountingByteInput countingInput = this.countingInput;
+        final boolean counting = this.counting;
+        final DecompressingByteInput decompressingInput = this.decompressingInput;
+        // bytes which were read ahead into the buffer but not consumed do not count, unless they were decompressed
+        final int unread = decompressingInput == null && limit > position ? limit - position : 0;
         limit = -1;
         position = 0;
         byteInput = null;
+        this.counting = false;
+        if (decompressingInput != null) {
+            decompressingInput.release();
+        }
         clearClassCache();
+        if (counting) {
+            final long bytes = countingInput.getCount() - unread;
+            countingInput.start(null);
+            final MarshallingStatistics statistics = this.statistics;
+            if (statistics != null) {
+                statistics.recordBytes(bytes);
+                marshallerFactory.addUnmarshallingStatistics(statistics);
+            }
+            final Object event = streamEvent;
+            if (event != null) {
+                streamEvent = null;
+                MarshallingEvents.commitUnmarshal(event, getClass().getName(), configuredVersion, bytes);
+            }
+        }
+    }
+
+    /**
+     * Resolve a class using the configured class resolver.  Slow resolutions are reported to the flight recorder.
+     *
+     * @param unmarshaller the unmarshaller to pass to the class resolver
+     * @param className the class name
+     * @param serialVersionUID the serial version UID
+     * @return the resolved class
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if the class could not be resolved
+     * @see ClassResolver#resolveClass(Unmarshaller, String, long)
+     */
+    protected final Class<?> doResolveClass(final Unmarshaller unmarshaller, final String className, final long serialVersionUID) throws IOException, ClassNotFoundException {
+        final Object event = MarshallingEvents.beginResolveClass();
+        try {
+            return classResolver.resolveClass(unmarshaller, className, serialVersionUID);
+        } finally {
+            MarshallingEvents.commitResolveClass(event, className, classResolver.getClass().getName());
+        }
     }
 
     protected final void filterCheck(final Class<?> unmarshallClass, final long arrayLength, final long depth,
                                 final long references, final long streamBytes) throws InvalidClassException {
         if (unmarshallingFilter != UnmarshallingObjectInputFilter.ACCEPTING) {
+            if (unmarshallingFilter instanceof UnmarshallingObjectInputFilterImpl && ! Logging.marshallingLogger.isLoggable(Level.FINEST)) {
+                // fast path: accepted objects need neither filter info nor logging
+                final UnmarshallingObjectInputFilter.Status status = ((UnmarshallingObjectInputFilterImpl) unmarshallingFilter).checkInput(unmarshallClass, arrayLength, depth, references, streamBytes);
+                if (status != UnmarshallingObjectInputFilter.Status.REJECTED) {
+                    return;
+                }
+            }
             UnmarshallingObjectInputFilter.FilterInfo filterInfo = new FilterInfoImpl(unmarshallClass, arrayLength, depth, references, streamBytes);
             UnmarshallingObjectInputFilter.Status status = null;
             RuntimeException ex = null;
@@ -122,6 +281,9 @@ public abstract class AbstractUnmarshaller extends AbstractObjectInput implement
                 throw ice;
             } finally {
                 Logging.logFilterResponse(filterInfo, status, ex);
+                if (status == UnmarshallingObjectInputFilter.Status.REJECTED || ex != null) {
+                    MarshallingEvents.filterRejection(unmarshallClass, arrayLength, depth, references, streamBytes, ex == null ? null : ex.toString());
+                }
             }
 
             if (status == UnmarshallingObjectInputFilter.Status.REJECTED) {
@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A bounded pool of fixed-size {@code ByteBuffer} segments, which may be heap or direct buffers.  Segments are used
+ * by {@link ByteBufferSegmentOutput} to grow its output on demand.  A pool may be shared by any number of threads.
+ * Buffers which are freed while the pool is full, or which were not allocated by this pool, are discarded.
+ */
+public final class ByteBufferPool {
+    private final int segmentSize;
+    private final boolean direct;
+    private final ArrayBlockingQueue<ByteBuffer> idle;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param segmentSize the size of each segment, in bytes
+     * @param direct {@code true} to allocate direct buffers, {@code false} to allocate heap buffers
+     * @param maxIdle the maximum number of idle segments to retain
+     */
+    public ByteBufferPool(final int segmentSize, final boolean direct, final int maxIdle) {
+        if (segmentSize < 1) {
+            throw new IllegalArgumentException("segmentSize must be at least 1");
+        }
+        if (maxIdle < 1) {
+            throw new IllegalArgumentException("maxIdle must be at least 1");
+        }
+        this.segmentSize = segmentSize;
+        this.direct = direct;
+        idle = new ArrayBlockingQueue<ByteBuffer>(maxIdle);
+    }
+
+    /**
+     * Allocate a cleared segment from this pool, creating a new one if none is idle.
+     *
+     * @return the segment
+     */
+    public ByteBuffer allocate() {
+        final ByteBuffer buffer = idle.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        return direct ? ByteBuffer.allocateDirect(segmentSize) : ByteBuffer.allocate(segmentSize);
+    }
+
+    /**
+     * Return a segment to this pool.  The segment must no longer be used by the caller.
+     *
+     * @param buffer the segment
+     */
+    public void free(final ByteBuffer buffer) {
+        if (buffer == null || buffer.capacity() != segmentSize || buffer.isDirect() != direct || buffer.isReadOnly()
+            || ! direct && buffer.arrayOffset() != 0) {
+            return;
+        }
+        buffer.clear();
+        idle.offer(buffer);
+    }
+
+    /**
+     * Discard all idle segments.
+     */
+    public void clear() {
+        idle.clear();
+    }
+
+    /**
+     * Get the size of the segments allocated by this pool.
+     *
+     * @return the segment size, in bytes
+     */
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Determine whether this pool allocates direct buffers.
+     *
+     * @return {@code true} if the segments are direct buffers
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Get the number of idle segments in this pool.
+     *
+     * @return the number of idle segments
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+}
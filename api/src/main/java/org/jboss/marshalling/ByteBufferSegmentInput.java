@@ -0,0 +1,118 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ScatteringByteChannel;
+
+/**
+ * An {@code InputStream} which implements {@code ByteInput} and reads bytes from a sequence of {@code ByteBuffer}s,
+ * such as those filled by {@link ScatteringByteChannel#read(ByteBuffer[])} and then flipped.  Each buffer is read from
+ * its position to its limit, and the buffer positions are advanced as bytes are consumed.
+ */
+public class ByteBufferSegmentInput extends InputStream implements ByteInput {
+    private final ByteBuffer[] buffers;
+    private int index;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param buffers the buffers to read from, in order
+     */
+    public ByteBufferSegmentInput(final ByteBuffer... buffers) {
+        if (buffers == null) {
+            throw new IllegalArgumentException("buffers is null");
+        }
+        this.buffers = buffers;
+    }
+
+    private ByteBuffer current() {
+        final ByteBuffer[] buffers = this.buffers;
+        int index = this.index;
+        while (index < buffers.length) {
+            final ByteBuffer buffer = buffers[index];
+            if (buffer.hasRemaining()) {
+                this.index = index;
+                return buffer;
+            }
+            index ++;
+        }
+        this.index = index;
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    public int read() throws IOException {
+        final ByteBuffer buffer = current();
+        return buffer == null ? -1 : buffer.get() & 0xff;
+    }
+
+    /** {@inheritDoc} */
+    public int read(final byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    /** {@inheritDoc} */
+    public int read(final byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = current();
+        if (buffer == null) {
+            return -1;
+        }
+        int total = 0;
+        do {
+            final int c = Math.min(len, buffer.remaining());
+            buffer.get(b, off, c);
+            off += c;
+            len -= c;
+            total += c;
+        } while (len > 0 && (buffer = current()) != null);
+        return total;
+    }
+
+    /** {@inheritDoc} */
+    public int available() throws IOException {
+        long total = 0L;
+        for (int i = index; i < buffers.length; i ++) {
+            total += buffers[i].remaining();
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    /** {@inheritDoc} */
+    public long skip(long n) throws IOException {
+        long total = 0L;
+        ByteBuffer buffer;
+        while (n > 0L && (buffer = current()) != null) {
+            final int c = (int) Math.min((long) buffer.remaining(), n);
+            buffer.position(buffer.position() + c);
+            n -= c;
+            total += c;
+        }
+        return total;
+    }
+
+    /** {@inheritDoc} */
+    public void close() throws IOException {
+    }
+}
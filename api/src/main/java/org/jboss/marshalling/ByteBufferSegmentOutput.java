@@ -0,0 +1,221 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Arrays;
+
+/**
+ * An {@code OutputStream} implementing {@code ByteOutput} which writes to a chain of {@code ByteBuffer} segments
+ * taken from a {@link ByteBufferPool}.  A new segment is taken whenever the current one is full, so the output never
+ * overflows.  The written data can be retrieved with {@link #getBuffers()}, whose result is suitable for
+ * {@link GatheringByteChannel#write(ByteBuffer[])}, or written out directly with {@link #writeTo(GatheringByteChannel)}.
+ * <p>
+ * If the pool allocates heap buffers, this output lends the segment arrays to a {@link SimpleDataOutput} writing to it
+ * (see {@link InPlaceByteOutput}), so that marshalled data is written straight into the segments.
+ * <p>
+ * Segments are returned to the pool by {@link #reset()} and {@link #close()}.  Instances of this class are not
+ * thread-safe.
+ */
+public class ByteBufferSegmentOutput extends OutputStream implements InPlaceByteOutput {
+    private final ByteBufferPool pool;
+    private ByteBuffer[] segments = new ByteBuffer[4];
+    private int count;
+    private ByteBuffer current;
+    private boolean lent;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param pool the pool from which to take segments
+     */
+    public ByteBufferSegmentOutput(final ByteBufferPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("pool is null");
+        }
+        this.pool = pool;
+    }
+
+    private ByteBuffer nextSegment() {
+        if (count == segments.length) {
+            segments = Arrays.copyOf(segments, count << 1);
+        }
+        final ByteBuffer segment = pool.allocate();
+        segments[count ++] = segment;
+        return current = segment;
+    }
+
+    /** {@inheritDoc} */
+    public byte[] lendArray(final int minLength) {
+        if (pool.isDirect() || pool.getSegmentSize() < minLength) {
+            return null;
+        }
+        ByteBuffer current = this.current;
+        if (current == null || current.position() > 0) {
+            current = nextSegment();
+        }
+        lent = true;
+        return current.array();
+    }
+
+    /** {@inheritDoc} */
+    public void commitArray(final int length) {
+        if (! lent) {
+            throw new IllegalStateException("No array is lent");
+        }
+        current.position(length);
+    }
+
+    /** {@inheritDoc} */
+    public void write(final int b) throws IOException {
+        lent = false;
+        ByteBuffer current = this.current;
+        if (current == null || ! current.hasRemaining()) {
+            current = nextSegment();
+        }
+        current.put((byte) b);
+    }
+
+    /** {@inheritDoc} */
+    public void write(final byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    /** {@inheritDoc} */
+    public void write(final byte[] b, int off, int len) throws IOException {
+        lent = false;
+        ByteBuffer current = this.current;
+        while (len > 0) {
+            if (current == null || ! current.hasRemaining()) {
+                current = nextSegment();
+            }
+            final int c = Math.min(len, current.remaining());
+            current.put(b, off, c);
+            off += c;
+            len -= c;
+        }
+    }
+
+    /**
+     * Write the remaining bytes of the given buffer.
+     *
+     * @param src the source buffer
+     * @throws IOException if an error occurs
+     */
+    public void write(final ByteBuffer src) throws IOException {
+        lent = false;
+        ByteBuffer current = this.current;
+        while (src.hasRemaining()) {
+            if (current == null || ! current.hasRemaining()) {
+                current = nextSegment();
+            }
+            final int c = current.remaining();
+            if (src.remaining() <= c) {
+                current.put(src);
+            } else {
+                final ByteBuffer chunk = src.duplicate();
+                chunk.limit(chunk.position() + c);
+                current.put(chunk);
+                src.position(src.position() + c);
+            }
+        }
+    }
+
+    /**
+     * Get the number of bytes written since this output was created or last reset.
+     *
+     * @return the number of bytes written
+     */
+    public long size() {
+        long size = 0L;
+        for (int i = 0; i < count; i ++) {
+            size += segments[i].position();
+        }
+        return size;
+    }
+
+    /**
+     * Get buffers containing the bytes written since this output was created or last reset.  Each returned buffer is
+     * an independent view of one segment, positioned at its first byte and limited to its last written byte.  The
+     * views remain valid until this output is reset or closed, and writing more data does not affect them.
+     *
+     * @return the buffers, in order
+     */
+    public ByteBuffer[] getBuffers() {
+        final int count = this.count;
+        final ByteBuffer[] buffers = new ByteBuffer[count];
+        for (int i = 0; i < count; i ++) {
+            buffers[i] = segments[i].duplicate().flip();
+        }
+        return buffers;
+    }
+
+    /**
+     * Write all of the bytes written since this output was created or last reset to the given channel, and then
+     * reset this output.  If the channel is non-blocking, this method may spin until it accepts all of the data.
+     *
+     * @param channel the channel to write to
+     * @return the number of bytes written to the channel
+     * @throws IOException if an error occurs
+     */
+    public long writeTo(final GatheringByteChannel channel) throws IOException {
+        final ByteBuffer[] buffers = getBuffers();
+        long total = 0L;
+        int first = 0;
+        while (first < buffers.length) {
+            total += channel.write(buffers, first, buffers.length - first);
+            while (first < buffers.length && ! buffers[first].hasRemaining()) {
+                first ++;
+            }
+        }
+        reset();
+        return total;
+    }
+
+    /**
+     * Discard the written data and return all segments to the pool.  Buffers previously returned by
+     * {@link #getBuffers()} must no longer be used.
+     */
+    public void reset() {
+        final ByteBuffer[] segments = this.segments;
+        for (int i = 0; i < count; i ++) {
+            pool.free(segments[i]);
+            segments[i] = null;
+        }
+        count = 0;
+        current = null;
+        lent = false;
+    }
+
+    /** {@inheritDoc} */
+    public void flush() throws IOException {
+    }
+
+    /**
+     * Close this output, discarding the written data and returning all segments to the pool.
+     *
+     * @throws IOException if an error occurs
+     */
+    public void close() throws IOException {
+        reset();
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A class resolver which remembers the classes resolved by another class resolver, so that a class name which has
+ * been resolved before does not go through the class loader again.  Class loading may take class loader locks, so this
+ * can reduce contention considerably when many threads unmarshal the same classes at once.
+ * <p>
+ * Resolved classes are remembered separately for each class loader returned by the delegate's
+ * {@link AbstractClassResolver#getClassLoader() getClassLoader()}, so a delegate which uses the thread context class
+ * loader still resolves each name against the current loader.  Neither class loaders nor classes are strongly
+ * referenced, so the cache never prevents a class loader from being unloaded.
+ * <p>
+ * The delegate must not read from the stream while resolving a class, since a remembered class is returned without
+ * consulting it.  Proxy classes are always resolved by the delegate.
+ */
+public final class CachingClassResolver implements ClassResolver {
+    private final AbstractClassResolver delegate;
+    private final ConcurrentHashMap<Object, ConcurrentHashMap<String, Entry>> loaders = new ConcurrentHashMap<Object, ConcurrentHashMap<String, Entry>>();
+    private final ConcurrentHashMap<String, Entry> bootstrapClasses = new ConcurrentHashMap<String, Entry>();
+    private final ReferenceQueue<ClassLoader> queue = new ReferenceQueue<ClassLoader>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Construct a new instance.
+     *
+     * @param delegate the class resolver whose resolved classes should be remembered
+     */
+    public CachingClassResolver(final AbstractClassResolver delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate is null");
+        }
+        this.delegate = delegate;
+    }
+
+    /** {@inheritDoc}  This implementation delegates to the wrapped class resolver. */
+    public void annotateClass(final Marshaller marshaller, final Class<?> clazz) throws IOException {
+        delegate.annotateClass(marshaller, clazz);
+    }
+
+    /** {@inheritDoc}  This implementation delegates to the wrapped class resolver. */
+    public void annotateProxyClass(final Marshaller marshaller, final Class<?> proxyClass) throws IOException {
+        delegate.annotateProxyClass(marshaller, proxyClass);
+    }
+
+    /** {@inheritDoc}  This implementation delegates to the wrapped class resolver. */
+    public String getClassName(final Class<?> clazz) throws IOException {
+        return delegate.getClassName(clazz);
+    }
+
+    /** {@inheritDoc}  This implementation delegates to the wrapped class resolver. */
+    public String[] getProxyInterfaces(final Class<?> proxyClass) throws IOException {
+        return delegate.getProxyInterfaces(proxyClass);
+    }
+
+    /**
+     * {@inheritDoc}  This implementation returns the class previously resolved for the given name and
+     * {@code serialVersionUID} against the delegate's current class loader, if there is one, and otherwise resolves
+     * the class using the delegate and remembers it.  Failed resolutions are not remembered.
+     */
+    public Class<?> resolveClass(final Unmarshaller unmarshaller, final String name, final long serialVersionUID) throws IOException, ClassNotFoundException {
+        final ConcurrentHashMap<String, Entry> classes = getClasses(delegate.getClassLoader());
+        final Entry entry = classes.get(name);
+        if (entry != null && entry.serialVersionUID == serialVersionUID) {
+            final Class<?> clazz = entry.get();
+            if (clazz != null) {
+                hits.increment();
+                return clazz;
+            }
+        }
+        misses.increment();
+        final Class<?> clazz = delegate.resolveClass(unmarshaller, name, serialVersionUID);
+        classes.put(name, new Entry(clazz, serialVersionUID));
+        return clazz;
+    }
+
+    /** {@inheritDoc}  This implementation delegates to the wrapped class resolver. */
+    public Class<?> resolveProxyClass(final Unmarshaller unmarshaller, final String[] interfaces) throws IOException, ClassNotFoundException {
+        return delegate.resolveProxyClass(unmarshaller, interfaces);
+    }
+
+    /**
+     * Get the number of class resolutions which were answered from this cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of class resolutions which were passed on to the delegate.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Forget all remembered classes and reset the hit and miss counts.
+     */
+    public void clear() {
+        loaders.clear();
+        bootstrapClasses.clear();
+        hits.reset();
+        misses.reset();
+    }
+
+    private ConcurrentHashMap<String, Entry> getClasses(final ClassLoader classLoader) {
+        if (classLoader == null) {
+            return bootstrapClasses;
+        }
+        ConcurrentHashMap<String, Entry> classes = loaders.get(new LoaderLookup(classLoader));
+        if (classes == null) {
+            expungeStaleLoaders();
+            final ConcurrentHashMap<String, Entry> newClasses = new ConcurrentHashMap<String, Entry>();
+            classes = loaders.putIfAbsent(new LoaderKey(classLoader, queue), newClasses);
+            if (classes == null) {
+                classes = newClasses;
+            }
+        }
+        return classes;
+    }
+
+    private void expungeStaleLoaders() {
+        Reference<? extends ClassLoader> ref;
+        while ((ref = queue.poll()) != null) {
+            loaders.remove(ref);
+        }
+    }
+
+    static final class Entry extends WeakReference<Class<?>> {
+        final long serialVersionUID;
+
+        Entry(final Class<?> clazz, final long serialVersionUID) {
+            super(clazz);
+            this.serialVersionUID = serialVersionUID;
+        }
+    }
+
+    /**
+     * The key of the classes of a class loader, which does not keep the class loader reachable.  Once the class loader
+     * is collected, the key is only equal to itself, so it can still be removed.
+     */
+    static final class LoaderKey extends WeakReference<ClassLoader> {
+        private final int hashCode;
+
+        LoaderKey(final ClassLoader classLoader, final ReferenceQueue<ClassLoader> queue) {
+            super(classLoader, queue);
+            hashCode = System.identityHashCode(classLoader);
+        }
+
+        public boolean equals(final Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            final ClassLoader classLoader = get();
+            if (classLoader == null) {
+                return false;
+            } else if (obj instanceof LoaderKey) {
+                return ((LoaderKey) obj).get() == classLoader;
+            } else {
+                return obj instanceof LoaderLookup && ((LoaderLookup) obj).classLoader == classLoader;
+            }
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * A short-lived key used to find the classes of a class loader.
+     */
+    static final class LoaderLookup {
+        private final ClassLoader classLoader;
+
+        LoaderLookup(final ClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+
+        public boolean equals(final Object obj) {
+            return obj instanceof LoaderKey && ((LoaderKey) obj).get() == classLoader;
+        }
+
+        public int hashCode() {
+            return System.identityHashCode(classLoader);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A class table which records how often each class is written as a new class descriptor, so that the most frequently
+ * written classes can be turned into a {@link RecordedClassTable}.  Marshallers consult the class table once for each
+ * class descriptor they write, so the recorded counts are the number of streams (or class cache generations) in which
+ * each class appeared.
+ * <p>
+ * Classes which the delegate class table handles are not recorded, and neither are proxy, hidden and anonymous classes,
+ * since their names are not stable.  A recorder may be shared by any number of marshallers.  Recorded classes are
+ * strongly referenced until the recorder is {@linkplain #clear() cleared}.
+ */
+public final class ClassTableRecorder implements ClassTable {
+    private final ClassTable delegate;
+    private final ConcurrentHashMap<Class<?>, LongAdder> counts = new ConcurrentHashMap<Class<?>, LongAdder>();
+
+    /**
+     * Construct a new instance which records every class.
+     */
+    public ClassTableRecorder() {
+        this(null);
+    }
+
+    /**
+     * Construct a new instance which passes through to the given class table.  Only classes which the given class
+     * table does not handle are recorded.
+     *
+     * @param delegate the class table to pass through to, or {@code null} for none
+     */
+    public ClassTableRecorder(final ClassTable delegate) {
+        this.delegate = delegate;
+    }
+
+    /** {@inheritDoc} */
+    public Writer getClassWriter(final Class<?> clazz) throws IOException {
+        final Writer writer = delegate == null ? null : delegate.getClassWriter(clazz);
+        if (writer == null && isRecordable(clazz)) {
+            LongAdder count = counts.get(clazz);
+            if (count == null) {
+                final LongAdder newCount = new LongAdder();
+                count = counts.putIfAbsent(clazz, newCount);
+                if (count == null) {
+                    count = newCount;
+                }
+            }
+            count.increment();
+        }
+        return writer;
+    }
+
+    /** {@inheritDoc} */
+    public Class<?> readClass(final Unmarshaller unmarshaller) throws IOException, ClassNotFoundException {
+        if (delegate == null) {
+            throw new StreamCorruptedException("No class table to read predefined class from");
+        }
+        return delegate.readClass(unmarshaller);
+    }
+
+    private static boolean isRecordable(final Class<?> clazz) {
+        // a '/' in the name marks a hidden class
+        return ! clazz.isPrimitive() && clazz.getName().indexOf('/') == -1 && ! clazz.isAnonymousClass() && ! clazz.isLocalClass() && ! Proxy.isProxyClass(clazz);
+    }
+
+    /**
+     * Get the number of times the given class was recorded.
+     *
+     * @param clazz the class
+     * @return the count
+     */
+    public long getCount(final Class<?> clazz) {
+        final LongAdder count = counts.get(clazz);
+        return count == null ? 0L : count.sum();
+    }
+
+    /**
+     * Get the recorded classes, most frequent first.  Classes with the same count are ordered by name, so that the
+     * ranking is reproducible.
+     *
+     * @return the ranked classes
+     */
+    public List<Class<?>> getRankedClasses() {
+        final Map<Class<?>, Long> snapshot = new IdentityHashMap<Class<?>, Long>();
+        for (Map.Entry<Class<?>, LongAdder> entry : counts.entrySet()) {
+            snapshot.put(entry.getKey(), Long.valueOf(entry.getValue().sum()));
+        }
+        final List<Class<?>> ranked = new ArrayList<Class<?>>(snapshot.keySet());
+        Collections.sort(ranked, new Comparator<Class<?>>() {
+            public int compare(final Class<?> o1, final Class<?> o2) {
+                final int res = Long.compare(snapshot.get(o2).longValue(), snapshot.get(o1).longValue());
+                return res != 0 ? res : o1.getName().compareTo(o2.getName());
+            }
+        });
+        return ranked;
+    }
+
+    /**
+     * Create a class table from the recorded classes.  If a previous version of the table is given, its classes keep
+     * their indexes and the most frequently recorded classes which it does not contain are appended; otherwise the
+     * table contains the most frequently recorded classes, most frequent first.
+     *
+     * @param previous the previous version of the class table, or {@code null} to create the first version
+     * @param maxSize the maximum number of classes in the resulting table, including those of the previous version
+     * @return the new class table, or {@code previous} if no classes would be added to it
+     */
+    public RecordedClassTable createClassTable(final RecordedClassTable previous, final int maxSize) {
+        if (maxSize < 0 || maxSize > RecordedClassTable.MAX_SIZE) {
+            throw new IllegalArgumentException("maxSize must be between 0 and " + RecordedClassTable.MAX_SIZE);
+        }
+        final List<String> names = new ArrayList<String>();
+        final List<Class<?>> classes = new ArrayList<Class<?>>();
+        if (previous != null) {
+            names.addAll(previous.getClassNames());
+            classes.addAll(Arrays.asList(previous.getClasses()));
+        }
+        final int previousSize = names.size();
+        final Set<String> present = new HashSet<String>(names);
+        for (Class<?> clazz : getRankedClasses()) {
+            if (names.size() >= maxSize) {
+                break;
+            }
+            if (present.add(clazz.getName())) {
+                names.add(clazz.getName());
+                classes.add(clazz);
+            }
+        }
+        if (previous != null && names.size() == previousSize) {
+            return previous;
+        }
+        final int version = previous == null ? 1 : previous.getVersion() + 1;
+        return new RecordedClassTable(version, names.toArray(new String[0]), classes.toArray(new Class<?>[0]));
+    }
+
+    /**
+     * Discard all recorded counts.
+     */
+    public void clear() {
+        counts.clear();
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.IOException;
+
+/**
+ * A byte output which compresses the data written to it in blocks.  It lends its block array, so that the marshaller
+ * writes directly into the block which is compressed.
+ * <p>
+ * A compressed stream consists of the ID of the codec, followed by any number of blocks and an end block.  Each block
+ * starts with its type; a stored block continues with its length and its data, and a compressed block continues with
+ * its uncompressed length, its compressed length and the compressed data.  Lengths are unsigned variable-length
+ * integers with seven bits in each byte, least significant first.  Blocks which do not shrink when compressed are
+ * stored.
+ */
+final class CompressingByteOutput implements InPlaceByteOutput {
+    static final int BLOCK_STORED = 0;
+    static final int BLOCK_COMPRESSED = 1;
+    static final int BLOCK_END = 2;
+
+    static final int BLOCK_SIZE = 0x10000;
+    static final int MAX_BLOCK_SIZE = 0x1000000;
+
+    private final CompressionCodec codec;
+    private final CompressionCodec.Compressor compressor;
+    private final byte[] header = new byte[11];
+    private ByteOutput delegate;
+    private byte[] block = new byte[BLOCK_SIZE];
+    private byte[] compressed = new byte[BLOCK_SIZE];
+    // the block data in [start, committed) is not yet written
+    private int start;
+    private int committed;
+    private boolean lent;
+    // a failure to write a block when lending the array, which is reported by the next operation
+    private IOException failure;
+
+    CompressingByteOutput(final CompressionCodec codec) {
+        this.codec = codec;
+        compressor = codec.createCompressor();
+    }
+
+    CompressionCodec getCodec() {
+        return codec;
+    }
+
+    void start(final ByteOutput delegate) throws IOException {
+        this.delegate = delegate;
+        start = committed = 0;
+        lent = false;
+        failure = null;
+        delegate.write(codec.getId());
+    }
+
+    void finish() throws IOException {
+        final ByteOutput delegate = this.delegate;
+        checkFailure();
+        writeBlock();
+        delegate.write(BLOCK_END);
+        delegate.flush();
+    }
+
+    void release() {
+        compressor.release();
+        delegate = null;
+        start = committed = 0;
+        lent = false;
+        failure = null;
+    }
+
+    public byte[] lendArray(final int minLength) {
+        if (minLength > MAX_BLOCK_SIZE || failure != null) {
+            return null;
+        }
+        try {
+            writeBlock();
+        } catch (IOException e) {
+            // the loan cannot fail, so the caller falls back to a plain write, which reports the failure
+            failure = e;
+            return null;
+        }
+        start = committed = 0;
+        if (block.length < minLength) {
+            block = new byte[minLength];
+        }
+        lent = true;
+        return block;
+    }
+
+    public void commitArray(final int length) {
+        if (! lent) {
+            throw new IllegalStateException("No array is lent");
+        }
+        committed = length;
+    }
+
+    public void write(final int b) throws IOException {
+        checkFailure();
+        lent = false;
+        if (committed == block.length) {
+            writeBlock();
+            start = committed = 0;
+        }
+        block[committed ++] = (byte) b;
+    }
+
+    public void write(final byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    public void write(final byte[] b, int off, int len) throws IOException {
+        checkFailure();
+        lent = false;
+        final byte[] block = this.block;
+        while (len > 0) {
+            if (committed == block.length) {
+                writeBlock();
+                start = committed = 0;
+            }
+            final int cnt = Math.min(len, block.length - committed);
+            System.arraycopy(b, off, block, committed, cnt);
+            committed += cnt;
+            off += cnt;
+            len -= cnt;
+        }
+    }
+
+    public void flush() throws IOException {
+        checkFailure();
+        writeBlock();
+        delegate.flush();
+    }
+
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    private void checkFailure() throws IOException {
+        final IOException failure = this.failure;
+        if (failure != null) {
+            throw new IOException("Writing a compressed block failed", failure);
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        final int start = this.start;
+        final int len = committed - start;
+        if (len == 0) {
+            return;
+        }
+        final ByteOutput delegate = this.delegate;
+        final byte[] header = this.header;
+        byte[] compressed = this.compressed;
+        if (compressed.length < len) {
+            this.compressed = compressed = new byte[block.length];
+        }
+        // only keep the compressed form if it saves more than the extra length field costs
+        final int clen = len > 4 ? compressor.compress(block, start, len, compressed, 0, len - 4) : -1;
+        int hlen;
+        if (clen >= 0) {
+            header[0] = BLOCK_COMPRESSED;
+            hlen = writeLength(header, 1, len);
+            hlen = writeLength(header, hlen, clen);
+            delegate.write(header, 0, hlen);
+            delegate.write(compressed, 0, clen);
+        } else {
+            header[0] = BLOCK_STORED;
+            hlen = writeLength(header, 1, len);
+            delegate.write(header, 0, hlen);
+            delegate.write(block, start, len);
+        }
+        this.start = committed;
+    }
+
+    private static int writeLength(final byte[] header, int idx, int len) {
+        while ((len & ~0x7f) != 0) {
+            header[idx ++] = (byte) (len & 0x7f | 0x80);
+            len >>>= 7;
+        }
+        header[idx ++] = (byte) len;
+        return idx;
+    }
+}
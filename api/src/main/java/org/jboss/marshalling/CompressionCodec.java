@@ -0,0 +1,118 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.IOException;
+
+/**
+ * A block compression codec used to compress marshalled streams.  A codec is selected for writing by
+ * {@link MarshallingConfiguration#setCompressionCodec(CompressionCodec)}, and is identified in each compressed stream
+ * by its {@linkplain #getId() ID}, so that the reader can select the matching codec automatically.
+ * <p>
+ * The {@linkplain DeflateCompressionCodec Deflate codec} is built in.  Additional codecs (for example LZ4 or Zstandard
+ * bindings) are found by the reader using {@link java.util.ServiceLoader} under this interface.  Codec IDs 1 to 15
+ * are reserved for built-in codecs.
+ */
+public interface CompressionCodec {
+
+    /**
+     * Get the ID of this codec, which is written at the start of each compressed stream.
+     *
+     * @return the ID, between 1 and 255
+     */
+    int getId();
+
+    /**
+     * Get the name of this codec.
+     *
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * Create a new compressor.  Each marshaller creates one compressor and reuses it for every stream it writes,
+     * {@linkplain Compressor#release() releasing} it at the end of each stream.
+     *
+     * @return the compressor
+     */
+    Compressor createCompressor();
+
+    /**
+     * Create a new decompressor.  Each unmarshaller creates one decompressor for each codec and reuses it for every
+     * stream it reads, {@linkplain Decompressor#release() releasing} it at the end of each stream.
+     *
+     * @return the decompressor
+     */
+    Decompressor createDecompressor();
+
+    /**
+     * A compressor for blocks of data.  Compressors need not be thread-safe.
+     * @apiviz.exclude
+     */
+    interface Compressor {
+
+        /**
+         * Compress a block of data.
+         *
+         * @param src the data to compress
+         * @param srcOff the offset of the data
+         * @param srcLen the length of the data
+         * @param dst the array to write the compressed data to
+         * @param dstOff the offset to write the compressed data at
+         * @param dstLen the space available for the compressed data
+         * @return the length of the compressed data, or -1 if it would not fit in the available space
+         * @throws IOException if the data could not be compressed
+         */
+        int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) throws IOException;
+
+        /**
+         * Release any resources, such as native memory, held by this compressor.  This is called at the end of each
+         * stream; the compressor must reacquire its resources if it is used for another stream.
+         */
+        default void release() {
+        }
+    }
+
+    /**
+     * A decompressor for blocks of data.  Decompressors need not be thread-safe.
+     * @apiviz.exclude
+     */
+    interface Decompressor {
+
+        /**
+         * Decompress a block of data.
+         *
+         * @param src the compressed data
+         * @param srcOff the offset of the compressed data
+         * @param srcLen the length of the compressed data
+         * @param dst the array to write the data to
+         * @param dstOff the offset to write the data at
+         * @param dstLen the exact length of the data
+         * @throws IOException if the compressed data is invalid or does not decompress to exactly {@code dstLen} bytes
+         */
+        void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) throws IOException;
+
+        /**
+         * Release any resources, such as native memory, held by this decompressor.  This is called at the end of
+         * each stream; the decompressor must reacquire its resources if it is used for another stream.
+         */
+        default void release() {
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.IOException;
+
+/**
+ * A byte input which counts the bytes read from its delegate.
+ */
+final class CountingByteInput implements ByteInput {
+    private ByteInput delegate;
+    private long count;
+
+    void start(final ByteInput delegate) {
+        this.delegate = delegate;
+        count = 0L;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    public int read() throws IOException {
+        final int b = delegate.read();
+        if (b != -1) {
+            count ++;
+        }
+        return b;
+    }
+
+    public int read(final byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int res = delegate.read(b, off, len);
+        if (res > 0) {
+            count += res;
+        }
+        return res;
+    }
+
+    public int available() throws IOException {
+        return delegate.available();
+    }
+
+    public long skip(final long n) throws IOException {
+        final long res = delegate.skip(n);
+        count += res;
+        return res;
+    }
+
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
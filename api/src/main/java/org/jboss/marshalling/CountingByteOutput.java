@@ -0,0 +1,79 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.IOException;
+
+/**
+ * A byte output which counts the bytes passed to its delegate.  It lends the arrays of its delegate if the delegate is
+ * an {@link InPlaceByteOutput}, so that wrapping does not disable writing in place.
+ */
+final class CountingByteOutput implements InPlaceByteOutput {
+    private ByteOutput delegate;
+    private long count;
+    private int committed;
+
+    void start(final ByteOutput delegate) {
+        this.delegate = delegate;
+        count = 0L;
+        committed = 0;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    public byte[] lendArray(final int minLength) {
+        final ByteOutput delegate = this.delegate;
+        if (delegate instanceof InPlaceByteOutput) {
+            committed = 0;
+            return ((InPlaceByteOutput) delegate).lendArray(minLength);
+        }
+        return null;
+    }
+
+    public void commitArray(final int length) {
+        ((InPlaceByteOutput) delegate).commitArray(length);
+        count += length - committed;
+        committed = length;
+    }
+
+    public void write(final int b) throws IOException {
+        delegate.write(b);
+        count ++;
+    }
+
+    public void write(final byte[] b) throws IOException {
+        delegate.write(b);
+        count += b.length;
+    }
+
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        delegate.write(b, off, len);
+        count += len;
+    }
+
+    public void flush() throws IOException {
+        delegate.flush();
+    }
+
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ServiceLoader;
+
+import static org.jboss.marshalling.CompressingByteOutput.BLOCK_COMPRESSED;
+import static org.jboss.marshalling.CompressingByteOutput.BLOCK_END;
+import static org.jboss.marshalling.CompressingByteOutput.BLOCK_STORED;
+import static org.jboss.marshalling.CompressingByteOutput.MAX_BLOCK_SIZE;
+
+/**
+ * A byte input which decompresses a stream written by {@link CompressingByteOutput}.  Blocks are read from the
+ * delegate only as they are needed, so no data following the end block is consumed.
+ */
+final class DecompressingByteInput implements ByteInput {
+    private final CompressionCodec configuredCodec;
+    private final CompressionCodec.Decompressor[] decompressors = new CompressionCodec.Decompressor[256];
+    private ByteInput delegate;
+    private CompressionCodec.Decompressor decompressor;
+    private byte[] block = new byte[CompressingByteOutput.BLOCK_SIZE];
+    private byte[] compressed = new byte[CompressingByteOutput.BLOCK_SIZE];
+    private int position;
+    private int limit;
+    private boolean ended;
+
+    DecompressingByteInput(final CompressionCodec configuredCodec) {
+        this.configuredCodec = configuredCodec;
+    }
+
+    void start(final ByteInput delegate) throws IOException {
+        final int id = delegate.read();
+        if (id == -1) {
+            throw new StreamCorruptedException("Missing compression codec ID");
+        }
+        CompressionCodec.Decompressor decompressor = decompressors[id];
+        if (decompressor == null) {
+            decompressor = decompressors[id] = findCodec(id).createDecompressor();
+        }
+        this.decompressor = decompressor;
+        this.delegate = delegate;
+        position = limit = 0;
+        ended = false;
+    }
+
+    void release() {
+        final CompressionCodec.Decompressor decompressor = this.decompressor;
+        if (decompressor != null) {
+            decompressor.release();
+        }
+        delegate = null;
+        this.decompressor = null;
+        position = limit = 0;
+    }
+
+    private CompressionCodec findCodec(final int id) throws StreamCorruptedException {
+        final CompressionCodec configuredCodec = this.configuredCodec;
+        if (configuredCodec.getId() == id) {
+            return configuredCodec;
+        }
+        if (id == DeflateCompressionCodec.ID) {
+            return new DeflateCompressionCodec();
+        }
+        for (CompressionCodec codec : ServiceLoader.load(CompressionCodec.class, configuredCodec.getClass().getClassLoader())) {
+            if (codec.getId() == id) {
+                return codec;
+            }
+        }
+        throw new StreamCorruptedException("Unknown compression codec ID " + id);
+    }
+
+    public int read() throws IOException {
+        if (position == limit && ! fill()) {
+            return -1;
+        }
+        return block[position ++] & 0xff;
+    }
+
+    public int read(final byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position == limit && ! fill()) {
+            return -1;
+        }
+        final int cnt = Math.min(len, limit - position);
+        System.arraycopy(block, position, b, off, cnt);
+        position += cnt;
+        return cnt;
+    }
+
+    public int available() throws IOException {
+        return limit - position;
+    }
+
+    public long skip(final long n) throws IOException {
+        if (n <= 0L || position == limit && ! fill()) {
+            return 0L;
+        }
+        final int cnt = (int) Math.min(n, limit - position);
+        position += cnt;
+        return cnt;
+    }
+
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    private boolean fill() throws IOException {
+        // skip empty blocks
+        do {
+            if (ended) {
+                return false;
+            }
+            final ByteInput delegate = this.delegate;
+            final int type = delegate.read();
+            switch (type) {
+                case -1:
+                case BLOCK_END: {
+                    ended = true;
+                    return false;
+                }
+                case BLOCK_STORED: {
+                    final int len = readLength();
+                    final byte[] block = ensureBlock(len);
+                    Marshalling.readFully(delegate, block, 0, len);
+                    limit = len;
+                    break;
+                }
+                case BLOCK_COMPRESSED: {
+                    final int len = readLength();
+                    final int clen = readLength();
+                    final byte[] block = ensureBlock(len);
+                    byte[] compressed = this.compressed;
+                    if (compressed.length < clen) {
+                        this.compressed = compressed = new byte[clen];
+                    }
+                    Marshalling.readFully(delegate, compressed, 0, clen);
+                    decompressor.decompress(compressed, 0, clen, block, 0, len);
+                    limit = len;
+                    break;
+                }
+                default: {
+                    throw new StreamCorruptedException("Invalid compressed block type " + type);
+                }
+            }
+            position = 0;
+        } while (limit == 0);
+        return true;
+    }
+
+    private byte[] ensureBlock(final int len) {
+        byte[] block = this.block;
+        if (block.length < len) {
+            this.block = block = new byte[len];
+        }
+        return block;
+    }
+
+    private int readLength() throws IOException {
+        int val = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = delegate.read();
+            if (b == -1) {
+                throw new StreamCorruptedException("Truncated compressed block");
+            }
+            val |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                if (val < 0 || val > MAX_BLOCK_SIZE) {
+                    throw new StreamCorruptedException("Invalid compressed block length " + val);
+                }
+                return val;
+            }
+        }
+        throw new StreamCorruptedException("Invalid compressed block length");
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The built-in compression codec, which uses the raw Deflate format of {@link Deflater} and {@link Inflater}.
+ * <p>
+ * A compressor or decompressor holds its native {@code Deflater} or {@code Inflater} only while a stream is being
+ * written or read.  Released instances are kept in a small shared pool for the next stream, and any beyond that are
+ * {@linkplain Deflater#end() ended} at once, so idle marshallers and unmarshallers hold no native memory.
+ */
+public final class DeflateCompressionCodec implements CompressionCodec {
+
+    /**
+     * The ID of this codec.
+     */
+    public static final int ID = 1;
+
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+    private static final ArrayBlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<Deflater>(POOL_SIZE);
+    private static final ArrayBlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<Inflater>(POOL_SIZE);
+
+    private final int level;
+
+    /**
+     * Construct a new instance using the default compression level.
+     */
+    public DeflateCompressionCodec() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Construct a new instance.
+     *
+     * @param level the compression level, as accepted by {@link Deflater#setLevel(int)}
+     */
+    public DeflateCompressionCodec(final int level) {
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level " + level);
+        }
+        this.level = level;
+    }
+
+    /** {@inheritDoc} */
+    public int getId() {
+        return ID;
+    }
+
+    /** {@inheritDoc} */
+    public String getName() {
+        return "deflate";
+    }
+
+    /** {@inheritDoc} */
+    public Compressor createCompressor() {
+        return new Compressor() {
+            private Deflater deflater;
+
+            public int compress(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff, final int dstLen) {
+                Deflater deflater = this.deflater;
+                if (deflater == null) {
+                    deflater = deflaters.poll();
+                    if (deflater == null) {
+                        deflater = new Deflater(level, true);
+                    } else {
+                        // takes effect on the next call to deflate
+                        deflater.setLevel(level);
+                    }
+                    this.deflater = deflater;
+                }
+                deflater.reset();
+                deflater.setInput(src, srcOff, srcLen);
+                deflater.finish();
+                int len = 0;
+                while (! deflater.finished()) {
+                    if (len == dstLen) {
+                        return -1;
+                    }
+                    len += deflater.deflate(dst, dstOff + len, dstLen - len);
+                }
+                return len;
+            }
+
+            public void release() {
+                final Deflater deflater = this.deflater;
+                if (deflater != null) {
+                    this.deflater = null;
+                    deflater.reset();
+                    if (! deflaters.offer(deflater)) {
+                        deflater.end();
+                    }
+                }
+            }
+        };
+    }
+
+    /** {@inheritDoc} */
+    public Decompressor createDecompressor() {
+        return new Decompressor() {
+            private Inflater inflater;
+
+            public void decompress(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff, final int dstLen) throws IOException {
+                Inflater inflater = this.inflater;
+                if (inflater == null) {
+                    inflater = inflaters.poll();
+                    if (inflater == null) {
+                        inflater = new Inflater(true);
+                    }
+                    this.inflater = inflater;
+                }
+                inflater.reset();
+                inflater.setInput(src, srcOff, srcLen);
+                int len = 0;
+                try {
+                    while (len < dstLen) {
+                        final int res = inflater.inflate(dst, dstOff + len, dstLen - len);
+                        if (res == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                            break;
+                        }
+                        len += res;
+                    }
+                } catch (DataFormatException e) {
+                    final StreamCorruptedException sce = new StreamCorruptedException("Invalid compressed block");
+                    sce.initCause(e);
+                    throw sce;
+                }
+                if (len != dstLen || ! inflater.finished()) {
+                    throw new StreamCorruptedException("Compressed block does not match its length");
+                }
+            }
+
+            public void release() {
+                final Inflater inflater = this.inflater;
+                if (inflater != null) {
+                    this.inflater = null;
+                    inflater.reset();
+                    if (! inflaters.offer(inflater)) {
+                        inflater.end();
+                    }
+                }
+            }
+        };
+    }
+
+    public String toString() {
+        return "deflate compression codec (level " + level + ")";
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The JDK Flight Recorder events emitted by marshallers and unmarshallers.  This class links against {@code jdk.jfr},
+ * so it must only be used through {@link MarshallingEvents}, which does not load it unless that module is present.
+ * The per-stream events are disabled by default, because enabling them records one event for every stream and makes
+ * marshallers count the bytes written; the per-object events are only recorded above a threshold.
+ */
+final class FlightRecorderEvents {
+
+    private FlightRecorderEvents() {
+    }
+
+    static Object beginMarshal() {
+        final Marshal event = new Marshal();
+        if (! event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void commitMarshal(final Object event, final String marshallerClass, final int version, final long bytes) {
+        final Marshal marshal = (Marshal) event;
+        if (marshal.shouldCommit()) {
+            marshal.marshallerClass = marshallerClass;
+            marshal.version = version;
+            marshal.bytes = bytes;
+            marshal.commit();
+        }
+    }
+
+    static Object beginUnmarshal() {
+        final Unmarshal event = new Unmarshal();
+        if (! event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void commitUnmarshal(final Object event, final String unmarshallerClass, final int version, final long bytes) {
+        final Unmarshal unmarshal = (Unmarshal) event;
+        if (unmarshal.shouldCommit()) {
+            unmarshal.unmarshallerClass = unmarshallerClass;
+            unmarshal.version = version;
+            unmarshal.bytes = bytes;
+            unmarshal.commit();
+        }
+    }
+
+    static Object beginWriteObject() {
+        final WriteObject event = new WriteObject();
+        if (! event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void commitWriteObject(final Object event, final Object obj, final boolean unshared) {
+        final WriteObject writeObject = (WriteObject) event;
+        if (writeObject.shouldCommit()) {
+            writeObject.objectClass = obj == null ? null : obj.getClass();
+            writeObject.unshared = unshared;
+            writeObject.commit();
+        }
+    }
+
+    static Object beginReadObject() {
+        final ReadObject event = new ReadObject();
+        if (! event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void commitReadObject(final Object event, final Object obj, final boolean unshared) {
+        final ReadObject readObject = (ReadObject) event;
+        if (readObject.shouldCommit()) {
+            readObject.objectClass = obj == null ? null : obj.getClass();
+            readObject.unshared = unshared;
+            readObject.commit();
+        }
+    }
+
+    static Object beginResolveClass() {
+        final ResolveClass event = new ResolveClass();
+        if (! event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void commitResolveClass(final Object event, final String className, final String classResolver) {
+        final ResolveClass resolveClass = (ResolveClass) event;
+        if (resolveClass.shouldCommit()) {
+            resolveClass.className = className;
+            resolveClass.classResolver = classResolver;
+            resolveClass.commit();
+        }
+    }
+
+    static void filterRejection(final Class<?> filteredClass, final long arrayLength, final long depth, final long references, final long streamBytes, final String failure) {
+        final FilterRejection event = new FilterRejection();
+        if (event.shouldCommit()) {
+            event.filteredClass = filteredClass;
+            event.arrayLength = arrayLength;
+            event.depth = depth;
+            event.references = references;
+            event.streamBytes = streamBytes;
+            event.failure = failure;
+            event.commit();
+        }
+    }
+
+    @Name("org.jboss.marshalling.Marshal")
+    @Label("Marshal Stream")
+    @Category("JBoss Marshalling")
+    @Description("A stream written by a marshaller, from start to finish")
+    @StackTrace(false)
+    @Enabled(false)
+    static final class Marshal extends Event {
+        @Label("Marshaller Class")
+        String marshallerClass;
+
+        @Label("Version")
+        int version;
+
+        @Label("Bytes Written")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("org.jboss.marshalling.Unmarshal")
+    @Label("Unmarshal Stream")
+    @Category("JBoss Marshalling")
+    @Description("A stream read by an unmarshaller, from start to finish")
+    @StackTrace(false)
+    @Enabled(false)
+    static final class Unmarshal extends Event {
+        @Label("Unmarshaller Class")
+        String unmarshallerClass;
+
+        @Label("Version")
+        int version;
+
+        @Label("Bytes Read")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("org.jboss.marshalling.WriteObject")
+    @Label("Write Object")
+    @Category("JBoss Marshalling")
+    @Description("A slow call to writeObject, including the objects reachable from it")
+    @Threshold("20 ms")
+    static final class WriteObject extends Event {
+        @Label("Object Class")
+        Class<?> objectClass;
+
+        @Label("Unshared")
+        boolean unshared;
+    }
+
+    @Name("org.jboss.marshalling.ReadObject")
+    @Label("Read Object")
+    @Category("JBoss Marshalling")
+    @Description("A slow call to readObject, including the objects reachable from it")
+    @Threshold("20 ms")
+    static final class ReadObject extends Event {
+        @Label("Object Class")
+        Class<?> objectClass;
+
+        @Label("Unshared")
+        boolean unshared;
+    }
+
+    @Name("org.jboss.marshalling.ResolveClass")
+    @Label("Resolve Class")
+    @Category("JBoss Marshalling")
+    @Description("A class name from a stream resolved by the class resolver")
+    @Threshold("1 ms")
+    static final class ResolveClass extends Event {
+        @Label("Class Name")
+        String className;
+
+        @Label("Class Resolver")
+        String classResolver;
+    }
+
+    @Name("org.jboss.marshalling.FilterRejection")
+    @Label("Filter Rejection")
+    @Category("JBoss Marshalling")
+    @Description("An unmarshalling filter check which rejected its input or failed")
+    static final class FilterRejection extends Event {
+        @Label("Filtered Class")
+        Class<?> filteredClass;
+
+        @Label("Array Length")
+        long arrayLength;
+
+        @Label("Depth")
+        long depth;
+
+        @Label("References")
+        long references;
+
+        @Label("Stream Bytes")
+        @DataAmount
+        long streamBytes;
+
+        @Label("Failure")
+        String failure;
+    }
+}
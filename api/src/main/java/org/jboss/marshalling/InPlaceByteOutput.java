@@ -0,0 +1,49 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+/**
+ * A {@link ByteOutput} which can lend its own backing arrays to a writer, so that data is written directly into its
+ * final place instead of being staged in a separate buffer and copied.  {@link SimpleDataOutput} (and therefore every
+ * marshaller based on it) uses lent arrays as its buffer whenever its output implements this interface.
+ * <p>
+ * At most one array is lent at a time.  Data written into a lent array becomes part of the output only when it is
+ * committed.  Lending a new array ends the previous loan; writing to the output through any of the {@code write}
+ * methods also ends the current loan, and the written data follows the bytes committed so far.
+ */
+public interface InPlaceByteOutput extends ByteOutput {
+
+    /**
+     * Lend an array to the caller.  The caller may write to the array starting at index zero, and must then call
+     * {@link #commitArray(int)} to make the data part of the output.
+     *
+     * @param minLength the minimum length of the array
+     * @return the array, whose length is at least {@code minLength}, or {@code null} if no such array can be lent
+     */
+    byte[] lendArray(int minLength);
+
+    /**
+     * Commit the data in the currently lent array.  The given length may be increased by later calls as more of the
+     * array is filled, but must never decrease.
+     *
+     * @param length the number of bytes at the start of the array which are part of the output
+     * @throws IllegalStateException if no array is currently lent
+     */
+    void commitArray(int length);
+}
@@ -0,0 +1,151 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A bounded pool of marshallers and unmarshallers which share a single configuration.  Marshallers and unmarshallers
+ * are not thread-safe, but a pool may be shared by any number of threads: each thread borrows an instance, uses it
+ * exclusively, and then returns it.  Returned instances are {@linkplain Marshaller#finish() finished}, which discards
+ * their class and instance caches, so that no state leaks from one borrower to the next.  Instances returned while the pool is
+ * full are discarded.
+ * <p>
+ * The pool does not use thread-local storage and never blocks a borrower, so it is suitable for use from virtual
+ * threads.
+ */
+public final class MarshallerPool {
+    private final MarshallerFactory marshallerFactory;
+    private final MarshallingConfiguration configuration;
+    private final ArrayBlockingQueue<Marshaller> marshallers;
+    private final ArrayBlockingQueue<Unmarshaller> unmarshallers;
+
+    /**
+     * Construct a new instance.  The configuration is copied, so later changes to it do not affect the pool.
+     *
+     * @param marshallerFactory the marshaller factory to use to create new instances
+     * @param configuration the configuration of the created instances
+     * @param maxIdle the maximum number of idle marshallers and of idle unmarshallers to retain
+     */
+    public MarshallerPool(final MarshallerFactory marshallerFactory, final MarshallingConfiguration configuration, final int maxIdle) {
+        if (marshallerFactory == null) {
+            throw new IllegalArgumentException("marshallerFactory is null");
+        }
+        if (configuration == null) {
+            throw new IllegalArgumentException("configuration is null");
+        }
+        if (maxIdle < 1) {
+            throw new IllegalArgumentException("maxIdle must be at least 1");
+        }
+        this.marshallerFactory = marshallerFactory;
+        this.configuration = configuration.clone();
+        marshallers = new ArrayBlockingQueue<Marshaller>(maxIdle);
+        unmarshallers = new ArrayBlockingQueue<Unmarshaller>(maxIdle);
+    }
+
+    /**
+     * Borrow a marshaller from this pool, creating a new one if none is idle.  The marshaller must be returned with
+     * {@link #returnMarshaller(Marshaller)} once it is no longer in use.
+     *
+     * @return the marshaller
+     * @throws IOException if a new marshaller could not be created
+     */
+    public Marshaller borrowMarshaller() throws IOException {
+        final Marshaller marshaller = marshallers.poll();
+        return marshaller == null ? marshallerFactory.createMarshaller(configuration) : marshaller;
+    }
+
+    /**
+     * Return a marshaller to this pool.  The marshaller is finished, which flushes any buffered data to its
+     * current output and clears its caches.  If this fails, the marshaller is discarded.
+     *
+     * @param marshaller the marshaller, which must have been borrowed from this pool
+     * @throws IOException if finishing the marshaller failed
+     */
+    public void returnMarshaller(final Marshaller marshaller) throws IOException {
+        if (marshaller == null) {
+            return;
+        }
+        marshaller.finish();
+        marshallers.offer(marshaller);
+    }
+
+    /**
+     * Borrow an unmarshaller from this pool, creating a new one if none is idle.  The unmarshaller must be returned
+     * with {@link #returnUnmarshaller(Unmarshaller)} once it is no longer in use.
+     *
+     * @return the unmarshaller
+     * @throws IOException if a new unmarshaller could not be created
+     */
+    public Unmarshaller borrowUnmarshaller() throws IOException {
+        final Unmarshaller unmarshaller = unmarshallers.poll();
+        return unmarshaller == null ? marshallerFactory.createUnmarshaller(configuration) : unmarshaller;
+    }
+
+    /**
+     * Return an unmarshaller to this pool.  The unmarshaller is finished, which clears its caches.  If this fails,
+     * the unmarshaller is discarded.
+     *
+     * @param unmarshaller the unmarshaller, which must have been borrowed from this pool
+     * @throws IOException if finishing the unmarshaller failed
+     */
+    public void returnUnmarshaller(final Unmarshaller unmarshaller) throws IOException {
+        if (unmarshaller == null) {
+            return;
+        }
+        unmarshaller.finish();
+        unmarshallers.offer(unmarshaller);
+    }
+
+    /**
+     * Discard all idle marshallers and unmarshallers.
+     */
+    public void clear() {
+        marshallers.clear();
+        unmarshallers.clear();
+    }
+
+    /**
+     * Get the number of idle marshallers in this pool.
+     *
+     * @return the number of idle marshallers
+     */
+    public int getIdleMarshallerCount() {
+        return marshallers.size();
+    }
+
+    /**
+     * Get the number of idle unmarshallers in this pool.
+     *
+     * @return the number of idle unmarshallers
+     */
+    public int getIdleUnmarshallerCount() {
+        return unmarshallers.size();
+    }
+
+    /**
+     * Get a copy of the configuration used by this pool.
+     *
+     * @return the configuration
+     */
+    public MarshallingConfiguration getConfiguration() {
+        return configuration.clone();
+    }
+}
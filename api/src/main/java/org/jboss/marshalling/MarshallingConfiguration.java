@@ -45,6 +45,10 @@ public final class MarshallingConfiguration implements Cloneable {
     private int classCount = 64;
     private int bufferSize = 512;
     private int version = -1;
+    private boolean compiledFieldAccess;
+    private boolean statisticsEnabled;
+    private boolean variableLengthIntegers;
+    private CompressionCodec compressionCodec;
     private ObjectResolver objectPreResolver;
 
     /**
@@ -275,6 +279,93 @@ public final class MarshallingConfiguration implements Cloneable {
         this.version = version;
     }
 
+    /**
+     * Determine whether compiled field access is enabled.
+     *
+     * @return {@code true} if compiled field access is enabled, {@code false} otherwise
+     */
+    public boolean isCompiledFieldAccess() {
+        return compiledFieldAccess;
+    }
+
+    /**
+     * Set whether compiled field access is enabled.  If enabled, implementations which support it will copy the
+     * fields of serializable objects using a per-class compiled accessor rather than examining each field in turn.
+     * The stream format is not affected.
+     *
+     * @param compiledFieldAccess {@code true} to enable compiled field access, {@code false} to disable it
+     */
+    public void setCompiledFieldAccess(final boolean compiledFieldAccess) {
+        this.compiledFieldAccess = compiledFieldAccess;
+    }
+
+    /**
+     * Determine whether statistics collection is enabled.
+     *
+     * @return {@code true} if statistics collection is enabled, {@code false} otherwise
+     */
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    /**
+     * Set whether statistics collection is enabled.  If enabled, each marshaller and unmarshaller records
+     * {@link MarshallingStatistics} for the stream it is working on, and adds them to the totals of its factory when
+     * the stream is finished.
+     *
+     * @param statisticsEnabled {@code true} to enable statistics collection, {@code false} to disable it
+     */
+    public void setStatisticsEnabled(final boolean statisticsEnabled) {
+        this.statisticsEnabled = statisticsEnabled;
+    }
+
+    /**
+     * Determine whether variable-length integers are enabled.
+     *
+     * @return {@code true} if variable-length integers are enabled, {@code false} otherwise
+     */
+    public boolean isVariableLengthIntegers() {
+        return variableLengthIntegers;
+    }
+
+    /**
+     * Set whether variable-length integers are enabled.  If enabled, implementations which support it will write
+     * {@code int} and {@code long} field values in a variable-length form, which takes fewer bytes for values of small
+     * magnitude and more for very large ones.  The choice is recorded in the stream, so it need not be configured on
+     * the reading side.  For River, this requires protocol version 5 or later.
+     *
+     * @param variableLengthIntegers {@code true} to enable variable-length integers, {@code false} to disable them
+     */
+    public void setVariableLengthIntegers(final boolean variableLengthIntegers) {
+        this.variableLengthIntegers = variableLengthIntegers;
+    }
+
+    /**
+     * Get the compression codec.
+     *
+     * @return the compression codec, or {@code null} if streams are not compressed
+     */
+    public CompressionCodec getCompressionCodec() {
+        return compressionCodec;
+    }
+
+    /**
+     * Set the compression codec.  If set, marshallers compress the stream, including its header, in blocks using the
+     * given codec.  Compression must also be enabled on the reading side, but the reader need not use the same codec,
+     * since the codec used is recorded in the stream; codecs other than the configured codec and the built-in
+     * {@link DeflateCompressionCodec} are found with {@link java.util.ServiceLoader}.  Specify {@code null} to disable
+     * compression, which is the default.
+     * <p>
+     * A compressed stream cannot be told apart from an uncompressed one, so the reader only decompresses when a codec
+     * is configured on its own configuration, and then expects every stream to be compressed.  Writers and readers
+     * must therefore agree on whether compression is used; only the choice of codec is detected automatically.
+     *
+     * @param compressionCodec the compression codec, or {@code null} to disable compression
+     */
+    public void setCompressionCodec(final CompressionCodec compressionCodec) {
+        this.compressionCodec = compressionCodec;
+    }
+
     /**
      * Get the exception listener to use.
      *
@@ -398,10 +489,16 @@ public final class MarshallingConfiguration implements Cloneable {
         if (unmarshallingFilter != null) {
             builder.append("unmarshallingFilter=<").append(unmarshallingFilter).append("> ");
         }
+        if (compressionCodec != null) {
+            builder.append("compressionCodec=<").append(compressionCodec).append("> ");
+        }
         builder.append("instanceCount=").append(instanceCount);
         builder.append(" classCount=").append(classCount);
         builder.append(" bufferSize=").append(bufferSize);
         builder.append(" version=").append(version);
+        builder.append(" compiledFieldAccess=").append(compiledFieldAccess);
+        builder.append(" statisticsEnabled=").append(statisticsEnabled);
+        builder.append(" variableLengthIntegers=").append(variableLengthIntegers);
         return builder.toString();
     }
 }
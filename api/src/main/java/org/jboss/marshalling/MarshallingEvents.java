@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+/**
+ * The JDK Flight Recorder events emitted by marshallers and unmarshallers.  The events themselves are defined in
+ * {@link FlightRecorderEvents}, which is only loaded if the {@code jdk.jfr} module is visible to this class, so that
+ * marshalling also works on runtimes which do not include it.  Begin methods return {@code null} when the event is not
+ * enabled in any current recording, and the matching commit methods accept {@code null}.
+ */
+final class MarshallingEvents {
+    private static final boolean AVAILABLE;
+
+    static {
+        boolean available;
+        try {
+            Class.forName("jdk.jfr.Event", false, MarshallingEvents.class.getClassLoader());
+            available = true;
+        } catch (ClassNotFoundException | LinkageError | SecurityException e) {
+            available = false;
+        }
+        AVAILABLE = available;
+    }
+
+    private MarshallingEvents() {
+    }
+
+    static Object beginMarshal() {
+        return AVAILABLE ? FlightRecorderEvents.beginMarshal() : null;
+    }
+
+    static void commitMarshal(final Object event, final String marshallerClass, final int version, final long bytes) {
+        if (event != null) {
+            FlightRecorderEvents.commitMarshal(event, marshallerClass, version, bytes);
+        }
+    }
+
+    static Object beginUnmarshal() {
+        return AVAILABLE ? FlightRecorderEvents.beginUnmarshal() : null;
+    }
+
+    static void commitUnmarshal(final Object event, final String unmarshallerClass, final int version, final long bytes) {
+        if (event != null) {
+            FlightRecorderEvents.commitUnmarshal(event, unmarshallerClass, version, bytes);
+        }
+    }
+
+    static Object beginWriteObject() {
+        return AVAILABLE ? FlightRecorderEvents.beginWriteObject() : null;
+    }
+
+    static void commitWriteObject(final Object event, final Object obj, final boolean unshared) {
+        if (event != null) {
+            FlightRecorderEvents.commitWriteObject(event, obj, unshared);
+        }
+    }
+
+    static Object beginReadObject() {
+        return AVAILABLE ? FlightRecorderEvents.beginReadObject() : null;
+    }
+
+    static void commitReadObject(final Object event, final Object obj, final boolean unshared) {
+        if (event != null) {
+            FlightRecorderEvents.commitReadObject(event, obj, unshared);
+        }
+    }
+
+    static Object beginResolveClass() {
+        return AVAILABLE ? FlightRecorderEvents.beginResolveClass() : null;
+    }
+
+    static void commitResolveClass(final Object event, final String className, final String classResolver) {
+        if (event != null) {
+            FlightRecorderEvents.commitResolveClass(event, className, classResolver);
+        }
+    }
+
+    static void filterRejection(final Class<?> filteredClass, final long arrayLength, final long depth, final long references, final long streamBytes, final String failure) {
+        if (AVAILABLE) {
+            FlightRecorderEvents.filterRejection(filteredClass, arrayLength, depth, references, streamBytes, failure);
+        }
+    }
+}
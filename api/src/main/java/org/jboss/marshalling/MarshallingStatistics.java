@@ -0,0 +1,248 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+/**
+ * Counters describing the work done by marshallers or unmarshallers.  Each marshaller and unmarshaller which has
+ * {@linkplain MarshallingConfiguration#setStatisticsEnabled(boolean) statistics enabled} records the statistics of
+ * its current stream in its own instance, which is reset when a new stream is started, and adds them to the totals
+ * of its factory when the stream is finished.
+ * <p>
+ * Instances are only updated by the marshalling library itself; callers always receive a snapshot which does not
+ * change afterwards.
+ *
+ * @see AbstractMarshaller#getStatistics()
+ * @see AbstractUnmarshaller#getStatistics()
+ * @see AbstractMarshallerFactory#getMarshallingStatistics()
+ * @see AbstractMarshallerFactory#getUnmarshallingStatistics()
+ */
+public final class MarshallingStatistics {
+    private long streams;
+    private long bytes;
+    private long objects;
+    private long backReferences;
+    private long classDescriptors;
+    private long repeatedClassDescriptors;
+    private long classTableHits;
+    private long objectTableHits;
+    private long peakInstanceCacheSize;
+
+    MarshallingStatistics() {
+    }
+
+    private MarshallingStatistics(final MarshallingStatistics original) {
+        add(original);
+    }
+
+    /**
+     * Get the number of streams which were started.
+     *
+     * @return the number of streams
+     */
+    public long getStreams() {
+        return streams;
+    }
+
+    /**
+     * Get the number of bytes written to or consumed from the stream.
+     *
+     * @return the number of bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Get the number of object instances which were written or read in full, that is, which were entered into the
+     * instance cache.
+     *
+     * @return the number of objects
+     */
+    public long getObjects() {
+        return objects;
+    }
+
+    /**
+     * Get the number of back-references to previously written objects.
+     *
+     * @return the number of back-references
+     */
+    public long getBackReferences() {
+        return backReferences;
+    }
+
+    /**
+     * Get the number of new class descriptors which were entered into the class cache, including those written by
+     * the class table.
+     *
+     * @return the number of new class descriptors
+     */
+    public long getClassDescriptors() {
+        return classDescriptors;
+    }
+
+    /**
+     * Get the number of back-references to previously written class descriptors.
+     *
+     * @return the number of repeated class descriptors
+     */
+    public long getRepeatedClassDescriptors() {
+        return repeatedClassDescriptors;
+    }
+
+    /**
+     * Get the number of classes which were written or read by the configured {@link ClassTable}.
+     *
+     * @return the number of class table hits
+     */
+    public long getClassTableHits() {
+        return classTableHits;
+    }
+
+    /**
+     * Get the number of objects which were written or read by the configured {@link ObjectTable}.
+     *
+     * @return the number of object table hits
+     */
+    public long getObjectTableHits() {
+        return objectTableHits;
+    }
+
+    /**
+     * Get the largest number of entries held by the instance cache before it was cleared.
+     *
+     * @return the peak instance cache size
+     */
+    public long getPeakInstanceCacheSize() {
+        return peakInstanceCacheSize;
+    }
+
+    /**
+     * Record the start of a stream.
+     */
+    void recordStream() {
+        streams ++;
+    }
+
+    /**
+     * Record bytes written to or consumed from the stream.
+     *
+     * @param count the number of bytes
+     */
+    void recordBytes(final long count) {
+        bytes += count;
+    }
+
+    /**
+     * Record the contents of an instance cache which is about to be cleared.
+     *
+     * @param size the number of entries in the instance cache
+     */
+    void recordInstanceCache(final int size) {
+        objects += size;
+        if (size > peakInstanceCacheSize) {
+            peakInstanceCacheSize = size;
+        }
+    }
+
+    /**
+     * Record the contents of a class cache which is about to be cleared.
+     *
+     * @param size the number of entries in the class cache
+     */
+    void recordClassCache(final int size) {
+        classDescriptors += size;
+    }
+
+    /**
+     * Record a back-reference to a previously written object.
+     */
+    void recordBackReference() {
+        backReferences ++;
+    }
+
+    /**
+     * Record a back-reference to a previously written class descriptor.
+     */
+    void recordRepeatedClassDescriptor() {
+        repeatedClassDescriptors ++;
+    }
+
+    /**
+     * Record a class written or read by the class table.
+     */
+    void recordClassTableHit() {
+        classTableHits ++;
+    }
+
+    /**
+     * Record an object written or read by the object table.
+     */
+    void recordObjectTableHit() {
+        objectTableHits ++;
+    }
+
+    /**
+     * Add the given statistics to this instance.  The peak instance cache size becomes the larger of the two peaks.
+     *
+     * @param other the statistics to add
+     */
+    void add(final MarshallingStatistics other) {
+        streams += other.streams;
+        bytes += other.bytes;
+        objects += other.objects;
+        backReferences += other.backReferences;
+        classDescriptors += other.classDescriptors;
+        repeatedClassDescriptors += other.repeatedClassDescriptors;
+        classTableHits += other.classTableHits;
+        objectTableHits += other.objectTableHits;
+        peakInstanceCacheSize = Math.max(peakInstanceCacheSize, other.peakInstanceCacheSize);
+    }
+
+    /**
+     * Reset all counters to zero.
+     */
+    void reset() {
+        streams = 0L;
+        bytes = 0L;
+        objects = 0L;
+        backReferences = 0L;
+        classDescriptors = 0L;
+        repeatedClassDescriptors = 0L;
+        classTableHits = 0L;
+        objectTableHits = 0L;
+        peakInstanceCacheSize = 0L;
+    }
+
+    /**
+     * Create a copy of this instance.
+     *
+     * @return the copy
+     */
+    MarshallingStatistics copy() {
+        return new MarshallingStatistics(this);
+    }
+
+    public String toString() {
+        return "MarshallingStatistics: streams=" + streams + " bytes=" + bytes + " objects=" + objects
+            + " backReferences=" + backReferences + " classDescriptors=" + classDescriptors
+            + " repeatedClassDescriptors=" + repeatedClassDescriptors + " classTableHits=" + classTableHits
+            + " objectTableHits=" + objectTableHits + " peakInstanceCacheSize=" + peakInstanceCacheSize;
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Marshals the elements of a large list in parallel, by splitting the list into segments which are each written on a
+ * {@link ForkJoinPool} by a marshaller of their own.  The segments are written one after another into a framed
+ * container, which may be read back one segment at a time or with all of the segments read in parallel.
+ * <p>
+ * Each segment is a complete stream with its own instance and class caches, so the elements of different segments
+ * must be independent: an object which is reachable from elements of more than one segment is written once for each
+ * of them, and is read back as a separate copy in each.  Within a segment, references are shared as usual.
+ * <p>
+ * The container consists of a header giving the number of segments and elements, and then for each segment the
+ * number of its elements and the length of its stream, followed by the stream itself.  The counts and lengths are
+ * checked against each other as the container is read, and storage grows with the data actually read rather than
+ * being allocated from the header, so a corrupt or hostile header fails with a {@code StreamCorruptedException} or an
+ * {@code EOFException}.  Instances are thread-safe.
+ */
+public final class ParallelMarshalling {
+    private static final int MAGIC = 0x4a4d5053;
+    private static final int VERSION = 1;
+    // segment streams longer than this are read in chunks of this size, so that a false length cannot exhaust the heap
+    private static final int CHUNK_SIZE = 0x100000;
+
+    private final MarshallerPool pool;
+    private final ForkJoinPool forkJoinPool;
+    private final int segmentSize;
+
+    /**
+     * Construct a new instance.  The configuration is copied, so later changes to it do not affect this instance.
+     *
+     * @param marshallerFactory the marshaller factory to use for each segment
+     * @param configuration the configuration of the marshallers and unmarshallers
+     * @param forkJoinPool the pool on which the segments are written and read
+     * @param segmentSize the maximum number of elements in a segment
+     */
+    public ParallelMarshalling(final MarshallerFactory marshallerFactory, final MarshallingConfiguration configuration, final ForkJoinPool forkJoinPool, final int segmentSize) {
+        if (forkJoinPool == null) {
+            throw new IllegalArgumentException("forkJoinPool is null");
+        }
+        if (segmentSize < 1) {
+            throw new IllegalArgumentException("segmentSize must be at least 1");
+        }
+        pool = new MarshallerPool(marshallerFactory, configuration, forkJoinPool.getParallelism());
+        this.forkJoinPool = forkJoinPool;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Write the given elements as a container of segments.  The segments are written to the output in order, each as
+     * soon as it and all of the segments before it are complete.  The list must not be modified until this method
+     * returns.
+     *
+     * @param output the output to write the container to
+     * @param elements the elements to write
+     * @throws IOException if an element could not be written
+     */
+    public void write(final ByteOutput output, final List<?> elements) throws IOException {
+        final int size = elements.size();
+        final int segmentSize = this.segmentSize;
+        final int segmentCount = (int) (((long) size + segmentSize - 1) / segmentSize);
+        final List<ForkJoinTask<byte[]>> tasks = new ArrayList<ForkJoinTask<byte[]>>(segmentCount);
+        try {
+            for (int start = 0; start < size; start += segmentSize) {
+                final List<?> segment = elements.subList(start, Math.min(size, start + segmentSize));
+                tasks.add(forkJoinPool.submit(() -> writeSegment(segment)));
+            }
+            final byte[] header = new byte[16];
+            putInt(header, 0, MAGIC);
+            putInt(header, 4, VERSION);
+            putInt(header, 8, segmentCount);
+            putInt(header, 12, size);
+            output.write(header);
+            for (int i = 0; i < segmentCount; i ++) {
+                final byte[] bytes = join(tasks.get(i));
+                putInt(header, 0, Math.min(segmentSize, size - i * segmentSize));
+                putInt(header, 4, bytes.length);
+                output.write(header, 0, 8);
+                output.write(bytes);
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            for (ForkJoinTask<byte[]> task : tasks) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    private byte[] writeSegment(final List<?> segment) throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final Marshaller marshaller = pool.borrowMarshaller();
+        boolean ok = false;
+        try {
+            marshaller.start(Marshalling.createByteOutput(os));
+            for (Object element : segment) {
+                marshaller.writeObject(element);
+            }
+            ok = true;
+        } finally {
+            if (ok) {
+                pool.returnMarshaller(marshaller);
+            } else {
+                discard(marshaller);
+            }
+        }
+        return os.toByteArray();
+    }
+
+    /**
+     * Read a container of segments, reading and unmarshalling one segment at a time on the calling thread.
+     *
+     * @param input the input to read the container from
+     * @return the elements, in the order they were written
+     * @throws ClassNotFoundException if the class of an element cannot be found
+     * @throws IOException if an error occurs
+     */
+    public List<Object> read(final ByteInput input) throws ClassNotFoundException, IOException {
+        final byte[] header = new byte[16];
+        final int segmentCount = readHeader(input, header);
+        int remaining = getInt(header, 12);
+        final List<Object> elements = new ArrayList<Object>();
+        for (int i = 0; i < segmentCount; i ++) {
+            final int count = readSegmentHeader(input, header, remaining);
+            remaining -= count;
+            elements.addAll(readSegment(readSegmentBytes(input, getInt(header, 4)), count));
+        }
+        checkEnd(remaining);
+        return elements;
+    }
+
+    /**
+     * Read a container of segments, unmarshalling all of the segments in parallel.  The segments are read from the
+     * input on the calling thread, and each is handed to the pool as soon as it has been read.
+     *
+     * @param input the input to read the container from
+     * @return the elements, in the order they were written
+     * @throws ClassNotFoundException if the class of an element cannot be found
+     * @throws IOException if an error occurs
+     */
+    public List<Object> readParallel(final ByteInput input) throws ClassNotFoundException, IOException {
+        final byte[] header = new byte[16];
+        final int segmentCount = readHeader(input, header);
+        int remaining = getInt(header, 12);
+        final List<ForkJoinTask<List<Object>>> tasks = new ArrayList<ForkJoinTask<List<Object>>>();
+        try {
+            for (int i = 0; i < segmentCount; i ++) {
+                final int count = readSegmentHeader(input, header, remaining);
+                remaining -= count;
+                final byte[] bytes = readSegmentBytes(input, getInt(header, 4));
+                tasks.add(forkJoinPool.submit(() -> readSegment(bytes, count)));
+            }
+            checkEnd(remaining);
+            final List<Object> elements = new ArrayList<Object>();
+            for (ForkJoinTask<List<Object>> task : tasks) {
+                elements.addAll(join(task));
+            }
+            return elements;
+        } finally {
+            for (ForkJoinTask<List<Object>> task : tasks) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    private List<Object> readSegment(final byte[] bytes, final int count) throws ClassNotFoundException, IOException {
+        // the count has been checked against the container, but not against the segment stream
+        final List<Object> elements = new ArrayList<Object>(Math.min(count, bytes.length));
+        final Unmarshaller unmarshaller = pool.borrowUnmarshaller();
+        boolean ok = false;
+        try {
+            unmarshaller.start(Marshalling.createByteInput(ByteBuffer.wrap(bytes)));
+            for (int i = 0; i < count; i ++) {
+                elements.add(unmarshaller.readObject());
+            }
+            ok = true;
+        } finally {
+            if (ok) {
+                pool.returnUnmarshaller(unmarshaller);
+            } else {
+                discard(unmarshaller);
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Finish a marshaller or unmarshaller which failed, without returning it to the pool.  Any further failure is
+     * ignored, since the original exception is being thrown.
+     */
+    private static void discard(final Marshaller marshaller) {
+        try {
+            marshaller.finish();
+        } catch (IOException | RuntimeException ignored) {
+        }
+    }
+
+    private static void discard(final Unmarshaller unmarshaller) {
+        try {
+            unmarshaller.finish();
+        } catch (IOException | RuntimeException ignored) {
+        }
+    }
+
+    private static int readSegmentHeader(final ByteInput input, final byte[] header, final int remaining) throws IOException {
+        Marshalling.readFully(input, header, 0, 8);
+        final int count = getInt(header, 0);
+        if (count < 0 || count > remaining) {
+            throw new StreamCorruptedException("Invalid segment element count " + count);
+        }
+        if (getInt(header, 4) < 0) {
+            throw new StreamCorruptedException("Invalid segment length " + getInt(header, 4));
+        }
+        return count;
+    }
+
+    private static byte[] readSegmentBytes(final ByteInput input, final int length) throws IOException {
+        byte[] bytes = new byte[Math.min(length, CHUNK_SIZE)];
+        int position = 0;
+        for (;;) {
+            Marshalling.readFully(input, bytes, position, bytes.length - position);
+            position = bytes.length;
+            if (position == length) {
+                return bytes;
+            }
+            // only grow once the data has actually arrived
+            bytes = Arrays.copyOf(bytes, (int) Math.min(length, (long) position << 1));
+        }
+    }
+
+    private static void checkEnd(final int remaining) throws StreamCorruptedException {
+        if (remaining != 0) {
+            throw new StreamCorruptedException("Segment container is missing " + remaining + " elements");
+        }
+    }
+
+    private static int readHeader(final ByteInput input, final byte[] header) throws IOException {
+        Marshalling.readFully(input, header);
+        if (getInt(header, 0) != MAGIC) {
+            throw new StreamCorruptedException("Not a segment container");
+        }
+        if (getInt(header, 4) != VERSION) {
+            throw new StreamCorruptedException("Unsupported segment container version " + getInt(header, 4));
+        }
+        final int segmentCount = getInt(header, 8);
+        if (segmentCount < 0 || getInt(header, 12) < 0) {
+            throw new StreamCorruptedException("Invalid segment container header");
+        }
+        return segmentCount;
+    }
+
+    private static <T> T join(final ForkJoinTask<T> task) throws ClassNotFoundException, IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a segment");
+        } catch (ExecutionException e) {
+            // tasks submitted as callables have checked exceptions wrapped in a plain RuntimeException
+            Throwable cause = e.getCause();
+            while (cause != null && cause.getClass() == RuntimeException.class && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof ClassNotFoundException) {
+                throw (ClassNotFoundException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static void putInt(final byte[] bytes, final int offs, final int value) {
+        bytes[offs] = (byte) (value >> 24);
+        bytes[offs + 1] = (byte) (value >> 16);
+        bytes[offs + 2] = (byte) (value >> 8);
+        bytes[offs + 3] = (byte) value;
+    }
+
+    private static int getInt(final byte[] bytes, final int offs) {
+        return (bytes[offs] & 0xff) << 24 | (bytes[offs + 1] & 0xff) << 16 | (bytes[offs + 2] & 0xff) << 8 | bytes[offs + 3] & 0xff;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A class table built from a versioned list of class names, typically produced by a {@link ClassTableRecorder}.  Each
+ * class is written as its index in the list, using one byte for the first 128 classes and two bytes for the rest.
+ * <p>
+ * A new version of a table only ever appends classes to the previous version, so the index of a class never changes
+ * and a peer using a newer version of a table can read streams written with an older version.  A peer using an older
+ * version will fail to read classes which were added later, so peers must be upgraded in that order.
+ * <p>
+ * Tables are stored as UTF-8 text: a {@code version} line followed by one class name per line.  Blank lines and lines
+ * starting with {@code #} are ignored.  Classes which cannot be loaded are never written, and reading one fails with
+ * a {@code ClassNotFoundException}.
+ */
+public final class RecordedClassTable implements ClassTable {
+
+    /**
+     * The maximum number of classes in a table.
+     */
+    public static final int MAX_SIZE = 0x8000;
+
+    private static final String VERSION_PREFIX = "version ";
+
+    private final int version;
+    private final String[] names;
+    private final Class<?>[] classes;
+    private final Map<Class<?>, Writer> writers;
+
+    RecordedClassTable(final int version, final String[] names, final Class<?>[] classes) {
+        if (names.length > MAX_SIZE) {
+            throw new IllegalArgumentException("Class table is too large (limit is " + MAX_SIZE + " classes)");
+        }
+        this.version = version;
+        this.names = names;
+        this.classes = classes;
+        writers = new IdentityHashMap<Class<?>, Writer>(classes.length);
+        for (int i = 0; i < classes.length; i ++) {
+            final Class<?> clazz = classes[i];
+            if (clazz != null && ! writers.containsKey(clazz)) {
+                writers.put(clazz, new IndexWriter(i));
+            }
+        }
+    }
+
+    /**
+     * Construct a new instance.
+     *
+     * @param version the table version
+     * @param classNames the class names, in index order
+     * @param classLoader the class loader to load the classes from
+     */
+    public RecordedClassTable(final int version, final List<String> classNames, final ClassLoader classLoader) {
+        this(version, classNames.toArray(new String[0]), loadClasses(classNames, classLoader));
+    }
+
+    private static Class<?>[] loadClasses(final List<String> classNames, final ClassLoader classLoader) {
+        final Class<?>[] classes = new Class<?>[classNames.size()];
+        for (int i = 0; i < classes.length; i ++) {
+            try {
+                classes[i] = Class.forName(classNames.get(i), false, classLoader);
+            } catch (ClassNotFoundException | LinkageError ignored) {
+                // never written; fails if read
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Load a class table which was stored with {@link #store(OutputStream)}.  The stream is not closed.
+     *
+     * @param inputStream the stream to read from
+     * @param classLoader the class loader to load the classes from
+     * @return the class table
+     * @throws IOException if the stream could not be read or is not a valid class table
+     */
+    public static RecordedClassTable load(final InputStream inputStream, final ClassLoader classLoader) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        int version = -1;
+        final List<String> classNames = new ArrayList<String>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (version == -1) {
+                if (! line.startsWith(VERSION_PREFIX)) {
+                    throw new StreamCorruptedException("Class table does not start with a version");
+                }
+                try {
+                    version = Integer.parseInt(line.substring(VERSION_PREFIX.length()).trim());
+                } catch (NumberFormatException e) {
+                    throw new StreamCorruptedException("Invalid class table version: " + line);
+                }
+            } else {
+                classNames.add(line);
+            }
+        }
+        if (version == -1) {
+            throw new StreamCorruptedException("Class table does not start with a version");
+        }
+        return new RecordedClassTable(version, classNames, classLoader);
+    }
+
+    /**
+     * Store this class table.  The stream is flushed but not closed.
+     *
+     * @param outputStream the stream to write to
+     * @throws IOException if the stream could not be written
+     */
+    public void store(final OutputStream outputStream) throws IOException {
+        final java.io.Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        writer.write("# JBoss Marshalling class table\n");
+        writer.write(VERSION_PREFIX + version + "\n");
+        for (String name : names) {
+            writer.write(name);
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /**
+     * Get the version of this class table.
+     *
+     * @return the version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the class names of this table, in index order.
+     *
+     * @return the class names
+     */
+    public List<String> getClassNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * Get the number of classes in this table.
+     *
+     * @return the number of classes
+     */
+    public int size() {
+        return names.length;
+    }
+
+    Class<?>[] getClasses() {
+        return classes;
+    }
+
+    /** {@inheritDoc} */
+    public Writer getClassWriter(final Class<?> clazz) throws IOException {
+        return writers.get(clazz);
+    }
+
+    /** {@inheritDoc} */
+    public Class<?> readClass(final Unmarshaller unmarshaller) throws IOException, ClassNotFoundException {
+        int idx = unmarshaller.readUnsignedByte();
+        if ((idx & 0x80) != 0) {
+            idx = (idx & 0x7f) << 8 | unmarshaller.readUnsignedByte();
+        }
+        if (idx >= names.length) {
+            throw new StreamCorruptedException("Class table index " + idx + " is not in version " + version + " of the class table");
+        }
+        final Class<?> clazz = classes[idx];
+        if (clazz == null) {
+            throw new ClassNotFoundException(names[idx]);
+        }
+        return clazz;
+    }
+
+    static final class IndexWriter implements Writer {
+        private final int idx;
+
+        IndexWriter(final int idx) {
+            this.idx = idx;
+        }
+
+        public void writeClass(final Marshaller marshaller, final Class<?> clazz) throws IOException {
+            if (idx < 0x80) {
+                marshaller.writeByte(idx);
+            } else {
+                marshaller.writeByte(0x80 | idx >> 8);
+                marshaller.writeByte(idx);
+            }
+        }
+    }
+}
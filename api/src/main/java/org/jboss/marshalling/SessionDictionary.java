@@ -0,0 +1,314 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A dictionary of classes, strings and enum constants which is shared by two peers for the lifetime of a session, so
+ * that each of them is sent in full only once per session rather than once per stream.  The dictionary is exposed as a
+ * {@linkplain #getClassTable() class table} and an {@linkplain #getObjectTable() object table} which are set on the
+ * configuration of the marshallers and unmarshallers of the session.
+ * <p>
+ * Each direction of a session needs its own pair of dictionaries: one used by the marshallers of the sending peer and
+ * one used by the unmarshallers of the receiving peer.  The sending dictionary learns an entry the first time it is
+ * written and assigns it the next index, and the receiving dictionary learns it from the definition in the stream,
+ * so the two stay synchronized as long as every stream written is read, in order, by the receiving peer.  Definitions
+ * carry their index and the dictionary epoch, so a receiving dictionary which has fallen out of step fails with a
+ * {@code StreamCorruptedException} instead of returning the wrong entry.  If a stream is lost or fails part way
+ * through, both dictionaries must be {@linkplain #reset() reset}, which starts a new epoch.
+ * <p>
+ * Classes written through the class table are sent without their field descriptions, so as with any class table both
+ * peers must have the same version of each class.  A receiving dictionary resolves learned classes with the class
+ * resolver given to it, which should be the class resolver of the unmarshallers' configuration.  A sending dictionary
+ * learns only the strings accepted by its string policy; since every learned string occupies an entry for the rest of
+ * the session, the policy should only accept strings which recur, such as method names, rather than data values.
+ * Once the dictionary is full, new entries are written as they would be without it.  Dictionaries are not
+ * thread-safe; a session must not write, or read, more than one stream at a time.
+ */
+public final class SessionDictionary {
+    private static final int KIND_CLASS = 0;
+    private static final int KIND_STRING = 1;
+    private static final int KIND_ENUM = 2;
+
+    private final int maxEntries;
+    private final Predicate<? super String> stringPolicy;
+    private final ClassResolver classResolver;
+    private final Map<Object, Integer> indexes = new HashMap<Object, Integer>();
+    private final List<Object> entries = new ArrayList<Object>();
+    private int epoch;
+
+    private final ClassTable classTable = new ClassTable() {
+        public Writer getClassWriter(final Class<?> clazz) throws IOException {
+            return isLearnable(clazz) ? classWriter : null;
+        }
+
+        public Class<?> readClass(final Unmarshaller unmarshaller) throws IOException, ClassNotFoundException {
+            final Object entry = readEntry(unmarshaller);
+            if (! (entry instanceof Class)) {
+                throw new StreamCorruptedException("Session dictionary entry is not a class");
+            }
+            return (Class<?>) entry;
+        }
+    };
+
+    private final ClassTable.Writer classWriter = new ClassTable.Writer() {
+        public void writeClass(final Marshaller marshaller, final Class<?> clazz) throws IOException {
+            if (writeReference(marshaller, clazz)) {
+                return;
+            }
+            marshaller.writeByte(KIND_CLASS);
+            marshaller.writeUTF(clazz.getName());
+        }
+    };
+
+    private final ObjectTable objectTable = new ObjectTable() {
+        public Writer getObjectWriter(final Object object) throws IOException {
+            return isLearnable(object) ? objectWriter : null;
+        }
+
+        public Object readObject(final Unmarshaller unmarshaller) throws IOException, ClassNotFoundException {
+            final Object entry = readEntry(unmarshaller);
+            if (entry instanceof Class) {
+                throw new StreamCorruptedException("Session dictionary entry is a class");
+            }
+            return entry;
+        }
+    };
+
+    private final ObjectTable.Writer objectWriter = new ObjectTable.Writer() {
+        public void writeObject(final Marshaller marshaller, final Object object) throws IOException {
+            if (writeReference(marshaller, object)) {
+                return;
+            }
+            if (object instanceof String) {
+                marshaller.writeByte(KIND_STRING);
+                marshaller.writeUTF((String) object);
+            } else {
+                final Enum<?> theEnum = (Enum<?>) object;
+                marshaller.writeByte(KIND_ENUM);
+                marshaller.writeObject(theEnum.getDeclaringClass());
+                marshaller.writeUTF(theEnum.name());
+            }
+        }
+    };
+
+    /**
+     * Construct a new instance which learns every string up to the given length.
+     *
+     * @param maxEntries the maximum number of entries in the dictionary
+     * @param maxStringLength the maximum length of strings to learn, or 0 to learn only classes and enum constants
+     * @param classResolver the class resolver used to load the classes of a receiving dictionary
+     */
+    public SessionDictionary(final int maxEntries, final int maxStringLength, final ClassResolver classResolver) {
+        this(maxEntries, maxStringLength == 0 ? null : lengthPolicy(maxStringLength), classResolver);
+    }
+
+    /**
+     * Construct a new instance.
+     *
+     * @param maxEntries the maximum number of entries in the dictionary
+     * @param stringPolicy the predicate which decides which strings a sending dictionary learns, or {@code null} to
+     *      learn only classes and enum constants
+     * @param classResolver the class resolver used to load the classes of a receiving dictionary
+     */
+    public SessionDictionary(final int maxEntries, final Predicate<? super String> stringPolicy, final ClassResolver classResolver) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("maxEntries is negative");
+        }
+        if (classResolver == null) {
+            throw new IllegalArgumentException("classResolver is null");
+        }
+        this.maxEntries = maxEntries;
+        this.stringPolicy = stringPolicy;
+        this.classResolver = classResolver;
+    }
+
+    private static Predicate<String> lengthPolicy(final int maxStringLength) {
+        if (maxStringLength < 0) {
+            throw new IllegalArgumentException("maxStringLength is negative");
+        }
+        return string -> string.length() <= maxStringLength;
+    }
+
+    /**
+     * Get the class table view of this dictionary.
+     *
+     * @return the class table
+     */
+    public ClassTable getClassTable() {
+        return classTable;
+    }
+
+    /**
+     * Get the object table view of this dictionary.
+     *
+     * @return the object table
+     */
+    public ObjectTable getObjectTable() {
+        return objectTable;
+    }
+
+    /**
+     * Get the current epoch of this dictionary.
+     *
+     * @return the epoch
+     */
+    public int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Get the number of entries in this dictionary.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Discard all entries and start the next epoch.  Both dictionaries of a session direction must be reset together.
+     */
+    public void reset() {
+        reset(epoch + 1);
+    }
+
+    /**
+     * Discard all entries and start the given epoch.  This allows peers whose dictionaries have been reset a different
+     * number of times to agree on a new epoch.
+     *
+     * @param epoch the new epoch
+     */
+    public void reset(final int epoch) {
+        indexes.clear();
+        entries.clear();
+        this.epoch = epoch;
+    }
+
+    private boolean isLearnable(final Class<?> clazz) {
+        // a '/' in the name marks a hidden class
+        return (indexes.containsKey(clazz) || entries.size() < maxEntries) && ! clazz.isPrimitive() && clazz.getName().indexOf('/') == -1 && ! Proxy.isProxyClass(clazz);
+    }
+
+    private boolean isLearnable(final Object object) {
+        if (object instanceof String) {
+            if (! indexes.containsKey(object) && (stringPolicy == null || ! stringPolicy.test((String) object))) {
+                return false;
+            }
+        } else if (! (object instanceof Enum)) {
+            return false;
+        }
+        return indexes.containsKey(object) || entries.size() < maxEntries;
+    }
+
+    /**
+     * Write a reference to the given entry if it is known, or otherwise learn it and write the start of its definition.
+     *
+     * @return {@code true} if a reference was written, {@code false} if the definition must follow
+     */
+    private boolean writeReference(final Marshaller marshaller, final Object entry) throws IOException {
+        final Integer index = indexes.get(entry);
+        if (index != null) {
+            writePackedInt(marshaller, index.intValue() << 1);
+            return true;
+        }
+        final int newIndex = entries.size();
+        indexes.put(entry, Integer.valueOf(newIndex));
+        entries.add(entry);
+        writePackedInt(marshaller, newIndex << 1 | 1);
+        writePackedInt(marshaller, epoch);
+        return false;
+    }
+
+    private Object readEntry(final Unmarshaller unmarshaller) throws IOException, ClassNotFoundException {
+        final int v = readPackedInt(unmarshaller);
+        final int index = v >>> 1;
+        if ((v & 1) == 0) {
+            final Object entry = index < entries.size() ? entries.get(index) : null;
+            if (entry == null) {
+                throw new StreamCorruptedException("Session dictionary index " + index + " is not defined");
+            }
+            return entry;
+        }
+        final int streamEpoch = readPackedInt(unmarshaller);
+        if (streamEpoch != epoch) {
+            throw new StreamCorruptedException("Session dictionary epoch " + streamEpoch + " does not match local epoch " + epoch);
+        }
+        if (index != entries.size()) {
+            throw new StreamCorruptedException("Session dictionary is out of sync (expected index " + entries.size() + ", got " + index + ")");
+        }
+        // reserve the index first, since the definition of an enum constant may contain the definition of its class
+        entries.add(null);
+        final Object entry;
+        switch (unmarshaller.readUnsignedByte()) {
+            case KIND_CLASS: {
+                // as for a plain class, there is no serialVersionUID to check
+                entry = classResolver.resolveClass(unmarshaller, unmarshaller.readUTF(), 0L);
+                break;
+            }
+            case KIND_STRING: {
+                entry = unmarshaller.readUTF();
+                break;
+            }
+            case KIND_ENUM: {
+                final Class<?> enumClass = unmarshaller.readObject(Class.class);
+                entry = valueOf(enumClass.asSubclass(Enum.class), unmarshaller.readUTF());
+                break;
+            }
+            default: {
+                throw new StreamCorruptedException("Invalid session dictionary entry kind");
+            }
+        }
+        entries.set(index, entry);
+        return entry;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object valueOf(final Class<? extends Enum> enumClass, final String name) {
+        return Enum.valueOf(enumClass, name);
+    }
+
+    private static void writePackedInt(final Marshaller marshaller, int v) throws IOException {
+        while ((v & ~0x7f) != 0) {
+            marshaller.writeByte(v & 0x7f | 0x80);
+            v >>>= 7;
+        }
+        marshaller.writeByte(v);
+    }
+
+    private static int readPackedInt(final Unmarshaller unmarshaller) throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = unmarshaller.readUnsignedByte();
+            v |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new StreamCorruptedException("Invalid packed integer");
+    }
+}
@@ -21,12 +21,19 @@ package org.jboss.marshalling;
 import java.io.DataInput;
 import java.io.EOFException;
 import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Objects;
 
 /**
  * A simple base implementation of {@link DataInput} which wraps a {@link ByteInput}.  This implementation maintains
  * an internal buffer.
  */
 public class SimpleDataInput extends ByteInputStream implements DataInput {
+    private static final VarHandle SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
 
     /**
      * The internal buffer.
@@ -207,6 +214,45 @@ public class SimpleDataInput extends ByteInputStream implements DataInput {
         }
     }
 
+    /**
+     * Ensure that the given number of bytes is available in the buffer, reading more data if necessary, and consume
+     * them.  The caller may then read the consumed bytes directly from the {@link #buffer}.
+     *
+     * @param count the number of bytes to consume, which must not be greater than the buffer size
+     * @return the offset of the consumed bytes within the buffer
+     * @throws IOException if an I/O error occurs, or if the end of stream is reached
+     */
+    protected int require(final int count) throws IOException {
+        int limit = this.limit;
+        if (limit == -1) {
+            throw eofOnRead();
+        }
+        final int position = this.position;
+        int remaining = limit - position;
+        if (remaining >= count) {
+            this.position = position + count;
+            return position;
+        }
+        final byte[] buffer = this.buffer;
+        if (remaining > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        }
+        final ByteInput byteInput = this.byteInput;
+        do {
+            final int bytesRead = byteInput.read(buffer, remaining, buffer.length - remaining);
+            if (bytesRead == -1) {
+                this.position = 0;
+                this.limit = remaining;
+                throw eofOnRead();
+            }
+            totalBytesRead += bytesRead;
+            remaining += bytesRead;
+        } while (remaining < count);
+        this.limit = remaining;
+        this.position = count;
+        return 0;
+    }
+
     /** {@inheritDoc} */
     public int skipBytes(final int n) throws IOException {
         if (n < 0) {
@@ -384,6 +430,180 @@ public class SimpleDataInput extends ByteInputStream implements DataInput {
         return Double.longBitsToDouble(readLongDirect());
     }
 
+    /**
+     * Read short values into a portion of an array, in the same format as successive calls to {@link #readShort()}.
+     *
+     * @param v the array
+     * @param off the offset into the array
+     * @param len the number of values to read
+     * @throws IOException if an I/O error occurs, or if the end of stream is reached
+     */
+    public void readShorts(final short[] v, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, v.length);
+        final byte[] buffer = this.buffer;
+        while (len > 0) {
+            final int position = this.position;
+            final int cnt = Math.min(len, (limit - position) >> 1);
+            if (cnt <= 0) {
+                // value spans a buffer boundary (or stream is at EOF)
+                v[off ++] = readShort();
+                len --;
+                continue;
+            }
+            for (int i = 0; i < cnt; i ++) {
+                v[off + i] = (short) SHORT.get(buffer, position + (i << 1));
+            }
+            this.position = position + (cnt << 1);
+            off += cnt;
+            len -= cnt;
+        }
+    }
+
+    /**
+     * Read char values into a portion of an array, in the same format as successive calls to {@link #readChar()}.
+     *
+     * @param v the array
+     * @param off the offset into the array
+     * @param len the number of values to read
+     * @throws IOException if an I/O error occurs, or if the end of stream is reached
+     */
+    public void readChars(final char[] v, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, v.length);
+        final byte[] buffer = this.buffer;
+        while (len > 0) {
+            final int position = this.position;
+            final int cnt = Math.min(len, (limit - position) >> 1);
+            if (cnt <= 0) {
+                // value spans a buffer boundary (or stream is at EOF)
+                v[off ++] = readChar();
+                len --;
+                continue;
+            }
+            for (int i = 0; i < cnt; i ++) {
+                v[off + i] = (char) (short) SHORT.get(buffer, position + (i << 1));
+            }
+            this.position = position + (cnt << 1);
+            off += cnt;
+            len -= cnt;
+        }
+    }
+
+    /**
+     * Read int values into a portion of an array, in the same format as successive calls to {@link #readInt()}.
+     *
+     * @param v the array
+     * @param off the offset into the array
+     * @param len the number of values to read
+     * @throws IOException if an I/O error occurs, or if the end of stream is reached
+     */
+    public void readInts(final int[] v, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, v.length);
+        final byte[] buffer = this.buffer;
+        while (len > 0) {
+            final int position = this.position;
+            final int cnt = Math.min(len, (limit - position) >> 2);
+            if (cnt <= 0) {
+                // value spans a buffer boundary (or stream is at EOF)
+                v[off ++] = readInt();
+                len --;
+                continue;
+            }
+            for (int i = 0; i < cnt; i ++) {
+                v[off + i] = (int) INT.get(buffer, position + (i << 2));
+            }
+            this.position = position + (cnt << 2);
+            off += cnt;
+            len -= cnt;
+        }
+    }
+
+    /**
+     * Read long values into a portion of an array, in the same format as successive calls to {@link #readLong()}.
+     *
+     * @param v the array
+     * @param off the offset into the array
+     * @param len the number of values to read
+     * @throws IOException if an I/O error occurs, or if the end of stream is reached
+     */
+    public void readLongs(final long[] v, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, v.length);
+        final byte[] buffer = this.buffer;
+        while (len > 0) {
+            final int position = this.position;
+            final int cnt = Math.min(len, (limit - position) >> 3);
+            if (cnt <= 0) {
+                // value spans a buffer boundary (or stream is at EOF)
+                v[off ++] = readLong();
+                len --;
+                continue;
+            }
+            for (int i = 0; i < cnt; i ++) {
+                v[off + i] = (long) LONG.get(buffer, position + (i << 3));
+            }
+            this.position = position + (cnt << 3);
+            off += cnt;
+            len -= cnt;
+        }
+    }
+
+    /**
+     * Read float values into a portion of an array, in the same format as successive calls to {@link #readFloat()}.
+     *
+     * @param v the array
+     * @param off the offset into the array
+     * @param len the number of values to read
+     * @throws IOException if an I/O error occurs, or if the end of stream is reached
+     */
+    public void readFloats(final float[] v, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, v.length);
+        final byte[] buffer = this.buffer;
+        while (len > 0) {
+            final int position = this.position;
+            final int cnt = Math.min(len, (limit - position) >> 2);
+            if (cnt <= 0) {
+                // value spans a buffer boundary (or stream is at EOF)
+                v[off ++] = readFloat();
+                len --;
+                continue;
+            }
+            for (int i = 0; i < cnt; i ++) {
+                v[off + i] = Float.intBitsToFloat((int) INT.get(buffer, position + (i << 2)));
+            }
+            this.position = position + (cnt << 2);
+            off += cnt;
+            len -= cnt;
+        }
+    }
+
+    /**
+     * Read double values into a portion of an array, in the same format as successive calls to {@link #readDouble()}.
+     *
+     * @param v the array
+     * @param off the offset into the array
+     * @param len the number of values to read
+     * @throws IOException if an I/O error occurs, or if the end of stream is reached
+     */
+    public void readDoubles(final double[] v, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, v.length);
+        final byte[] buffer = this.buffer;
+        while (len > 0) {
+            final int position = this.position;
+            final int cnt = Math.min(len, (limit - position) >> 3);
+            if (cnt <= 0) {
+                // value spans a buffer boundary (or stream is at EOF)
+                v[off ++] = readDouble();
+                len --;
+                continue;
+            }
+            for (int i = 0; i < cnt; i ++) {
+                v[off + i] = Double.longBitsToDouble((long) LONG.get(buffer, position + (i << 3)));
+            }
+            this.position = position + (cnt << 3);
+            off += cnt;
+            len -= cnt;
+        }
+    }
+
     /** {@inheritDoc} */
     public String readLine() throws IOException {
         throw new UnsupportedOperationException("readLine() not supported");
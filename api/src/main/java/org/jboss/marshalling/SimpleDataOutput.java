@@ -21,12 +21,20 @@ package org.jboss.marshalling;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.io.NotActiveException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Objects;
 
 /**
  * A simple base implementation of {@link DataOutput} which wraps a {@link ByteOutput}.  This implementation maintains
- * an internal buffer.
+ * an internal buffer.  If the wrapped output is an {@link InPlaceByteOutput} which is able to lend its own arrays,
+ * those arrays are used as the buffer instead, so that written data is not copied again when it is flushed.
  */
 public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
+    private static final VarHandle SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
 
     /**
      * The size of the internal buffer.
@@ -40,6 +48,10 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
      * The position in the buffer.
      */
     private int position;
+    /**
+     * The output which lent the buffer, or {@code null} if the buffer is owned by this instance.
+     */
+    private InPlaceByteOutput inPlaceOutput;
 
     /**
      * Construct a new instance.
@@ -60,7 +72,7 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
         super(byteOutput);
         this.byteOutput = byteOutput;
         this.bufferSize = bufferSize;
-        buffer = new byte[bufferSize];
+        buffer = allocateBuffer(byteOutput);
     }
 
     /**
@@ -72,6 +84,52 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
         this(8192, byteOutput);
     }
 
+    private byte[] allocateBuffer(final ByteOutput byteOutput) {
+        if (byteOutput instanceof InPlaceByteOutput) {
+            final InPlaceByteOutput inPlaceOutput = (InPlaceByteOutput) byteOutput;
+            final byte[] array = inPlaceOutput.lendArray(bufferSize);
+            if (array != null) {
+                this.inPlaceOutput = inPlaceOutput;
+                return array;
+            }
+        }
+        inPlaceOutput = null;
+        return new byte[bufferSize];
+    }
+
+    /**
+     * Make room at the start of the buffer.  Any buffered data is written out, and the buffer is replaced if it was
+     * lent by the output.
+     *
+     * @return the buffer, whose position is zero
+     * @throws IOException if an I/O error occurs
+     */
+    private byte[] drain() throws IOException {
+        final InPlaceByteOutput inPlaceOutput = this.inPlaceOutput;
+        if (inPlaceOutput == null) {
+            flush();
+            return buffer;
+        }
+        inPlaceOutput.commitArray(position);
+        position = 0;
+        final byte[] array = inPlaceOutput.lendArray(bufferSize);
+        if (array == null) {
+            this.inPlaceOutput = null;
+            return buffer = new byte[bufferSize];
+        }
+        return buffer = array;
+    }
+
+    /**
+     * Determine whether this instance is writing directly into arrays lent by an {@link InPlaceByteOutput}.  While this
+     * is the case, data must not be written to the {@link #byteOutput} directly.
+     *
+     * @return {@code true} if the buffer was lent by the output
+     */
+    protected boolean isWritingInPlace() {
+        return inPlaceOutput != null;
+    }
+
     private static NotActiveException notActiveException() {
         return new NotActiveException("Output not started");
     }
@@ -79,10 +137,10 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
     /** {@inheritDoc} */
     public void write(final int v) throws IOException {
         try {
-            final byte[] buffer = this.buffer;
+            byte[] buffer = this.buffer;
             final int position = this.position;
             if (position == buffer.length) {
-                flush();
+                buffer = drain();
                 buffer[0] = (byte) v;
                 this.position = 1;
             } else {
@@ -100,10 +158,25 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
     }
 
     /** {@inheritDoc} */
-    public void write(final byte[] bytes, final int off, int len) throws IOException {
+    public void write(final byte[] bytes, int off, int len) throws IOException {
         final int bl = buffer.length;
         final int position = this.position;
-        if (len > bl - position || len > bl >> 3) {
+        if (inPlaceOutput != null && len > bl - position) {
+            // fill lent arrays; the data is copied exactly once either way
+            int cnt = bl - position;
+            System.arraycopy(bytes, off, buffer, position, cnt);
+            this.position = bl;
+            off += cnt;
+            len -= cnt;
+            while (len > 0) {
+                final byte[] buffer = drain();
+                cnt = Math.min(len, buffer.length);
+                System.arraycopy(bytes, off, buffer, 0, cnt);
+                this.position = cnt;
+                off += cnt;
+                len -= cnt;
+            }
+        } else if (inPlaceOutput == null && (len > bl - position || len > bl >> 3)) {
             flush();
             byteOutput.write(bytes, off, len);
         } else {
@@ -115,10 +188,10 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
     /** {@inheritDoc} */
     public void writeBoolean(final boolean v) throws IOException {
         try {
-            final byte[] buffer = this.buffer;
+            byte[] buffer = this.buffer;
             final int remaining = buffer.length - position;
             if (remaining == 0) {
-                flush();
+                buffer = drain();
                 buffer[0] = (byte) (v ? 1 : 0);
                 position = 1;
             } else {
@@ -132,10 +205,10 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
     /** {@inheritDoc} */
     public void writeByte(final int v) throws IOException {
         try {
-            final byte[] buffer = this.buffer;
+            byte[] buffer = this.buffer;
             final int remaining = buffer.length - position;
             if (remaining == 0) {
-                flush();
+                buffer = drain();
                 buffer[0] = (byte) v;
                 position = 1;
             } else {
@@ -149,10 +222,10 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
     /** {@inheritDoc} */
     public void writeShort(final int v) throws IOException {
         try {
-            final byte[] buffer = this.buffer;
+            byte[] buffer = this.buffer;
             final int remaining = buffer.length - position;
             if (remaining < 2) {
-                flush();
+                buffer = drain();
                 buffer[0] = (byte) (v >> 8);
                 buffer[1] = (byte) v;
                 position = 2;
@@ -170,10 +243,10 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
     /** {@inheritDoc} */
     public void writeChar(final int v) throws IOException {
         try {
-            final byte[] buffer = this.buffer;
+            byte[] buffer = this.buffer;
             final int remaining = buffer.length - position;
             if (remaining < 2) {
-                flush();
+                buffer = drain();
                 buffer[0] = (byte) (v >> 8);
                 buffer[1] = (byte) v;
                 position = 2;
@@ -191,10 +264,10 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
     /** {@inheritDoc} */
     public void writeInt(final int v) throws IOException {
         try {
-            final byte[] buffer = this.buffer;
+            byte[] buffer = this.buffer;
             final int remaining = buffer.length - position;
             if (remaining < 4) {
-                flush();
+                buffer = drain();
                 buffer[0] = (byte) (v >> 24);
                 buffer[1] = (byte) (v >> 16);
                 buffer[2] = (byte) (v >> 8);
@@ -216,10 +289,10 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
     /** {@inheritDoc} */
     public void writeLong(final long v) throws IOException {
         try {
-            final byte[] buffer = this.buffer;
+            byte[] buffer = this.buffer;
             final int remaining = buffer.length - position;
             if (remaining < 8) {
-                flush();
+                buffer = drain();
                 buffer[0] = (byte) (v >> 56L);
                 buffer[1] = (byte) (v >> 48L);
                 buffer[2] = (byte) (v >> 40L);
@@ -250,10 +323,10 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
     public void writeFloat(final float v) throws IOException {
         final int bits = Float.floatToIntBits(v);
         try {
-            final byte[] buffer = this.buffer;
+            byte[] buffer = this.buffer;
             final int remaining = buffer.length - position;
             if (remaining < 4) {
-                flush();
+                buffer = drain();
                 buffer[0] = (byte) (bits >> 24);
                 buffer[1] = (byte) (bits >> 16);
                 buffer[2] = (byte) (bits >> 8);
@@ -278,7 +351,7 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
         try {
             final int remaining = buffer.length - position;
             if (remaining < 8) {
-                flush();
+                drain();
                 buffer[0] = (byte) (bits >> 56L);
                 buffer[1] = (byte) (bits >> 48L);
                 buffer[2] = (byte) (bits >> 40L);
@@ -305,6 +378,229 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
         }
     }
 
+    /**
+     * Write a portion of an array of short values, in the same format as successive calls to {@link #writeShort(int)}.
+     *
+     * @param v the array
+     * @param off the offset into the array
+     * @param len the number of values to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeShorts(final short[] v, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, v.length);
+        try {
+            while (len > 0) {
+                final byte[] buffer = this.buffer;
+                final int position = this.position;
+                final int cnt = Math.min(len, (buffer.length - position) >> 1);
+                if (cnt == 0) {
+                    // no room for a whole value; write it singly
+                    writeShort(v[off ++]);
+                    len --;
+                    continue;
+                }
+                for (int i = 0; i < cnt; i ++) {
+                    SHORT.set(buffer, position + (i << 1), v[off + i]);
+                }
+                this.position = position + (cnt << 1);
+                off += cnt;
+                len -= cnt;
+            }
+        } catch (NullPointerException e) {
+            throw notActiveException();
+        }
+    }
+
+    /**
+     * Write a portion of an array of char values, in the same format as successive calls to {@link #writeChar(int)}.
+     *
+     * @param v the array
+     * @param off the offset into the array
+     * @param len the number of values to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeChars(final char[] v, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, v.length);
+        try {
+            while (len > 0) {
+                final byte[] buffer = this.buffer;
+                final int position = this.position;
+                final int cnt = Math.min(len, (buffer.length - position) >> 1);
+                if (cnt == 0) {
+                    // no room for a whole value; write it singly
+                    writeChar(v[off ++]);
+                    len --;
+                    continue;
+                }
+                for (int i = 0; i < cnt; i ++) {
+                    SHORT.set(buffer, position + (i << 1), (short) v[off + i]);
+                }
+                this.position = position + (cnt << 1);
+                off += cnt;
+                len -= cnt;
+            }
+        } catch (NullPointerException e) {
+            throw notActiveException();
+        }
+    }
+
+    /**
+     * Write a portion of an array of int values, in the same format as successive calls to {@link #writeInt(int)}.
+     *
+     * @param v the array
+     * @param off the offset into the array
+     * @param len the number of values to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeInts(final int[] v, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, v.length);
+        try {
+            while (len > 0) {
+                final byte[] buffer = this.buffer;
+                final int position = this.position;
+                final int cnt = Math.min(len, (buffer.length - position) >> 2);
+                if (cnt == 0) {
+                    // no room for a whole value; write it singly
+                    writeInt(v[off ++]);
+                    len --;
+                    continue;
+                }
+                for (int i = 0; i < cnt; i ++) {
+                    INT.set(buffer, position + (i << 2), v[off + i]);
+                }
+                this.position = position + (cnt << 2);
+                off += cnt;
+                len -= cnt;
+            }
+        } catch (NullPointerException e) {
+            throw notActiveException();
+        }
+    }
+
+    /**
+     * Write a portion of an array of long values, in the same format as successive calls to {@link #writeLong(long)}.
+     *
+     * @param v the array
+     * @param off the offset into the array
+     * @param len the number of values to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeLongs(final long[] v, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, v.length);
+        try {
+            while (len > 0) {
+                final byte[] buffer = this.buffer;
+                final int position = this.position;
+                final int cnt = Math.min(len, (buffer.length - position) >> 3);
+                if (cnt == 0) {
+                    // no room for a whole value; write it singly
+                    writeLong(v[off ++]);
+                    len --;
+                    continue;
+                }
+                for (int i = 0; i < cnt; i ++) {
+                    LONG.set(buffer, position + (i << 3), v[off + i]);
+                }
+                this.position = position + (cnt << 3);
+                off += cnt;
+                len -= cnt;
+            }
+        } catch (NullPointerException e) {
+            throw notActiveException();
+        }
+    }
+
+    /**
+     * Write a portion of an array of float values, in the same format as successive calls to {@link #writeFloat(float)}.
+     *
+     * @param v the array
+     * @param off the offset into the array
+     * @param len the number of values to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeFloats(final float[] v, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, v.length);
+        try {
+            while (len > 0) {
+                final byte[] buffer = this.buffer;
+                final int position = this.position;
+                final int cnt = Math.min(len, (buffer.length - position) >> 2);
+                if (cnt == 0) {
+                    // no room for a whole value; write it singly
+                    writeFloat(v[off ++]);
+                    len --;
+                    continue;
+                }
+                for (int i = 0; i < cnt; i ++) {
+                    INT.set(buffer, position + (i << 2), Float.floatToIntBits(v[off + i]));
+                }
+                this.position = position + (cnt << 2);
+                off += cnt;
+                len -= cnt;
+            }
+        } catch (NullPointerException e) {
+            throw notActiveException();
+        }
+    }
+
+    /**
+     * Write a portion of an array of double values, in the same format as successive calls to {@link #writeDouble(double)}.
+     *
+     * @param v the array
+     * @param off the offset into the array
+     * @param len the number of values to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeDoubles(final double[] v, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, v.length);
+        try {
+            while (len > 0) {
+                final byte[] buffer = this.buffer;
+                final int position = this.position;
+                final int cnt = Math.min(len, (buffer.length - position) >> 3);
+                if (cnt == 0) {
+                    // no room for a whole value; write it singly
+                    writeDouble(v[off ++]);
+                    len --;
+                    continue;
+                }
+                for (int i = 0; i < cnt; i ++) {
+                    LONG.set(buffer, position + (i << 3), Double.doubleToLongBits(v[off + i]));
+                }
+                this.position = position + (cnt << 3);
+                off += cnt;
+                len -= cnt;
+            }
+        } catch (NullPointerException e) {
+            throw notActiveException();
+        }
+    }
+
+    /**
+     * Reserve space in the buffer for the given number of bytes, flushing the buffer if there is not enough room.  The
+     * caller must fill the reserved space in the {@link #buffer} before performing any other write operation.
+     *
+     * @param count the number of bytes to reserve, which must not be greater than the buffer size
+     * @return the offset of the reserved space within the buffer
+     * @throws IOException if an I/O error occurs
+     */
+    protected int reserve(final int count) throws IOException {
+        try {
+            final int remaining = buffer.length - position;
+            if (remaining < count) {
+                drain();
+                position = count;
+                return 0;
+            } else {
+                final int s = position;
+                position = s + count;
+                return s;
+            }
+        } catch (NullPointerException e) {
+            throw notActiveException();
+        }
+    }
+
     /** {@inheritDoc} */
     public void writeBytes(final String s) throws IOException {
         final int len = s.length();
@@ -331,7 +627,11 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
     public void flush() throws IOException {
         final int pos = position;
         final ByteOutput byteOutput = this.byteOutput;
-        if (byteOutput != null) {
+        final InPlaceByteOutput inPlaceOutput = this.inPlaceOutput;
+        if (inPlaceOutput != null) {
+            inPlaceOutput.commitArray(pos);
+            inPlaceOutput.flush();
+        } else if (byteOutput != null) {
             if (pos > 0) {
                 byteOutput.write(buffer, 0, pos);
             }
@@ -341,14 +641,18 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
     }
 
     /**
-     * This shallow flush will write the internal buffer out to the {@code ByteOutput}, but will not flush it.
+     * This shallow flush will write the internal buffer out to the {@code ByteOutput}, but will not flush it.  If the
+     * buffer was lent by the output, the buffered data is committed to it and remains in place.
      *
      * @throws java.io.IOException if an I/O error occurs
      */
     protected void shallowFlush() throws IOException {
         final int pos = position;
         final ByteOutput byteOutput = this.byteOutput;
-        if (byteOutput != null) {
+        final InPlaceByteOutput inPlaceOutput = this.inPlaceOutput;
+        if (inPlaceOutput != null) {
+            inPlaceOutput.commitArray(pos);
+        } else if (byteOutput != null) {
             if (pos > 0) {
                 byteOutput.write(buffer, 0, pos);
             }
@@ -364,7 +668,8 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
      */
     protected void start(ByteOutput byteOutput) throws IOException {
         this.byteOutput = byteOutput;
-        buffer = new byte[bufferSize];
+        position = 0;
+        buffer = allocateBuffer(byteOutput);
     }
 
     /**
@@ -379,6 +684,7 @@ public class SimpleDataOutput extends ByteOutputStream implements DataOutput {
         } finally {
             buffer = null;
             byteOutput = null;
+            inPlaceOutput = null;
         }
     }
 
@@ -0,0 +1,94 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * A marshaller which can write a collection or map whose elements are produced one at a time, such as the rows of a
+ * database cursor, without first gathering them into a collection or knowing how many there are.
+ * <p>
+ * The elements are written in chunks as they are produced, and are read back as an {@link java.util.ArrayList} or a
+ * {@link java.util.LinkedHashMap} by {@link Unmarshaller#readObject()}, or one at a time by a
+ * {@link StreamingUnmarshaller}.  Such collections need a protocol version which can represent them, which for River
+ * is version 6 or later; with an older version, an {@link IOException} is thrown before anything is written.
+ * <p>
+ * By default each element is written as a shared object, so it remains in the instance cache of both the marshaller
+ * and the unmarshaller until the instance cache is cleared or the stream is finished, like any other object written.
+ * A <em>bounded</em> collection instead clears the instance cache on both sides before its first chunk and after each
+ * chunk, so that only one chunk of elements is held at a time.  In exchange, an element can only refer to objects
+ * written in its own chunk: any other object it refers to, including objects written before the collection, is
+ * written again and read back as a separate copy, and the collection itself can never be referred to.
+ */
+public interface StreamingMarshaller extends Marshaller {
+
+    /**
+     * Write the remaining elements of the given iterator as a collection.
+     *
+     * @param elements the elements to write
+     * @throws IOException if an error occurs
+     */
+    void writeCollection(Iterator<?> elements) throws IOException;
+
+    /**
+     * Write the remaining elements of the given iterator as a collection, which is bounded if requested.
+     *
+     * @param elements the elements to write
+     * @param bounded {@code true} to clear the instance cache around each chunk of elements
+     * @throws IOException if an error occurs
+     */
+    void writeCollection(Iterator<?> elements, boolean bounded) throws IOException;
+
+    /**
+     * Write the elements of the given stream as a collection.  The stream is consumed in order, but is not closed.
+     *
+     * @param elements the elements to write
+     * @throws IOException if an error occurs
+     */
+    void writeCollection(Stream<?> elements) throws IOException;
+
+    /**
+     * Write the remaining entries of the given iterator as a map.  Duplicate keys are written as they are, so that
+     * the last value of each key wins when the map is read.
+     *
+     * @param entries the entries to write
+     * @throws IOException if an error occurs
+     */
+    void writeMap(Iterator<? extends Map.Entry<?, ?>> entries) throws IOException;
+
+    /**
+     * Write the remaining entries of the given iterator as a map, which is bounded if requested.
+     *
+     * @param entries the entries to write
+     * @param bounded {@code true} to clear the instance cache around each chunk of entries
+     * @throws IOException if an error occurs
+     */
+    void writeMap(Iterator<? extends Map.Entry<?, ?>> entries, boolean bounded) throws IOException;
+
+    /**
+     * Write the entries of the given stream as a map.  The stream is consumed in order, but is not closed.
+     *
+     * @param entries the entries to write
+     * @throws IOException if an error occurs
+     */
+    void writeMap(Stream<? extends Map.Entry<?, ?>> entries) throws IOException;
+}
@@ -0,0 +1,105 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+
+/**
+ * An unmarshaller which can read a collection or map one element at a time, as the elements are requested, instead of
+ * reading the whole collection before returning it.  This allows a very large collection to be processed without
+ * ever holding the collection itself in memory.
+ * <p>
+ * The returned iterator reads from this unmarshaller, so nothing else may be read from the unmarshaller until the
+ * iterator is exhausted, and other reads throw {@link IllegalStateException} until then;
+ * {@linkplain Unmarshaller#finish() finishing} the unmarshaller abandons the iterator.  Errors
+ * reading an element are thrown from {@link Iterator#next()} as an {@link java.io.UncheckedIOException}, with a
+ * {@link ClassNotFoundException} wrapped in an {@link java.io.InvalidClassException}.  The same applies to a
+ * spliterator, which may be turned into a stream with
+ * {@link java.util.stream.StreamSupport#stream(Spliterator, boolean)}.  The spliterator is meant for sequential use,
+ * since splitting it reads a batch of elements ahead into memory.
+ * <p>
+ * Elements which were already read are still resolved by back references, so every object read remains in the
+ * instance cache until the instance cache is cleared or the unmarshaller is finished.  The exception is a collection
+ * written as <em>bounded</em> by a {@link StreamingMarshaller}, for which the instance cache is cleared after each
+ * chunk of elements, so that only one chunk is held at a time.  The collection itself is never
+ * constructed, so it cannot be the target of a back reference, either from its own elements or from later objects.
+ * If the next object in the stream is not a collection of a kind which can be read incrementally, it is read in full
+ * and its elements are returned from it.
+ */
+public interface StreamingUnmarshaller extends Unmarshaller {
+
+    /**
+     * Read the next object, which must be a collection, and return an iterator which reads its elements on demand.
+     *
+     * @param elementType the element class
+     * @param <E> the element type
+     * @return the iterator over the elements
+     * @throws ClassNotFoundException if the class of the collection cannot be found
+     * @throws InvalidObjectException if the object is not a collection
+     * @throws IOException if an error occurs
+     */
+    <E> Iterator<E> readCollectionElements(Class<E> elementType) throws ClassNotFoundException, IOException;
+
+    /**
+     * Read the next object, which must be a map, and return an iterator which reads its entries on demand.  The
+     * returned entries cannot be modified.
+     *
+     * @param keyType the key class
+     * @param valueType the value class
+     * @param <K> the key type
+     * @param <V> the value type
+     * @return the iterator over the entries
+     * @throws ClassNotFoundException if the class of the map cannot be found
+     * @throws InvalidObjectException if the object is not a map
+     * @throws IOException if an error occurs
+     */
+    <K, V> Iterator<Map.Entry<K, V>> readMapEntries(Class<K> keyType, Class<V> valueType) throws ClassNotFoundException, IOException;
+
+    /**
+     * Read the next object, which must be a collection, and return an ordered spliterator which reads its elements on
+     * demand.  The spliterator reports its size unless the collection was written in chunks.
+     *
+     * @param elementType the element class
+     * @param <E> the element type
+     * @return the spliterator over the elements
+     * @throws ClassNotFoundException if the class of the collection cannot be found
+     * @throws InvalidObjectException if the object is not a collection
+     * @throws IOException if an error occurs
+     */
+    <E> Spliterator<E> readCollectionSpliterator(Class<E> elementType) throws ClassNotFoundException, IOException;
+
+    /**
+     * Read the next object, which must be a map, and return an ordered spliterator which reads its entries on demand.
+     * The spliterator reports its size unless the map was written in chunks.  The returned entries cannot be modified.
+     *
+     * @param keyType the key class
+     * @param valueType the value class
+     * @param <K> the key type
+     * @param <V> the value type
+     * @return the spliterator over the entries
+     * @throws ClassNotFoundException if the class of the map cannot be found
+     * @throws InvalidObjectException if the object is not a map
+     * @throws IOException if an error occurs
+     */
+    <K, V> Spliterator<Map.Entry<K, V>> readMapSpliterator(Class<K> keyType, Class<V> valueType) throws ClassNotFoundException, IOException;
+}
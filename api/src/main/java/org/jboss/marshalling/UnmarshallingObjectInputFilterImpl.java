@@ -19,10 +19,9 @@ package org.jboss.marshalling;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.function.Function;
+import java.util.Map;
 
 /**
  * {@link UnmarshallingObjectInputFilter} implementation that is configured by a JEPS 290 style {@code filterSpec}
@@ -61,12 +60,43 @@ import java.util.function.Function;
  * Rejecting elements can be used in an overall filter spec for an allowlist, for example to exclude a particular
  * class from a package that is otherwise allowed.
  * </p>
+ * <p>
+ * Elements are evaluated in order, and the first one which matches decides; exact class name elements are grouped so
+ * that all allowing and all rejecting exact names take effect at the position of the first of each.  The class
+ * elements are compiled into a trie over the package segments of the class name, and the decision for each class is
+ * computed once and cached, so that only the limit elements are evaluated for each object.
+ * </p>
  *
  * @author Brian Stansberry
  * @author <a href="mailto:ropalka@redhat.com">Richard Opalka</a>
  */
 final class UnmarshallingObjectInputFilterImpl implements UnmarshallingObjectInputFilter {
-    private final List<Function<FilterInfo, Status>> unmarshallingFilters;
+    private static final int NONE = Integer.MAX_VALUE;
+
+    private static final int MAX_DEPTH = 0;
+    private static final int MAX_ARRAY = 1;
+    private static final int MAX_REFS = 2;
+    private static final int MAX_BYTES = 3;
+
+    private static final ClassDecision UNDECIDED = new ClassDecision(NONE, Status.UNDECIDED);
+
+    // the class elements, by package segment
+    private final Node root = new Node();
+    // the class elements which are plain string prefixes, such as "*"
+    private final List<String> prefixes = new ArrayList<>();
+    private final List<Integer> prefixElements = new ArrayList<>();
+    // the status returned by each class element, by position
+    private final Map<Integer, Status> elementStatus = new HashMap<>();
+    // the limit elements, in order
+    private final int[] limitTypes;
+    private final long[] limitValues;
+    private final int[] limitElements;
+    private final ClassDecision nullClassDecision;
+    private final ClassValue<ClassDecision> decisions = new ClassValue<ClassDecision>() {
+        protected ClassDecision computeValue(final Class<?> type) {
+            return decide(type.getName());
+        }
+    };
 
     /**
      * Create a filter using the given {@code filterSpec}.
@@ -79,51 +109,108 @@ final class UnmarshallingObjectInputFilterImpl implements UnmarshallingObjectInp
             throw new IllegalArgumentException("Parameter 'filterSpec' may not be null");
         }
 
-        List<String> parsedFilterSpecs = new ArrayList<>(Arrays.asList(filterSpec.split(";")));
-        unmarshallingFilters = new ArrayList<>(parsedFilterSpecs.size());
-        ExactMatchFilter exactMatchAllowlist = null;
-        ExactMatchFilter exactMatchDenylist = null;
-
-        for (String spec : parsedFilterSpecs) {
+        final String[] parsedFilterSpecs = filterSpec.split(";");
+        final int[] limitTypes = new int[parsedFilterSpecs.length];
+        final long[] limitValues = new long[parsedFilterSpecs.length];
+        final int[] limitElements = new int[parsedFilterSpecs.length];
+        int limitCount = 0;
+        int exactAllowElement = NONE;
+        int exactDenyElement = NONE;
 
+        for (int element = 0; element < parsedFilterSpecs.length; element ++) {
+            String spec = parsedFilterSpecs[element];
             if (spec.contains("/")) {
                 // perhaps this is an attempt to pass a JEPS 290 style limit or module name pattern; not supported
                 throw invalidFilterSpec(spec);
             }
-            Function<FilterInfo, Status> filter;
-
             int eqPos = spec.indexOf('=');
             if (eqPos > -1) {
-                filter = parseLimitSpec(spec, eqPos);
-            } else {
-
-                filter = parseClassSpec(spec, exactMatchDenylist, exactMatchDenylist);
-                if ((exactMatchAllowlist == null || exactMatchDenylist == null) && filter instanceof ExactMatchFilter) {
-                    ExactMatchFilter exactMatch = (ExactMatchFilter) filter;
-                    if (exactMatch.isForAllowlist()) {
-                        exactMatchAllowlist = exactMatch;
-                    } else {
-                        exactMatchDenylist = exactMatch;
+                limitTypes[limitCount] = parseLimitType(spec, eqPos);
+                limitValues[limitCount] = parseLimitValue(spec, eqPos);
+                limitElements[limitCount] = element;
+                limitCount ++;
+                continue;
+            }
+            final boolean denylistElement = spec.startsWith("!");
+            if (denylistElement) {
+                if (spec.length() == 1) {
+                    throw invalidFilterSpec(spec);
+                }
+                spec = spec.substring(1);
+            }
+            final int lastStar = spec.lastIndexOf('*');
+            if (lastStar == -1) {
+                // exact matches are grouped at the position of the first one
+                if (denylistElement) {
+                    if (exactDenyElement == NONE) {
+                        exactDenyElement = element;
+                    }
+                    addClassElement(spec, exactDenyElement, Status.REJECTED);
+                } else {
+                    if (exactAllowElement == NONE) {
+                        exactAllowElement = element;
                     }
+                    addClassElement(spec, exactAllowElement, Status.ALLOWED);
                 }
+                continue;
+            }
+            if (lastStar != spec.length() - 1) {
+                // wildcards only allowed at the end
+                throw invalidFilterSpec(spec);
             }
-            if (filter != null) {
-                unmarshallingFilters.add(filter);
+            final Status status = denylistElement ? Status.REJECTED : Status.ALLOWED;
+            final int firstStar = spec.indexOf('*');
+            if (firstStar != lastStar) {
+                if (firstStar == lastStar - 1 && spec.endsWith(".**")) {
+                    if (spec.length() == 3) {
+                        throw invalidFilterSpec(spec);
+                    }
+                    addPackageElement(spec.substring(0, spec.length() - 3), true, element, status);
+                } else {
+                    // there's an extra star in some spot other than between a final '.' and '*'
+                    throw invalidFilterSpec(spec);
+                }
+            } else if (spec.endsWith(".*")) {
+                if (spec.length() == 2) {
+                    throw invalidFilterSpec(spec);
+                }
+                addPackageElement(spec.substring(0, spec.length() - 2), false, element, status);
+            } else {
+                // note that an empty prefix is ok; e.g. from a "*" spec to allow all
+                prefixes.add(spec.substring(0, spec.length() - 1));
+                prefixElements.add(element);
+                elementStatus.put(element, status);
             }
         }
 
-        if (unmarshallingFilters.size() == 0) {
+        if (parsedFilterSpecs.length == 0) {
             throw invalidFilterSpec(filterSpec);
         }
+        this.limitTypes = Arrays.copyOf(limitTypes, limitCount);
+        this.limitValues = Arrays.copyOf(limitValues, limitCount);
+        this.limitElements = Arrays.copyOf(limitElements, limitCount);
+        nullClassDecision = decide("");
+    }
 
+    private static int parseLimitType(String spec, int eqPos) {
+        switch (spec.substring(0, eqPos)) {
+            case "maxdepth":
+                return MAX_DEPTH;
+            case "maxarray":
+                return MAX_ARRAY;
+            case "maxrefs":
+                return MAX_REFS;
+            case "maxbytes":
+                return MAX_BYTES;
+            default:
+                throw invalidFilterSpec(spec);
+        }
     }
 
-    private Function<FilterInfo, Status> parseLimitSpec(String spec, int eqPos) {
-        String type = spec.substring(0, eqPos);
+    private static long parseLimitValue(String spec, int eqPos) {
         if (eqPos == spec.length() - 1) {
             throw invalidFilterSpec(spec);
         }
-        final Function<FilterInfo, Status> filter;
         final long value;
         try {
             value = Long.parseLong(spec.substring(eqPos + 1));
@@ -133,105 +220,83 @@ final class UnmarshallingObjectInputFilterImpl implements UnmarshallingObjectInp
         if (value < 0) {
             throw invalidFilterSpec(spec);
         }
-        switch (type) {
-            case "maxdepth":
-                filter = filterInfo -> filterInfo.getDepth() > value ? Status.REJECTED : Status.UNDECIDED;
-                break;
-            case "maxarray":
-                filter = filterInfo -> filterInfo.getArrayLength() > value ? Status.REJECTED : Status.UNDECIDED;
-                break;
-            case "maxrefs":
-                filter = filterInfo -> filterInfo.getReferences() > value ? Status.REJECTED : Status.UNDECIDED;
-                break;
-            case "maxbytes":
-                filter = filterInfo -> filterInfo.getStreamBytes() > value ? Status.REJECTED : Status.UNDECIDED;
-                break;
-            default:
-                throw invalidFilterSpec(spec);
-        }
-        return filter;
+        return value;
     }
 
-    private Function<FilterInfo, Status> parseClassSpec(String spec,
-                                                        ExactMatchFilter exactMatchDenylist,
-                                                        ExactMatchFilter exactMatchAllowlist) {
-        Function<FilterInfo, Status> filter = null;
-        boolean denylistElement = spec.startsWith("!");
-
-        // For a denylist element, return FALSE for a match; i.e. don't resolve
-        // For an allowlist, return TRUE for a match; i.e. definitely do resolve
-        // For any non-match, return null which means that check has no opinion
-        final Status matchReturn = denylistElement ? Status.REJECTED : Status.ALLOWED;
+    private void addClassElement(String className, int element, Status status) {
+        final int lastDot = className.lastIndexOf('.');
+        final Node node = lastDot == -1 ? root : root.getOrAdd(className.substring(0, lastDot));
+        node.classElements.merge(className.substring(lastDot + 1), Integer.valueOf(element), (a, b) -> a.intValue() <= b.intValue() ? a : b);
+        elementStatus.put(element, status);
+    }
 
-        if (denylistElement) {
-            if (spec.length() == 1) {
-                throw invalidFilterSpec(spec);
-            }
-            spec = spec.substring(1);
+    private void addPackageElement(String packageName, boolean subpackages, int element, Status status) {
+        final Node node = root.getOrAdd(packageName);
+        if (subpackages) {
+            node.subtreeElement = Math.min(node.subtreeElement, element);
+        } else {
+            node.packageElement = Math.min(node.packageElement, element);
         }
+        elementStatus.put(element, status);
+    }
 
-        int lastStar = spec.lastIndexOf('*');
-        if (lastStar >= 0) {
-            if (lastStar != spec.length() - 1) {
-                // wildcards only allowed at the end
-                throw invalidFilterSpec(spec);
+    private ClassDecision decide(String className) {
+        int element = NONE;
+        Node node = root;
+        int start = 0;
+        int dot;
+        while ((dot = className.indexOf('.', start)) != -1) {
+            node = node.children.get(className.substring(start, dot));
+            if (node == null) {
+                break;
             }
-            int firstStar = spec.indexOf('*');
-            if (firstStar != lastStar) {
-                if (firstStar == lastStar - 1 && spec.endsWith(".**")) {
-                    if (spec.length() == 3) {
-                        throw invalidFilterSpec(spec);
-                    }
-                    String pkg = spec.substring(0, spec.length() - 2);
-                    filter = filterInfo -> classNameFor(filterInfo).startsWith(pkg) ? matchReturn : Status.UNDECIDED;
-                } else {
-                    // there's an extra star in some spot other than between a final '.' and '*'
-                    throw invalidFilterSpec(spec);
-                }
-            } else if (spec.endsWith(".*")) {
-                if (spec.length() == 2) {
-                    throw invalidFilterSpec(spec);
-                }
-                String pkg = spec.substring(0, spec.length() - 1);
-                filter = filterInfo -> classNameFor(filterInfo).startsWith(pkg) && classNameFor(filterInfo).lastIndexOf('.') == pkg.length() - 1 ? matchReturn : Status.UNDECIDED;
-            } else {
-                String startsWith = spec.substring(0, spec.length() - 1); // note that an empty 'startsWith' is ok; e.g. from a "*" spec to allow all
-                filter = filterInfo -> classNameFor(filterInfo).startsWith(startsWith) ? matchReturn : Status.UNDECIDED;
+            // the class is in this package or one of its subpackages
+            element = Math.min(element, node.subtreeElement);
+            start = dot + 1;
+        }
+        if (node != null) {
+            // the class is directly in the package of this node
+            element = Math.min(element, node.packageElement);
+            final Integer classElement = node.classElements.get(className.substring(start));
+            if (classElement != null) {
+                element = Math.min(element, classElement.intValue());
             }
-        } else {
-            // For exact matches store them in a set and just do a single set.contains check
-            if (denylistElement) {
-                if (exactMatchDenylist == null) {
-                    filter = exactMatchDenylist = new ExactMatchFilter(false);
-                }
-                exactMatchDenylist.addMatchingClass(spec);
-            } else {
-                if (exactMatchAllowlist == null) {
-                    filter = exactMatchAllowlist = new ExactMatchFilter(true);
-                }
-                exactMatchAllowlist.addMatchingClass(spec);
+        }
+        for (int i = 0; i < prefixes.size(); i ++) {
+            if (className.startsWith(prefixes.get(i))) {
+                element = Math.min(element, prefixElements.get(i).intValue());
             }
         }
-        return filter;
+        return element == NONE ? UNDECIDED : new ClassDecision(element, elementStatus.get(element));
     }
 
     @Override
     public Status checkInput(FilterInfo filterInfo) {
-
-        for (Function<FilterInfo, Status> func : unmarshallingFilters) {
-            Status status = func.apply(filterInfo);
-            if (status != Status.UNDECIDED) {
-                return status;
-            }
-        }
-        return Status.UNDECIDED;
+        return checkInput(filterInfo.getUnmarshalledClass(), filterInfo.getArrayLength(), filterInfo.getDepth(), filterInfo.getReferences(), filterInfo.getStreamBytes());
     }
 
-    private static String classNameFor(FilterInfo filterInfo) {
-        if (filterInfo.getUnmarshalledClass() == null) {
-            return "";
+    /**
+     * Check the given input without a {@link FilterInfo}.
+     *
+     * @return the status
+     */
+    Status checkInput(Class<?> unmarshalledClass, long arrayLength, long depth, long references, long streamBytes) {
+        final ClassDecision decision = unmarshalledClass == null ? nullClassDecision : decisions.get(unmarshalledClass);
+        // limit elements before the class element which decides still apply
+        final int[] limitElements = this.limitElements;
+        for (int i = 0; i < limitElements.length && limitElements[i] < decision.element; i ++) {
+            final long value;
+            switch (limitTypes[i]) {
+                case MAX_DEPTH: value = depth; break;
+                case MAX_ARRAY: value = arrayLength; break;
+                case MAX_REFS: value = references; break;
+                default: value = streamBytes; break;
+            }
+            if (value > limitValues[i]) {
+                return Status.REJECTED;
+            }
         }
-        return filterInfo.getUnmarshalledClass().getName();
+        return decision.status;
     }
 
     private static IllegalArgumentException invalidFilterSpec(String spec) {
@@ -242,25 +307,34 @@ final class UnmarshallingObjectInputFilterImpl implements UnmarshallingObjectInp
         return new IllegalArgumentException(String.format("Invalid unmarshalling filter specification '%s'", spec), cause);
     }
 
-    private static class ExactMatchFilter implements Function<FilterInfo, Status> {
-        private final Set<String> matches = new HashSet<>();
-        private final Status matchResult;
-
-        private ExactMatchFilter(boolean forAllowlist) {
-            this.matchResult = forAllowlist ? Status.ALLOWED : Status.REJECTED;
-        }
+    /**
+     * The class elements for one package.
+     */
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        // the first element which matches the classes in this package
+        private int packageElement = NONE;
+        // the first element which matches the classes in this package and its subpackages
+        private int subtreeElement = NONE;
+        // the first element which matches each class in this package, by simple name
+        private final Map<String, Integer> classElements = new HashMap<>();
 
-        private void addMatchingClass(String name) {
-            matches.add(name);
+        Node getOrAdd(final String packageName) {
+            Node node = this;
+            for (String segment : packageName.split("\\.", -1)) {
+                node = node.children.computeIfAbsent(segment, ignored -> new Node());
+            }
+            return node;
         }
+    }
 
-        private boolean isForAllowlist() {
-            return matchResult == Status.ALLOWED;
-        }
+    private static final class ClassDecision {
+        private final int element;
+        private final Status status;
 
-        @Override
-        public Status apply(FilterInfo filterInfo) {
-            return matches.contains(classNameFor(filterInfo)) ? matchResult : Status.UNDECIDED;
+        ClassDecision(final int element, final Status status) {
+            this.element = element;
+            this.status = status;
         }
     }
 }
@@ -0,0 +1,117 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.reflect;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Finds the names of the classes in class path directories and JAR files.
+ */
+final class ClassPathScanner {
+    private ClassPathScanner() {
+    }
+
+    /**
+     * Add the names of the classes in a class path entry.
+     *
+     * @param file the class path entry, a directory or a JAR file
+     * @param classNames the list to add the class names to
+     * @throws IOException if the entry could not be read
+     */
+    static void scan(final File file, final List<String> classNames) throws IOException {
+        if (file.isDirectory()) {
+            scanDirectory(file, "", classNames);
+        } else {
+            try (JarFile jarFile = new JarFile(file)) {
+                scanJar(jarFile, "", classNames);
+            }
+        }
+    }
+
+    /**
+     * Add the names of the classes which a class loader finds in a package and its subpackages.
+     *
+     * @param classLoader the class loader
+     * @param packageName the package name
+     * @param classNames the list to add the class names to
+     * @throws IOException if a class path entry could not be read
+     */
+    static void scanPackage(final ClassLoader classLoader, final String packageName, final List<String> classNames) throws IOException {
+        final String path = packageName.replace('.', '/');
+        final Enumeration<URL> urls = classLoader.getResources(path);
+        while (urls.hasMoreElements()) {
+            final URL url = urls.nextElement();
+            if (url.getProtocol().equals("file")) {
+                try {
+                    scanDirectory(new File(url.toURI()), path + "/", classNames);
+                } catch (URISyntaxException e) {
+                    throw new IOException(e);
+                }
+            } else {
+                final URLConnection connection = url.openConnection();
+                if (connection instanceof JarURLConnection) {
+                    final JarURLConnection jarConnection = (JarURLConnection) connection;
+                    jarConnection.setUseCaches(false);
+                    try (JarFile jarFile = jarConnection.getJarFile()) {
+                        scanJar(jarFile, path + "/", classNames);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void scanDirectory(final File directory, final String prefix, final List<String> classNames) {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                scanDirectory(file, prefix + file.getName() + "/", classNames);
+            } else {
+                addClassName(prefix + file.getName(), classNames);
+            }
+        }
+    }
+
+    private static void scanJar(final JarFile jarFile, final String prefix, final List<String> classNames) {
+        final Enumeration<JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements()) {
+            final String name = entries.nextElement().getName();
+            if (name.startsWith(prefix)) {
+                addClassName(name, classNames);
+            }
+        }
+    }
+
+    private static void addClassName(final String path, final List<String> classNames) {
+        if (path.endsWith(".class") && ! path.startsWith("META-INF/") && ! path.endsWith("module-info.class") && ! path.endsWith("package-info.class")) {
+            classNames.add(path.substring(0, path.length() - 6).replace('/', '.'));
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.reflect;
+
+import static org.jboss.marshalling.reflect.SerializableField.unsafe;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.jboss.marshalling.util.Kind;
+
+/**
+ * A compiled form of a sequence of serializable fields, which copies field values directly between an object instance
+ * and a byte buffer.
+ * <p>
+ * The fields are divided into segments, each consisting of a run of primitive fields followed by at most one object
+ * field.  The primitive run of a segment has a fixed encoded length, so a caller can reserve the space once and then
+ * copy the whole run in a single call, using the same big-endian encoding as {@link java.io.DataOutput}.  Each field
+ * in the run is compiled to a type code, a buffer position and a field offset, held in flat arrays and copied by a
+ * single loop over a switch on the type code, so the field kind is resolved once, at compile time, and the copy loop
+ * has no virtual calls for the JIT to leave un-inlined.  The receiver is type-checked once per run rather than once
+ * per field.  Fields which are not {@linkplain SerializableField#isAccessible() accessible} are written as zero values
+ * and skipped when read.
+ * <p>
+ * Instances are immutable and may be shared between threads.
+ */
+public final class CompiledFields {
+    private static final VarHandle SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    // type codes of the primitive fields; the ZERO codes are fields which are not accessible
+    private static final byte T_BOOLEAN = 0;
+    private static final byte T_BYTE = 1;
+    private static final byte T_CHAR = 2;
+    private static final byte T_SHORT = 3;
+    private static final byte T_INT = 4;
+    private static final byte T_FLOAT = 5;
+    private static final byte T_LONG = 6;
+    private static final byte T_DOUBLE = 7;
+    private static final byte T_ZERO_1 = 8;
+    private static final byte T_ZERO_2 = 9;
+    private static final byte T_ZERO_4 = 10;
+    private static final byte T_ZERO_8 = 11;
+
+    private final Class<?> declaringClass;
+    // the primitive fields of segment i are at indexes runStarts[i] to runStarts[i + 1] - 1
+    private final int[] runStarts;
+    private final byte[] types;
+    private final int[] positions;
+    private final long[] offsets;
+    private final int[] runLengths;
+    private final SerializableField[] objectFields;
+    private final long[] objectOffsets;
+
+    private CompiledFields(final Class<?> declaringClass, final int[] runStarts, final byte[] types, final int[] positions, final long[] offsets, final int[] runLengths, final SerializableField[] objectFields) {
+        this.declaringClass = declaringClass;
+        this.runStarts = runStarts;
+        this.types = types;
+        this.positions = positions;
+        this.offsets = offsets;
+        this.runLengths = runLengths;
+        this.objectFields = objectFields;
+        objectOffsets = new long[objectFields.length];
+        for (int i = 0; i < objectFields.length; i ++) {
+            final SerializableField field = objectFields[i];
+            objectOffsets[i] = field == null || ! field.isAccessible() ? -1 : field.getFieldOffset();
+        }
+    }
+
+    /**
+     * Compile the given fields.  All accessible fields must belong to the same declaring class, and none may be
+     * a record component.
+     *
+     * @param fields the fields, in stream order
+     * @return the compiled fields
+     * @throws IllegalArgumentException if the fields cannot be compiled
+     */
+    public static CompiledFields compile(final SerializableField[] fields) throws IllegalArgumentException {
+        Class<?> declaringClass = null;
+        final int max = fields.length;
+        final byte[] types = new byte[max];
+        final int[] positions = new int[max];
+        final long[] offsets = new long[max];
+        final ArrayList<Integer> runStarts = new ArrayList<>();
+        final ArrayList<Integer> runLengths = new ArrayList<>();
+        final ArrayList<SerializableField> objectFields = new ArrayList<>();
+        int cnt = 0;
+        int runStart = 0;
+        int length = 0;
+        for (SerializableField field : fields) {
+            final long offset;
+            if (field.isAccessible()) {
+                final Class<?> fieldClass = field.getDeclaringClass();
+                if (declaringClass == null) {
+                    declaringClass = fieldClass;
+                } else if (declaringClass != fieldClass) {
+                    throw new IllegalArgumentException("Fields are declared on more than one class");
+                }
+                offset = field.getFieldOffset();
+                if (offset == -1) {
+                    throw new IllegalArgumentException("Field " + field.getName() + " has no field offset");
+                }
+            } else {
+                offset = -1;
+            }
+            final Kind kind = field.getKind();
+            if (kind == Kind.OBJECT) {
+                runStarts.add(Integer.valueOf(runStart));
+                runLengths.add(Integer.valueOf(length));
+                objectFields.add(field);
+                runStart = cnt;
+                length = 0;
+                continue;
+            }
+            final int size = sizeOf(kind);
+            final byte type;
+            if (offset == -1) {
+                switch (size) {
+                    case 1: type = T_ZERO_1; break;
+                    case 2: type = T_ZERO_2; break;
+                    case 4: type = T_ZERO_4; break;
+                    default: type = T_ZERO_8; break;
+                }
+            } else switch (kind) {
+                case BOOLEAN: type = T_BOOLEAN; break;
+                case BYTE:    type = T_BYTE; break;
+                case CHAR:    type = T_CHAR; break;
+                case SHORT:   type = T_SHORT; break;
+                case INT:     type = T_INT; break;
+                case FLOAT:   type = T_FLOAT; break;
+                case LONG:    type = T_LONG; break;
+                case DOUBLE:  type = T_DOUBLE; break;
+                default: throw new IllegalStateException();
+            }
+            types[cnt] = type;
+            positions[cnt] = length;
+            offsets[cnt] = offset;
+            cnt ++;
+            length += size;
+        }
+        if (runStart != cnt) {
+            runStarts.add(Integer.valueOf(runStart));
+            runLengths.add(Integer.valueOf(length));
+            objectFields.add(null);
+        }
+        final int segments = runStarts.size();
+        final int[] starts = new int[segments + 1];
+        final int[] lengths = new int[segments];
+        for (int i = 0; i < segments; i ++) {
+            starts[i] = runStarts.get(i).intValue();
+            lengths[i] = runLengths.get(i).intValue();
+        }
+        starts[segments] = cnt;
+        return new CompiledFields(declaringClass, starts, Arrays.copyOf(types, cnt), Arrays.copyOf(positions, cnt), Arrays.copyOf(offsets, cnt), lengths, objectFields.toArray(SerializableClass.NOFIELDS));
+    }
+
+    private static int sizeOf(Kind kind) {
+        switch (kind) {
+            case BOOLEAN:
+            case BYTE: return 1;
+            case CHAR:
+            case SHORT: return 2;
+            case INT:
+            case FLOAT: return 4;
+            case LONG:
+            case DOUBLE: return 8;
+            default: throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Get the number of segments.
+     *
+     * @return the number of segments
+     */
+    public int getSegmentCount() {
+        return runLengths.length;
+    }
+
+    /**
+     * Get the encoded length, in bytes, of the primitive run of the given segment.  The length may be zero.
+     *
+     * @param segment the segment index
+     * @return the encoded length
+     */
+    public int getPrimitiveLength(int segment) {
+        return runLengths[segment];
+    }
+
+    /**
+     * Get the object field which ends the given segment.
+     *
+     * @param segment the segment index
+     * @return the object field, or {@code null} if the segment has no object field
+     */
+    public SerializableField getObjectField(int segment) {
+        return objectFields[segment];
+    }
+
+    /**
+     * Copy the primitive run of the given segment from an instance into a buffer.
+     *
+     * @param segment the segment index
+     * @param instance the object instance (must not be {@code null}, must be of the correct type)
+     * @param buffer the target buffer
+     * @param offset the offset into the buffer at which to write
+     * @throws ClassCastException if {@code instance} is not of the correct type
+     * @throws IndexOutOfBoundsException if the buffer is too small
+     */
+    public void writePrimitives(int segment, Object instance, byte[] buffer, int offset) throws ClassCastException {
+        checkInstance(instance);
+        if (offset < 0 || offset > buffer.length - runLengths[segment]) {
+            throw new IndexOutOfBoundsException();
+        }
+        final byte[] types = this.types;
+        final int[] positions = this.positions;
+        final long[] offsets = this.offsets;
+        final int end = runStarts[segment + 1];
+        for (int i = runStarts[segment]; i < end; i ++) {
+            final int position = offset + positions[i];
+            final long fieldOffset = offsets[i];
+            switch (types[i]) {
+                case T_BOOLEAN: buffer[position] = (byte) (unsafe.getBoolean(instance, fieldOffset) ? 1 : 0); break;
+                case T_BYTE:    buffer[position] = unsafe.getByte(instance, fieldOffset); break;
+                case T_CHAR:    SHORT.set(buffer, position, (short) unsafe.getChar(instance, fieldOffset)); break;
+                case T_SHORT:   SHORT.set(buffer, position, unsafe.getShort(instance, fieldOffset)); break;
+                case T_INT:     INT.set(buffer, position, unsafe.getInt(instance, fieldOffset)); break;
+                // same canonical NaN handling as DataOutput.writeFloat and DataOutput.writeDouble
+                case T_FLOAT:   INT.set(buffer, position, Float.floatToIntBits(unsafe.getFloat(instance, fieldOffset))); break;
+                case T_LONG:    LONG.set(buffer, position, unsafe.getLong(instance, fieldOffset)); break;
+                case T_DOUBLE:  LONG.set(buffer, position, Double.doubleToLongBits(unsafe.getDouble(instance, fieldOffset))); break;
+                case T_ZERO_1:  buffer[position] = 0; break;
+                case T_ZERO_2:  SHORT.set(buffer, position, (short) 0); break;
+                case T_ZERO_4:  INT.set(buffer, position, 0); break;
+                case T_ZERO_8:  LONG.set(buffer, position, 0L); break;
+                default: throw new IllegalStateException();
+            }
+        }
+    }
+
+    /**
+     * Copy the primitive run of the given segment from a buffer into an instance.
+     *
+     * @param segment the segment index
+     * @param instance the object instance (must not be {@code null}, must be of the correct type)
+     * @param buffer the source buffer
+     * @param offset the offset into the buffer at which to read
+     * @throws ClassCastException if {@code instance} is not of the correct type
+     * @throws IndexOutOfBoundsException if the buffer is too small
+     */
+    public void readPrimitives(int segment, Object instance, byte[] buffer, int offset) throws ClassCastException {
+        checkInstance(instance);
+        if (offset < 0 || offset > buffer.length - runLengths[segment]) {
+            throw new IndexOutOfBoundsException();
+        }
+        final byte[] types = this.types;
+        final int[] positions = this.positions;
+        final long[] offsets = this.offsets;
+        final int end = runStarts[segment + 1];
+        for (int i = runStarts[segment]; i < end; i ++) {
+            final int position = offset + positions[i];
+            final long fieldOffset = offsets[i];
+            switch (types[i]) {
+                case T_BOOLEAN: unsafe.putBoolean(instance, fieldOffset, buffer[position] != 0); break;
+                case T_BYTE:    unsafe.putByte(instance, fieldOffset, buffer[position]); break;
+                case T_CHAR:    unsafe.putChar(instance, fieldOffset, (char) (short) SHORT.get(buffer, position)); break;
+                case T_SHORT:   unsafe.putShort(instance, fieldOffset, (short) SHORT.get(buffer, position)); break;
+                case T_INT:     unsafe.putInt(instance, fieldOffset, (int) INT.get(buffer, position)); break;
+                case T_FLOAT:   unsafe.putFloat(instance, fieldOffset, Float.intBitsToFloat((int) INT.get(buffer, position))); break;
+                case T_LONG:    unsafe.putLong(instance, fieldOffset, (long) LONG.get(buffer, position)); break;
+                case T_DOUBLE:  unsafe.putDouble(instance, fieldOffset, Double.longBitsToDouble((long) LONG.get(buffer, position))); break;
+                // missing field; data is discarded
+                case T_ZERO_1:
+                case T_ZERO_2:
+                case T_ZERO_4:
+                case T_ZERO_8:  break;
+                default: throw new IllegalStateException();
+            }
+        }
+    }
+
+    /**
+     * Get the value of the object field which ends the given segment.
+     *
+     * @param segment the segment index
+     * @param instance the object instance (must not be {@code null}, must be of the correct type)
+     * @return the field value, or {@code null} if the field is not accessible
+     * @throws ClassCastException if {@code instance} is not of the correct type
+     * @throws IllegalArgumentException if the segment has no object field
+     */
+    public Object getObject(int segment, Object instance) throws ClassCastException, IllegalArgumentException {
+        checkInstance(instance);
+        if (objectFields[segment] == null) {
+            throw new IllegalArgumentException("Segment has no object field");
+        }
+        final long offset = objectOffsets[segment];
+        return offset == -1 ? null : unsafe.getObject(instance, offset);
+    }
+
+    /**
+     * Set the value of the object field which ends the given segment.  The value is discarded if the field is not
+     * accessible.
+     *
+     * @param segment the segment index
+     * @param instance the object instance (must not be {@code null}, must be of the correct type)
+     * @param value the value to set
+     * @throws ClassCastException if {@code instance} or {@code value} is not of the correct type
+     * @throws IllegalArgumentException if the segment has no object field
+     */
+    public void setObject(int segment, Object instance, Object value) throws ClassCastException, IllegalArgumentException {
+        checkInstance(instance);
+        final SerializableField field = objectFields[segment];
+        if (field == null) {
+            throw new IllegalArgumentException("Segment has no object field");
+        }
+        final long offset = objectOffsets[segment];
+        if (offset != -1) {
+            field.getFieldType().cast(value);
+            unsafe.putObject(instance, offset, value);
+        }
+    }
+
+    private void checkInstance(final Object instance) {
+        if (instance == null) {
+            throw new IllegalArgumentException("instance is null");
+        }
+        if (declaringClass != null) {
+            declaringClass.cast(instance);
+        }
+    }
+}
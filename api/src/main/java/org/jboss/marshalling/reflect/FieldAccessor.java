@@ -0,0 +1,102 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.reflect;
+
+import static java.lang.System.getSecurityManager;
+import static java.security.AccessController.doPrivileged;
+
+import java.lang.reflect.Field;
+import java.security.PrivilegedAction;
+import java.util.logging.Logger;
+
+/**
+ * The means by which a {@link SerializableField} reads and writes its field.  The backend is selected with the
+ * {@code jboss.marshalling.field-access} system property: {@code unsafe} (the default) accesses fields by their offset
+ * with {@code sun.misc.Unsafe}, and {@code varhandle} uses {@code VarHandle}s from a private lookup in the declaring
+ * class, falling back to {@code Unsafe} for fields which are not open to this module.  An unrecognized value is
+ * logged and the default is used.
+ * <p>
+ * The callers have already checked that the instance is not {@code null} and that the field is of the accessed kind;
+ * each backend is responsible for checking the type of the instance and of any object value.
+ */
+abstract class FieldAccessor {
+    static final String FIELD_ACCESS_PROPERTY = "jboss.marshalling.field-access";
+    static final boolean USE_VAR_HANDLES;
+
+    static {
+        final PrivilegedAction<String> action = () -> System.getProperty(FIELD_ACCESS_PROPERTY, "unsafe");
+        USE_VAR_HANDLES = useVarHandles(getSecurityManager() == null ? action.run() : doPrivileged(action));
+    }
+
+    static boolean useVarHandles(final String fieldAccess) {
+        if (fieldAccess.equalsIgnoreCase("varhandle")) {
+            return true;
+        } else if (! fieldAccess.equalsIgnoreCase("unsafe")) {
+            // failing here would make every serializable class unusable
+            Logger.getLogger("org.jboss.marshalling").warning("Invalid value for " + FIELD_ACCESS_PROPERTY + ": " + fieldAccess + "; using unsafe");
+        }
+        return false;
+    }
+
+    static FieldAccessor create(final Field field) {
+        if (USE_VAR_HANDLES) {
+            final FieldAccessor accessor = VarHandleFieldAccessor.create(field);
+            if (accessor != null) {
+                return accessor;
+            }
+        }
+        return new UnsafeFieldAccessor(field);
+    }
+
+    abstract boolean getBoolean(Object instance);
+
+    abstract char getChar(Object instance);
+
+    abstract byte getByte(Object instance);
+
+    abstract short getShort(Object instance);
+
+    abstract int getInt(Object instance);
+
+    abstract long getLong(Object instance);
+
+    abstract float getFloat(Object instance);
+
+    abstract double getDouble(Object instance);
+
+    abstract Object getObject(Object instance);
+
+    abstract void setBoolean(Object instance, boolean value);
+
+    abstract void setChar(Object instance, char value);
+
+    abstract void setByte(Object instance, byte value);
+
+    abstract void setShort(Object instance, short value);
+
+    abstract void setInt(Object instance, int value);
+
+    abstract void setLong(Object instance, long value);
+
+    abstract void setFloat(Object instance, float value);
+
+    abstract void setDouble(Object instance, double value);
+
+    abstract void setObject(Object instance, Object value);
+}
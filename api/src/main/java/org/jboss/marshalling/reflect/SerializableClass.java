@@ -59,6 +59,9 @@ public final class SerializableClass {
     private final Map<String, SerializableField> fieldsByName;
     private final long effectiveSerialVersionUID;
     private final boolean isRecord;
+    private final boolean declaredSerialVersionUID;
+    private final boolean indexed;
+    private volatile CompiledFields compiledFields;
 
     private static final Comparator<? super SerializableField> NAME_COMPARATOR = new Comparator<SerializableField>() {
         public int compare(final SerializableField o1, final SerializableField o2) {
@@ -72,6 +75,10 @@ public final class SerializableClass {
     private static final IdentityHashMap<Class<?>, Constructor<?>> EMPTY_IHM = new IdentityHashMap<>(0);
 
     SerializableClass(Class<?> subject) {
+        this(subject, null);
+    }
+
+    SerializableClass(Class<?> subject, SerializableClassIndex.Entry indexEntry) {
         this.subject = subject;
         isRecord = JDKSpecific.isRecord(subject);
         if (isRecord) {
@@ -89,8 +96,7 @@ public final class SerializableClass {
         }
         // private methods
         serMethods = new SerMethods(subject);
-        final ObjectStreamClass objectStreamClass = ObjectStreamClass.lookup(subject);
-        effectiveSerialVersionUID = objectStreamClass == null ? 0L : objectStreamClass.getSerialVersionUID(); // todo find a better solution
+        final SerializableField[] fields;
         if (subject.getName().indexOf('/') != -1) {
             // it's a hidden class
             fields = NOFIELDS;
@@ -102,6 +108,20 @@ public final class SerializableClass {
             }
             this.fieldsByName = fieldsByName;
         }
+        this.fields = fields;
+        // a declared serial version UID is read directly; a computed one is only taken from the index if the class
+        // still looks the way it did when it was indexed
+        final Long declaredUID = getDeclaredSerialVersionUID(subject);
+        declaredSerialVersionUID = declaredUID != null;
+        indexed = declaredUID == null && indexEntry != null && indexEntry.matches(this);
+        if (declaredUID != null) {
+            effectiveSerialVersionUID = declaredUID.longValue();
+        } else if (indexed) {
+            effectiveSerialVersionUID = indexEntry.serialVersionUID;
+        } else {
+            final ObjectStreamClass objectStreamClass = ObjectStreamClass.lookup(subject);
+            effectiveSerialVersionUID = objectStreamClass == null ? 0L : objectStreamClass.getSerialVersionUID(); // todo find a better solution
+        }
     }
 
     private static SerializableField[] getSerializableFields(Class<?> clazz, boolean isRecord) {
@@ -152,6 +172,42 @@ public final class SerializableClass {
         return fields.toArray(new SerializableField[0]);
     }
 
+    private static Long getDeclaredSerialVersionUID(Class<?> clazz) {
+        // as for ObjectStreamClass, enum constants always have a serial version UID of 0
+        if (! Serializable.class.isAssignableFrom(clazz) || Enum.class.isAssignableFrom(clazz)) {
+            return null;
+        }
+        final Field field;
+        try {
+            field = clazz.getDeclaredField("serialVersionUID");
+        } catch (NoSuchFieldException e) {
+            return null;
+        }
+        final int requiredModifiers = Modifier.STATIC | Modifier.FINAL;
+        if ((field.getModifiers() & requiredModifiers) != requiredModifiers || field.getType() != long.class) {
+            return null;
+        }
+        // the value need not be a constant, so the class is initialized first, as ObjectStreamClass would
+        if (! initialize(clazz)) {
+            return null;
+        }
+        return Long.valueOf(unsafe.getLong(unsafe.staticFieldBase(field), unsafe.staticFieldOffset(field)));
+    }
+
+    /**
+     * Initialize the given class, so that its static fields may be read directly.  Classes are often loaded without
+     * being initialized, in which case reading a static field through {@code Unsafe} would yield its default value.
+     *
+     * @return {@code true} if the class was initialized, {@code false} if it cannot be found by name in its own loader
+     */
+    private static boolean initialize(Class<?> clazz) {
+        try {
+            return Class.forName(clazz.getName(), true, clazz.getClassLoader()) == clazz;
+        } catch (ClassNotFoundException | LinkageError | SecurityException e) {
+            return false;
+        }
+    }
+
     private static ObjectStreamField[] getDeclaredSerialPersistentFields(Class<?> clazz) {
         final Field field;
         try {
@@ -166,6 +222,11 @@ public final class SerializableClass {
         if ((field.getModifiers() & requiredModifiers) != requiredModifiers) {
             return null;
         }
+        if (! initialize(clazz)) {
+            // ObjectStreamClass reads the field reflectively, which initializes the class
+            final ObjectStreamClass objectStreamClass = ObjectStreamClass.lookup(clazz);
+            return objectStreamClass == null ? null : objectStreamClass.getFields();
+        }
         try {
             return (ObjectStreamField[]) unsafe.getObject(unsafe.staticFieldBase(field), unsafe.staticFieldOffset(field));
         } catch (ClassCastException e) {
@@ -183,6 +244,24 @@ public final class SerializableClass {
         return fields;
     }
 
+    /**
+     * Get the compiled form of the serializable fields of this class, which may be used to copy field values
+     * directly to or from a byte buffer.  The compiled form is built on first use.
+     *
+     * @return the compiled fields
+     * @throws IllegalArgumentException if this class is a record
+     */
+    public CompiledFields getCompiledFields() throws IllegalArgumentException {
+        CompiledFields compiledFields = this.compiledFields;
+        if (compiledFields == null) {
+            if (isRecord) {
+                throw new IllegalArgumentException("Record fields cannot be compiled");
+            }
+            this.compiledFields = compiledFields = CompiledFields.compile(fields);
+        }
+        return compiledFields;
+    }
+
     /**
      * Create a synthetic field for this object class.
      *
@@ -454,6 +533,14 @@ public final class SerializableClass {
         return (Constructor<T>) nonInitConstructors.get(clazz);
     }
 
+    boolean isIndexed() {
+        return indexed;
+    }
+
+    boolean hasDeclaredSerialVersionUID() {
+        return declaredSerialVersionUID;
+    }
+
     SerMethods getSerMethods() {
         return serMethods;
     }
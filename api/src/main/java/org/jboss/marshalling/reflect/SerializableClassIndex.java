@@ -0,0 +1,560 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.reflect;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A precomputed index of serialization metadata, which is used to warm the {@link SerializableClassRegistry} at boot.
+ * For each class, the index records its effective serial version UID, the layout of its serializable fields, which
+ * serialization methods and constructors it has, and a fingerprint of everything that its default serial version UID
+ * is computed from.
+ * <p>
+ * Computing the default serial version UID of a class is the most expensive part of looking it up in the registry.
+ * A declared serial version UID is always read from the class itself, and the index is only used for classes which
+ * do not declare one.  When such a class is warmed from the index, its fields, methods and fingerprint are compared
+ * with the index, and only if they all match is the recorded serial version UID used instead of computing it.  The
+ * fingerprint is a 64-bit hash, not a secure one, of the same members in the same canonical order as the serial
+ * version UID computed by {@link java.io.ObjectStreamClass}, including whether the class has a static initializer;
+ * if the class file cannot be read to find that out, the index is not used.
+ * <p>
+ * Indexes are built by {@link SerializableClassIndexTool} at build time, or by {@link #build(Collection)}.
+ */
+public final class SerializableClassIndex {
+    private static final int MAGIC = 0x4a4d4349; // "JMCI"
+    private static final int VERSION = 2;
+
+    static final int FLAG_WRITE_OBJECT = 1 << 0;
+    static final int FLAG_READ_OBJECT = 1 << 1;
+    static final int FLAG_READ_OBJECT_NO_DATA = 1 << 2;
+    static final int FLAG_WRITE_REPLACE = 1 << 3;
+    static final int FLAG_READ_RESOLVE = 1 << 4;
+    static final int FLAG_NO_ARG_CONSTRUCTOR = 1 << 5;
+    static final int FLAG_OBJECT_INPUT_CONSTRUCTOR = 1 << 6;
+    static final int FLAG_RECORD = 1 << 7;
+    static final int FLAG_DECLARED_UID = 1 << 8;
+
+    private static final int FIELD_UNSHARED = 1 << 0;
+    private static final int FIELD_ACCESSIBLE = 1 << 1;
+
+    private final Map<String, Entry> entries;
+
+    private SerializableClassIndex(final Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Build an index of the given classes and of their serializable superclasses, which are listed before their
+     * subclasses.  Classes which are not serializable are ignored.
+     *
+     * @param classes the classes to index
+     * @return the index
+     */
+    public static SerializableClassIndex build(final Collection<Class<?>> classes) {
+        final SerializableClassRegistry registry = SerializableClassRegistry.getInstanceUnchecked();
+        final Map<String, Entry> entries = new LinkedHashMap<>();
+        for (Class<?> clazz : classes) {
+            add(registry, entries, clazz);
+        }
+        return new SerializableClassIndex(entries);
+    }
+
+    private static void add(final SerializableClassRegistry registry, final Map<String, Entry> entries, final Class<?> clazz) {
+        if (clazz == null || ! Serializable.class.isAssignableFrom(clazz) || entries.containsKey(clazz.getName()) || clazz.isInterface() || clazz.isArray() || clazz.getName().indexOf('/') != -1) {
+            return;
+        }
+        add(registry, entries, clazz.getSuperclass());
+        entries.put(clazz.getName(), new Entry(registry.lookup(clazz)));
+    }
+
+    /**
+     * Read an index.
+     *
+     * @param inputStream the stream to read from
+     * @return the index
+     * @throws IOException if the index could not be read
+     */
+    public static SerializableClassIndex read(final InputStream inputStream) throws IOException {
+        final DataInputStream input = new DataInputStream(inputStream);
+        if (input.readInt() != MAGIC) {
+            throw new StreamCorruptedException("Not a serializable class index");
+        }
+        final int version = input.readUnsignedByte();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unsupported serializable class index version " + version);
+        }
+        final int size = input.readInt();
+        if (size < 0) {
+            throw new StreamCorruptedException("Invalid serializable class index size " + size);
+        }
+        final Map<String, Entry> entries = new LinkedHashMap<>();
+        for (int i = 0; i < size; i ++) {
+            final Entry entry = new Entry(input);
+            entries.put(entry.className, entry);
+        }
+        return new SerializableClassIndex(entries);
+    }
+
+    /**
+     * Write this index.
+     *
+     * @param outputStream the stream to write to
+     * @throws IOException if the index could not be written
+     */
+    public void write(final OutputStream outputStream) throws IOException {
+        final DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        output.writeInt(entries.size());
+        for (Entry entry : entries.values()) {
+            entry.write(output);
+        }
+        output.flush();
+    }
+
+    /**
+     * Get the number of classes in this index.
+     *
+     * @return the number of classes
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get the names of the classes in this index, superclasses first.
+     *
+     * @return the class names
+     */
+    public Set<String> getClassNames() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Get the recorded serial version UID of a class.
+     *
+     * @param className the class name
+     * @return the serial version UID, or {@code null} if the class is not in this index
+     */
+    public Long getSerialVersionUID(final String className) {
+        final Entry entry = entries.get(className);
+        return entry == null ? null : Long.valueOf(entry.serialVersionUID);
+    }
+
+    /**
+     * Warm the registry with the classes of this index, in the calling thread.
+     *
+     * @param classLoader the class loader to load the classes from
+     * @return the number of classes whose registry entry is based on the index
+     */
+    public int warm(final ClassLoader classLoader) {
+        return warm(classLoader, Runnable::run);
+    }
+
+    /**
+     * Warm the registry with the classes of this index.  The classes are loaded, without being initialized, and looked
+     * up in tasks submitted to the given executor; this method returns once all of them are complete.  Classes which
+     * cannot be loaded are skipped.
+     *
+     * @param classLoader the class loader to load the classes from
+     * @param executor the executor to run the tasks, for example a {@code ForkJoinPool} to warm in parallel
+     * @return the number of classes whose registry entry is based on the index
+     */
+    public int warm(final ClassLoader classLoader, final Executor executor) {
+        final SerializableClassRegistry registry = SerializableClassRegistry.getInstanceUnchecked();
+        final List<Entry> entries = new ArrayList<>(this.entries.values());
+        final Class<?>[] classes = new Class<?>[entries.size()];
+        runAll(executor, entries.size(), i -> {
+            try {
+                classes[i] = Class.forName(entries.get(i).className, false, classLoader);
+            } catch (ClassNotFoundException | LinkageError ignored) {
+            }
+        });
+        // hints are registered up front, so that superclasses looked up recursively use theirs as well
+        for (int i = 0; i < classes.length; i ++) {
+            if (classes[i] != null) {
+                registry.addHint(classes[i], entries.get(i));
+            }
+        }
+        final AtomicInteger matched = new AtomicInteger();
+        try {
+            runAll(executor, entries.size(), i -> {
+                final Class<?> clazz = classes[i];
+                if (clazz != null && registry.lookup(clazz).isIndexed()) {
+                    matched.incrementAndGet();
+                }
+            });
+        } finally {
+            for (int i = 0; i < classes.length; i ++) {
+                if (classes[i] != null) {
+                    registry.removeHint(classes[i], entries.get(i));
+                }
+            }
+        }
+        return matched.get();
+    }
+
+    private interface Task {
+        void run(int index);
+    }
+
+    private static void runAll(final Executor executor, final int count, final Task task) {
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[count];
+        for (int i = 0; i < count; i ++) {
+            final int index = i;
+            futures[i] = CompletableFuture.runAsync(() -> task.run(index), executor);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    private static final int CLASS_MODIFIERS = Modifier.PUBLIC | Modifier.FINAL | Modifier.INTERFACE | Modifier.ABSTRACT;
+    private static final int FIELD_MODIFIERS = Modifier.PUBLIC | Modifier.PRIVATE | Modifier.PROTECTED | Modifier.STATIC | Modifier.FINAL | Modifier.VOLATILE | Modifier.TRANSIENT;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int METHOD_MODIFIERS = Modifier.PUBLIC | Modifier.PRIVATE | Modifier.PROTECTED | Modifier.STATIC | Modifier.FINAL | Modifier.SYNCHRONIZED | Modifier.NATIVE | Modifier.ABSTRACT | Modifier.STRICT;
+
+    /**
+     * Compute a fingerprint of what the default serial version UID of a class is computed from, in the same order.
+     *
+     * @param clazz the class
+     * @return the fingerprint, or 0 if it could not be computed
+     */
+    static long fingerprint(final Class<?> clazz) {
+        final Boolean staticInitializer = hasStaticInitializer(clazz);
+        if (staticInitializer == null) {
+            return 0L;
+        }
+        final Method[] methods = clazz.getDeclaredMethods();
+        int classModifiers = clazz.getModifiers() & CLASS_MODIFIERS;
+        if ((classModifiers & Modifier.INTERFACE) != 0) {
+            classModifiers = methods.length > 0 ? classModifiers | Modifier.ABSTRACT : classModifiers & ~Modifier.ABSTRACT;
+        }
+        long hash = hash(FNV_OFFSET, clazz.getName());
+        hash = hash(hash, classModifiers);
+        final Class<?>[] interfaces = clazz.getInterfaces();
+        final String[] interfaceNames = new String[interfaces.length];
+        for (int i = 0; i < interfaces.length; i ++) {
+            interfaceNames[i] = interfaces[i].getName();
+        }
+        Arrays.sort(interfaceNames);
+        for (String name : interfaceNames) {
+            hash = hash(hash, name);
+        }
+        final Field[] fields = clazz.getDeclaredFields();
+        Arrays.sort(fields, (f1, f2) -> f1.getName().compareTo(f2.getName()));
+        for (Field field : fields) {
+            final int modifiers = field.getModifiers() & FIELD_MODIFIERS;
+            if ((modifiers & Modifier.PRIVATE) == 0 || (modifiers & (Modifier.STATIC | Modifier.TRANSIENT)) == 0) {
+                hash = hash(hash, field.getName());
+                hash = hash(hash, modifiers);
+                hash = hash(hash, descriptor(field.getType()));
+            }
+        }
+        hash = hash(hash, staticInitializer.booleanValue() ? 1 : 0);
+        final Constructor<?>[] constructors = clazz.getDeclaredConstructors();
+        final String[] constructorSignatures = new String[constructors.length];
+        for (int i = 0; i < constructors.length; i ++) {
+            constructorSignatures[i] = descriptor(constructors[i].getParameterTypes(), void.class);
+        }
+        final Integer[] constructorOrder = indexes(constructors.length);
+        Arrays.sort(constructorOrder, (i1, i2) -> constructorSignatures[i1.intValue()].compareTo(constructorSignatures[i2.intValue()]));
+        for (Integer i : constructorOrder) {
+            final int modifiers = constructors[i.intValue()].getModifiers() & METHOD_MODIFIERS;
+            if ((modifiers & Modifier.PRIVATE) == 0) {
+                hash = hash(hash, modifiers);
+                hash = hash(hash, constructorSignatures[i.intValue()]);
+            }
+        }
+        final String[] methodSignatures = new String[methods.length];
+        for (int i = 0; i < methods.length; i ++) {
+            methodSignatures[i] = descriptor(methods[i].getParameterTypes(), methods[i].getReturnType());
+        }
+        final Integer[] methodOrder = indexes(methods.length);
+        Arrays.sort(methodOrder, (i1, i2) -> {
+            final int res = methods[i1.intValue()].getName().compareTo(methods[i2.intValue()].getName());
+            return res != 0 ? res : methodSignatures[i1.intValue()].compareTo(methodSignatures[i2.intValue()]);
+        });
+        for (Integer i : methodOrder) {
+            final Method method = methods[i.intValue()];
+            final int modifiers = method.getModifiers() & METHOD_MODIFIERS;
+            if ((modifiers & Modifier.PRIVATE) == 0) {
+                hash = hash(hash, method.getName());
+                hash = hash(hash, modifiers);
+                hash = hash(hash, methodSignatures[i.intValue()]);
+            }
+        }
+        // 0 means that there is no fingerprint
+        return hash == 0L ? 1L : hash;
+    }
+
+    private static Integer[] indexes(final int length) {
+        final Integer[] indexes = new Integer[length];
+        for (int i = 0; i < length; i ++) {
+            indexes[i] = Integer.valueOf(i);
+        }
+        return indexes;
+    }
+
+    private static long hash(long hash, final String string) {
+        hash = hash(hash, string.length());
+        for (int i = 0; i < string.length(); i ++) {
+            hash = (hash ^ string.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, final int value) {
+        for (int i = 0; i < 32; i += 8) {
+            hash = (hash ^ (value >>> i & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static String descriptor(final Class<?>[] parameterTypes, final Class<?> returnType) {
+        final StringBuilder b = new StringBuilder().append('(');
+        for (Class<?> type : parameterTypes) {
+            b.append(descriptor(type));
+        }
+        return b.append(')').append(descriptor(returnType)).toString();
+    }
+
+    private static String descriptor(final Class<?> type) {
+        if (type.isArray()) {
+            return "[" + descriptor(type.getComponentType());
+        } else if (! type.isPrimitive()) {
+            return "L" + type.getName().replace('.', '/') + ";";
+        } else if (type == int.class) {
+            return "I";
+        } else if (type == long.class) {
+            return "J";
+        } else if (type == boolean.class) {
+            return "Z";
+        } else if (type == byte.class) {
+            return "B";
+        } else if (type == char.class) {
+            return "C";
+        } else if (type == short.class) {
+            return "S";
+        } else if (type == float.class) {
+            return "F";
+        } else if (type == double.class) {
+            return "D";
+        } else {
+            return "V";
+        }
+    }
+
+    /**
+     * Determine whether a class has a static initializer, which reflection does not reveal, from its class file.
+     *
+     * @param clazz the class
+     * @return whether the class has a static initializer, or {@code null} if its class file could not be read
+     */
+    static Boolean hasStaticInitializer(final Class<?> clazz) {
+        final String name = clazz.getName();
+        try (InputStream inputStream = clazz.getResourceAsStream("/" + name.replace('.', '/') + ".class")) {
+            if (inputStream == null) {
+                return null;
+            }
+            final DataInputStream input = new DataInputStream(inputStream);
+            if (input.readInt() != 0xcafebabe) {
+                return null;
+            }
+            input.readInt(); // version
+            final int constantCount = input.readUnsignedShort();
+            final String[] utf8 = new String[constantCount];
+            for (int i = 1; i < constantCount; i ++) {
+                final int tag = input.readUnsignedByte();
+                switch (tag) {
+                    case 1: utf8[i] = input.readUTF(); break;
+                    case 7: case 8: case 16: case 19: case 20: skip(input, 2); break;
+                    case 15: skip(input, 3); break;
+                    case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18: skip(input, 4); break;
+                    // long and double constants take two entries
+                    case 5: case 6: skip(input, 8); i ++; break;
+                    default: return null;
+                }
+            }
+            skip(input, 6); // access flags, this class, superclass
+            skip(input, input.readUnsignedShort() * 2); // interfaces
+            final int fieldCount = input.readUnsignedShort();
+            for (int i = 0; i < fieldCount; i ++) {
+                skip(input, 6);
+                skipAttributes(input);
+            }
+            final int methodCount = input.readUnsignedShort();
+            for (int i = 0; i < methodCount; i ++) {
+                skip(input, 2);
+                final int nameIndex = input.readUnsignedShort();
+                if (nameIndex < constantCount && "<clinit>".equals(utf8[nameIndex])) {
+                    return Boolean.TRUE;
+                }
+                skip(input, 2);
+                skipAttributes(input);
+            }
+            return Boolean.FALSE;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void skipAttributes(final DataInputStream input) throws IOException {
+        final int count = input.readUnsignedShort();
+        for (int i = 0; i < count; i ++) {
+            skip(input, 2);
+            skip(input, input.readInt() & 0xffffffffL);
+        }
+    }
+
+    private static void skip(final DataInputStream input, long count) throws IOException {
+        while (count > 0) {
+            final long skipped = input.skip(count);
+            if (skipped <= 0) {
+                if (input.read() == -1) {
+                    throw new EOFException();
+                }
+                count --;
+            } else {
+                count -= skipped;
+            }
+        }
+    }
+
+    static int flags(final SerializableClass serializableClass) {
+        int flags = 0;
+        if (serializableClass.hasWriteObject()) flags |= FLAG_WRITE_OBJECT;
+        if (serializableClass.hasReadObject()) flags |= FLAG_READ_OBJECT;
+        if (serializableClass.hasReadObjectNoData()) flags |= FLAG_READ_OBJECT_NO_DATA;
+        if (serializableClass.hasWriteReplace()) flags |= FLAG_WRITE_REPLACE;
+        if (serializableClass.hasReadResolve()) flags |= FLAG_READ_RESOLVE;
+        if (serializableClass.hasPublicNoArgConstructor()) flags |= FLAG_NO_ARG_CONSTRUCTOR;
+        if (serializableClass.hasObjectInputConstructor()) flags |= FLAG_OBJECT_INPUT_CONSTRUCTOR;
+        if (serializableClass.isRecord()) flags |= FLAG_RECORD;
+        if (serializableClass.hasDeclaredSerialVersionUID()) flags |= FLAG_DECLARED_UID;
+        return flags;
+    }
+
+    /**
+     * The indexed metadata of one class.
+     */
+    static final class Entry {
+        final String className;
+        final long serialVersionUID;
+        final long fingerprint;
+        final int flags;
+        final String[] fieldNames;
+        final String[] fieldTypes;
+        final byte[] fieldFlags;
+
+        Entry(final SerializableClass serializableClass) {
+            final Class<?> subject = serializableClass.getSubjectClass();
+            className = subject.getName();
+            serialVersionUID = serializableClass.getEffectiveSerialVersionUID();
+            fingerprint = fingerprint(subject);
+            flags = flags(serializableClass);
+            final SerializableField[] fields = serializableClass.getFields();
+            fieldNames = new String[fields.length];
+            fieldTypes = new String[fields.length];
+            fieldFlags = new byte[fields.length];
+            for (int i = 0; i < fields.length; i ++) {
+                fieldNames[i] = fields[i].getName();
+                fieldTypes[i] = fields[i].getFieldType().getName();
+                fieldFlags[i] = fieldFlags(fields[i]);
+            }
+        }
+
+        Entry(final DataInputStream input) throws IOException {
+            className = input.readUTF();
+            serialVersionUID = input.readLong();
+            fingerprint = input.readLong();
+            flags = input.readUnsignedShort();
+            final int fieldCount = input.readUnsignedShort();
+            fieldNames = new String[fieldCount];
+            fieldTypes = new String[fieldCount];
+            fieldFlags = new byte[fieldCount];
+            for (int i = 0; i < fieldCount; i ++) {
+                fieldNames[i] = input.readUTF();
+                fieldTypes[i] = input.readUTF();
+                fieldFlags[i] = input.readByte();
+            }
+        }
+
+        void write(final DataOutputStream output) throws IOException {
+            output.writeUTF(className);
+            output.writeLong(serialVersionUID);
+            output.writeLong(fingerprint);
+            output.writeShort(flags);
+            output.writeShort(fieldNames.length);
+            for (int i = 0; i < fieldNames.length; i ++) {
+                output.writeUTF(fieldNames[i]);
+                output.writeUTF(fieldTypes[i]);
+                output.writeByte(fieldFlags[i]);
+            }
+        }
+
+        private static byte fieldFlags(final SerializableField field) {
+            return (byte) ((field.isUnshared() ? FIELD_UNSHARED : 0) | (field.isAccessible() ? FIELD_ACCESSIBLE : 0));
+        }
+
+        /**
+         * Determine whether the given class, whose fields and methods have already been looked up, matches this entry.
+         * A class whose serial version UID is declared, or was declared when it was indexed, never matches, since the
+         * index is only used in place of computing the default serial version UID.
+         */
+        boolean matches(final SerializableClass serializableClass) {
+            final Class<?> subject = serializableClass.getSubjectClass();
+            final SerializableField[] fields = serializableClass.getFields();
+            if ((flags & FLAG_DECLARED_UID) != 0 || fingerprint == 0L) {
+                return false;
+            }
+            if (! className.equals(subject.getName()) || flags != flags(serializableClass) || fields.length != fieldNames.length) {
+                return false;
+            }
+            for (int i = 0; i < fields.length; i ++) {
+                final SerializableField field = fields[i];
+                if (! fieldNames[i].equals(field.getName()) || ! fieldTypes[i].equals(field.getFieldType().getName()) || fieldFlags[i] != fieldFlags(field)) {
+                    return false;
+                }
+            }
+            return fingerprint == fingerprint(subject);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.reflect;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A build-time tool which scans a class path for serializable classes and writes a {@link SerializableClassIndex} of
+ * them.  Usage:
+ * <pre>
+ * java -cp jboss-marshalling.jar org.jboss.marshalling.reflect.SerializableClassIndexTool &lt;index file&gt; &lt;class path entry&gt;...
+ * </pre>
+ * Each class path entry is a directory or a JAR file.  Classes are loaded without being initialized, except for those
+ * which declare {@code serialPersistentFields}, whose value is only available once they are.  Classes which cannot
+ * be loaded are skipped.
+ */
+public final class SerializableClassIndexTool {
+    private SerializableClassIndexTool() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: " + SerializableClassIndexTool.class.getName() + " <index file> <class path entry>...");
+            System.exit(1);
+            return;
+        }
+        final File[] entries = new File[args.length - 1];
+        for (int i = 1; i < args.length; i ++) {
+            entries[i - 1] = new File(args[i]);
+        }
+        final SerializableClassIndex index = scan(entries, SerializableClassIndexTool.class.getClassLoader());
+        try (OutputStream outputStream = new FileOutputStream(args[0])) {
+            index.write(outputStream);
+        }
+        System.out.println("Indexed " + index.size() + " classes in " + args[0]);
+    }
+
+    /**
+     * Scan the given class path entries and build an index of the serializable classes found in them.
+     *
+     * @param classPath the class path entries, each a directory or a JAR file
+     * @param parent the parent of the class loader which loads the scanned classes
+     * @return the index
+     * @throws IOException if a class path entry could not be read
+     */
+    public static SerializableClassIndex scan(final File[] classPath, final ClassLoader parent) throws IOException {
+        final URL[] urls = new URL[classPath.length];
+        final List<String> classNames = new ArrayList<>();
+        for (int i = 0; i < classPath.length; i ++) {
+            final File file = classPath[i];
+            urls[i] = toURL(file);
+            ClassPathScanner.scan(file, classNames);
+        }
+        final List<Class<?>> classes = new ArrayList<>();
+        try (URLClassLoader classLoader = new URLClassLoader(urls, parent)) {
+            for (String className : classNames) {
+                final Class<?> clazz = load(className, classLoader);
+                if (clazz != null) {
+                    classes.add(clazz);
+                }
+            }
+            return SerializableClassIndex.build(classes);
+        }
+    }
+
+    private static URL toURL(final File file) {
+        try {
+            return file.toURI().toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static Class<?> load(final String className, final ClassLoader classLoader) {
+        try {
+            Class<?> clazz = Class.forName(className, false, classLoader);
+            if (! Serializable.class.isAssignableFrom(clazz) || clazz.isInterface() || clazz.isEnum()) {
+                return null;
+            }
+            try {
+                clazz.getDeclaredField("serialPersistentFields");
+                clazz = Class.forName(className, true, classLoader);
+            } catch (NoSuchFieldException ignored) {
+            }
+            return clazz;
+        } catch (ClassNotFoundException | LinkageError | RuntimeException e) {
+            return null;
+        }
+    }
+}
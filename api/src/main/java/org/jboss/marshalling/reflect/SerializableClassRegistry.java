@@ -21,8 +21,18 @@ package org.jboss.marshalling.reflect;
 import static java.lang.System.getSecurityManager;
 import static java.security.AccessController.doPrivileged;
 
+import java.io.IOException;
+import java.io.Serializable;
 import java.io.SerializablePermission;
 import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * A registry for reflection information usable by serialization implementations.  Objects returned from this registry
@@ -56,20 +66,32 @@ public final class SerializableClassRegistry {
         return INSTANCE;
     }
 
+    // index entries of classes which are being warmed
+    private static final ConcurrentHashMap<Class<?>, SerializableClassIndex.Entry> hints = new ConcurrentHashMap<>();
+
     private static final ClassValue<SerializableClass> classValue = new ClassValue<SerializableClass>() {
         protected SerializableClass computeValue(final Class<?> type) {
+            final SerializableClassIndex.Entry hint = hints.isEmpty() ? null : hints.get(type);
             if (getSecurityManager() == null) {
-                return new SerializableClass(type);
+                return new SerializableClass(type, hint);
             } else {
                 return doPrivileged(new PrivilegedAction<SerializableClass>() {
                     public SerializableClass run() {
-                        return new SerializableClass(type);
+                        return new SerializableClass(type, hint);
                     }
                 });
             }
         }
     };
 
+    void addHint(final Class<?> type, final SerializableClassIndex.Entry entry) {
+        hints.put(type, entry);
+    }
+
+    void removeHint(final Class<?> type, final SerializableClassIndex.Entry entry) {
+        hints.remove(type, entry);
+    }
+
     /**
      * Look up serialization information for a class.  The resultant object will be cached.
      *
@@ -83,6 +105,110 @@ public final class SerializableClassRegistry {
         return classValue.get(subject);
     }
 
+    /**
+     * Look up the given classes in the common {@code ForkJoinPool}.
+     *
+     * @param classes the classes to look up
+     * @return a future which completes once all of the classes have been looked up
+     * @see #warmUp(Collection, Executor)
+     */
+    public CompletableFuture<WarmUpReport> warmUp(final Collection<Class<?>> classes) {
+        return warmUp(classes, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Look up the given classes in parallel, so that their serialization information, including that of their
+     * superclasses and their non-initializing constructors, is cached before it is first needed.  Each class is looked
+     * up in its own task on the given executor.  Failures do not stop the other lookups; they are recorded in the
+     * report which the returned future completes with.
+     *
+     * @param classes the classes to look up
+     * @param executor the executor to run the lookups
+     * @return a future which completes once all of the classes have been looked up
+     */
+    public CompletableFuture<WarmUpReport> warmUp(final Collection<Class<?>> classes, final Executor executor) {
+        final WarmUpReport report = new WarmUpReport();
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(classes.size());
+        for (Class<?> clazz : classes) {
+            futures.add(CompletableFuture.runAsync(() -> warmUp(clazz, report), executor));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> report);
+    }
+
+    /**
+     * Look up the serializable classes in the given packages in the common {@code ForkJoinPool}.
+     *
+     * @param classLoader the class loader to find and load the classes with
+     * @param packageNames the names of the packages
+     * @return a future which completes once all of the classes have been looked up
+     * @see #warmUpPackages(ClassLoader, Collection, Executor)
+     */
+    public CompletableFuture<WarmUpReport> warmUpPackages(final ClassLoader classLoader, final Collection<String> packageNames) {
+        return warmUpPackages(classLoader, packageNames, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Look up the serializable classes in the given packages and their subpackages in parallel.  The packages are
+     * found in the directories and JAR files of the given class loader, and their classes are loaded without being
+     * initialized.  As with a lookup at any other time, a class which declares a {@code serialVersionUID} or
+     * {@code serialPersistentFields} is initialized when it is looked up, so that their values can be read, and the
+     * information cached is the same as if the class had been looked up on first use.  Classes or packages which
+     * cannot be loaded or scanned are recorded as failures in the report.
+     *
+     * @param classLoader the class loader to find and load the classes with
+     * @param packageNames the names of the packages
+     * @param executor the executor to run the scans and lookups
+     * @return a future which completes once all of the classes have been looked up
+     * @see #warmUp(Collection, Executor)
+     */
+    public CompletableFuture<WarmUpReport> warmUpPackages(final ClassLoader classLoader, final Collection<String> packageNames, final Executor executor) {
+        final WarmUpReport report = new WarmUpReport();
+        final Set<String> seen = ConcurrentHashMap.newKeySet();
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(packageNames.size());
+        for (String packageName : packageNames) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                final List<String> classNames = new ArrayList<>();
+                try {
+                    ClassPathScanner.scanPackage(classLoader, packageName, classNames);
+                } catch (IOException | RuntimeException e) {
+                    report.addFailure(packageName, e);
+                }
+                return classNames;
+            }, executor).thenCompose(classNames -> {
+                final List<CompletableFuture<Void>> lookups = new ArrayList<>(classNames.size());
+                for (String className : classNames) {
+                    if (seen.add(className)) {
+                        lookups.add(CompletableFuture.runAsync(() -> warmUp(classLoader, className, report), executor));
+                    }
+                }
+                return CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0]));
+            }));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> report);
+    }
+
+    private void warmUp(final ClassLoader classLoader, final String className, final WarmUpReport report) {
+        final Class<?> clazz;
+        try {
+            clazz = Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            report.addFailure(className, e);
+            return;
+        }
+        if (Serializable.class.isAssignableFrom(clazz) && ! clazz.isInterface()) {
+            warmUp(clazz, report);
+        }
+    }
+
+    private void warmUp(final Class<?> clazz, final WarmUpReport report) {
+        try {
+            lookup(clazz);
+            report.addClass();
+        } catch (RuntimeException | Error e) {
+            report.addFailure(clazz.getName(), e);
+        }
+    }
+
     /**
      * Release all reflection information belonging to the given class loader.
      *
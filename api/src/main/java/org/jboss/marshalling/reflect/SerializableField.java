@@ -43,7 +43,8 @@ public final class SerializableField {
     private final String name;
     private final boolean unshared;
     private final Kind kind;
-    private final long fieldOffset;
+    // null if there is no field or it belongs to a record
+    private final FieldAccessor accessor;
     private final int recordComponentIndex;
 
     public SerializableField(Class<?> type, String name, boolean unshared) {
@@ -56,7 +57,7 @@ public final class SerializableField {
         this.name = name;
         this.unshared = unshared;
         this.field = field;
-        fieldOffset = field == null || recordComponent != null? -1 : unsafe.objectFieldOffset(field);
+        accessor = field == null || recordComponent != null ? null : FieldAccessor.create(field);
         if (field != null) {
             // verify field information
             if (field.getType() != type) {
@@ -122,6 +123,22 @@ public final class SerializableField {
         return field != null;
     }
 
+    Class<?> getDeclaringClass() {
+        return field.getDeclaringClass();
+    }
+
+    Class<?> getFieldType() {
+        return type;
+    }
+
+    long getFieldOffset() {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
+            return -1;
+        }
+        return accessor instanceof UnsafeFieldAccessor ? ((UnsafeFieldAccessor) accessor).getOffset() : unsafe.objectFieldOffset(field);
+    }
+
     /**
      * Get the name of the field.
      *
@@ -170,14 +187,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        if (field.getType() != boolean.class) {
+        if (kind != Kind.BOOLEAN) {
             throw new ClassCastException();
         }
-        unsafe.putBoolean(instance, fieldOffset, value);
+        accessor.setBoolean(instance, value);
     }
 
     /**
@@ -192,14 +209,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        if (field.getType() != char.class) {
+        if (kind != Kind.CHAR) {
             throw new ClassCastException();
         }
-        unsafe.putChar(instance, fieldOffset, value);
+        accessor.setChar(instance, value);
     }
 
     /**
@@ -214,14 +231,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        if (field.getType() != byte.class) {
+        if (kind != Kind.BYTE) {
             throw new ClassCastException();
         }
-        unsafe.putByte(instance, fieldOffset, value);
+        accessor.setByte(instance, value);
     }
 
     /**
@@ -236,14 +253,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        if (field.getType() != short.class) {
+        if (kind != Kind.SHORT) {
             throw new ClassCastException();
         }
-        unsafe.putShort(instance, fieldOffset, value);
+        accessor.setShort(instance, value);
     }
 
     /**
@@ -258,14 +275,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        if (field.getType() != int.class) {
+        if (kind != Kind.INT) {
             throw new ClassCastException();
         }
-        unsafe.putInt(instance, fieldOffset, value);
+        accessor.setInt(instance, value);
     }
 
     /**
@@ -280,14 +297,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        if (field.getType() != long.class) {
+        if (kind != Kind.LONG) {
             throw new ClassCastException();
         }
-        unsafe.putLong(instance, fieldOffset, value);
+        accessor.setLong(instance, value);
     }
 
     /**
@@ -302,14 +319,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        if (field.getType() != float.class) {
+        if (kind != Kind.FLOAT) {
             throw new ClassCastException();
         }
-        unsafe.putFloat(instance, fieldOffset, value);
+        accessor.setFloat(instance, value);
     }
 
     /**
@@ -324,14 +341,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        if (field.getType() != double.class) {
+        if (kind != Kind.DOUBLE) {
             throw new ClassCastException();
         }
-        unsafe.putDouble(instance, fieldOffset, value);
+        accessor.setDouble(instance, value);
     }
 
     /**
@@ -346,16 +363,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        final Class<?> fieldType = field.getType();
-        if (fieldType.isPrimitive()) {
+        if (kind != Kind.OBJECT) {
             throw new ClassCastException();
         }
-        fieldType.cast(value);
-        unsafe.putObject(instance, fieldOffset, value);
+        accessor.setObject(instance, value);
     }
 
     /**
@@ -370,14 +385,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        if (field.getType() != boolean.class) {
+        if (kind != Kind.BOOLEAN) {
             throw new ClassCastException();
         }
-        return unsafe.getBoolean(instance, fieldOffset);
+        return accessor.getBoolean(instance);
     }
 
     /**
@@ -392,14 +407,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        if (field.getType() != char.class) {
+        if (kind != Kind.CHAR) {
             throw new ClassCastException();
         }
-        return unsafe.getChar(instance, fieldOffset);
+        return accessor.getChar(instance);
     }
 
     /**
@@ -414,14 +429,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        if (field.getType() != byte.class) {
+        if (kind != Kind.BYTE) {
             throw new ClassCastException();
         }
-        return unsafe.getByte(instance, fieldOffset);
+        return accessor.getByte(instance);
     }
 
     /**
@@ -436,14 +451,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        if (field.getType() != short.class) {
+        if (kind != Kind.SHORT) {
             throw new ClassCastException();
         }
-        return unsafe.getShort(instance, fieldOffset);
+        return accessor.getShort(instance);
     }
 
     /**
@@ -458,14 +473,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        if (field.getType() != int.class) {
+        if (kind != Kind.INT) {
             throw new ClassCastException();
         }
-        return unsafe.getInt(instance, fieldOffset);
+        return accessor.getInt(instance);
     }
 
     /**
@@ -480,14 +495,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        if (field.getType() != long.class) {
+        if (kind != Kind.LONG) {
             throw new ClassCastException();
         }
-        return unsafe.getLong(instance, fieldOffset);
+        return accessor.getLong(instance);
     }
 
     /**
@@ -502,14 +517,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        if (field.getType() != float.class) {
+        if (kind != Kind.FLOAT) {
             throw new ClassCastException();
         }
-        return unsafe.getFloat(instance, fieldOffset);
+        return accessor.getFloat(instance);
     }
 
     /**
@@ -524,14 +539,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        if (field.getType() != double.class) {
+        if (kind != Kind.DOUBLE) {
             throw new ClassCastException();
         }
-        return unsafe.getDouble(instance, fieldOffset);
+        return accessor.getDouble(instance);
     }
 
     /**
@@ -546,14 +561,14 @@ public final class SerializableField {
         if (instance == null) {
             throw new IllegalArgumentException("instance is null");
         }
-        if (field == null) {
+        final FieldAccessor accessor = this.accessor;
+        if (accessor == null) {
             throw new IllegalArgumentException();
         }
-        field.getDeclaringClass().cast(instance);
-        if (field.getType().isPrimitive()) {
+        if (kind != Kind.OBJECT) {
             throw new ClassCastException();
         }
-        return unsafe.getObject(instance, fieldOffset);
+        return accessor.getObject(instance);
     }
 
     /**
@@ -0,0 +1,114 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.reflect;
+
+import static org.jboss.marshalling.reflect.SerializableField.unsafe;
+
+import java.lang.reflect.Field;
+
+/**
+ * A field accessor which uses {@code sun.misc.Unsafe} with the offset of the field.
+ */
+final class UnsafeFieldAccessor extends FieldAccessor {
+    private final Class<?> declaringClass;
+    private final Class<?> type;
+    private final long offset;
+
+    UnsafeFieldAccessor(final Field field) {
+        declaringClass = field.getDeclaringClass();
+        type = field.getType();
+        offset = unsafe.objectFieldOffset(field);
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    boolean getBoolean(final Object instance) {
+        return unsafe.getBoolean(declaringClass.cast(instance), offset);
+    }
+
+    char getChar(final Object instance) {
+        return unsafe.getChar(declaringClass.cast(instance), offset);
+    }
+
+    byte getByte(final Object instance) {
+        return unsafe.getByte(declaringClass.cast(instance), offset);
+    }
+
+    short getShort(final Object instance) {
+        return unsafe.getShort(declaringClass.cast(instance), offset);
+    }
+
+    int getInt(final Object instance) {
+        return unsafe.getInt(declaringClass.cast(instance), offset);
+    }
+
+    long getLong(final Object instance) {
+        return unsafe.getLong(declaringClass.cast(instance), offset);
+    }
+
+    float getFloat(final Object instance) {
+        return unsafe.getFloat(declaringClass.cast(instance), offset);
+    }
+
+    double getDouble(final Object instance) {
+        return unsafe.getDouble(declaringClass.cast(instance), offset);
+    }
+
+    Object getObject(final Object instance) {
+        return unsafe.getObject(declaringClass.cast(instance), offset);
+    }
+
+    void setBoolean(final Object instance, final boolean value) {
+        unsafe.putBoolean(declaringClass.cast(instance), offset, value);
+    }
+
+    void setChar(final Object instance, final char value) {
+        unsafe.putChar(declaringClass.cast(instance), offset, value);
+    }
+
+    void setByte(final Object instance, final byte value) {
+        unsafe.putByte(declaringClass.cast(instance), offset, value);
+    }
+
+    void setShort(final Object instance, final short value) {
+        unsafe.putShort(declaringClass.cast(instance), offset, value);
+    }
+
+    void setInt(final Object instance, final int value) {
+        unsafe.putInt(declaringClass.cast(instance), offset, value);
+    }
+
+    void setLong(final Object instance, final long value) {
+        unsafe.putLong(declaringClass.cast(instance), offset, value);
+    }
+
+    void setFloat(final Object instance, final float value) {
+        unsafe.putFloat(declaringClass.cast(instance), offset, value);
+    }
+
+    void setDouble(final Object instance, final double value) {
+        unsafe.putDouble(declaringClass.cast(instance), offset, value);
+    }
+
+    void setObject(final Object instance, final Object value) {
+        unsafe.putObject(declaringClass.cast(instance), offset, type.cast(value));
+    }
+}
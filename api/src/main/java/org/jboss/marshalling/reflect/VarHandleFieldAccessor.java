@@ -0,0 +1,256 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.reflect;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+
+/**
+ * A field accessor which uses a {@code VarHandle} from a private lookup in the declaring class.  The access methods of
+ * the handle are adapted once to take an {@code Object} instance and the erased field type, so every access is a
+ * single exact invocation; the adaptation also performs the type checks on the instance and on object values.
+ * <p>
+ * The handles are held in instance fields, one accessor per field, so the JIT cannot constant-fold them and every
+ * access is an invocation through a non-constant method handle.  This backend is therefore slower than
+ * {@link UnsafeFieldAccessor}, especially for writes of final fields, and is meant for environments where
+ * {@code Unsafe} field access is unavailable or unwanted rather than for speed.  Making the handles constant would require spinning a class per field, which would also pin the
+ * classes of every deployment which was ever marshalled.
+ */
+final class VarHandleFieldAccessor extends FieldAccessor {
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+
+    private VarHandleFieldAccessor(final MethodHandle getter, final MethodHandle setter) {
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    /**
+     * Create an accessor for the given field.
+     *
+     * @param field the field
+     * @return the accessor, or {@code null} if the field is not accessible to this module
+     */
+    static VarHandleFieldAccessor create(final Field field) {
+        final Class<?> type = field.getType();
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+            final VarHandle varHandle = lookup.unreflectVarHandle(field);
+            final MethodHandle getter = varHandle.toMethodHandle(VarHandle.AccessMode.GET);
+            final MethodHandle setter;
+            if (Modifier.isFinal(field.getModifiers())) {
+                // a VarHandle never writes a final field, but the setter of an accessible field may
+                field.setAccessible(true);
+                setter = lookup.unreflectSetter(field);
+            } else {
+                setter = varHandle.toMethodHandle(VarHandle.AccessMode.SET);
+            }
+            final Class<?> erasedType = type.isPrimitive() ? type : Object.class;
+            return new VarHandleFieldAccessor(getter.asType(methodType(erasedType, Object.class)), setter.asType(methodType(void.class, Object.class, erasedType)));
+        } catch (IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    boolean getBoolean(final Object instance) {
+        try {
+            return (boolean) getter.invokeExact(instance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    char getChar(final Object instance) {
+        try {
+            return (char) getter.invokeExact(instance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    byte getByte(final Object instance) {
+        try {
+            return (byte) getter.invokeExact(instance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    short getShort(final Object instance) {
+        try {
+            return (short) getter.invokeExact(instance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    int getInt(final Object instance) {
+        try {
+            return (int) getter.invokeExact(instance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    long getLong(final Object instance) {
+        try {
+            return (long) getter.invokeExact(instance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    float getFloat(final Object instance) {
+        try {
+            return (float) getter.invokeExact(instance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    double getDouble(final Object instance) {
+        try {
+            return (double) getter.invokeExact(instance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    Object getObject(final Object instance) {
+        try {
+            return (Object) getter.invokeExact(instance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    void setBoolean(final Object instance, final boolean value) {
+        try {
+            setter.invokeExact(instance, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    void setChar(final Object instance, final char value) {
+        try {
+            setter.invokeExact(instance, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    void setByte(final Object instance, final byte value) {
+        try {
+            setter.invokeExact(instance, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    void setShort(final Object instance, final short value) {
+        try {
+            setter.invokeExact(instance, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    void setInt(final Object instance, final int value) {
+        try {
+            setter.invokeExact(instance, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    void setLong(final Object instance, final long value) {
+        try {
+            setter.invokeExact(instance, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    void setFloat(final Object instance, final float value) {
+        try {
+            setter.invokeExact(instance, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    void setDouble(final Object instance, final double value) {
+        try {
+            setter.invokeExact(instance, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    void setObject(final Object instance, final Object value) {
+        try {
+            setter.invokeExact(instance, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.reflect;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The outcome of warming up the {@link SerializableClassRegistry}.
+ *
+ * @see SerializableClassRegistry#warmUp(java.util.Collection, java.util.concurrent.Executor)
+ */
+public final class WarmUpReport {
+    private final AtomicInteger classCount = new AtomicInteger();
+    private final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+
+    WarmUpReport() {
+    }
+
+    void addClass() {
+        classCount.incrementAndGet();
+    }
+
+    void addFailure(final String name, final Throwable cause) {
+        failures.put(name, cause);
+    }
+
+    /**
+     * Get the number of classes which were successfully looked up.  Superclasses which were looked up along the way are
+     * not counted separately.
+     *
+     * @return the number of classes
+     */
+    public int getClassCount() {
+        return classCount.get();
+    }
+
+    /**
+     * Get the failures, keyed by the name of the class or package which could not be loaded, scanned or looked up.
+     *
+     * @return the failures, which is empty if there were none
+     */
+    public Map<String, Throwable> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public String toString() {
+        return "Warmed up " + classCount.get() + " classes with " + failures.size() + " failures";
+    }
+}
@@ -24,6 +24,18 @@ import java.util.Arrays;
 
 /**
  * An efficient identity object map whose keys are objects and whose values are {@code int}s.
+ * <p>
+ * The map uses open addressing with Robin Hood probing: an entry being inserted takes the slot of any entry which is
+ * closer to its home slot, so probe sequences stay short and a lookup for a missing key can stop as soon as it reaches
+ * an entry closer to home than itself.  The identity hash code of each key is stored next to its value, so probing
+ * and resizing never touch the key objects themselves.
+ * <p>
+ * The slots filled since the last {@link #clear()} are recorded, so clearing a large table which holds only a few
+ * entries releases just those entries instead of wiping the whole table; a marshaller which once wrote a huge message
+ * does not pay for it again on every later small one.  A table which has grown beyond both its initial capacity and
+ * the {@code jboss.marshalling.identityint.reinitialize.capacity.threshold} system property (default 65536) is
+ * reallocated at its initial capacity once {@code jboss.marshalling.identityint.shrink.after.clears} consecutive
+ * clears (default 16) have found it mostly empty; a value of {@code 0} for the latter disables shrinking.
  */
 public final class IdentityIntMap<T> implements Cloneable {
 
@@ -31,11 +43,20 @@ public final class IdentityIntMap<T> implements Cloneable {
     private static final int REINITIALIZE_CAPACITY_THRESHOLD = AccessController.doPrivileged((PrivilegedAction<Integer>) () -> {
         return Integer.getInteger("jboss.marshalling.identityint.reinitialize.capacity.threshold", DEFAULT_REINITIALIZE_CAPACITY_THRESHOLD);
     });
+    private static final int DEFAULT_SHRINK_AFTER_CLEARS = 16;
+    private static final int SHRINK_AFTER_CLEARS = AccessController.doPrivileged((PrivilegedAction<Integer>) () -> {
+        return Integer.getInteger("jboss.marshalling.identityint.shrink.after.clears", DEFAULT_SHRINK_AFTER_CLEARS);
+    });
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
 
-    private int[] values;
     private Object[] keys;
+    // the identity hash code of each key at [i << 1] and its value at [(i << 1) + 1]
+    private int[] hashesAndValues;
+    // the slots filled since the last clear, in the order they were filled
+    private int[] occupied;
     private int count;
     private int resizeCount;
+    private int smallClears;
 
     private final int initialCapacity;
     private final float loadFactor;
@@ -55,6 +76,8 @@ public final class IdentityIntMap<T> implements Cloneable {
         }
         if (initialCapacity < 16) {
             initialCapacity = 16;
+        } else if (initialCapacity >= MAXIMUM_CAPACITY) {
+            initialCapacity = MAXIMUM_CAPACITY;
         } else {
             // round up
             final int c = Integer.highestOneBit(initialCapacity) - 1;
@@ -67,8 +90,14 @@ public final class IdentityIntMap<T> implements Cloneable {
 
     private void init() {
         keys = new Object[initialCapacity];
-        values = new int[initialCapacity];
-        resizeCount = (int) ((double) initialCapacity * (double) loadFactor);
+        hashesAndValues = new int[initialCapacity << 1];
+        resizeCount = resizeCount(initialCapacity);
+        occupied = new int[resizeCount];
+    }
+
+    private int resizeCount(final int capacity) {
+        // always leave at least one free slot, so that probing terminates
+        return Math.min((int) ((double) capacity * (double) loadFactor), capacity - 1);
     }
 
     /**
@@ -80,8 +109,9 @@ public final class IdentityIntMap<T> implements Cloneable {
     public IdentityIntMap<T> clone() {
         try {
             final IdentityIntMap<T> clone = (IdentityIntMap<T>) super.clone();
-            clone.values = values.clone();
+            clone.hashesAndValues = hashesAndValues.clone();
             clone.keys = keys.clone();
+            clone.occupied = occupied.clone();
             return clone;
         } catch (CloneNotSupportedException e) {
             throw new IllegalStateException();
@@ -122,19 +152,20 @@ public final class IdentityIntMap<T> implements Cloneable {
      */
     public int get(T key, int defVal) {
         final Object[] keys = this.keys;
+        final int[] hashesAndValues = this.hashesAndValues;
         final int mask = keys.length - 1;
-        int hc = System.identityHashCode(key) & mask;
+        int idx = System.identityHashCode(key) & mask;
         Object v;
-        for (;;) {
-            v = keys[hc];
+        for (int dist = 0;; dist ++) {
+            v = keys[idx];
             if (v == key) {
-                return values[hc];
+                return hashesAndValues[(idx << 1) + 1];
             }
-            if (v == null) {
-                // not found
+            if (v == null || (idx - hashesAndValues[idx << 1] & mask) < dist) {
+                // not found; the key would have displaced this entry
                 return defVal;
             }
-            hc = (hc + 1) & mask;
+            idx = idx + 1 & mask;
         }
     }
 
@@ -146,69 +177,118 @@ public final class IdentityIntMap<T> implements Cloneable {
      */
     public void put(T key, int value) {
         final Object[] keys = this.keys;
+        final int[] hashesAndValues = this.hashesAndValues;
         final int mask = keys.length - 1;
-        final int[] values = this.values;
+        final int hash = System.identityHashCode(key);
+        int idx = hash & mask;
         Object v;
-        int hc = System.identityHashCode(key) & mask;
-        for (int idx = hc;; idx = hc++ & mask) {
+        for (int dist = 0;; dist ++) {
             v = keys[idx];
+            if (v == key) {
+                hashesAndValues[(idx << 1) + 1] = value;
+                return;
+            }
+            if (v == null || (idx - hashesAndValues[idx << 1] & mask) < dist) {
+                break;
+            }
+            idx = idx + 1 & mask;
+        }
+        // not found
+        if (count >= resizeCount) {
+            resize();
+            occupied[count ++] = insert(this.keys, this.hashesAndValues, key, hash, value);
+        } else {
+            occupied[count ++] = insert(keys, hashesAndValues, key, hash, value);
+        }
+    }
+
+    /**
+     * Insert an entry for a key which is not in the table.
+     *
+     * @return the index of the slot which was empty before
+     */
+    private static int insert(final Object[] keys, final int[] hashesAndValues, Object key, int hash, int value) {
+        final int mask = keys.length - 1;
+        int idx = hash & mask;
+        for (int dist = 0;; dist ++) {
+            final Object v = keys[idx];
+            final int hi = idx << 1;
             if (v == null) {
                 keys[idx] = key;
-                values[idx] = value;
-                if (++count > resizeCount) {
-                    resize();
-                }
-                return;
+                hashesAndValues[hi] = hash;
+                hashesAndValues[hi + 1] = value;
+                return idx;
             }
-            if (v == key) {
-                values[idx] = value;
-                return;
+            final int vDist = idx - hashesAndValues[hi] & mask;
+            if (vDist < dist) {
+                // take the slot, and carry on inserting the entry which was in it
+                keys[idx] = key;
+                key = v;
+                final int vHash = hashesAndValues[hi];
+                hashesAndValues[hi] = hash;
+                hash = vHash;
+                final int vValue = hashesAndValues[hi + 1];
+                hashesAndValues[hi + 1] = value;
+                value = vValue;
+                dist = vDist;
             }
+            idx = idx + 1 & mask;
         }
     }
 
     private void resize() {
         final Object[] oldKeys = keys;
         final int oldsize = oldKeys.length;
-        final int[] oldValues = values;
-        if (oldsize >= 0x40000000) {
+        final int[] oldHashesAndValues = hashesAndValues;
+        if (oldsize == MAXIMUM_CAPACITY) {
             throw new IllegalStateException("Table full");
         }
         final int newsize = oldsize << 1;
-        final int mask = newsize - 1;
         final Object[] newKeys = new Object[newsize];
-        final int[] newValues = new int[newsize];
-        keys = newKeys;
-        values = newValues;
-        if ((resizeCount <<= 1) == 0) {
-            resizeCount = Integer.MAX_VALUE;
-        }
+        final int[] newHashesAndValues = new int[newsize << 1];
+        final int newResizeCount = resizeCount(newsize);
+        final int[] newOccupied = new int[newResizeCount];
+        int count = 0;
         for (int oi = 0; oi < oldsize; oi ++) {
             final Object key = oldKeys[oi];
             if (key != null) {
-                int ni = System.identityHashCode(key) & mask;
-                for (;;) {
-                    final Object v = newKeys[ni];
-                    if (v == null) {
-                        // found
-                        newKeys[ni] = key;
-                        newValues[ni] = oldValues[oi];
-                        break;
-                    }
-                    ni = (ni + 1) & mask;
-                }
+                newOccupied[count ++] = insert(newKeys, newHashesAndValues, key, oldHashesAndValues[oi << 1], oldHashesAndValues[(oi << 1) + 1]);
             }
         }
+        keys = newKeys;
+        hashesAndValues = newHashesAndValues;
+        occupied = newOccupied;
+        resizeCount = newResizeCount;
     }
 
+    /**
+     * Remove all of the entries from the map.  The cost is proportional to the number of entries added since the last
+     * clear, rather than to the capacity of the table.
+     */
     public void clear() {
-        if (keys.length > REINITIALIZE_CAPACITY_THRESHOLD) {
-            // Reinitialize arrays if keys.length exceeds threshold
-            init();
+        final Object[] keys = this.keys;
+        final int count = this.count;
+        this.count = 0;
+        if (keys.length > Math.max(initialCapacity, REINITIALIZE_CAPACITY_THRESHOLD) && SHRINK_AFTER_CLEARS > 0) {
+            if (count < resizeCount >> 2) {
+                if (++smallClears >= SHRINK_AFTER_CLEARS) {
+                    // Reinitialize arrays if the table has stayed mostly empty
+                    smallClears = 0;
+                    init();
+                    return;
+                }
+            } else {
+                smallClears = 0;
+            }
+        }
+        if (count < keys.length >> 4) {
+            final int[] occupied = this.occupied;
+            for (int i = 0; i < count; i ++) {
+                keys[occupied[i]] = null;
+            }
         } else {
             Arrays.fill(keys, null);
         }
-        count = 0;
     }
 
     /**
@@ -219,11 +299,12 @@ public final class IdentityIntMap<T> implements Cloneable {
     public String toString() {
         StringBuilder builder = new StringBuilder();
         builder.append("Map length = ").append(keys.length).append(", count = ").append(count).append(", resize count = ").append(resizeCount).append('\n');
+        final int mask = keys.length - 1;
         for (int i = 0; i < keys.length; i ++) {
             builder.append('[').append(i).append("] = ");
             if (keys[i] != null) {
-                final int hc = System.identityHashCode(keys[i]);
-                builder.append("{ ").append(keys[i]).append(" (hash ").append(hc).append(", modulus ").append(hc % keys.length).append(") => ").append(values[i]).append(" }");
+                final int hc = hashesAndValues[i << 1];
+                builder.append("{ ").append(keys[i]).append(" (hash ").append(hc).append(", distance ").append(i - hc & mask).append(") => ").append(hashesAndValues[(i << 1) + 1]).append(" }");
             } else {
                 builder.append("(blank)");
             }
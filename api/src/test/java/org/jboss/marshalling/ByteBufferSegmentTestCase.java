@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test case for {@link ByteBufferSegmentOutput} and {@link ByteBufferSegmentInput}.
+ */
+public final class ByteBufferSegmentTestCase {
+
+    private static byte[] randomBytes(final int len) {
+        final byte[] bytes = new byte[len];
+        new Random(len).nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testGrowth() throws IOException {
+        for (boolean direct : new boolean[] { false, true }) {
+            final ByteBufferPool pool = new ByteBufferPool(16, direct, 8);
+            final ByteBufferSegmentOutput output = new ByteBufferSegmentOutput(pool);
+            final byte[] bytes = randomBytes(100);
+            output.write(bytes[0]);
+            output.write(bytes, 1, 40);
+            output.write(ByteBuffer.wrap(bytes, 41, 30));
+            output.write(bytes, 71, 29);
+            Assert.assertEquals(output.size(), 100L);
+            final ByteBuffer[] buffers = output.getBuffers();
+            Assert.assertEquals(buffers.length, 7);
+            final byte[] result = new byte[100];
+            final ByteBufferSegmentInput input = new ByteBufferSegmentInput(buffers);
+            Assert.assertEquals(input.available(), 100);
+            Assert.assertEquals(input.read(), bytes[0] & 0xff);
+            Assert.assertEquals(input.skip(9), 9L);
+            Assert.assertEquals(input.read(result, 10, 90), 90);
+            Assert.assertEquals(input.read(), -1);
+            Assert.assertEquals(input.read(result, 0, 10), -1);
+            System.arraycopy(bytes, 0, result, 0, 10);
+            Assert.assertEquals(result, bytes);
+            output.close();
+            Assert.assertEquals(pool.getIdleCount(), 7);
+            Assert.assertEquals(output.size(), 0L);
+        }
+    }
+
+    @Test
+    public void testMarshallingRoundTrip() throws IOException {
+        final ByteBufferPool pool = new ByteBufferPool(64, true, 64);
+        final ByteBufferSegmentOutput output = new ByteBufferSegmentOutput(pool);
+        final SimpleDataOutput dataOutput = new SimpleDataOutput(32, output);
+        for (int i = 0; i < 500; i ++) {
+            dataOutput.writeInt(i);
+            dataOutput.writeUTF("value " + i);
+        }
+        dataOutput.flush();
+        final SimpleDataInput dataInput = new SimpleDataInput(32, new ByteBufferSegmentInput(output.getBuffers()));
+        for (int i = 0; i < 500; i ++) {
+            Assert.assertEquals(dataInput.readInt(), i);
+            Assert.assertEquals(dataInput.readUTF(), "value " + i);
+        }
+        Assert.assertEquals(dataInput.read(), -1);
+    }
+
+    private static void writeData(final SimpleDataOutput output, final byte[] bytes) throws IOException {
+        for (int i = 0; i < 300; i ++) {
+            output.writeByte(i);
+            output.writeLong(i * 31L);
+            output.writeUTF("value " + i);
+            output.write(bytes, 0, i);
+            output.writeDouble(i / 7.0);
+        }
+        output.flush();
+    }
+
+    @Test
+    public void testInPlaceWrites() throws IOException {
+        final byte[] bytes = randomBytes(300);
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        writeData(new SimpleDataOutput(64, Marshalling.createByteOutput(expected)), bytes);
+        final ByteBufferPool pool = new ByteBufferPool(64, false, 64);
+        final ByteBufferSegmentOutput output = new ByteBufferSegmentOutput(pool);
+        final SimpleDataOutput dataOutput = new SimpleDataOutput(64, output);
+        Assert.assertTrue(dataOutput.isWritingInPlace());
+        writeData(dataOutput, bytes);
+        Assert.assertEquals(output.size(), (long) expected.size());
+        final byte[] result = new byte[expected.size()];
+        Assert.assertEquals(new ByteBufferSegmentInput(output.getBuffers()).read(result), result.length);
+        Assert.assertEquals(result, expected.toByteArray());
+        // segments smaller than the buffer, or direct segments, cannot be lent
+        Assert.assertFalse(new SimpleDataOutput(128, new ByteBufferSegmentOutput(pool)).isWritingInPlace());
+        Assert.assertFalse(new SimpleDataOutput(64, new ByteBufferSegmentOutput(new ByteBufferPool(64, true, 1))).isWritingInPlace());
+    }
+
+    @Test
+    public void testGatheringWrite() throws IOException {
+        final Path file = Files.createTempFile("segments", ".bin");
+        try {
+            final ByteBufferPool pool = new ByteBufferPool(1000, false, 4);
+            final ByteBufferSegmentOutput output = new ByteBufferSegmentOutput(pool);
+            final byte[] bytes = randomBytes(10000);
+            output.write(bytes);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                Assert.assertEquals(output.writeTo(channel), 10000L);
+            }
+            Assert.assertEquals(output.size(), 0L);
+            Assert.assertEquals(pool.getIdleCount(), 4);
+            Assert.assertEquals(Files.readAllBytes(file), bytes);
+            final ByteBuffer[] buffers = { ByteBuffer.allocate(3000), ByteBuffer.allocateDirect(7000) };
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long total = 0L;
+                while (total < 10000L) {
+                    total += channel.read(buffers);
+                }
+            }
+            for (ByteBuffer buffer : buffers) {
+                buffer.flip();
+            }
+            final byte[] result = new byte[10000];
+            final ByteBufferSegmentInput input = new ByteBufferSegmentInput(buffers);
+            Assert.assertEquals(input.read(result), 10000);
+            Assert.assertEquals(result, bytes);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.lang.ref.WeakReference;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test case for {@link CachingClassResolver}.
+ */
+public final class CachingClassResolverTestCase {
+
+    public static final class Subject implements Serializable {
+        private static final long serialVersionUID = 42L;
+    }
+
+    static final class CountingClassResolver extends SimpleClassResolver {
+        int loads;
+
+        CountingClassResolver(final boolean enforceSerialVersionUid, final ClassLoader classLoader) {
+            super(enforceSerialVersionUid, classLoader);
+        }
+
+        protected Class<?> loadClass(final String name) throws ClassNotFoundException {
+            loads ++;
+            return super.loadClass(name);
+        }
+    }
+
+    /**
+     * A class loader which defines its own copy of {@link Subject}.
+     */
+    static final class IsolatingClassLoader extends ClassLoader {
+        IsolatingClassLoader() {
+            super(IsolatingClassLoader.class.getClassLoader());
+        }
+
+        protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+            if (! name.equals(Subject.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> clazz = findLoadedClass(name);
+                if (clazz == null) {
+                    try (InputStream is = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                        final byte[] bytes = is.readAllBytes();
+                        clazz = defineClass(name, bytes, 0, bytes.length);
+                    } catch (IOException e) {
+                        throw new ClassNotFoundException(name, e);
+                    }
+                }
+                return clazz;
+            }
+        }
+    }
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        final CountingClassResolver delegate = new CountingClassResolver(false, getClass().getClassLoader());
+        final CachingClassResolver resolver = new CachingClassResolver(delegate);
+        Assert.assertSame(resolver.resolveClass(null, Subject.class.getName(), 42L), Subject.class);
+        Assert.assertSame(resolver.resolveClass(null, Subject.class.getName(), 42L), Subject.class);
+        Assert.assertSame(resolver.resolveClass(null, "int", 0L), int.class);
+        Assert.assertEquals(delegate.loads, 2);
+        Assert.assertEquals(resolver.getHitCount(), 1L);
+        Assert.assertEquals(resolver.getMissCount(), 2L);
+        try {
+            resolver.resolveClass(null, "org.jboss.marshalling.DoesNotExist", 0L);
+            Assert.fail("Expected ClassNotFoundException");
+        } catch (ClassNotFoundException expected) {
+        }
+        Assert.assertEquals(resolver.getMissCount(), 3L);
+        resolver.clear();
+        Assert.assertEquals(resolver.getHitCount(), 0L);
+        Assert.assertEquals(resolver.getMissCount(), 0L);
+        Assert.assertSame(resolver.resolveClass(null, Subject.class.getName(), 42L), Subject.class);
+        Assert.assertEquals(delegate.loads, 4);
+    }
+
+    @Test
+    public void testSerialVersionUid() throws Exception {
+        final CountingClassResolver delegate = new CountingClassResolver(true, getClass().getClassLoader());
+        final CachingClassResolver resolver = new CachingClassResolver(delegate);
+        Assert.assertSame(resolver.resolveClass(null, Subject.class.getName(), 42L), Subject.class);
+        // a different serialVersionUID must still be checked by the delegate
+        try {
+            resolver.resolveClass(null, Subject.class.getName(), 43L);
+            Assert.fail("Expected StreamCorruptedException");
+        } catch (StreamCorruptedException expected) {
+        }
+        Assert.assertEquals(resolver.getHitCount(), 0L);
+        Assert.assertEquals(resolver.getMissCount(), 2L);
+    }
+
+    @Test
+    public void testPerClassLoader() throws Exception {
+        final ClassLoader isolated = new IsolatingClassLoader();
+        final ClassLoader[] current = { getClass().getClassLoader() };
+        final CachingClassResolver resolver = new CachingClassResolver(new AbstractClassResolver() {
+            protected ClassLoader getClassLoader() {
+                return current[0];
+            }
+        });
+        Assert.assertSame(resolver.resolveClass(null, Subject.class.getName(), 0L), Subject.class);
+        current[0] = isolated;
+        final Class<?> isolatedSubject = resolver.resolveClass(null, Subject.class.getName(), 0L);
+        Assert.assertNotSame(isolatedSubject, Subject.class);
+        Assert.assertSame(isolatedSubject.getClassLoader(), isolated);
+        Assert.assertSame(resolver.resolveClass(null, Subject.class.getName(), 0L), isolatedSubject);
+        current[0] = getClass().getClassLoader();
+        Assert.assertSame(resolver.resolveClass(null, Subject.class.getName(), 0L), Subject.class);
+        Assert.assertEquals(resolver.getHitCount(), 2L);
+        Assert.assertEquals(resolver.getMissCount(), 2L);
+    }
+
+    @Test
+    public void testClassLoaderNotPinned() throws Exception {
+        final ClassLoader[] current = { new IsolatingClassLoader() };
+        final CachingClassResolver resolver = new CachingClassResolver(new AbstractClassResolver() {
+            protected ClassLoader getClassLoader() {
+                return current[0];
+            }
+        });
+        Assert.assertNotSame(resolver.resolveClass(null, Subject.class.getName(), 0L), Subject.class);
+        final WeakReference<ClassLoader> ref = new WeakReference<ClassLoader>(current[0]);
+        current[0] = getClass().getClassLoader();
+        for (int i = 0; i < 50 && ref.get() != null; i ++) {
+            System.gc();
+            Thread.sleep(10L);
+        }
+        Assert.assertNull(ref.get(), "Class loader was not collected");
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test case for {@link MarshallerPool}.
+ */
+public final class MarshallerPoolTestCase {
+
+    @Test
+    public void testReuse() throws Exception {
+        final TestMarshallerFactory factory = new TestMarshallerFactory();
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        final MarshallerPool pool = factory.getPool(configuration);
+        Assert.assertSame(factory.getPool(configuration), pool);
+        Assert.assertNotSame(factory.getPool(new MarshallingConfiguration()), pool);
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final Marshaller marshaller = pool.borrowMarshaller();
+        marshaller.start(Marshalling.createByteOutput(baos));
+        marshaller.writeObject("hello");
+        // returning finishes (and flushes) the marshaller, which clears its class cache once
+        pool.returnMarshaller(marshaller);
+        Assert.assertEquals(((TestMarshaller) marshaller).classCacheClears, 1);
+        Assert.assertEquals(pool.getIdleMarshallerCount(), 1);
+        Assert.assertSame(pool.borrowMarshaller(), marshaller);
+        Assert.assertEquals(pool.getIdleMarshallerCount(), 0);
+
+        final Unmarshaller unmarshaller = pool.borrowUnmarshaller();
+        unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(baos.toByteArray())));
+        Assert.assertEquals(unmarshaller.readObject(), "hello");
+        pool.returnUnmarshaller(unmarshaller);
+        Assert.assertEquals(pool.getIdleUnmarshallerCount(), 1);
+        Assert.assertSame(pool.borrowUnmarshaller(), unmarshaller);
+        Assert.assertEquals(factory.unmarshallersCreated, 1);
+    }
+
+    @Test
+    public void testBounded() throws Exception {
+        final TestMarshallerFactory factory = new TestMarshallerFactory();
+        final MarshallerPool pool = new MarshallerPool(factory, new MarshallingConfiguration(), 2);
+        final Marshaller[] marshallers = new Marshaller[4];
+        for (int i = 0; i < marshallers.length; i ++) {
+            marshallers[i] = pool.borrowMarshaller();
+        }
+        for (Marshaller marshaller : marshallers) {
+            pool.returnMarshaller(marshaller);
+        }
+        Assert.assertEquals(pool.getIdleMarshallerCount(), 2);
+        Assert.assertEquals(factory.marshallersCreated, 4);
+        pool.clear();
+        Assert.assertEquals(pool.getIdleMarshallerCount(), 0);
+    }
+
+    @Test
+    public void testConcurrentBorrowers() throws Exception {
+        final TestMarshallerFactory factory = new TestMarshallerFactory();
+        final MarshallerPool pool = new MarshallerPool(factory, new MarshallingConfiguration(), 4);
+        final Thread[] threads = new Thread[8];
+        final Throwable[] problems = new Throwable[threads.length];
+        for (int t = 0; t < threads.length; t ++) {
+            final int idx = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 1000; i ++) {
+                        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                        final Marshaller marshaller = pool.borrowMarshaller();
+                        marshaller.start(Marshalling.createByteOutput(baos));
+                        marshaller.writeObject(idx + ":" + i);
+                        pool.returnMarshaller(marshaller);
+                        final Unmarshaller unmarshaller = pool.borrowUnmarshaller();
+                        unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(baos.toByteArray())));
+                        Assert.assertEquals(unmarshaller.readObject(), idx + ":" + i);
+                        pool.returnUnmarshaller(unmarshaller);
+                    }
+                } catch (Throwable e) {
+                    problems[idx] = e;
+                }
+            });
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t ++) {
+            threads[t].join();
+            Assert.assertNull(problems[t]);
+        }
+        Assert.assertTrue(pool.getIdleMarshallerCount() <= 4);
+        Assert.assertTrue(pool.getIdleUnmarshallerCount() <= 4);
+    }
+
+    static final class TestMarshallerFactory extends AbstractMarshallerFactory {
+        volatile int marshallersCreated;
+        volatile int unmarshallersCreated;
+
+        public synchronized Unmarshaller createUnmarshaller(final MarshallingConfiguration configuration) {
+            unmarshallersCreated ++;
+            return new TestUnmarshaller(this, configuration);
+        }
+
+        public synchronized Marshaller createMarshaller(final MarshallingConfiguration configuration) {
+            marshallersCreated ++;
+            return new TestMarshaller(this, configuration);
+        }
+    }
+
+    static final class TestMarshaller extends AbstractMarshaller {
+        int classCacheClears;
+
+        TestMarshaller(final AbstractMarshallerFactory marshallerFactory, final MarshallingConfiguration configuration) {
+            super(marshallerFactory, configuration);
+        }
+
+        protected void doWriteObject(final Object obj, final boolean unshared) throws IOException {
+            writeUTF((String) obj);
+        }
+
+        public void clearInstanceCache() {
+        }
+
+        public void clearClassCache() {
+            classCacheClears ++;
+        }
+    }
+
+    static final class TestUnmarshaller extends AbstractUnmarshaller {
+        TestUnmarshaller(final AbstractMarshallerFactory marshallerFactory, final MarshallingConfiguration configuration) {
+            super(marshallerFactory, configuration);
+        }
+
+        protected Object doReadObject(final boolean unshared) throws IOException {
+            return readUTF();
+        }
+
+        public void clearInstanceCache() {
+        }
+
+        public void clearClassCache() {
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test case for the bulk array and direct buffer access methods of {@link SimpleDataOutput} and {@link SimpleDataInput}.
+ */
+public final class SimpleDataBulkTestCase {
+
+    private static final int COUNT = 1000;
+
+    private static byte[] expected(final Random random) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream dos = new DataOutputStream(baos);
+        for (int i = 0; i < COUNT; i ++) dos.writeShort(random.nextInt());
+        for (int i = 0; i < COUNT; i ++) dos.writeChar(random.nextInt());
+        for (int i = 0; i < COUNT; i ++) dos.writeInt(random.nextInt());
+        for (int i = 0; i < COUNT; i ++) dos.writeLong(random.nextLong());
+        for (int i = 0; i < COUNT; i ++) dos.writeFloat(i % 10 == 0 ? Float.NaN : random.nextFloat());
+        for (int i = 0; i < COUNT; i ++) dos.writeDouble(i % 10 == 0 ? Double.NaN : random.nextDouble());
+        dos.close();
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void testBulkRoundTrip() throws IOException {
+        final byte[] expected = expected(new Random(17));
+        for (int bufferSize : new int[] { 8, 64, 511, 8192 }) {
+            // read with a small-chunk input to force values to straddle buffer boundaries
+            final InputStream is = new ByteArrayInputStream(expected) {
+                public int read(final byte[] b, final int off, final int len) {
+                    return super.read(b, off, Math.min(len, 5));
+                }
+            };
+            final SimpleDataInput input = new SimpleDataInput(bufferSize, Marshalling.createByteInput(is));
+            final short[] shorts = new short[COUNT];
+            final char[] chars = new char[COUNT];
+            final int[] ints = new int[COUNT];
+            final long[] longs = new long[COUNT];
+            final float[] floats = new float[COUNT];
+            final double[] doubles = new double[COUNT];
+            input.readShorts(shorts, 0, COUNT);
+            input.readChars(chars, 0, COUNT);
+            input.readInts(ints, 0, COUNT);
+            input.readLongs(longs, 0, COUNT);
+            input.readFloats(floats, 0, COUNT);
+            input.readDoubles(doubles, 0, COUNT);
+            Assert.assertEquals(input.read(), -1);
+
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            final SimpleDataOutput output = new SimpleDataOutput(bufferSize, Marshalling.createByteOutput(baos));
+            output.writeShorts(shorts, 0, COUNT);
+            output.writeChars(chars, 0, COUNT);
+            output.writeInts(ints, 0, COUNT);
+            output.writeLongs(longs, 0, COUNT);
+            output.writeFloats(floats, 0, COUNT);
+            output.writeDoubles(doubles, 0, COUNT);
+            output.flush();
+            Assert.assertEquals(baos.toByteArray(), expected, "buffer size " + bufferSize);
+        }
+    }
+
+    @Test
+    public void testReserve() throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final SimpleDataOutput output = new SimpleDataOutput(8, Marshalling.createByteOutput(baos));
+        output.write(1);
+        output.write(2);
+        output.write(3);
+        // fits after the buffered bytes
+        int offset = output.reserve(4);
+        Assert.assertEquals(offset, 3);
+        output.buffer[offset] = 4;
+        output.buffer[offset + 1] = 5;
+        output.buffer[offset + 2] = 6;
+        output.buffer[offset + 3] = 7;
+        Assert.assertEquals(baos.size(), 0);
+        // does not fit, so the buffered bytes are drained first
+        offset = output.reserve(8);
+        Assert.assertEquals(offset, 0);
+        Assert.assertEquals(baos.toByteArray(), new byte[] { 1, 2, 3, 4, 5, 6, 7 });
+        for (int i = 0; i < 8; i ++) {
+            output.buffer[i] = (byte) (8 + i);
+        }
+        output.write(16);
+        output.flush();
+        Assert.assertEquals(baos.toByteArray(), new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 });
+    }
+
+    @Test
+    public void testRequire() throws IOException {
+        final byte[] bytes = new byte[20];
+        for (int i = 0; i < bytes.length; i ++) {
+            bytes[i] = (byte) i;
+        }
+        final InputStream is = new ByteArrayInputStream(bytes) {
+            public int read(final byte[] b, final int off, final int len) {
+                return super.read(b, off, Math.min(len, 3));
+            }
+        };
+        final SimpleDataInput input = new SimpleDataInput(8, Marshalling.createByteInput(is));
+        // nothing buffered yet, so the input is read until enough is available
+        int offset = input.require(5);
+        Assert.assertEquals(offset, 0);
+        Assert.assertEquals(input.buffer[offset + 4], (byte) 4);
+        Assert.assertEquals(input.read(), 5);
+        // a run straddling the end of the buffer is moved to the start
+        offset = input.require(8);
+        Assert.assertEquals(offset, 0);
+        for (int i = 0; i < 8; i ++) {
+            Assert.assertEquals(input.buffer[offset + i], (byte) (6 + i));
+        }
+        Assert.assertEquals(input.readByte(), (byte) 14);
+        try {
+            input.require(6);
+            Assert.fail("Expected EOFException");
+        } catch (EOFException expected) {
+        }
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void testBulkReadPastEnd() throws IOException {
+        final SimpleDataInput input = new SimpleDataInput(16, Marshalling.createByteInput(new ByteArrayInputStream(new byte[10])));
+        input.readInts(new int[3], 0, 3);
+    }
+}
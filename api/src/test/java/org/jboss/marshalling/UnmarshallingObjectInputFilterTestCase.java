@@ -104,6 +104,61 @@ public class UnmarshallingObjectInputFilterTestCase {
                 UnmarshallingObjectInputFilter.Status.ALLOWED);
     }
 
+    @Test
+    public void testElementOrder() {
+        UnmarshallingObjectInputFilter filter = UnmarshallingObjectInputFilter.Factory.createFilter("maxdepth=5;java.util.*;maxdepth=2;!java.util.Hashtable;*");
+
+        // limits before the matching class element apply, later ones do not
+        Assert.assertEquals(filter.checkInput(new TestFilterInfo(ArrayList.class, -1, 4, 0, 0)),
+                UnmarshallingObjectInputFilter.Status.ALLOWED);
+        Assert.assertEquals(filter.checkInput(new TestFilterInfo(ArrayList.class, -1, 6, 0, 0)),
+                UnmarshallingObjectInputFilter.Status.REJECTED);
+        // the first matching class element decides
+        Assert.assertEquals(filter.checkInput(new TestFilterInfo(Hashtable.class, -1, 0, 0, 0)),
+                UnmarshallingObjectInputFilter.Status.ALLOWED);
+        Assert.assertEquals(filter.checkInput(new TestFilterInfo(Integer.class, -1, 2, 0, 0)),
+                UnmarshallingObjectInputFilter.Status.ALLOWED);
+        Assert.assertEquals(filter.checkInput(new TestFilterInfo(Integer.class, -1, 3, 0, 0)),
+                UnmarshallingObjectInputFilter.Status.REJECTED);
+    }
+
+    @Test
+    public void testExactMatches() {
+        UnmarshallingObjectInputFilter filter = UnmarshallingObjectInputFilter.Factory.createFilter("!java.util.HashMap;java.util.ArrayList;java.util.HashMap");
+
+        Assert.assertEquals(filter.checkInput(new TestFilterInfo(HashMap.class, -1, 0, 0, 0)),
+                UnmarshallingObjectInputFilter.Status.REJECTED);
+        Assert.assertEquals(filter.checkInput(new TestFilterInfo(ArrayList.class, -1, 0, 0, 0)),
+                UnmarshallingObjectInputFilter.Status.ALLOWED);
+        Assert.assertEquals(filter.checkInput(new TestFilterInfo(Hashtable.class, -1, 0, 0, 0)),
+                UnmarshallingObjectInputFilter.Status.UNDECIDED);
+        // the exact name of a nested class
+        filter = UnmarshallingObjectInputFilter.Factory.createFilter(TestClass.class.getName());
+        Assert.assertEquals(filter.checkInput(new TestFilterInfo(TestClass.class, -1, 0, 0, 0)),
+                UnmarshallingObjectInputFilter.Status.ALLOWED);
+        Assert.assertEquals(filter.checkInput(new TestFilterInfo(TestFilterInfo.class, -1, 0, 0, 0)),
+                UnmarshallingObjectInputFilter.Status.UNDECIDED);
+    }
+
+    @Test
+    public void testPrefixes() {
+        UnmarshallingObjectInputFilter filter = UnmarshallingObjectInputFilter.Factory.createFilter("java.util.Hash*;!java.util.**;[Ljava.lang.*");
+
+        Assert.assertEquals(filter.checkInput(new TestFilterInfo(HashMap.class, -1, 0, 0, 0)),
+                UnmarshallingObjectInputFilter.Status.ALLOWED);
+        Assert.assertEquals(filter.checkInput(new TestFilterInfo(Hashtable.class, -1, 0, 0, 0)),
+                UnmarshallingObjectInputFilter.Status.ALLOWED);
+        Assert.assertEquals(filter.checkInput(new TestFilterInfo(ArrayList.class, -1, 0, 0, 0)),
+                UnmarshallingObjectInputFilter.Status.REJECTED);
+        Assert.assertEquals(filter.checkInput(new TestFilterInfo(java.util.concurrent.ConcurrentHashMap.class, -1, 0, 0, 0)),
+                UnmarshallingObjectInputFilter.Status.REJECTED);
+        // array class names only match prefixes
+        Assert.assertEquals(filter.checkInput(new TestFilterInfo(String[].class, 1, 0, 0, 0)),
+                UnmarshallingObjectInputFilter.Status.ALLOWED);
+        Assert.assertEquals(filter.checkInput(new TestFilterInfo(ArrayList[].class, 1, 0, 0, 0)),
+                UnmarshallingObjectInputFilter.Status.UNDECIDED);
+    }
+
     @Test
     public void testInvalidFilters() {
         assertInvalid("org.jboss.marshalling.***");
@@ -0,0 +1,256 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.reflect;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectStreamField;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.marshalling.util.Kind;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test case for {@link CompiledFields}.
+ */
+public final class CompiledFieldsTestCase {
+
+    @SuppressWarnings("unused")
+    static final class Mixed implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        boolean z;
+        byte b;
+        char c;
+        short s;
+        int i;
+        float f;
+        long l;
+        double d;
+        String name;
+        Object other;
+    }
+
+    @SuppressWarnings("unused")
+    static final class Primitives implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        int x;
+        long y;
+    }
+
+    @SuppressWarnings("unused")
+    static final class Persistent implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("a", int.class),
+            new ObjectStreamField("missing", long.class),
+            new ObjectStreamField("z", int.class),
+        };
+
+        int a;
+        int z;
+    }
+
+    static final class Empty implements Serializable {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static CompiledFields compile(final Class<?> clazz) {
+        return SerializableClassRegistry.getInstance().lookup(clazz).getCompiledFields();
+    }
+
+    private static Mixed mixed() {
+        final Mixed mixed = new Mixed();
+        mixed.z = true;
+        mixed.b = (byte) 0x81;
+        mixed.c = '\uabcd';
+        mixed.s = (short) -2;
+        mixed.i = 0x12345678;
+        mixed.f = Float.NaN;
+        mixed.l = 0x0102030405060708L;
+        mixed.d = -1.5;
+        mixed.name = "name";
+        mixed.other = Integer.valueOf(7);
+        return mixed;
+    }
+
+    /**
+     * Encode the primitive fields of each segment as DataOutput would, in stream order.
+     */
+    private static byte[][] expected(final SerializableField[] fields, final Object instance) throws IOException {
+        final byte[][] segments = new byte[fields.length + 1][];
+        int segment = 0;
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        for (SerializableField field : fields) {
+            switch (field.getKind()) {
+                case BOOLEAN: dos.writeBoolean(field.getBoolean(instance)); break;
+                case BYTE: dos.writeByte(field.getByte(instance)); break;
+                case CHAR: dos.writeChar(field.getChar(instance)); break;
+                case SHORT: dos.writeShort(field.getShort(instance)); break;
+                case INT: dos.writeInt(field.getInt(instance)); break;
+                case FLOAT: dos.writeFloat(field.getFloat(instance)); break;
+                case LONG: dos.writeLong(field.getLong(instance)); break;
+                case DOUBLE: dos.writeDouble(field.getDouble(instance)); break;
+                case OBJECT: {
+                    segments[segment ++] = baos.toByteArray();
+                    baos = new ByteArrayOutputStream();
+                    dos = new DataOutputStream(baos);
+                    break;
+                }
+            }
+        }
+        if (baos.size() > 0) {
+            segments[segment ++] = baos.toByteArray();
+        }
+        return Arrays.copyOf(segments, segment);
+    }
+
+    @Test
+    public void testSegments() throws IOException {
+        final SerializableField[] fields = SerializableClassRegistry.getInstance().lookup(Mixed.class).getFields();
+        final CompiledFields compiled = compile(Mixed.class);
+        final byte[][] expected = expected(fields, mixed());
+        Assert.assertEquals(compiled.getSegmentCount(), expected.length);
+        final List<SerializableField> objectFields = new ArrayList<SerializableField>();
+        for (SerializableField field : fields) {
+            if (field.getKind() == Kind.OBJECT) {
+                objectFields.add(field);
+            }
+        }
+        // fields are in name order, so the object fields split the primitives into several runs
+        Assert.assertEquals(compiled.getSegmentCount(), 3);
+        for (int segment = 0; segment < compiled.getSegmentCount(); segment ++) {
+            Assert.assertEquals(compiled.getPrimitiveLength(segment), expected[segment].length);
+            Assert.assertSame(compiled.getObjectField(segment), segment < objectFields.size() ? objectFields.get(segment) : null);
+        }
+        Assert.assertEquals(compile(Empty.class).getSegmentCount(), 0);
+        final CompiledFields primitives = compile(Primitives.class);
+        Assert.assertEquals(primitives.getSegmentCount(), 1);
+        Assert.assertEquals(primitives.getPrimitiveLength(0), 12);
+        Assert.assertNull(primitives.getObjectField(0));
+        // compiled once and cached
+        Assert.assertSame(compile(Primitives.class), primitives);
+    }
+
+    @Test
+    public void testPrimitiveRoundTrip() throws IOException {
+        final Mixed mixed = mixed();
+        final CompiledFields compiled = compile(Mixed.class);
+        final byte[][] expected = expected(SerializableClassRegistry.getInstance().lookup(Mixed.class).getFields(), mixed);
+        final Mixed copy = new Mixed();
+        for (int segment = 0; segment < compiled.getSegmentCount(); segment ++) {
+            // write at an offset, leaving padding either side of the run
+            final int length = compiled.getPrimitiveLength(segment);
+            final byte[] buffer = new byte[length + 5];
+            Arrays.fill(buffer, (byte) 0x55);
+            compiled.writePrimitives(segment, mixed, buffer, 3);
+            Assert.assertEquals(Arrays.copyOfRange(buffer, 3, 3 + length), expected[segment]);
+            Assert.assertEquals(buffer[0], (byte) 0x55);
+            Assert.assertEquals(buffer[2], (byte) 0x55);
+            Assert.assertEquals(buffer[length + 3], (byte) 0x55);
+            Assert.assertEquals(buffer[length + 4], (byte) 0x55);
+            compiled.readPrimitives(segment, copy, buffer, 3);
+        }
+        Assert.assertEquals(copy.z, mixed.z);
+        Assert.assertEquals(copy.b, mixed.b);
+        Assert.assertEquals(copy.c, mixed.c);
+        Assert.assertEquals(copy.s, mixed.s);
+        Assert.assertEquals(copy.i, mixed.i);
+        Assert.assertTrue(Float.isNaN(copy.f));
+        Assert.assertEquals(copy.l, mixed.l);
+        Assert.assertEquals(copy.d, mixed.d);
+        try {
+            compiled.writePrimitives(0, mixed, new byte[compiled.getPrimitiveLength(0) + 1], 2);
+            Assert.fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException expected1) {
+        }
+        try {
+            compiled.writePrimitives(0, new Primitives(), new byte[64], 0);
+            Assert.fail("Expected ClassCastException");
+        } catch (ClassCastException expected1) {
+        }
+        try {
+            compiled.readPrimitives(0, new Primitives(), new byte[64], 0);
+            Assert.fail("Expected ClassCastException");
+        } catch (ClassCastException expected1) {
+        }
+    }
+
+    @Test
+    public void testObjectFields() {
+        final Mixed mixed = mixed();
+        final CompiledFields compiled = compile(Mixed.class);
+        final Mixed copy = new Mixed();
+        for (int segment = 0; segment < compiled.getSegmentCount(); segment ++) {
+            final SerializableField field = compiled.getObjectField(segment);
+            if (field == null) {
+                continue;
+            }
+            final Object value = compiled.getObject(segment, mixed);
+            Assert.assertSame(value, field.getName().equals("name") ? mixed.name : mixed.other);
+            compiled.setObject(segment, copy, value);
+        }
+        Assert.assertSame(copy.name, mixed.name);
+        Assert.assertSame(copy.other, mixed.other);
+        final int nameSegment = compiled.getObjectField(0).getName().equals("name") ? 0 : 1;
+        try {
+            compiled.setObject(nameSegment, copy, Integer.valueOf(1));
+            Assert.fail("Expected ClassCastException");
+        } catch (ClassCastException expected) {
+        }
+        final CompiledFields primitives = compile(Primitives.class);
+        try {
+            primitives.getObject(0, new Primitives());
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            primitives.setObject(0, new Primitives(), null);
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testInaccessibleField() {
+        final CompiledFields compiled = compile(Persistent.class);
+        Assert.assertEquals(compiled.getSegmentCount(), 1);
+        Assert.assertEquals(compiled.getPrimitiveLength(0), 16);
+        final Persistent persistent = new Persistent();
+        persistent.a = 0x01020304;
+        persistent.z = 0x05060708;
+        final byte[] buffer = new byte[16];
+        Arrays.fill(buffer, (byte) 0x55);
+        compiled.writePrimitives(0, persistent, buffer, 0);
+        // the missing long is written as zero, between a and z
+        Assert.assertEquals(buffer, new byte[] { 1, 2, 3, 4, 0, 0, 0, 0, 0, 0, 0, 0, 5, 6, 7, 8 });
+        Arrays.fill(buffer, 4, 12, (byte) 0x7f);
+        final Persistent copy = new Persistent();
+        compiled.readPrimitives(0, copy, buffer, 0);
+        Assert.assertEquals(copy.a, persistent.a);
+        Assert.assertEquals(copy.z, persistent.z);
+    }
+}
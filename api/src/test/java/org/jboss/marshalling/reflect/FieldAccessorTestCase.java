@@ -0,0 +1,135 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.reflect;
+
+import java.lang.reflect.Field;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test case for the {@link FieldAccessor} backends.
+ */
+public final class FieldAccessorTestCase {
+
+    static final class Subject {
+        boolean z;
+        char c;
+        byte b;
+        short s;
+        int i;
+        long j;
+        float f;
+        double d;
+        String string;
+        final int finalInt;
+        final String finalString;
+
+        Subject() {
+            finalInt = 1;
+            finalString = "one";
+        }
+    }
+
+    private static FieldAccessor unsafe(final String name) throws NoSuchFieldException {
+        return new UnsafeFieldAccessor(Subject.class.getDeclaredField(name));
+    }
+
+    private static FieldAccessor varHandle(final String name) throws NoSuchFieldException {
+        final FieldAccessor accessor = VarHandleFieldAccessor.create(Subject.class.getDeclaredField(name));
+        Assert.assertNotNull(accessor, name);
+        return accessor;
+    }
+
+    private static void checkAccessors(final boolean useVarHandles) throws NoSuchFieldException {
+        final Subject subject = new Subject();
+        for (Field field : Subject.class.getDeclaredFields()) {
+            if (field.isSynthetic()) {
+                continue;
+            }
+            final String name = field.getName();
+            final FieldAccessor accessor = useVarHandles ? varHandle(name) : unsafe(name);
+            switch (name) {
+                case "z": accessor.setBoolean(subject, true); Assert.assertTrue(accessor.getBoolean(subject)); break;
+                case "c": accessor.setChar(subject, 'x'); Assert.assertEquals(accessor.getChar(subject), 'x'); break;
+                case "b": accessor.setByte(subject, (byte) -3); Assert.assertEquals((int) accessor.getByte(subject), -3); break;
+                case "s": accessor.setShort(subject, (short) 300); Assert.assertEquals((int) accessor.getShort(subject), 300); break;
+                case "i": accessor.setInt(subject, -70000); Assert.assertEquals(accessor.getInt(subject), -70000); break;
+                case "j": accessor.setLong(subject, Long.MIN_VALUE); Assert.assertEquals(accessor.getLong(subject), Long.MIN_VALUE); break;
+                case "f": accessor.setFloat(subject, 1.5f); Assert.assertEquals(accessor.getFloat(subject), 1.5f); break;
+                case "d": accessor.setDouble(subject, -2.25); Assert.assertEquals(accessor.getDouble(subject), -2.25); break;
+                case "string": accessor.setObject(subject, "two"); Assert.assertEquals(accessor.getObject(subject), "two"); break;
+                case "finalInt": accessor.setInt(subject, 2); Assert.assertEquals(accessor.getInt(subject), 2); break;
+                case "finalString": accessor.setObject(subject, "three"); Assert.assertEquals(accessor.getObject(subject), "three"); break;
+                default: Assert.fail("Unexpected field " + name);
+            }
+        }
+        Assert.assertEquals(subject.i, -70000);
+        Assert.assertEquals(subject.string, "two");
+    }
+
+    private static void checkTypes(final FieldAccessor accessor) {
+        try {
+            accessor.getObject(new Object());
+            Assert.fail("Expected ClassCastException");
+        } catch (ClassCastException expected) {
+        }
+        try {
+            accessor.setObject(new Subject(), Integer.valueOf(1));
+            Assert.fail("Expected ClassCastException");
+        } catch (ClassCastException expected) {
+        }
+    }
+
+    @Test
+    public void testUnsafe() throws Exception {
+        checkAccessors(false);
+        checkTypes(unsafe("string"));
+    }
+
+    @Test
+    public void testVarHandle() throws Exception {
+        checkAccessors(true);
+        checkTypes(varHandle("string"));
+    }
+
+    @Test
+    public void testFieldAccessProperty() {
+        Assert.assertTrue(FieldAccessor.useVarHandles("varhandle"));
+        Assert.assertTrue(FieldAccessor.useVarHandles("VarHandle"));
+        Assert.assertFalse(FieldAccessor.useVarHandles("unsafe"));
+        // an invalid value falls back to the default instead of failing class initialization
+        Assert.assertFalse(FieldAccessor.useVarHandles("reflection"));
+    }
+
+    @Test
+    public void testSerializableFieldChecks() throws Exception {
+        final SerializableField field = SerializableClassRegistry.getInstance().lookup(Subject.class).getSerializableField("i", int.class, false);
+        try {
+            field.getLong(new Subject());
+            Assert.fail("Expected ClassCastException");
+        } catch (ClassCastException expected) {
+        }
+        try {
+            field.getInt(null);
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
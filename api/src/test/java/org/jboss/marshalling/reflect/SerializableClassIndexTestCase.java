@@ -0,0 +1,246 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.reflect;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test case for {@link SerializableClassIndex}.
+ */
+public final class SerializableClassIndexTestCase {
+
+    public static class Base implements Serializable {
+        int count;
+        String name;
+    }
+
+    public static class Derived extends Base {
+        long total;
+
+        private void writeObject(ObjectOutputStream oos) throws IOException {
+            oos.defaultWriteObject();
+        }
+    }
+
+    public static final class Explicit implements Serializable {
+        private static final long serialVersionUID = 7L;
+
+        Object value;
+    }
+
+    public static final class Versioned implements Serializable {
+        private static final long serialVersionUID = 0x0123456789abcdefL;
+
+        int value;
+    }
+
+    public static final class Initialized implements Serializable {
+        static final Object LOCK = new Object();
+    }
+
+    public static final class PersistentFields implements Serializable {
+        private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("a", int.class),
+            new ObjectStreamField("missing", long.class),
+            new ObjectStreamField("z", int.class),
+        };
+
+        int a;
+        int z;
+    }
+
+    /**
+     * A class loader which defines its own copies of the test classes, so that they are not yet in the registry.
+     */
+    static final class IsolatingClassLoader extends ClassLoader {
+        private static final List<String> NAMES = Arrays.asList(Base.class.getName(), Derived.class.getName(), Explicit.class.getName(), Versioned.class.getName(), PersistentFields.class.getName());
+
+        private final long fromUID;
+        private final long toUID;
+
+        IsolatingClassLoader() {
+            this(0L, 0L);
+        }
+
+        /**
+         * Construct a new instance which changes the value of a {@code long} constant in the classes it defines.
+         */
+        IsolatingClassLoader(final long fromUID, final long toUID) {
+            super(IsolatingClassLoader.class.getClassLoader());
+            this.fromUID = fromUID;
+            this.toUID = toUID;
+        }
+
+        private byte[] patch(final byte[] bytes) {
+            // a CONSTANT_Long entry is its tag followed by the big-endian value
+            outer: for (int i = 0; i + 9 <= bytes.length; i ++) {
+                if (bytes[i] != 5) {
+                    continue;
+                }
+                for (int j = 0; j < 8; j ++) {
+                    if (bytes[i + 1 + j] != (byte) (fromUID >>> (56 - j * 8))) {
+                        continue outer;
+                    }
+                }
+                for (int j = 0; j < 8; j ++) {
+                    bytes[i + 1 + j] = (byte) (toUID >>> (56 - j * 8));
+                }
+            }
+            return bytes;
+        }
+
+        protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+            if (! NAMES.contains(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> clazz = findLoadedClass(name);
+                if (clazz == null) {
+                    try (InputStream is = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                        final byte[] bytes = fromUID == toUID ? is.readAllBytes() : patch(is.readAllBytes());
+                        clazz = defineClass(name, bytes, 0, bytes.length);
+                    } catch (IOException e) {
+                        throw new ClassNotFoundException(name, e);
+                    }
+                }
+                return clazz;
+            }
+        }
+    }
+
+    private static byte[] write(final SerializableClassIndex index) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        index.write(baos);
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void testBuildAndRead() throws Exception {
+        final SerializableClassIndex index = SerializableClassIndex.build(Arrays.<Class<?>>asList(Derived.class, Explicit.class, Object.class));
+        final SerializableClassIndex copy = SerializableClassIndex.read(new ByteArrayInputStream(write(index)));
+        Assert.assertEquals(copy.size(), 3);
+        Assert.assertEquals(copy.getClassNames().toArray(), new Object[] { Base.class.getName(), Derived.class.getName(), Explicit.class.getName() });
+        for (Class<?> clazz : Arrays.asList(Base.class, Derived.class, Explicit.class)) {
+            Assert.assertEquals(copy.getSerialVersionUID(clazz.getName()), Long.valueOf(ObjectStreamClass.lookup(clazz).getSerialVersionUID()), clazz.getName());
+        }
+        Assert.assertEquals(copy.getSerialVersionUID(Explicit.class.getName()), Long.valueOf(7L));
+        Assert.assertNull(copy.getSerialVersionUID(Object.class.getName()));
+    }
+
+    @Test
+    public void testWarm() throws Exception {
+        final SerializableClassIndex index = SerializableClassIndex.build(Arrays.<Class<?>>asList(Derived.class, Explicit.class));
+        final IsolatingClassLoader classLoader = new IsolatingClassLoader();
+        // the declared serial version UID of Explicit is read from the class rather than the index
+        Assert.assertEquals(index.warm(classLoader, ForkJoinPool.commonPool()), 2);
+        final SerializableClass explicit = SerializableClassRegistry.getInstance().lookup(classLoader.loadClass(Explicit.class.getName()));
+        Assert.assertFalse(explicit.isIndexed());
+        Assert.assertEquals(explicit.getEffectiveSerialVersionUID(), 7L);
+        final Class<?> derived = classLoader.loadClass(Derived.class.getName());
+        Assert.assertNotSame(derived, Derived.class);
+        final SerializableClass serializableClass = SerializableClassRegistry.getInstance().lookup(derived);
+        Assert.assertTrue(serializableClass.isIndexed());
+        Assert.assertEquals(serializableClass.getEffectiveSerialVersionUID(), ObjectStreamClass.lookup(derived).getSerialVersionUID());
+        Assert.assertTrue(serializableClass.hasWriteObject());
+        Assert.assertEquals(serializableClass.getFields().length, 1);
+        // warming again finds the same registry entries
+        Assert.assertEquals(index.warm(classLoader), 2);
+        Assert.assertSame(SerializableClassRegistry.getInstance().lookup(derived), serializableClass);
+    }
+
+    @Test
+    public void testStaleEntry() throws Exception {
+        final byte[] bytes = write(SerializableClassIndex.build(Arrays.<Class<?>>asList(Base.class)));
+        // magic, version, size, class name; then change the serial version UID and the fingerprint
+        final int offset = 4 + 1 + 4 + 2 + Base.class.getName().length();
+        bytes[offset] ^= 1;
+        bytes[offset + 8] ^= 1;
+        final IsolatingClassLoader classLoader = new IsolatingClassLoader();
+        Assert.assertEquals(SerializableClassIndex.read(new ByteArrayInputStream(bytes)).warm(classLoader), 0);
+        final Class<?> base = classLoader.loadClass(Base.class.getName());
+        final SerializableClass serializableClass = SerializableClassRegistry.getInstance().lookup(base);
+        Assert.assertFalse(serializableClass.isIndexed());
+        Assert.assertEquals(serializableClass.getEffectiveSerialVersionUID(), ObjectStreamClass.lookup(base).getSerialVersionUID());
+    }
+
+    @Test
+    public void testChangedDeclaredUID() throws Exception {
+        final SerializableClassIndex index = SerializableClassIndex.build(Arrays.<Class<?>>asList(Versioned.class));
+        Assert.assertEquals(index.getSerialVersionUID(Versioned.class.getName()), Long.valueOf(0x0123456789abcdefL));
+        // the class changes only its declared serial version UID after it was indexed
+        final IsolatingClassLoader classLoader = new IsolatingClassLoader(0x0123456789abcdefL, 0x0fedcba987654321L);
+        Assert.assertEquals(index.warm(classLoader), 0);
+        final Class<?> versioned = classLoader.loadClass(Versioned.class.getName());
+        final SerializableClass serializableClass = SerializableClassRegistry.getInstance().lookup(versioned);
+        Assert.assertFalse(serializableClass.isIndexed());
+        Assert.assertEquals(serializableClass.getEffectiveSerialVersionUID(), 0x0fedcba987654321L);
+        Assert.assertEquals(serializableClass.getEffectiveSerialVersionUID(), ObjectStreamClass.lookup(versioned).getSerialVersionUID());
+    }
+
+    @Test
+    public void testUninitializedClass() throws Exception {
+        // a class which is loaded but not initialized still has its serialPersistentFields honored
+        final Class<?> clazz = Class.forName(PersistentFields.class.getName(), false, new IsolatingClassLoader());
+        Assert.assertNotSame(clazz, PersistentFields.class);
+        final SerializableClass serializableClass = SerializableClassRegistry.getInstance().lookup(clazz);
+        final SerializableField[] fields = serializableClass.getFields();
+        Assert.assertEquals(fields.length, 3);
+        Assert.assertEquals(fields[0].getName(), "a");
+        Assert.assertEquals(fields[1].getName(), "missing");
+        Assert.assertEquals(fields[1].getType(), long.class);
+        Assert.assertFalse(fields[1].isAccessible());
+        Assert.assertEquals(fields[2].getName(), "z");
+        Assert.assertEquals(serializableClass.getCompiledFields().getPrimitiveLength(0), 16);
+    }
+
+    @Test
+    public void testFingerprint() throws Exception {
+        Assert.assertEquals(SerializableClassIndex.hasStaticInitializer(Base.class), Boolean.FALSE);
+        Assert.assertEquals(SerializableClassIndex.hasStaticInitializer(Initialized.class), Boolean.TRUE);
+        Assert.assertNotEquals(SerializableClassIndex.fingerprint(Base.class), 0L);
+        Assert.assertNotEquals(SerializableClassIndex.fingerprint(Base.class), SerializableClassIndex.fingerprint(Derived.class));
+        // a copy of the same class file has the same fingerprint
+        final Class<?> copy = new IsolatingClassLoader().loadClass(Derived.class.getName());
+        Assert.assertEquals(SerializableClassIndex.fingerprint(copy), SerializableClassIndex.fingerprint(Derived.class));
+    }
+
+    @Test
+    public void testTool() throws Exception {
+        final File classes = new File(Base.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        final File directory = new File(classes, Base.class.getPackage().getName().replace('.', '/'));
+        Assert.assertTrue(directory.isDirectory(), directory.toString());
+        final SerializableClassIndex index = SerializableClassIndexTool.scan(new File[] { classes }, getClass().getClassLoader());
+        Assert.assertTrue(index.getClassNames().contains(Derived.class.getName()));
+        Assert.assertFalse(index.getClassNames().contains(getClass().getName()));
+    }
+}
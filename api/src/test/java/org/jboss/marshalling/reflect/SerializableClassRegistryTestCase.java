@@ -0,0 +1,109 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.reflect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.marshalling.reflect.SerializableClassIndexTestCase.Base;
+import org.jboss.marshalling.reflect.SerializableClassIndexTestCase.Derived;
+import org.jboss.marshalling.reflect.SerializableClassIndexTestCase.Explicit;
+import org.jboss.marshalling.reflect.SerializableClassIndexTestCase.IsolatingClassLoader;
+import org.jboss.marshalling.reflect.SerializableClassIndexTestCase.PersistentFields;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test case for warming up the {@link SerializableClassRegistry}.
+ */
+public final class SerializableClassRegistryTestCase {
+
+    @Test
+    public void testWarmUp() throws Exception {
+        final SerializableClassRegistry registry = SerializableClassRegistry.getInstance();
+        final IsolatingClassLoader classLoader = new IsolatingClassLoader();
+        final Class<?> derived = classLoader.loadClass(Derived.class.getName());
+        final Class<?> explicit = classLoader.loadClass(Explicit.class.getName());
+        final AtomicInteger tasks = new AtomicInteger();
+        final Executor executor = command -> {
+            tasks.incrementAndGet();
+            ForkJoinPool.commonPool().execute(command);
+        };
+        final WarmUpReport report = registry.warmUp(Arrays.<Class<?>>asList(derived, explicit), executor).get();
+        Assert.assertEquals(report.getClassCount(), 2);
+        Assert.assertTrue(report.getFailures().isEmpty());
+        Assert.assertEquals(tasks.get(), 2);
+        final SerializableClass serializableClass = registry.lookup(derived);
+        Assert.assertTrue(serializableClass.hasNoInitConstructor(Object.class));
+        // the superclass chain was looked up along the way
+        Assert.assertSame(registry.lookup(derived.getSuperclass()).getSubjectClass(), classLoader.loadClass(Base.class.getName()));
+    }
+
+    @Test
+    public void testWarmUpPackages() throws Exception {
+        final SerializableClassRegistry registry = SerializableClassRegistry.getInstance();
+        final String packageName = getClass().getPackage().getName();
+        final WarmUpReport report = registry.warmUpPackages(getClass().getClassLoader(), Arrays.asList(packageName, packageName)).get();
+        Assert.assertTrue(report.getFailures().isEmpty(), report.getFailures().toString());
+        // Base, Derived and Explicit at least; each class is only counted once
+        Assert.assertTrue(report.getClassCount() >= 3, report.toString());
+        Assert.assertTrue(report.getClassCount() < 20, report.toString());
+    }
+
+    @Test
+    public void testWarmUpMatchesLookup() throws Exception {
+        final SerializableClassRegistry registry = SerializableClassRegistry.getInstance();
+        final String packageName = getClass().getPackage().getName();
+        // one copy of each class is warmed up, which loads it without initializing it, and another is looked up on use
+        final IsolatingClassLoader warmLoader = new IsolatingClassLoader();
+        final WarmUpReport report = registry.warmUpPackages(warmLoader, Collections.singleton(packageName)).get();
+        Assert.assertTrue(report.getFailures().isEmpty(), report.getFailures().toString());
+        final IsolatingClassLoader lazyLoader = new IsolatingClassLoader();
+        for (Class<?> clazz : Arrays.<Class<?>>asList(Base.class, Derived.class, Explicit.class, PersistentFields.class)) {
+            final Class<?> warm = Class.forName(clazz.getName(), false, warmLoader);
+            final Class<?> lazy = Class.forName(clazz.getName(), true, lazyLoader);
+            Assert.assertNotSame(warm, lazy);
+            final SerializableClass warmClass = registry.lookup(warm);
+            final SerializableClass lazyClass = registry.lookup(lazy);
+            Assert.assertEquals(warmClass.getEffectiveSerialVersionUID(), lazyClass.getEffectiveSerialVersionUID(), clazz.getName());
+            Assert.assertEquals(describe(warmClass.getFields()), describe(lazyClass.getFields()), clazz.getName());
+            Assert.assertEquals(warmClass.hasWriteObject(), lazyClass.hasWriteObject(), clazz.getName());
+        }
+    }
+
+    private static List<String> describe(final SerializableField[] fields) throws ClassNotFoundException {
+        final List<String> list = new ArrayList<>();
+        for (SerializableField field : fields) {
+            list.add(field.getName() + ":" + field.getType().getName() + ":" + field.isUnshared() + ":" + field.isAccessible());
+        }
+        return list;
+    }
+
+    @Test
+    public void testWarmUpMissingPackage() throws Exception {
+        final WarmUpReport report = SerializableClassRegistry.getInstance().warmUpPackages(getClass().getClassLoader(), Collections.singleton("org.jboss.marshalling.nonexistent")).get();
+        Assert.assertEquals(report.getClassCount(), 0);
+        Assert.assertTrue(report.getFailures().isEmpty());
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.util;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test case for {@link IdentityIntMap}.
+ */
+public final class IdentityIntMapTestCase {
+
+    private static void assertContents(final IdentityIntMap<Object> map, final Map<Object, Integer> expected, final List<Object> absent) {
+        for (Map.Entry<Object, Integer> entry : expected.entrySet()) {
+            Assert.assertEquals(map.get(entry.getKey(), -1), entry.getValue().intValue());
+        }
+        for (Object key : absent) {
+            Assert.assertEquals(map.get(key, -1), -1);
+        }
+    }
+
+    @Test
+    public void testRandomOperations() {
+        for (float loadFactor : new float[] { 0.25f, 0.5f, 0.75f, 0.95f }) {
+            final Random random = new Random(1234);
+            final IdentityIntMap<Object> map = new IdentityIntMap<Object>(1, loadFactor);
+            final Map<Object, Integer> expected = new IdentityHashMap<Object, Integer>();
+            final List<Object> keys = new ArrayList<Object>();
+            for (int i = 0; i < 20000; i ++) {
+                final Object key;
+                if (keys.isEmpty() || random.nextInt(4) != 0) {
+                    key = new Object();
+                    keys.add(key);
+                } else {
+                    // replace an existing mapping
+                    key = keys.get(random.nextInt(keys.size()));
+                }
+                final int value = random.nextInt(Integer.MAX_VALUE);
+                map.put(key, value);
+                expected.put(key, Integer.valueOf(value));
+            }
+            final List<Object> absent = new ArrayList<Object>();
+            for (int i = 0; i < 1000; i ++) {
+                absent.add(new Object());
+            }
+            assertContents(map, expected, absent);
+        }
+    }
+
+    @Test
+    public void testClear() {
+        final IdentityIntMap<Object> map = new IdentityIntMap<Object>(16, 0.9f);
+        final List<Object> keys = new ArrayList<Object>();
+        for (int round = 0; round < 3; round ++) {
+            for (Object key : keys) {
+                Assert.assertEquals(map.get(key, -1), -1);
+            }
+            keys.clear();
+            for (int i = 0; i < 1000 << round; i ++) {
+                final Object key = new Object();
+                keys.add(key);
+                map.put(key, i);
+            }
+            for (int i = 0; i < keys.size(); i ++) {
+                Assert.assertEquals(map.get(keys.get(i), -1), i);
+            }
+            map.clear();
+        }
+    }
+
+    @Test
+    public void testClearAfterLargeMessage() {
+        final IdentityIntMap<Object> map = new IdentityIntMap<Object>();
+        final List<Object> large = new ArrayList<Object>();
+        for (int round = 0; round < 2; round ++) {
+            large.clear();
+            for (int i = 0; i < 200000; i ++) {
+                final Object key = new Object();
+                large.add(key);
+                map.put(key, i);
+            }
+            map.clear();
+            // enough small messages to shrink the table
+            for (int message = 0; message < 20; message ++) {
+                final List<Object> small = new ArrayList<Object>();
+                for (int i = 0; i < 10; i ++) {
+                    final Object key = new Object();
+                    small.add(key);
+                    map.put(key, i);
+                }
+                for (int i = 0; i < small.size(); i ++) {
+                    Assert.assertEquals(map.get(small.get(i), -1), i);
+                }
+                for (int i = 0; i < large.size(); i += 1000) {
+                    Assert.assertEquals(map.get(large.get(i), -1), -1);
+                }
+                map.clear();
+                for (Object key : small) {
+                    Assert.assertEquals(map.get(key, -1), -1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testClone() {
+        final IdentityIntMap<Object> map = new IdentityIntMap<Object>();
+        final Object a = new Object();
+        final Object b = new Object();
+        map.put(a, 1);
+        final IdentityIntMap<Object> clone = map.clone();
+        clone.put(a, 2);
+        clone.put(b, 3);
+        Assert.assertEquals(map.get(a, -1), 1);
+        Assert.assertEquals(map.get(b, -1), -1);
+        Assert.assertEquals(clone.get(a, -1), 2);
+        Assert.assertEquals(clone.get(b, -1), 3);
+    }
+}
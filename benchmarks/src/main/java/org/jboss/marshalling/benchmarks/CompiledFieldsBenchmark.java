@@ -0,0 +1,187 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.marshalling.ByteBufferInput;
+import org.jboss.marshalling.ByteInput;
+import org.jboss.marshalling.ByteOutput;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.Unmarshaller;
+import org.jboss.marshalling.reflect.CompiledFields;
+import org.jboss.marshalling.reflect.SerializableClass;
+import org.jboss.marshalling.reflect.SerializableClassRegistry;
+import org.jboss.marshalling.reflect.SerializableField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares compiled field access with the per-field path of River, both for copying the primitive fields of one object
+ * into a buffer and for marshalling a list of objects whose fields are all primitive, so that field copying is a
+ * large share of the work.  Run with {@code java -jar benchmarks/target/benchmarks.jar CompiledFieldsBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompiledFieldsBenchmark {
+
+    public static final class Primitives implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        boolean flag;
+        byte b;
+        char c;
+        short s;
+        int i;
+        long l;
+        float f;
+        double d;
+
+        Primitives(final int seed) {
+            flag = (seed & 1) != 0;
+            b = (byte) seed;
+            c = (char) seed;
+            s = (short) seed;
+            i = seed;
+            l = (long) seed << 32 | seed;
+            f = seed * 0.5f;
+            d = seed * 0.25;
+        }
+    }
+
+    @Param({"false", "true"})
+    public boolean compiledFieldAccess;
+
+    /**
+     * The number of objects in the marshalled list.
+     */
+    @Param({"1000"})
+    public int size;
+
+    private Primitives source;
+    private SerializableField[] fields;
+    private CompiledFields compiledFields;
+    private byte[] buffer;
+    private List<Primitives> list;
+    private Marshaller marshaller;
+    private Unmarshaller unmarshaller;
+    private ByteArrayOutputStream outputStream;
+    private ByteOutput byteOutput;
+    private ByteBuffer inputBuffer;
+    private ByteInput byteInput;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        source = new Primitives(17);
+        final SerializableClass serializableClass = SerializableClassRegistry.getInstance().lookup(Primitives.class);
+        fields = serializableClass.getFields();
+        compiledFields = serializableClass.getCompiledFields();
+        buffer = new byte[compiledFields.getPrimitiveLength(0)];
+        list = new ArrayList<>(size);
+        for (int i = 0; i < size; i ++) {
+            list.add(new Primitives(i));
+        }
+        final MarshallerFactory factory = Format.RIVER.createFactory();
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        configuration.setCompiledFieldAccess(compiledFieldAccess);
+        marshaller = factory.createMarshaller(configuration);
+        unmarshaller = factory.createUnmarshaller(configuration);
+        outputStream = new ByteArrayOutputStream(size * 64);
+        byteOutput = Marshalling.createByteOutput(outputStream);
+        marshal();
+        inputBuffer = ByteBuffer.wrap(outputStream.toByteArray());
+        byteInput = new ByteBufferInput(inputBuffer);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        marshaller.close();
+        unmarshaller.close();
+    }
+
+    /**
+     * Copy the fields of one object into a buffer, in the same encoding as the stream.
+     */
+    @Benchmark
+    public byte[] copy() {
+        final byte[] buffer = this.buffer;
+        if (compiledFieldAccess) {
+            compiledFields.writePrimitives(0, source, buffer, 0);
+            return buffer;
+        }
+        final ByteBuffer target = ByteBuffer.wrap(buffer);
+        final Primitives source = this.source;
+        for (SerializableField field : fields) {
+            switch (field.getKind()) {
+                case BOOLEAN: target.put((byte) (field.getBoolean(source) ? 1 : 0)); break;
+                case BYTE: target.put(field.getByte(source)); break;
+                case CHAR: target.putChar(field.getChar(source)); break;
+                case SHORT: target.putShort(field.getShort(source)); break;
+                case INT: target.putInt(field.getInt(source)); break;
+                case LONG: target.putLong(field.getLong(source)); break;
+                case FLOAT: target.putFloat(field.getFloat(source)); break;
+                case DOUBLE: target.putDouble(field.getDouble(source)); break;
+                default: throw new IllegalStateException();
+            }
+        }
+        return buffer;
+    }
+
+    @Benchmark
+    public int marshal() throws IOException {
+        outputStream.reset();
+        marshaller.start(byteOutput);
+        marshaller.writeObject(list);
+        marshaller.finish();
+        return outputStream.size();
+    }
+
+    @Benchmark
+    public Object unmarshal() throws IOException, ClassNotFoundException {
+        inputBuffer.clear();
+        unmarshaller.start(byteInput);
+        final Object result = unmarshaller.readObject();
+        unmarshaller.finish();
+        return result;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.benchmarks;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * An externalizable object with a mix of primitive and reference fields.
+ */
+public final class ExternalizableObject implements Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int id;
+    private long timestamp;
+    private double score;
+    private String name;
+
+    public ExternalizableObject() {
+    }
+
+    public ExternalizableObject(final int seed) {
+        id = seed;
+        timestamp = 1_000_000L * seed;
+        score = seed / 3.0;
+        name = "ext-" + seed;
+    }
+
+    public void writeExternal(final ObjectOutput out) throws IOException {
+        out.writeInt(id);
+        out.writeLong(timestamp);
+        out.writeDouble(score);
+        out.writeUTF(name);
+    }
+
+    public void readExternal(final ObjectInput in) throws IOException {
+        id = in.readInt();
+        timestamp = in.readLong();
+        score = in.readDouble();
+        name = in.readUTF();
+    }
+
+    public int getId() {
+        return id;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.marshalling.ByteBufferInput;
+import org.jboss.marshalling.ByteInput;
+import org.jboss.marshalling.ByteOutput;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.Unmarshaller;
+import org.jboss.marshalling.reflect.SerializableClassRegistry;
+import org.jboss.marshalling.reflect.SerializableField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@code Unsafe} and {@code VarHandle} backends of {@link SerializableField}, both for raw field access
+ * and for marshalling a list of {@link FlatObject}s with River, where every field goes through the backend.
+ * <p>
+ * The backend is chosen with the {@code jboss.marshalling.field-access} system property, which is read once when the
+ * first serializable field is created; since each parameter combination runs in its own fork, the property is set
+ * during setup.  Run with {@code java -jar benchmarks/target/benchmarks.jar FieldAccessBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldAccessBenchmark {
+
+    @Param({"unsafe", "varhandle"})
+    public String fieldAccess;
+
+    /**
+     * The number of objects in the marshalled list.
+     */
+    @Param({"1000"})
+    public int size;
+
+    private FlatObject source;
+    private FlatObject target;
+    private SerializableField[] fields;
+    private Object object;
+    private Marshaller marshaller;
+    private Unmarshaller unmarshaller;
+    private ByteArrayOutputStream outputStream;
+    private ByteOutput byteOutput;
+    private ByteBuffer inputBuffer;
+    private ByteInput byteInput;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        System.setProperty("jboss.marshalling.field-access", fieldAccess);
+        source = new FlatObject(17);
+        target = new FlatObject(0);
+        fields = SerializableClassRegistry.getInstance().lookup(FlatObject.class).getFields();
+        final MarshallerFactory factory = Format.RIVER.createFactory();
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        marshaller = factory.createMarshaller(configuration);
+        unmarshaller = factory.createUnmarshaller(configuration);
+        object = Payload.FLAT_POJO.create(size);
+        outputStream = new ByteArrayOutputStream(size * 64);
+        byteOutput = Marshalling.createByteOutput(outputStream);
+        marshal();
+        inputBuffer = ByteBuffer.wrap(outputStream.toByteArray());
+        byteInput = new ByteBufferInput(inputBuffer);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        marshaller.close();
+        unmarshaller.close();
+    }
+
+    /**
+     * Read every field of an object.
+     */
+    @Benchmark
+    public long get() {
+        final FlatObject source = this.source;
+        long hash = 0;
+        for (SerializableField field : fields) {
+            switch (field.getKind()) {
+                case BOOLEAN: hash += field.getBoolean(source) ? 1 : 0; break;
+                case BYTE: hash += field.getByte(source); break;
+                case CHAR: hash += field.getChar(source); break;
+                case SHORT: hash += field.getShort(source); break;
+                case INT: hash += field.getInt(source); break;
+                case LONG: hash += field.getLong(source); break;
+                case FLOAT: hash += Float.floatToRawIntBits(field.getFloat(source)); break;
+                case DOUBLE: hash += Double.doubleToRawLongBits(field.getDouble(source)); break;
+                default: hash += System.identityHashCode(field.getObject(source)); break;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Copy every field of an object to another; all of the fields are final.
+     */
+    @Benchmark
+    public Object copy() {
+        final FlatObject source = this.source;
+        final FlatObject target = this.target;
+        for (SerializableField field : fields) {
+            switch (field.getKind()) {
+                case BOOLEAN: field.setBoolean(target, field.getBoolean(source)); break;
+                case BYTE: field.setByte(target, field.getByte(source)); break;
+                case CHAR: field.setChar(target, field.getChar(source)); break;
+                case SHORT: field.setShort(target, field.getShort(source)); break;
+                case INT: field.setInt(target, field.getInt(source)); break;
+                case LONG: field.setLong(target, field.getLong(source)); break;
+                case FLOAT: field.setFloat(target, field.getFloat(source)); break;
+                case DOUBLE: field.setDouble(target, field.getDouble(source)); break;
+                default: field.setObject(target, field.getObject(source)); break;
+            }
+        }
+        return target;
+    }
+
+    @Benchmark
+    public int marshal() throws IOException {
+        outputStream.reset();
+        marshaller.start(byteOutput);
+        marshaller.writeObject(object);
+        marshaller.finish();
+        return outputStream.size();
+    }
+
+    @Benchmark
+    public Object unmarshal() throws IOException, ClassNotFoundException {
+        inputBuffer.clear();
+        unmarshaller.start(byteInput);
+        final Object result = unmarshaller.readObject();
+        unmarshaller.finish();
+        return result;
+    }
+}
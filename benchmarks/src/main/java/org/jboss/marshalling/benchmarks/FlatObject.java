@@ -0,0 +1,61 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.benchmarks;
+
+import java.io.Serializable;
+
+/**
+ * A flat serializable object with a mix of primitive and reference fields.
+ */
+public final class FlatObject implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean flag;
+    private final byte b;
+    private final char c;
+    private final short s;
+    private final int i;
+    private final long l;
+    private final float f;
+    private final double d;
+    private final String name;
+    private final Integer boxed;
+
+    public FlatObject(final int seed) {
+        flag = (seed & 1) != 0;
+        b = (byte) seed;
+        c = (char) ('a' + seed % 26);
+        s = (short) seed;
+        i = seed;
+        l = (long) seed << 32 | seed;
+        f = seed * 0.5f;
+        d = seed * 0.25;
+        name = "object-" + seed;
+        boxed = Integer.valueOf(seed);
+    }
+
+    public int getI() {
+        return i;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
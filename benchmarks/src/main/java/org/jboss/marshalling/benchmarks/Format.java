@@ -0,0 +1,42 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.benchmarks;
+
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.river.RiverMarshallerFactory;
+import org.jboss.marshalling.serial.SerialMarshallerFactory;
+
+/**
+ * The marshalling protocols which are exercised by the benchmarks.
+ */
+public enum Format {
+    RIVER {
+        MarshallerFactory createFactory() {
+            return new RiverMarshallerFactory();
+        }
+    },
+    SERIAL {
+        MarshallerFactory createFactory() {
+            return new SerialMarshallerFactory();
+        }
+    },
+    ;
+
+    abstract MarshallerFactory createFactory();
+}
@@ -0,0 +1,121 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.marshalling.util.IdentityIntMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link IdentityIntMap} in the way the marshallers use it as a back-reference table: each object written is
+ * looked up, and added if it was not found; repeated objects are found; and the table is cleared between messages.
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar IdentityIntMapBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdentityIntMapBenchmark {
+
+    /**
+     * The number of distinct objects written per message.
+     */
+    @Param({"100", "10000", "1000000"})
+    public int size;
+
+    @Param({"0.5", "0.8"})
+    public float loadFactor;
+
+    private Object[] objects;
+    private IdentityIntMap<Object> map;
+
+    @Setup
+    public void setUp() {
+        objects = new Object[size];
+        for (int i = 0; i < size; i ++) {
+            objects[i] = new Object();
+        }
+        map = new IdentityIntMap<Object>(16, loadFactor);
+    }
+
+    /**
+     * Write a message of distinct objects into a reused table, which is grown to the message size after the first
+     * invocation.
+     */
+    @Benchmark
+    public IdentityIntMap<Object> writeDistinct() {
+        final IdentityIntMap<Object> map = this.map;
+        final Object[] objects = this.objects;
+        map.clear();
+        for (int i = 0; i < objects.length; i ++) {
+            if (map.get(objects[i], -1) == -1) {
+                map.put(objects[i], i);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Write a message of distinct objects into a new table, so that the table is grown while it is filled.
+     */
+    @Benchmark
+    public IdentityIntMap<Object> writeDistinctGrowing() {
+        final IdentityIntMap<Object> map = new IdentityIntMap<Object>(16, loadFactor);
+        final Object[] objects = this.objects;
+        for (int i = 0; i < objects.length; i ++) {
+            if (map.get(objects[i], -1) == -1) {
+                map.put(objects[i], i);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Write a message in which every object is written twice, so that half of the lookups find a back reference.
+     */
+    @Benchmark
+    public long writeRepeated() {
+        final IdentityIntMap<Object> map = this.map;
+        final Object[] objects = this.objects;
+        map.clear();
+        long refs = 0;
+        for (int i = 0; i < objects.length; i ++) {
+            if (map.get(objects[i], -1) == -1) {
+                map.put(objects[i], i);
+            }
+        }
+        for (int i = 0; i < objects.length; i ++) {
+            refs += map.get(objects[i], -1);
+        }
+        return refs;
+    }
+}
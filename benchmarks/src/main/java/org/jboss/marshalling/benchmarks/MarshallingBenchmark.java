@@ -0,0 +1,139 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.marshalling.ByteBufferInput;
+import org.jboss.marshalling.ByteInput;
+import org.jboss.marshalling.ByteOutput;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.Unmarshaller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for marshalling and unmarshalling a set of representative object graphs with the River and Serial
+ * protocols.  A single marshaller and unmarshaller is reused across invocations, as would be the case for a
+ * long-lived connection.  Each benchmark is measured both for throughput and for latency, the latter as a sampled
+ * distribution of the time per operation so that percentiles are reported as well as the mean.
+ * <p>
+ * Build with {@code mvn -pl benchmarks -am package} and run with {@code java -jar benchmarks/target/benchmarks.jar}.
+ * Allocation is measured by adding the GC profiler, e.g.
+ * {@code java -jar benchmarks/target/benchmarks.jar MarshallingBenchmark -prof gc}, which reports the bytes allocated
+ * per operation as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarshallingBenchmark {
+
+    @Param({"RIVER", "SERIAL"})
+    public Format format;
+
+    @Param({"FLAT_POJO", "DEEP_TREE", "LARGE_MAP", "LARGE_LIST", "RECORD", "EXTERNALIZABLE", "PRIMITIVE_ARRAYS"})
+    public Payload payload;
+
+    /**
+     * The number of elements, nodes or array entries in the payload.
+     */
+    @Param({"1000"})
+    public int size;
+
+    @Param({"512", "8192"})
+    public int bufferSize;
+
+    @Param({"256", "4096"})
+    public int instanceCount;
+
+    /**
+     * Whether to use compiled field access; only affects the River protocol.
+     */
+    @Param({"false", "true"})
+    public boolean compiledFieldAccess;
+
+    private Object object;
+    private Marshaller marshaller;
+    private Unmarshaller unmarshaller;
+    private ByteArrayOutputStream outputStream;
+    private ByteOutput byteOutput;
+    private ByteBuffer inputBuffer;
+    private ByteInput byteInput;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final MarshallerFactory factory = format.createFactory();
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        configuration.setBufferSize(bufferSize);
+        configuration.setInstanceCount(instanceCount);
+        configuration.setCompiledFieldAccess(compiledFieldAccess);
+        marshaller = factory.createMarshaller(configuration);
+        unmarshaller = factory.createUnmarshaller(configuration);
+        object = payload.create(size);
+        outputStream = new ByteArrayOutputStream(size * 64);
+        byteOutput = Marshalling.createByteOutput(outputStream);
+        marshal();
+        inputBuffer = ByteBuffer.wrap(outputStream.toByteArray());
+        byteInput = new ByteBufferInput(inputBuffer);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        marshaller.close();
+        unmarshaller.close();
+    }
+
+    @Benchmark
+    public int marshal() throws IOException {
+        outputStream.reset();
+        marshaller.start(byteOutput);
+        marshaller.writeObject(object);
+        marshaller.finish();
+        return outputStream.size();
+    }
+
+    @Benchmark
+    public Object unmarshal() throws IOException, ClassNotFoundException {
+        inputBuffer.clear();
+        unmarshaller.start(byteInput);
+        final Object result = unmarshaller.readObject();
+        unmarshaller.finish();
+        return result;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.marshalling.ByteBufferInput;
+import org.jboss.marshalling.ByteOutput;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.ParallelMarshalling;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link ParallelMarshalling} writing and reading a large list of flat objects split into segments, with
+ * pools of different sizes.  With a single thread the results show the cost of the container and of the separate
+ * stream per segment when compared with {@link MarshallingBenchmark}.
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar ParallelMarshallingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelMarshallingBenchmark {
+
+    @Param({"RIVER", "SERIAL"})
+    public Format format;
+
+    /**
+     * The parallelism of the fork-join pool.
+     */
+    @Param({"1", "4"})
+    public int threads;
+
+    @Param({"100000"})
+    public int size;
+
+    @Param({"1000", "10000"})
+    public int segmentSize;
+
+    private ForkJoinPool forkJoinPool;
+    private ParallelMarshalling parallelMarshalling;
+    private List<?> elements;
+    private ByteArrayOutputStream outputStream;
+    private ByteOutput byteOutput;
+    private ByteBuffer inputBuffer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        forkJoinPool = new ForkJoinPool(threads);
+        parallelMarshalling = new ParallelMarshalling(format.createFactory(), new MarshallingConfiguration(), forkJoinPool, segmentSize);
+        elements = (List<?>) Payload.FLAT_POJO.create(size);
+        outputStream = new ByteArrayOutputStream(size * 64);
+        byteOutput = Marshalling.createByteOutput(outputStream);
+        write();
+        inputBuffer = ByteBuffer.wrap(outputStream.toByteArray());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        forkJoinPool.shutdown();
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        outputStream.reset();
+        parallelMarshalling.write(byteOutput, elements);
+        return outputStream.size();
+    }
+
+    @Benchmark
+    public List<Object> read() throws IOException, ClassNotFoundException {
+        return parallelMarshalling.read(new ByteBufferInput(inputBuffer.duplicate()));
+    }
+
+    @Benchmark
+    public List<Object> readParallel() throws IOException, ClassNotFoundException {
+        return parallelMarshalling.readParallel(new ByteBufferInput(inputBuffer.duplicate()));
+    }
+}
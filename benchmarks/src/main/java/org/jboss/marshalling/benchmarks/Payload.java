@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The object graphs which are exercised by the benchmarks.
+ */
+public enum Payload {
+    /**
+     * A list of flat objects with primitive and string fields.
+     */
+    FLAT_POJO {
+        Object create(final int size) {
+            final List<FlatObject> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(new FlatObject(i));
+            }
+            return list;
+        }
+    },
+    /**
+     * A balanced binary tree, giving a deep and highly nested graph.
+     */
+    DEEP_TREE {
+        Object create(final int size) {
+            return TreeNode.build(size);
+        }
+    },
+    /**
+     * A large {@code HashMap} of strings to boxed integers.
+     */
+    LARGE_MAP {
+        Object create(final int size) {
+            final Map<String, Integer> map = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                map.put("key-" + i, Integer.valueOf(i));
+            }
+            return map;
+        }
+    },
+    /**
+     * A large {@code ArrayList} of strings, with every other element repeated to exercise back references.
+     */
+    LARGE_LIST {
+        Object create(final int size) {
+            final List<String> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add((i & 1) == 0 ? "element-" + i : list.get(i - 1));
+            }
+            return list;
+        }
+    },
+    /**
+     * A list of records.
+     */
+    RECORD {
+        Object create(final int size) {
+            final List<PointRecord> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(new PointRecord(i, -i, "point-" + i));
+            }
+            return list;
+        }
+    },
+    /**
+     * A list of {@code Externalizable} objects.
+     */
+    EXTERNALIZABLE {
+        Object create(final int size) {
+            final List<ExternalizableObject> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(new ExternalizableObject(i));
+            }
+            return list;
+        }
+    },
+    /**
+     * One array of each primitive type.
+     */
+    PRIMITIVE_ARRAYS {
+        Object create(final int size) {
+            return new PrimitiveArrays(size);
+        }
+    },
+    ;
+
+    /**
+     * Create a new instance of this payload.
+     *
+     * @param size the number of elements, nodes or array entries
+     * @return the object graph root
+     */
+    abstract Object create(int size);
+}
@@ -0,0 +1,65 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.benchmarks;
+
+import java.io.Serializable;
+import java.util.Random;
+
+/**
+ * A holder for one array of each primitive type.
+ */
+public final class PrimitiveArrays implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean[] booleans;
+    private final byte[] bytes;
+    private final char[] chars;
+    private final short[] shorts;
+    private final int[] ints;
+    private final long[] longs;
+    private final float[] floats;
+    private final double[] doubles;
+
+    public PrimitiveArrays(final int length) {
+        final Random random = new Random(length);
+        booleans = new boolean[length];
+        bytes = new byte[length];
+        chars = new char[length];
+        shorts = new short[length];
+        ints = new int[length];
+        longs = new long[length];
+        floats = new float[length];
+        doubles = new double[length];
+        random.nextBytes(bytes);
+        for (int i = 0; i < length; i++) {
+            booleans[i] = random.nextBoolean();
+            chars[i] = (char) random.nextInt();
+            shorts[i] = (short) random.nextInt();
+            ints[i] = random.nextInt();
+            longs[i] = random.nextLong();
+            floats[i] = random.nextFloat();
+            doubles[i] = random.nextDouble();
+        }
+    }
+
+    public int[] getInts() {
+        return ints;
+    }
+}
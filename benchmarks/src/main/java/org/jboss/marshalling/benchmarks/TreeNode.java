@@ -0,0 +1,69 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.benchmarks;
+
+import java.io.Serializable;
+
+/**
+ * A binary tree node, used to build deep object graphs.
+ */
+public final class TreeNode implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int value;
+    private final TreeNode left;
+    private final TreeNode right;
+
+    public TreeNode(final int value, final TreeNode left, final TreeNode right) {
+        this.value = value;
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * Build a complete binary tree with approximately the given number of nodes.
+     *
+     * @param count the number of nodes
+     * @return the root node
+     */
+    public static TreeNode build(final int count) {
+        return build(0, count);
+    }
+
+    private static TreeNode build(final int lo, final int hi) {
+        if (lo >= hi) {
+            return null;
+        }
+        final int mid = (lo + hi) >>> 1;
+        return new TreeNode(mid, build(lo, mid), build(mid + 1, hi));
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public TreeNode getLeft() {
+        return left;
+    }
+
+    public TreeNode getRight() {
+        return right;
+    }
+}
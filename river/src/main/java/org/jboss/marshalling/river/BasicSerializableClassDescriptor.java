@@ -18,6 +18,9 @@
 
 package org.jboss.marshalling.river;
 
+import java.util.Arrays;
+
+import org.jboss.marshalling.reflect.CompiledFields;
 import org.jboss.marshalling.reflect.SerializableClass;
 import org.jboss.marshalling.reflect.SerializableField;
 
@@ -30,6 +33,7 @@ final class BasicSerializableClassDescriptor extends SerializableClassDescriptor
     private final SerializableClass serializableClass;
     private final ClassDescriptor superClassDescriptor;
     private final SerializableField[] fields;
+    private CompiledFields compiledFields;
 
     protected BasicSerializableClassDescriptor(final SerializableClass serializableClass, final ClassDescriptor superClassDescriptor, final SerializableField[] fields, final int classType) throws ClassNotFoundException {
         type = serializableClass == null ? null : serializableClass.getSubjectClass();
@@ -58,4 +62,24 @@ final class BasicSerializableClassDescriptor extends SerializableClassDescriptor
     public SerializableField[] getFields() {
         return fields;
     }
+
+    /**
+     * Get the compiled form of the stream fields of this descriptor.  If the stream fields are exactly the fields of the
+     * local class, the compiled form cached on the local class is shared.
+     *
+     * @return the compiled fields
+     */
+    CompiledFields getCompiledFields() {
+        CompiledFields compiledFields = this.compiledFields;
+        if (compiledFields == null) {
+            final SerializableClass serializableClass = this.serializableClass;
+            if (serializableClass != null && Arrays.equals(fields, serializableClass.getFields())) {
+                compiledFields = serializableClass.getCompiledFields();
+            } else {
+                compiledFields = CompiledFields.compile(fields);
+            }
+            this.compiledFields = compiledFields;
+        }
+        return compiledFields;
+    }
 }
@@ -48,7 +48,24 @@ import sun.reflect.ReflectionFactory;
  */
 final class Protocol {
     public static final int MIN_VERSION = 2;
-    public static final int MAX_VERSION = 4;
+    public static final int MAX_VERSION = 6;
+
+    /**
+     * The first version which writes lengths and counts as variable-length integers and which follows the version
+     * byte with a byte of stream flags.
+     */
+    public static final int VARINT_VERSION = 5;
+
+    /**
+     * The first version which can write a collection in chunks, before the number of its members is known.
+     */
+    public static final int CHUNKED_COLLECTION_VERSION = 6;
+
+    /**
+     * Stream flag: {@code int} and {@code long} field values and boxed values are written as ZigZag variable-length
+     * integers.
+     */
+    public static final int FLAG_VARINT_VALUES = 0x01;
 
     public static final int ID_NULL                     = 0x01;
     public static final int ID_REPEAT_OBJECT_FAR        = 0x02;
@@ -217,6 +234,10 @@ final class Protocol {
 
     public static final int ID_UNMODIFIABLE_MAP_ENTRY_SET = 0x82;
 
+    // protocol version >= 6
+    public static final int ID_COLLECTION_CHUNKED       = 0x83; // type follows, then chunks of 1-0xff members each preceded by its count, then a zero count
+    public static final int ID_COLLECTION_CHUNKED_RESET = 0x84; // as CHUNKED, but the collection is not cached and the instance cache is cleared before the first chunk and after each chunk
+
     private static class UnsafeHolder {
         // WFLY-14077 Never ever refactor out unsafe field from this wrapper class
         private static final Unsafe unsafe = getSecurityManager() == null ? GetUnsafeAction.INSTANCE.run() : doPrivileged(GetUnsafeAction.INSTANCE);
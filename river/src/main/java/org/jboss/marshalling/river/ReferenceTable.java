@@ -0,0 +1,91 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.river;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An append-only table of back-referenced stream entries, indexed by sequence number.
+ * <p>
+ * Clearing the table releases the entries but keeps the backing array, so a reused unmarshaller does not reallocate
+ * it for every stream.  If the table has grown beyond its initial capacity and several consecutive clears find it
+ * mostly empty, the backing array is shrunk back to the initial capacity so that one unusually large stream does not
+ * pin a large array indefinitely.
+ *
+ * @param <E> the entry type
+ */
+final class ReferenceTable<E> {
+    private static final int MIN_CAPACITY = 16;
+    private static final int SHRINK_AFTER_CLEARS = 16;
+
+    private final int initialCapacity;
+    private Object[] entries;
+    private int size;
+    private int smallClears;
+
+    ReferenceTable(final int initialCapacity) {
+        this.initialCapacity = Math.max(initialCapacity, MIN_CAPACITY);
+        entries = new Object[this.initialCapacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return entries.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    E get(final int index) {
+        return (E) entries[Objects.checkIndex(index, size)];
+    }
+
+    void set(final int index, final E entry) {
+        entries[Objects.checkIndex(index, size)] = entry;
+    }
+
+    void add(final E entry) {
+        Object[] entries = this.entries;
+        final int size = this.size;
+        if (size == entries.length) {
+            this.entries = entries = Arrays.copyOf(entries, size << 1);
+        }
+        entries[size] = entry;
+        this.size = size + 1;
+    }
+
+    void clear() {
+        final Object[] entries = this.entries;
+        final int size = this.size;
+        Arrays.fill(entries, 0, size, null);
+        this.size = 0;
+        if (entries.length > initialCapacity) {
+            if (size < entries.length >> 2) {
+                if (++smallClears == SHRINK_AFTER_CLEARS) {
+                    this.entries = new Object[initialCapacity];
+                    smallClears = 0;
+                }
+            } else {
+                smallClears = 0;
+            }
+        }
+    }
+}
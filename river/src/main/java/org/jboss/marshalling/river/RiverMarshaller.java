@@ -42,6 +42,7 @@ import java.util.Collection;
 import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -49,6 +50,7 @@ import java.util.Stack;
 import java.util.Vector;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.stream.Stream;
 
 import org.jboss.marshalling.AbstractMarshaller;
 import org.jboss.marshalling.ByteOutput;
@@ -59,9 +61,11 @@ import org.jboss.marshalling.MarshallingConfiguration;
 import org.jboss.marshalling.ObjectResolver;
 import org.jboss.marshalling.ObjectTable;
 import org.jboss.marshalling.Pair;
+import org.jboss.marshalling.StreamingMarshaller;
 import org.jboss.marshalling.TraceInformation;
 import org.jboss.marshalling.UTFUtils;
 import org.jboss.marshalling._private.GetDeclaredFieldAction;
+import org.jboss.marshalling.reflect.CompiledFields;
 import org.jboss.marshalling.reflect.SerializableClass;
 import org.jboss.marshalling.reflect.SerializableClassRegistry;
 import org.jboss.marshalling.reflect.SerializableField;
@@ -71,7 +75,7 @@ import org.jboss.marshalling.util.Kind;
 /**
  *
  */
-public class RiverMarshaller extends AbstractMarshaller {
+public class RiverMarshaller extends AbstractMarshaller implements StreamingMarshaller {
     private final IdentityIntMap<Object> instanceCache;
     private final IdentityIntMap<Class<?>> classCache;
     private final IdentityIntMap<Class<?>> serialClassCache;
@@ -79,6 +83,8 @@ public class RiverMarshaller extends AbstractMarshaller {
     private int instanceSeq;
     private int classSeq;
     private final SerializableClassRegistry registry;
+    private final boolean compiledFieldAccess;
+    private final boolean varIntValues;
     private RiverObjectOutputStream objectOutputStream;
     private ObjectOutput objectOutput;
     private BlockMarshaller blockMarshaller;
@@ -95,6 +101,9 @@ public class RiverMarshaller extends AbstractMarshaller {
         classCache = new IdentityIntMap<Class<?>>((int) ((double)configuration.getClassCount() / (double)loadFactor), loadFactor);
         serialClassCache = new IdentityIntMap<Class<?>>((int) ((double)configuration.getClassCount() / (double)loadFactor), loadFactor);
         externalizers = new IdentityHashMap<Class<?>, Externalizer>(configuration.getClassCount());
+        varIntValues = configuredVersion >= VARINT_VERSION && configuration.isVariableLengthIntegers();
+        // compiled field access copies int and long fields in their fixed-length form
+        compiledFieldAccess = configuration.isCompiledFieldAccess() && ! varIntValues;
     }
 
     protected void doWriteObject(final Object original, final boolean unshared) throws IOException {
@@ -116,6 +125,7 @@ public class RiverMarshaller extends AbstractMarshaller {
                 }
                 final int rid;
                 if (! unshared && (rid = instanceCache.get(obj, -1)) != -1) {
+                    recordBackReference();
                     final int diff = rid - instanceSeq;
                     if (diff >= -256) {
                         write(ID_REPEAT_OBJECT_NEAR);
@@ -133,6 +143,7 @@ public class RiverMarshaller extends AbstractMarshaller {
                 obj = objectPreResolver.writeReplace(obj);
                 final ObjectTable.Writer objectTableWriter;
                 if (! unshared && (objectTableWriter = objectTable.getObjectWriter(obj)) != null) {
+                    recordObjectTableHit();
                     write(ID_PREDEFINED_OBJECT);
                     if (configuredVersion == 1) {
                         objectTableWriter.writeObject(getBlockMarshaller(), obj);
@@ -352,13 +363,13 @@ public class RiverMarshaller extends AbstractMarshaller {
                     writeShort((short) serializableField.getRecordComponentValue(object));
                     break;
                 case INT:
-                    writeInt((int) serializableField.getRecordComponentValue(object));
+                    writeIntValue((int) serializableField.getRecordComponentValue(object));
                     break;
                 case CHAR:
                     writeChar((char) serializableField.getRecordComponentValue(object));
                     break;
                 case LONG:
-                    writeLong((long) serializableField.getRecordComponentValue(object));
+                    writeLongValue((long) serializableField.getRecordComponentValue(object));
                     break;
                 case DOUBLE:
                     writeDouble((double) serializableField.getRecordComponentValue(object));
@@ -402,12 +413,12 @@ public class RiverMarshaller extends AbstractMarshaller {
             }
             case ID_INTEGER_CLASS: {
                 write(ID_INTEGER_OBJECT);
-                writeInt(((Integer) obj).intValue());
+                writeIntValue(((Integer) obj).intValue());
                 return;
             }
             case ID_LONG_CLASS: {
                 write(ID_LONG_OBJECT);
-                writeLong(((Long) obj).longValue());
+                writeLongValue(((Long) obj).longValue());
                 return;
             }
             case ID_SHORT_CLASS: {
@@ -432,8 +443,7 @@ public class RiverMarshaller extends AbstractMarshaller {
                     write(ID_STRING_LARGE);
                     writeInt(len);
                 }
-                shallowFlush();
-                UTFUtils.writeUTFBytes(byteOutput, string);
+                writeUTFBytes(string);
                 if (unshared) {
                     instanceCache.put(obj, -1);
                     instanceSeq++;
@@ -515,23 +525,17 @@ public class RiverMarshaller extends AbstractMarshaller {
                     write(unshared ? ID_ARRAY_SMALL_UNSHARED : ID_ARRAY_SMALL);
                     write(len);
                     write(ID_PRIM_CHAR);
-                    for (int i = 0; i < len; i++) {
-                        writeChar(chars[i]);
-                    }
+                    writeChars(chars, 0, len);
                 } else if (len <= 65536) {
                     write(unshared ? ID_ARRAY_MEDIUM_UNSHARED : ID_ARRAY_MEDIUM);
                     writeShort(len);
                     write(ID_PRIM_CHAR);
-                    for (int i = 0; i < len; i++) {
-                        writeChar(chars[i]);
-                    }
+                    writeChars(chars, 0, len);
                 } else {
                     write(unshared ? ID_ARRAY_LARGE_UNSHARED : ID_ARRAY_LARGE);
                     writeInt(len);
                     write(ID_PRIM_CHAR);
-                    for (int i = 0; i < len; i++) {
-                        writeChar(chars[i]);
-                    }
+                    writeChars(chars, 0, len);
                 }
                 if (unshared) {
                     instanceCache.put(obj, -1);
@@ -551,23 +555,17 @@ public class RiverMarshaller extends AbstractMarshaller {
                     write(unshared ? ID_ARRAY_SMALL_UNSHARED : ID_ARRAY_SMALL);
                     write(len);
                     write(ID_PRIM_SHORT);
-                    for (int i = 0; i < len; i++) {
-                        writeShort(shorts[i]);
-                    }
+                    writeShorts(shorts, 0, len);
                 } else if (len <= 65536) {
                     write(unshared ? ID_ARRAY_MEDIUM_UNSHARED : ID_ARRAY_MEDIUM);
                     writeShort(len);
                     write(ID_PRIM_SHORT);
-                    for (int i = 0; i < len; i++) {
-                        writeShort(shorts[i]);
-                    }
+                    writeShorts(shorts, 0, len);
                 } else {
                     write(unshared ? ID_ARRAY_LARGE_UNSHARED : ID_ARRAY_LARGE);
                     writeInt(len);
                     write(ID_PRIM_SHORT);
-                    for (int i = 0; i < len; i++) {
-                        writeShort(shorts[i]);
-                    }
+                    writeShorts(shorts, 0, len);
                 }
                 if (unshared) {
                     instanceCache.put(obj, -1);
@@ -587,23 +585,17 @@ public class RiverMarshaller extends AbstractMarshaller {
                     write(unshared ? ID_ARRAY_SMALL_UNSHARED : ID_ARRAY_SMALL);
                     write(len);
                     write(ID_PRIM_INT);
-                    for (int i = 0; i < len; i++) {
-                        writeInt(ints[i]);
-                    }
+                    writeInts(ints, 0, len);
                 } else if (len <= 65536) {
                     write(unshared ? ID_ARRAY_MEDIUM_UNSHARED : ID_ARRAY_MEDIUM);
                     writeShort(len);
                     write(ID_PRIM_INT);
-                    for (int i = 0; i < len; i++) {
-                        writeInt(ints[i]);
-                    }
+                    writeInts(ints, 0, len);
                 } else {
                     write(unshared ? ID_ARRAY_LARGE_UNSHARED : ID_ARRAY_LARGE);
                     writeInt(len);
                     write(ID_PRIM_INT);
-                    for (int i = 0; i < len; i++) {
-                        writeInt(ints[i]);
-                    }
+                    writeInts(ints, 0, len);
                 }
                 if (unshared) {
                     instanceCache.put(obj, -1);
@@ -623,23 +615,17 @@ public class RiverMarshaller extends AbstractMarshaller {
                     write(unshared ? ID_ARRAY_SMALL_UNSHARED : ID_ARRAY_SMALL);
                     write(len);
                     write(ID_PRIM_LONG);
-                    for (int i = 0; i < len; i++) {
-                        writeLong(longs[i]);
-                    }
+                    writeLongs(longs, 0, len);
                 } else if (len <= 65536) {
                     write(unshared ? ID_ARRAY_MEDIUM_UNSHARED : ID_ARRAY_MEDIUM);
                     writeShort(len);
                     write(ID_PRIM_LONG);
-                    for (int i = 0; i < len; i++) {
-                        writeLong(longs[i]);
-                    }
+                    writeLongs(longs, 0, len);
                 } else {
                     write(unshared ? ID_ARRAY_LARGE_UNSHARED : ID_ARRAY_LARGE);
                     writeInt(len);
                     write(ID_PRIM_LONG);
-                    for (int i = 0; i < len; i++) {
-                        writeLong(longs[i]);
-                    }
+                    writeLongs(longs, 0, len);
                 }
                 if (unshared) {
                     instanceCache.put(obj, -1);
@@ -659,23 +645,17 @@ public class RiverMarshaller extends AbstractMarshaller {
                     write(unshared ? ID_ARRAY_SMALL_UNSHARED : ID_ARRAY_SMALL);
                     write(len);
                     write(ID_PRIM_FLOAT);
-                    for (int i = 0; i < len; i++) {
-                        writeFloat(floats[i]);
-                    }
+                    writeFloats(floats, 0, len);
                 } else if (len <= 65536) {
                     write(unshared ? ID_ARRAY_MEDIUM_UNSHARED : ID_ARRAY_MEDIUM);
                     writeShort(len);
                     write(ID_PRIM_FLOAT);
-                    for (int i = 0; i < len; i++) {
-                        writeFloat(floats[i]);
-                    }
+                    writeFloats(floats, 0, len);
                 } else {
                     write(unshared ? ID_ARRAY_LARGE_UNSHARED : ID_ARRAY_LARGE);
                     writeInt(len);
                     write(ID_PRIM_FLOAT);
-                    for (int i = 0; i < len; i++) {
-                        writeFloat(floats[i]);
-                    }
+                    writeFloats(floats, 0, len);
                 }
                 if (unshared) {
                     instanceCache.put(obj, -1);
@@ -695,23 +675,17 @@ public class RiverMarshaller extends AbstractMarshaller {
                     write(unshared ? ID_ARRAY_SMALL_UNSHARED : ID_ARRAY_SMALL);
                     write(len);
                     write(ID_PRIM_DOUBLE);
-                    for (int i = 0; i < len; i++) {
-                        writeDouble(doubles[i]);
-                    }
+                    writeDoubles(doubles, 0, len);
                 } else if (len <= 65536) {
                     write(unshared ? ID_ARRAY_MEDIUM_UNSHARED : ID_ARRAY_MEDIUM);
                     writeShort(len);
                     write(ID_PRIM_DOUBLE);
-                    for (int i = 0; i < len; i++) {
-                        writeDouble(doubles[i]);
-                    }
+                    writeDoubles(doubles, 0, len);
                 } else {
                     write(unshared ? ID_ARRAY_LARGE_UNSHARED : ID_ARRAY_LARGE);
                     writeInt(len);
                     write(ID_PRIM_DOUBLE);
-                    for (int i = 0; i < len; i++) {
-                        writeDouble(doubles[i]);
-                    }
+                    writeDoubles(doubles, 0, len);
                 }
                 if (unshared) {
                     instanceCache.put(obj, -1);
@@ -1142,6 +1116,10 @@ public class RiverMarshaller extends AbstractMarshaller {
     }
 
     protected void doWriteFields(final SerializableClass info, final Object obj) throws IOException {
+        if (compiledFieldAccess) {
+            doWriteCompiledFields(info, obj);
+            return;
+        }
         final SerializableField[] serializableFields = info.getFields();
         for (SerializableField serializableField : serializableFields) {
             try {
@@ -1159,7 +1137,7 @@ public class RiverMarshaller extends AbstractMarshaller {
                         break;
                     }
                     case INT: {
-                        writeInt(serializableField.isAccessible() ? serializableField.getInt(obj) : 0);
+                        writeIntValue(serializableField.isAccessible() ? serializableField.getInt(obj) : 0);
                         break;
                     }
                     case CHAR: {
@@ -1167,7 +1145,7 @@ public class RiverMarshaller extends AbstractMarshaller {
                         break;
                     }
                     case LONG: {
-                        writeLong(serializableField.isAccessible() ? serializableField.getLong(obj) : 0);
+                        writeLongValue(serializableField.isAccessible() ? serializableField.getLong(obj) : 0);
                         break;
                     }
                     case DOUBLE: {
@@ -1191,6 +1169,38 @@ public class RiverMarshaller extends AbstractMarshaller {
         }
     }
 
+    private void doWriteCompiledFields(final SerializableClass info, final Object obj) throws IOException {
+        final CompiledFields compiledFields = info.getCompiledFields();
+        final int cnt = compiledFields.getSegmentCount();
+        for (int i = 0; i < cnt; i ++) {
+            final int len = compiledFields.getPrimitiveLength(i);
+            if (len > 0) {
+                try {
+                    if (len <= bufferSize) {
+                        compiledFields.writePrimitives(i, obj, buffer, reserve(len));
+                    } else {
+                        final byte[] bytes = new byte[len];
+                        compiledFields.writePrimitives(i, obj, bytes, 0);
+                        write(bytes);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    TraceInformation.addObjectInformation(e, obj);
+                    throw e;
+                }
+            }
+            final SerializableField serializableField = compiledFields.getObjectField(i);
+            if (serializableField != null) {
+                try {
+                    doWriteObject(compiledFields.getObject(i, obj), serializableField.isUnshared());
+                } catch (IOException | RuntimeException e) {
+                    TraceInformation.addFieldInformation(e, info, serializableField);
+                    TraceInformation.addObjectInformation(e, obj);
+                    throw e;
+                }
+            }
+        }
+    }
+
     protected void doWriteEmptyFields(final SerializableClass info) throws IOException {
         final SerializableField[] serializableFields = info.getFields();
         for (SerializableField serializableField : serializableFields) {
@@ -1209,7 +1219,7 @@ public class RiverMarshaller extends AbstractMarshaller {
                         break;
                     }
                     case INT: {
-                        writeInt(0);
+                        writeIntValue(0);
                         break;
                     }
                     case CHAR: {
@@ -1217,7 +1227,7 @@ public class RiverMarshaller extends AbstractMarshaller {
                         break;
                     }
                     case LONG: {
-                        writeLong(0L);
+                        writeLongValue(0L);
                         break;
                     }
                     case DOUBLE: {
@@ -1255,7 +1265,7 @@ public class RiverMarshaller extends AbstractMarshaller {
         } else {
             write(ID_PROXY_CLASS);
             final String[] names = classResolver.getProxyInterfaces(objClass);
-            writeInt(names.length);
+            writeLength(names.length);
             for (String name : names) {
                 writeString(name);
             }
@@ -1489,6 +1499,7 @@ public class RiverMarshaller extends AbstractMarshaller {
     }
 
     private void writeClassTableData(final Class<?> objClass, final ClassTable.Writer classTableWriter) throws IOException {
+        recordClassTableHit();
         if (configuredVersion == 1) {
             classTableWriter.writeClass(getBlockMarshaller(), objClass);
             writeEndBlock();
@@ -1521,6 +1532,7 @@ public class RiverMarshaller extends AbstractMarshaller {
             }
         }
         if (i != -1) {
+            recordRepeatedClassDescriptor();
             final int diff = i - classSeq;
             if (diff >= -256) {
                 write(ID_REPEAT_CLASS_NEAR);
@@ -1567,7 +1579,7 @@ public class RiverMarshaller extends AbstractMarshaller {
             classResolver.annotateClass(this, objClass);
             final SerializableField[] fields = info.getFields();
             final int cnt = fields.length;
-            writeInt(cnt);
+            writeLength(cnt);
             for (int i = 0; i < cnt; i++) {
                 SerializableField field = fields[i];
                 if (configuredVersion >= 4) {
@@ -1634,6 +1646,7 @@ public class RiverMarshaller extends AbstractMarshaller {
     }
 
     public void clearInstanceCache() throws IOException {
+        recordInstanceCache(instanceSeq);
         instanceCache.clear();
         instanceSeq = 0;
         if (byteOutput != null) {
@@ -1642,6 +1655,8 @@ public class RiverMarshaller extends AbstractMarshaller {
     }
 
     public void clearClassCache() throws IOException {
+        recordClassCache(classSeq);
+        recordInstanceCache(instanceSeq);
         classCache.clear();
         serialClassCache.clear();
         externalizers.clear();
@@ -1653,22 +1668,144 @@ public class RiverMarshaller extends AbstractMarshaller {
         }
     }
 
+    public void writeCollection(final Iterator<?> elements) throws IOException {
+        writeCollection(elements, false);
+    }
+
+    public void writeCollection(final Iterator<?> elements, final boolean bounded) throws IOException {
+        writeChunked(ID_CC_ARRAY_LIST, elements, false, bounded);
+    }
+
+    public void writeCollection(final Stream<?> elements) throws IOException {
+        writeCollection(elements.iterator(), false);
+    }
+
+    public void writeMap(final Iterator<? extends Map.Entry<?, ?>> entries) throws IOException {
+        writeMap(entries, false);
+    }
+
+    @SuppressWarnings("deprecation")
+    public void writeMap(final Iterator<? extends Map.Entry<?, ?>> entries, final boolean bounded) throws IOException {
+        // the ID is deprecated because ordinary maps are no longer written with it, but it is still the only ID which
+        // every reader decodes as a LinkedHashMap, which keeps the entries in the order they were written
+        writeChunked(ID_CC_LINKED_HASH_MAP, entries, true, bounded);
+    }
+
+    public void writeMap(final Stream<? extends Map.Entry<?, ?>> entries) throws IOException {
+        writeMap(entries.iterator(), false);
+    }
+
+    private void writeChunked(final int id, final Iterator<?> members, final boolean map, final boolean bounded) throws IOException {
+        if (configuredVersion < CHUNKED_COLLECTION_VERSION) {
+            throw new IOException("Chunked collections require protocol version " + CHUNKED_COLLECTION_VERSION + " or later (configured version is " + configuredVersion + ")");
+        }
+        if (bounded) {
+            // the collection is never cached, and the instance cache is cleared on both sides before the first chunk and after each chunk
+            write(ID_COLLECTION_CHUNKED_RESET);
+            write(id);
+            resetInstanceCache();
+        } else {
+            // the collection is never constructed, but the reader gives it a place in the instance cache
+            instanceSeq++;
+            write(ID_COLLECTION_CHUNKED);
+            write(id);
+        }
+        final Object[] chunk = new Object[0xff];
+        int count;
+        do {
+            count = 0;
+            while (count < chunk.length && members.hasNext()) {
+                chunk[count++] = members.next();
+            }
+            write(count);
+            for (int i = 0; i < count; i ++) {
+                if (map) {
+                    final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) chunk[i];
+                    doWriteObject(entry.getKey(), false);
+                    doWriteObject(entry.getValue(), false);
+                } else {
+                    doWriteObject(chunk[i], false);
+                }
+                chunk[i] = null;
+            }
+            if (bounded && count != 0) {
+                resetInstanceCache();
+            }
+        } while (count == chunk.length);
+        if (count != 0) {
+            write(0);
+        }
+    }
+
+    private void resetInstanceCache() {
+        recordInstanceCache(instanceSeq);
+        instanceCache.clear();
+        instanceSeq = 0;
+    }
+
     public void start(final ByteOutput byteOutput) throws IOException {
         super.start(byteOutput);
         writeByte(configuredVersion);
+        if (configuredVersion >= VARINT_VERSION) {
+            writeByte(varIntValues ? FLAG_VARINT_VALUES : 0);
+        }
     }
 
     private void writeString(String string) throws IOException {
-        writeInt(string.length());
-        shallowFlush();
-        UTFUtils.writeUTFBytes(byteOutput, string);
+        writeLength(string.length());
+        writeUTFBytes(string);
     }
 
     // Replace writeUTF with a faster, non-scanning version
 
     public void writeUTF(final String string) throws IOException {
-        writeInt(string.length());
-        shallowFlush();
-        UTFUtils.writeUTFBytes(byteOutput, string);
+        writeLength(string.length());
+        writeUTFBytes(string);
+    }
+
+    private void writeLength(final int length) throws IOException {
+        if (configuredVersion >= VARINT_VERSION) {
+            writeVarInt(length);
+        } else {
+            writeInt(length);
+        }
+    }
+
+    void writeIntValue(final int v) throws IOException {
+        if (varIntValues) {
+            writeVarInt(v << 1 ^ v >> 31);
+        } else {
+            writeInt(v);
+        }
+    }
+
+    void writeLongValue(final long v) throws IOException {
+        if (varIntValues) {
+            long zz = v << 1 ^ v >> 63;
+            while ((zz & ~0x7fL) != 0L) {
+                write((int) zz & 0x7f | 0x80);
+                zz >>>= 7;
+            }
+            write((int) zz);
+        } else {
+            writeLong(v);
+        }
+    }
+
+    private void writeVarInt(int v) throws IOException {
+        while ((v & ~0x7f) != 0) {
+            write(v & 0x7f | 0x80);
+            v >>>= 7;
+        }
+        write(v);
+    }
+
+    private void writeUTFBytes(final String string) throws IOException {
+        if (isWritingInPlace()) {
+            UTFUtils.writeUTFBytes(this, string);
+        } else {
+            shallowFlush();
+            UTFUtils.writeUTFBytes(byteOutput, string);
+        }
     }
 }
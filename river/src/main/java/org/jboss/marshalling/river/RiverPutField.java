@@ -22,7 +22,6 @@ import java.io.ObjectOutputStream;
 import java.io.ObjectOutput;
 import java.io.IOException;
 import java.util.Arrays;
-import org.jboss.marshalling.Marshaller;
 import org.jboss.marshalling.TraceInformation;
 import org.jboss.marshalling.util.FieldPutter;
 
@@ -88,11 +87,25 @@ class RiverPutField extends ObjectOutputStream.PutField {
         throw new UnsupportedOperationException("write(ObjectOutput)");
     }
 
-    protected final void write(final Marshaller marshaller) throws IOException {
+    protected final void write(final RiverMarshaller marshaller) throws IOException {
         final FieldPutter[] fields = this.fields;
         final int len = fields.length;
         for (int i = 0; i < len; i++) try {
-            fields[i].write(marshaller);
+            final FieldPutter field = fields[i];
+            switch (field.getKind()) {
+                case INT: {
+                    marshaller.writeIntValue(field.getInt());
+                    break;
+                }
+                case LONG: {
+                    marshaller.writeLongValue(field.getLong());
+                    break;
+                }
+                default: {
+                    field.write(marshaller);
+                    break;
+                }
+            }
         } catch (IOException e) {
             TraceInformation.addFieldInformation(e, names[i]);
             throw e;
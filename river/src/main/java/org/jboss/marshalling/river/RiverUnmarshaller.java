@@ -29,6 +29,7 @@ import java.io.InvalidObjectException;
 import java.io.NotSerializableException;
 import java.io.ObjectInputValidation;
 import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
@@ -37,6 +38,7 @@ import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.ArrayDeque;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -45,14 +47,18 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.EnumSet;
@@ -72,10 +78,12 @@ import org.jboss.marshalling.ByteInput;
 import org.jboss.marshalling.Externalizer;
 import org.jboss.marshalling.MarshallingConfiguration;
 import org.jboss.marshalling.Pair;
+import org.jboss.marshalling.StreamingUnmarshaller;
 import org.jboss.marshalling.UTFUtils;
 import org.jboss.marshalling.TraceInformation;
 import org.jboss.marshalling._private.GetDeclaredFieldAction;
 import org.jboss.marshalling._private.GetUnsafeAction;
+import org.jboss.marshalling.reflect.CompiledFields;
 import org.jboss.marshalling.reflect.SerializableClass;
 import org.jboss.marshalling.reflect.SerializableClassRegistry;
 import org.jboss.marshalling.reflect.SerializableField;
@@ -86,10 +94,10 @@ import sun.misc.Unsafe;
 /**
  *
  */
-public class RiverUnmarshaller extends AbstractUnmarshaller {
+public class RiverUnmarshaller extends AbstractUnmarshaller implements StreamingUnmarshaller {
 
-    private final ArrayList<Object> instanceCache;
-    private final ArrayList<ClassDescriptor> classCache;
+    private final ReferenceTable<Object> instanceCache;
+    private final ReferenceTable<ClassDescriptor> classCache;
     private final SerializableClassRegistry registry;
     private int version;
     private int depth;
@@ -98,6 +106,10 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
     private RiverObjectInputStream objectInputStream;
     private SortedSet<Validator> validators;
     private int validatorSeq;
+    private final boolean compiledFieldAccess;
+    private boolean varIntValues;
+    private byte[] fieldBuffer;
+    private StreamingIterator<?> streamingIterator;
 
     private static final Object UNRESOLVED = new Object();
     private static final Field proxyInvocationHandler;
@@ -132,16 +144,19 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
     protected RiverUnmarshaller(final RiverMarshallerFactory marshallerFactory, final SerializableClassRegistry registry, final MarshallingConfiguration configuration) {
         super(marshallerFactory, configuration);
         this.registry = registry;
-        instanceCache = new ArrayList<Object>(configuration.getInstanceCount());
-        classCache = new ArrayList<ClassDescriptor>(configuration.getClassCount());
+        instanceCache = new ReferenceTable<Object>(configuration.getInstanceCount());
+        classCache = new ReferenceTable<ClassDescriptor>(configuration.getClassCount());
+        compiledFieldAccess = configuration.isCompiledFieldAccess();
     }
 
     public void clearInstanceCache() throws IOException {
+        recordInstanceCache(instanceCache.size());
         instanceCache.clear();
     }
 
     public void clearClassCache() throws IOException {
         clearInstanceCache();
+        recordClassCache(classCache.size());
         classCache.clear();
     }
 
@@ -150,6 +165,9 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
     }
 
     public void finish() throws IOException {
+        if (streamingIterator != null) {
+            streamingIterator.abandon();
+        }
         super.finish();
         blockUnmarshaller = null;
         objectInputStream = null;
@@ -241,20 +259,25 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
     }
 
     protected Object doReadObject(final boolean unshared) throws ClassNotFoundException, IOException {
+        checkNotStreaming();
         final Object obj = doReadObject(readUnsignedByte(), unshared, false);
         if (depth == 0) {
-            final SortedSet<Validator> validators = this.validators;
-            if (validators != null) {
-                this.validators = null;
-                validatorSeq = 0;
-                for (Validator validator : validators) {
-                    validator.getValidation().validateObject();
-                }
-            }
+            runValidators();
         }
         return obj;
     }
 
+    private void runValidators() throws InvalidObjectException {
+        final SortedSet<Validator> validators = this.validators;
+        if (validators != null) {
+            this.validators = null;
+            validatorSeq = 0;
+            for (Validator validator : validators) {
+                validator.getValidation().validateObject();
+            }
+        }
+    }
+
     Object doReadObject(final boolean unshared, final boolean discardMissing) throws IOException, ClassNotFoundException {
         return doReadObject(readUnsignedByte(), unshared, discardMissing);
     }
@@ -272,6 +295,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
                     if (unshared) {
                         throw new InvalidObjectException("Attempt to read a backreference as unshared");
                     }
+                    recordBackReference();
                     final int index = readInt();
                     try {
                         final Object obj = instanceCache.get(index);
@@ -284,6 +308,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
                     if (unshared) {
                         throw new InvalidObjectException("Attempt to read a backreference as unshared");
                     }
+                    recordBackReference();
                     final int index = readByte() | 0xffffff00;
                     try {
                         final Object obj = instanceCache.get(index + instanceCache.size());
@@ -296,6 +321,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
                     if (unshared) {
                         throw new InvalidObjectException("Attempt to read a backreference as unshared");
                     }
+                    recordBackReference();
                     final int index = readShort() | 0xffff0000;
                     try {
                         final Object obj = instanceCache.get(index + instanceCache.size());
@@ -344,7 +370,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
                     if (unshared != (leadByte == ID_ARRAY_EMPTY_UNSHARED)) {
                         throw sharedMismatch();
                     }
-                    final ArrayList<Object> instanceCache = this.instanceCache;
+                    final ReferenceTable<Object> instanceCache = this.instanceCache;
                     final int idx = instanceCache.size();
                     Class<?> componentType = doReadClassDescriptor(readUnsignedByte(), true).getType();
                     filterCheck(componentType, 0, depth, totalRefs, totalBytesRead);
@@ -389,6 +415,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
                     if (unshared) {
                         throw new InvalidObjectException("Attempt to read a predefined object as unshared");
                     }
+                    recordObjectTableHit();
                     return objectTable.readObject(this);
                 }
                 case ID_BOOLEAN_OBJECT_TRUE: {
@@ -409,11 +436,11 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
                 }
                 case ID_INTEGER_OBJECT: {
                     filterCheck(Integer.class, -1, depth, totalRefs, totalBytesRead);
-                    return replace(objectResolver.readResolve(Integer.valueOf(readInt())));
+                    return replace(objectResolver.readResolve(Integer.valueOf(readIntValue())));
                 }
                 case ID_LONG_OBJECT: {
                     filterCheck(Long.class, -1, depth, totalRefs, totalBytesRead);
-                    return replace(objectResolver.readResolve(Long.valueOf(readLong())));
+                    return replace(objectResolver.readResolve(Long.valueOf(readLongValue())));
                 }
                 case ID_FLOAT_OBJECT: {
                     filterCheck(Float.class, -1, depth, totalRefs, totalBytesRead);
@@ -743,34 +770,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
                 case ID_COLLECTION_LARGE:
                 case ID_COLLECTION_LARGE_UNSHARED:
                 {
-                    final int len;
-                    switch (leadByte) {
-                        case ID_COLLECTION_EMPTY:
-                        case ID_COLLECTION_EMPTY_UNSHARED: {
-                            len = 0;
-                            break;
-                        }
-                        case ID_COLLECTION_SMALL:
-                        case ID_COLLECTION_SMALL_UNSHARED: {
-                            int b = readUnsignedByte();
-                            len = b == 0 ? 0x100 : b;
-                            break;
-                        }
-                        case ID_COLLECTION_MEDIUM:
-                        case ID_COLLECTION_MEDIUM_UNSHARED: {
-                            int b = readUnsignedShort();
-                            len = b == 0 ? 0x10000 : b;
-                            break;
-                        }
-                        case ID_COLLECTION_LARGE:
-                        case ID_COLLECTION_LARGE_UNSHARED: {
-                            len = readInt();
-                            break;
-                        }
-                        default: {
-                            throw new IllegalStateException();
-                        }
-                    }
+                    final int len = readCollectionLength(leadByte);
                     final int id = readUnsignedByte();
                     switch (id) {
                         case ID_CC_ARRAY_LIST: {
@@ -872,6 +872,28 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
                     }
                 }
 
+                case ID_COLLECTION_CHUNKED:
+                case ID_COLLECTION_CHUNKED_RESET: {
+                    final boolean reset = leadByte == ID_COLLECTION_CHUNKED_RESET;
+                    if (reset && depth > 1) {
+                        throw new StreamCorruptedException("ID_COLLECTION_CHUNKED_RESET token in the middle of stream processing");
+                    }
+                    final int id = readUnsignedByte();
+                    switch (id) {
+                        case ID_CC_ARRAY_LIST: {
+                            filterCheck(ArrayList.class, -1, depth, totalRefs, totalBytesRead);
+                            return replace(readChunkedCollectionData(unshared, new ArrayList(), discardMissing, reset));
+                        }
+                        case ID_CC_LINKED_HASH_MAP: {
+                            filterCheck(LinkedHashMap.class, -1, depth, totalRefs, totalBytesRead);
+                            return replace(readChunkedMapData(unshared, new LinkedHashMap(), discardMissing, reset));
+                        }
+                        default: {
+                            throw new StreamCorruptedException("Unexpected byte found when reading a collection type: " + id);
+                        }
+                    }
+                }
+
                 case ID_PAIR: {
                     final int idx = instanceCache.size();
                     instanceCache.add(UNRESOLVED);
@@ -909,9 +931,431 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
         }
     }
 
+    private int readCollectionLength(final int leadByte) throws IOException {
+        switch (leadByte) {
+            case ID_COLLECTION_EMPTY:
+            case ID_COLLECTION_EMPTY_UNSHARED: {
+                return 0;
+            }
+            case ID_COLLECTION_SMALL:
+            case ID_COLLECTION_SMALL_UNSHARED: {
+                int b = readUnsignedByte();
+                return b == 0 ? 0x100 : b;
+            }
+            case ID_COLLECTION_MEDIUM:
+            case ID_COLLECTION_MEDIUM_UNSHARED: {
+                int b = readUnsignedShort();
+                return b == 0 ? 0x10000 : b;
+            }
+            case ID_COLLECTION_LARGE:
+            case ID_COLLECTION_LARGE_UNSHARED: {
+                return readInt();
+            }
+            default: {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    public <E> Iterator<E> readCollectionElements(final Class<E> elementType) throws ClassNotFoundException, IOException {
+        return readStreaming(false, elementType, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K, V> Iterator<Map.Entry<K, V>> readMapEntries(final Class<K> keyType, final Class<V> valueType) throws ClassNotFoundException, IOException {
+        return (Iterator<Map.Entry<K, V>>) (Iterator<?>) readStreaming(true, keyType, valueType);
+    }
+
+    public <E> Spliterator<E> readCollectionSpliterator(final Class<E> elementType) throws ClassNotFoundException, IOException {
+        return this.<E>readStreaming(false, elementType, null).spliterator();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K, V> Spliterator<Map.Entry<K, V>> readMapSpliterator(final Class<K> keyType, final Class<V> valueType) throws ClassNotFoundException, IOException {
+        return (Spliterator<Map.Entry<K, V>>) (Spliterator<?>) readStreaming(true, keyType, valueType).spliterator();
+    }
+
+    private <E> StreamingIterator<E> readStreaming(final boolean map, final Class<?> type, final Class<?> valueType) throws ClassNotFoundException, IOException {
+        if (streamingIterator != null || depth != 0) {
+            throw new IllegalStateException("Another object is being read");
+        }
+        int leadByte = readUnsignedByte();
+        for (;;) {
+            if (leadByte == ID_CLEAR_CLASS_CACHE) {
+                classCache.clear();
+                instanceCache.clear();
+            } else if (leadByte == ID_CLEAR_INSTANCE_CACHE) {
+                instanceCache.clear();
+            } else {
+                break;
+            }
+            leadByte = readUnsignedByte();
+        }
+        switch (leadByte) {
+            case ID_COLLECTION_EMPTY:
+            case ID_COLLECTION_EMPTY_UNSHARED:
+            case ID_COLLECTION_SMALL:
+            case ID_COLLECTION_SMALL_UNSHARED:
+            case ID_COLLECTION_MEDIUM:
+            case ID_COLLECTION_MEDIUM_UNSHARED:
+            case ID_COLLECTION_LARGE:
+            case ID_COLLECTION_LARGE_UNSHARED: {
+                break;
+            }
+            case ID_COLLECTION_CHUNKED: {
+                return readStreamingChunked(map, type, valueType, false);
+            }
+            case ID_COLLECTION_CHUNKED_RESET: {
+                return readStreamingChunked(map, type, valueType, true);
+            }
+            default: {
+                // not a collection which can be read incrementally, so read it in full
+                final Object obj = doReadObject(leadByte, false, false);
+                runValidators();
+                if (map ? obj instanceof Map : obj instanceof Collection) {
+                    final Collection<?> members = map ? ((Map<?, ?>) obj).entrySet() : (Collection<?>) obj;
+                    return new StreamingIterator<E>(members.iterator(), members.size(), map, type, valueType);
+                }
+                throw new InvalidObjectException("Object is of the wrong type (expected " + (map ? Map.class : Collection.class) + ", got " + (obj == null ? null : obj.getClass()) + ")");
+            }
+        }
+        final int len = readCollectionLength(leadByte);
+        final int id = readUnsignedByte();
+        depth ++;
+        totalRefs ++;
+        boolean ok = false;
+        try {
+            // the collection itself is never constructed
+            final int idx = instanceCache.size();
+            instanceCache.add(UNRESOLVED);
+            switch (id) {
+                case ID_CC_ARRAY_LIST:
+                case ID_CC_HASH_SET:
+                case ID_CC_LINKED_HASH_SET:
+                case ID_CC_LINKED_LIST:
+                case ID_CC_TREE_SET:
+                case ID_CC_ENUM_SET_PROXY:
+                case ID_CC_VECTOR:
+                case ID_CC_STACK:
+                case ID_CC_ARRAY_DEQUE:
+                case ID_CC_NCOPIES: {
+                    if (map) {
+                        throw new InvalidObjectException("Object is of the wrong type (expected " + Map.class + ", got a collection)");
+                    }
+                    break;
+                }
+                case ID_CC_HASH_MAP:
+                case ID_CC_HASHTABLE:
+                case ID_CC_IDENTITY_HASH_MAP:
+                case ID_CC_LINKED_HASH_MAP:
+                case ID_CC_TREE_MAP:
+                case ID_CC_ENUM_MAP: {
+                    if (! map) {
+                        throw new InvalidObjectException("Object is of the wrong type (expected " + Collection.class + ", got a map)");
+                    }
+                    break;
+                }
+                default: {
+                    throw new StreamCorruptedException("Unexpected byte found when reading a collection type: " + id);
+                }
+            }
+            final StreamingIterator<E> iterator;
+            switch (id) {
+                case ID_CC_ARRAY_LIST: {
+                    filterCheck(ArrayList.class, -1, depth, totalRefs, totalBytesRead);
+                    filterCheck(Object.class, len, depth, totalRefs, totalBytesRead);
+                    break;
+                }
+                case ID_CC_HASH_SET: {
+                    filterCheck(HashSet.class, -1, depth, totalRefs, totalBytesRead);
+                    filterCheck(Map.Entry.class, len, depth, totalRefs, totalBytesRead);
+                    break;
+                }
+                case ID_CC_LINKED_HASH_SET: {
+                    filterCheck(LinkedHashSet.class, -1, depth, totalRefs, totalBytesRead);
+                    filterCheck(Map.Entry.class, len, depth, totalRefs, totalBytesRead);
+                    break;
+                }
+                case ID_CC_LINKED_LIST: {
+                    filterCheck(LinkedList.class, -1, depth, totalRefs, totalBytesRead);
+                    filterCheck(Object.class, len, depth, totalRefs, totalBytesRead);
+                    break;
+                }
+                case ID_CC_TREE_SET: {
+                    filterCheck(TreeSet.class, -1, depth, totalRefs, totalBytesRead);
+                    // the elements are written in order, so the comparator is not needed
+                    doReadNestedObject(false, "java.util.TreeSet comparator");
+                    break;
+                }
+                case ID_CC_ENUM_SET_PROXY: {
+                    doReadClassDescriptor(readUnsignedByte(), true);
+                    break;
+                }
+                case ID_CC_VECTOR: {
+                    filterCheck(Vector.class, -1, depth, totalRefs, totalBytesRead);
+                    filterCheck(Object.class, len, depth, totalRefs, totalBytesRead);
+                    break;
+                }
+                case ID_CC_STACK: {
+                    filterCheck(Stack.class, -1, depth, totalRefs, totalBytesRead);
+                    filterCheck(Object.class, len, depth, totalRefs, totalBytesRead);
+                    break;
+                }
+                case ID_CC_ARRAY_DEQUE: {
+                    filterCheck(ArrayDeque.class, -1, depth, totalRefs, totalBytesRead);
+                    filterCheck(Object.class, len, depth, totalRefs, totalBytesRead);
+                    break;
+                }
+                case ID_CC_NCOPIES: {
+                    // only one element is written
+                    final Object obj = objectResolver.readResolve(Collections.nCopies(len, doReadNestedObject(false, "n-copies member object")));
+                    instanceCache.set(idx, obj);
+                    depth --;
+                    ok = true;
+                    runValidators();
+                    return new StreamingIterator<E>(((Collection<?>) obj).iterator(), len, false, type, null);
+                }
+                case ID_CC_HASH_MAP: {
+                    filterCheck(HashMap.class, -1, depth, totalRefs, totalBytesRead);
+                    filterCheck(Map.Entry.class, len, depth, totalRefs, totalBytesRead);
+                    break;
+                }
+                case ID_CC_HASHTABLE: {
+                    filterCheck(Hashtable.class, -1, depth, totalRefs, totalBytesRead);
+                    filterCheck(Map.Entry.class, len, depth, totalRefs, totalBytesRead);
+                    break;
+                }
+                case ID_CC_IDENTITY_HASH_MAP: {
+                    filterCheck(IdentityHashMap.class, -1, depth, totalRefs, totalBytesRead);
+                    filterCheck(Object.class, len, depth, totalRefs, totalBytesRead);
+                    break;
+                }
+                case ID_CC_LINKED_HASH_MAP: {
+                    filterCheck(LinkedHashMap.class, -1, depth, totalRefs, totalBytesRead);
+                    filterCheck(Map.Entry.class, len, depth, totalRefs, totalBytesRead);
+                    break;
+                }
+                case ID_CC_TREE_MAP: {
+                    filterCheck(TreeMap.class, -1, depth, totalRefs, totalBytesRead);
+                    // the entries are written in order, so the comparator is not needed
+                    doReadNestedObject(false, "java.util.TreeMap comparator");
+                    break;
+                }
+                case ID_CC_ENUM_MAP: {
+                    final ClassDescriptor nestedDescriptor = doReadClassDescriptor(readUnsignedByte(), true);
+                    final Class<? extends Enum> elementType = nestedDescriptor.getType().asSubclass(Enum.class);
+                    filterCheck(EnumMap.class, -1, depth, totalRefs, totalBytesRead);
+                    filterCheck(Object.class, elementType.getEnumConstants().length, depth, totalRefs, totalBytesRead);
+                    break;
+                }
+                default: {
+                    throw new IllegalStateException();
+                }
+            }
+            iterator = new StreamingIterator<E>(len, false, map, type, valueType);
+            ok = true;
+            if (len == 0) {
+                iterator.complete();
+            } else {
+                streamingIterator = iterator;
+            }
+            return iterator;
+        } finally {
+            if (! ok) {
+                depth --;
+            }
+        }
+    }
+
+    private <E> StreamingIterator<E> readStreamingChunked(final boolean map, final Class<?> type, final Class<?> valueType, final boolean reset) throws ClassNotFoundException, IOException {
+        final int id = readUnsignedByte();
+        depth ++;
+        totalRefs ++;
+        boolean ok = false;
+        try {
+            if (reset) {
+                instanceCache.clear();
+            } else {
+                instanceCache.add(UNRESOLVED);
+            }
+            switch (id) {
+                case ID_CC_ARRAY_LIST: {
+                    if (map) {
+                        throw new InvalidObjectException("Object is of the wrong type (expected " + Map.class + ", got a collection)");
+                    }
+                    filterCheck(ArrayList.class, -1, depth, totalRefs, totalBytesRead);
+                    break;
+                }
+                case ID_CC_LINKED_HASH_MAP: {
+                    if (! map) {
+                        throw new InvalidObjectException("Object is of the wrong type (expected " + Collection.class + ", got a map)");
+                    }
+                    filterCheck(LinkedHashMap.class, -1, depth, totalRefs, totalBytesRead);
+                    break;
+                }
+                default: {
+                    throw new StreamCorruptedException("Unexpected byte found when reading a collection type: " + id);
+                }
+            }
+            final StreamingIterator<E> iterator = new StreamingIterator<E>(-1, reset, map, type, valueType);
+            ok = true;
+            try {
+                iterator.nextChunk();
+            } catch (IOException | RuntimeException e) {
+                iterator.abandon();
+                throw e;
+            }
+            if (iterator.hasNext()) {
+                streamingIterator = iterator;
+            }
+            return iterator;
+        } finally {
+            if (! ok) {
+                depth --;
+            }
+        }
+    }
+
+    /**
+     * An iterator over the elements of a collection or the entries of a map, which either reads them from the
+     * stream on demand or takes them from a collection which was read in full.
+     */
+    private final class StreamingIterator<E> implements Iterator<E> {
+        private final Iterator<?> delegate;
+        // -1 if the collection is written in chunks
+        private final int size;
+        private int chunkEnd;
+        // true if the instance cache is cleared after each chunk
+        private final boolean reset;
+        private final boolean map;
+        private final Class<?> type;
+        private final Class<?> valueType;
+        private int index;
+        private boolean done;
+
+        StreamingIterator(final int size, final boolean reset, final boolean map, final Class<?> type, final Class<?> valueType) {
+            delegate = null;
+            this.size = size;
+            this.reset = reset;
+            this.map = map;
+            this.type = type;
+            this.valueType = valueType;
+        }
+
+        StreamingIterator(final Iterator<?> delegate, final int size, final boolean map, final Class<?> type, final Class<?> valueType) {
+            this.delegate = delegate;
+            this.size = size;
+            reset = false;
+            this.map = map;
+            this.type = type;
+            this.valueType = valueType;
+            done = true;
+        }
+
+        public boolean hasNext() {
+            return delegate == null ? ! done : delegate.hasNext();
+        }
+
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (delegate != null) {
+                final Object next = delegate.next();
+                try {
+                    if (map) {
+                        final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) next;
+                        return (E) new AbstractMap.SimpleImmutableEntry<Object, Object>(check(entry.getKey(), type), check(entry.getValue(), valueType));
+                    }
+                    return (E) check(next, type);
+                } catch (InvalidObjectException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            if (done) {
+                throw new NoSuchElementException();
+            }
+            final int i = index;
+            final Object next;
+            boolean ok = false;
+            // the iterator's own reads must not be refused
+            streamingIterator = null;
+            try {
+                if (map) {
+                    final Object key = check(doReadMapObject(false, i, size, true, false), type);
+                    final Object value = check(doReadMapObject(false, i, size, false, false), valueType);
+                    next = new AbstractMap.SimpleImmutableEntry<Object, Object>(key, value);
+                } else {
+                    next = check(doReadCollectionObject(false, i, size, false), type);
+                }
+                index = i + 1;
+                if (size == -1) {
+                    if (i + 1 == chunkEnd) {
+                        if (reset) {
+                            instanceCache.clear();
+                        }
+                        nextChunk();
+                    }
+                } else if (i + 1 == size) {
+                    complete();
+                }
+                ok = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (ClassNotFoundException e) {
+                final InvalidClassException ice = new InvalidClassException(e.getMessage());
+                ice.initCause(e);
+                throw new UncheckedIOException(ice);
+            } finally {
+                if (! ok) {
+                    abandon();
+                } else if (! done) {
+                    streamingIterator = this;
+                }
+            }
+            return (E) next;
+        }
+
+        Spliterator<E> spliterator() {
+            // the size of a chunked collection is not known until it has been read
+            return size == -1 ? Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED) : Spliterators.spliterator(this, size, Spliterator.ORDERED);
+        }
+
+        void nextChunk() throws IOException {
+            final int count = readUnsignedByte();
+            if (count == 0) {
+                complete();
+            } else {
+                chunkEnd = index + count;
+                filterCheck(map ? Map.Entry.class : Object.class, chunkEnd, depth, totalRefs, totalBytesRead);
+            }
+        }
+
+        void complete() throws InvalidObjectException {
+            done = true;
+            streamingIterator = null;
+            if (-- depth == 0) {
+                runValidators();
+            }
+        }
+
+        void abandon() {
+            if (! done) {
+                done = true;
+                streamingIterator = null;
+                depth --;
+            }
+        }
+
+        private Object check(final Object obj, final Class<?> type) throws InvalidObjectException {
+            if (obj != null && ! type.isInstance(obj)) {
+                throw new InvalidObjectException("Object is of the wrong type (expected " + type + ", got " + obj.getClass() + ")");
+            }
+            return obj;
+        }
+    }
+
     @SuppressWarnings({ "unchecked" })
     private Object readCollectionData(final boolean unshared, int cacheIdx, final int len, final Collection target, final boolean discardMissing) throws ClassNotFoundException, IOException {
-        final ArrayList<Object> instanceCache = this.instanceCache;
+        final ReferenceTable<Object> instanceCache = this.instanceCache;
         final int idx;
 
         if (cacheIdx == -1) {
@@ -931,9 +1375,69 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
         return resolvedObject;
     }
 
+    @SuppressWarnings({ "unchecked" })
+    private Object readChunkedCollectionData(final boolean unshared, final Collection target, final boolean discardMissing, final boolean reset) throws ClassNotFoundException, IOException {
+        final ReferenceTable<Object> instanceCache = this.instanceCache;
+        final int idx = instanceCache.size();
+        if (reset) {
+            instanceCache.clear();
+        } else {
+            instanceCache.add(target);
+        }
+
+        int size = 0;
+        int count;
+        while ((count = readUnsignedByte()) != 0) {
+            size += count;
+            filterCheck(Object.class, size, depth, totalRefs, totalBytesRead);
+            for (int i = size - count; i < size; i ++) {
+                target.add(doReadCollectionObject(false, i, -1, discardMissing));
+            }
+            if (reset) {
+                instanceCache.clear();
+            }
+        }
+        final Object resolvedObject = objectResolver.readResolve(target);
+        if (! reset) {
+            instanceCache.set(idx, unshared ? UNRESOLVED : resolvedObject);
+        }
+
+        return resolvedObject;
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    private Object readChunkedMapData(final boolean unshared, final Map target, final boolean discardMissing, final boolean reset) throws ClassNotFoundException, IOException {
+        final ReferenceTable<Object> instanceCache = this.instanceCache;
+        final int idx = instanceCache.size();
+        if (reset) {
+            instanceCache.clear();
+        } else {
+            instanceCache.add(target);
+        }
+
+        int size = 0;
+        int count;
+        while ((count = readUnsignedByte()) != 0) {
+            size += count;
+            filterCheck(Map.Entry.class, size, depth, totalRefs, totalBytesRead);
+            for (int i = size - count; i < size; i ++) {
+                target.put(doReadMapObject(false, i, -1, true, discardMissing), doReadMapObject(false, i, -1, false, discardMissing));
+            }
+            if (reset) {
+                instanceCache.clear();
+            }
+        }
+        final Object resolvedObject = objectResolver.readResolve(target);
+        if (! reset) {
+            instanceCache.set(idx, unshared ? UNRESOLVED : resolvedObject);
+        }
+
+        return resolvedObject;
+    }
+
     @SuppressWarnings({ "unchecked" })
     private Object readSortedSetData(final boolean unshared, int cacheIdx, final int len, final SortedSet target, final boolean discardMissing) throws ClassNotFoundException, IOException {
-        final ArrayList<Object> instanceCache = this.instanceCache;
+        final ReferenceTable<Object> instanceCache = this.instanceCache;
         final int idx;
         final FlatNavigableSet filler = new FlatNavigableSet(target.comparator());
 
@@ -957,7 +1461,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
 
     @SuppressWarnings({ "unchecked" })
     private Object readMapData(final boolean unshared, int cacheIdx, final int len, final Map target, final boolean discardMissing) throws ClassNotFoundException, IOException {
-        final ArrayList<Object> instanceCache = this.instanceCache;
+        final ReferenceTable<Object> instanceCache = this.instanceCache;
         final int idx;
 
         if (cacheIdx == -1) {
@@ -979,7 +1483,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
 
     @SuppressWarnings({ "unchecked" })
     private Object readSortedMapData(final boolean unshared, int cacheIdx, final int len, final SortedMap target, final boolean discardMissing) throws ClassNotFoundException, IOException {
-        final ArrayList<Object> instanceCache = this.instanceCache;
+        final ReferenceTable<Object> instanceCache = this.instanceCache;
         final int idx;
         final FlatNavigableMap filler = new FlatNavigableMap(target.comparator());
 
@@ -1006,22 +1510,30 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
         return new InvalidObjectException("Shared/unshared object mismatch");
     }
 
+    private Class<?> readClassTableClass() throws IOException, ClassNotFoundException {
+        recordClassTableHit();
+        return classTable.readClass(this);
+    }
+
     ClassDescriptor doReadClassDescriptor(final int classType, final boolean required) throws IOException, ClassNotFoundException {
-        final ArrayList<ClassDescriptor> classCache = this.classCache;
+        final ReferenceTable<ClassDescriptor> classCache = this.classCache;
         switch (classType) {
             case ID_REPEAT_CLASS_FAR: {
+                recordRepeatedClassDescriptor();
                 return classCache.get(readInt());
             }
             case ID_REPEAT_CLASS_NEAR: {
+                recordRepeatedClassDescriptor();
                 return classCache.get((readByte() | 0xffffff00) + classCache.size());
             }
             case ID_REPEAT_CLASS_NEARISH: {
+                recordRepeatedClassDescriptor();
                 return classCache.get((readShort() | 0xffff0000) + classCache.size());
             }
             case ID_PREDEFINED_ENUM_TYPE_CLASS: {
                 final int idx = classCache.size();
                 classCache.add(null);
-                final Class<?> type = classTable.readClass(this);
+                final Class<?> type = readClassTableClass();
                 final SimpleClassDescriptor descriptor = new SimpleClassDescriptor(type, ID_ENUM_TYPE_CLASS);
                 classCache.set(idx, descriptor);
                 return descriptor;
@@ -1029,7 +1541,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
             case ID_PREDEFINED_EXTERNALIZABLE_CLASS: {
                 final int idx = classCache.size();
                 classCache.add(null);
-                final Class<?> type = classTable.readClass(this);
+                final Class<?> type = readClassTableClass();
                 final SimpleClassDescriptor descriptor = new SimpleClassDescriptor(type, ID_EXTERNALIZABLE_CLASS);
                 classCache.set(idx, descriptor);
                 return descriptor;
@@ -1037,7 +1549,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
             case ID_PREDEFINED_EXTERNALIZER_CLASS: {
                 final int idx = classCache.size();
                 classCache.add(null);
-                final Class<?> type = classTable.readClass(this);
+                final Class<?> type = readClassTableClass();
                 final Externalizer externalizer = (Externalizer) readObject();
                 final SimpleClassDescriptor descriptor = new ExternalizerClassDescriptor(type, externalizer);
                 classCache.set(idx, descriptor);
@@ -1046,7 +1558,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
             case ID_PREDEFINED_PLAIN_CLASS: {
                 final int idx = classCache.size();
                 classCache.add(null);
-                final Class<?> type = classTable.readClass(this);
+                final Class<?> type = readClassTableClass();
                 final SimpleClassDescriptor descriptor = new SimpleClassDescriptor(type, ID_PLAIN_CLASS);
                 classCache.set(idx, descriptor);
                 return descriptor;
@@ -1054,7 +1566,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
             case ID_PREDEFINED_PROXY_CLASS: {
                 final int idx = classCache.size();
                 classCache.add(null);
-                final Class<?> type = classTable.readClass(this);
+                final Class<?> type = readClassTableClass();
                 final SimpleClassDescriptor descriptor = new SimpleClassDescriptor(type, ID_PROXY_CLASS);
                 classCache.set(idx, descriptor);
                 return descriptor;
@@ -1062,7 +1574,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
             case ID_PREDEFINED_SERIALIZABLE_CLASS: {
                 final int idx = classCache.size();
                 classCache.add(null);
-                final Class<?> type = classTable.readClass(this);
+                final Class<?> type = readClassTableClass();
                 final SerializableClass serializableClass = registry.lookup(type);
                 int descType = serializableClass.hasWriteObject() ? ID_WRITE_OBJECT_CLASS : ID_SERIALIZABLE_CLASS;
                 final ClassDescriptor descriptor = new BasicSerializableClassDescriptor(serializableClass, doReadClassDescriptor(readUnsignedByte(), true), serializableClass.getFields(), descType);
@@ -1071,13 +1583,13 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
             }
             case ID_PLAIN_CLASS: {
                 final String className = readString();
-                final Class<?> clazz = classResolver.resolveClass(this, className, 0L);
+                final Class<?> clazz = doResolveClass(this, className, 0L);
                 final SimpleClassDescriptor descriptor = new SimpleClassDescriptor(clazz, ID_PLAIN_CLASS);
                 classCache.add(descriptor);
                 return descriptor;
             }
             case ID_PROXY_CLASS: {
-                String[] interfaces = new String[readInt()];
+                String[] interfaces = new String[readLength()];
                 for (int i = 0; i < interfaces.length; i ++) {
                     interfaces[i] = readString();
                 }
@@ -1095,7 +1607,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
                 final long uid = readLong();
                 Class<?> clazz = null;
                 try {
-                    clazz = classResolver.resolveClass(this, className, uid);
+                    clazz = doResolveClass(this, className, uid);
                 } catch (ClassNotFoundException cnfe) {
                     if (required) throw cnfe;
                 }
@@ -1105,7 +1617,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
                 }
                 final FutureSerializableClassDescriptor descriptor = new FutureSerializableClassDescriptor(localSerializable ? clazz : null, classType);
                 classCache.set(idx, descriptor);
-                final int cnt = readInt();
+                final int cnt = readLength();
                 final String[] names = new String[cnt];
                 final ClassDescriptor[] descriptors = new ClassDescriptor[cnt];
                 final boolean[] unshareds = new boolean[cnt];
@@ -1138,7 +1650,16 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
                 if (clazz != null && localSerializable) {
                     serializableClass = registry.lookup(clazz);
                     for (int i = 0; i < cnt; i ++) {
-                        fields[i] = serializableClass.getSerializableField(names[i], descriptors[i].getType(), unshareds[i]);
+                        final Class<?> streamType = descriptors[i].getType();
+                        final SerializableField field = serializableClass.getSerializableField(names[i], streamType, unshareds[i]);
+                        if (field.isAccessible()) {
+                            final Class<?> localType = field.getType();
+                            // the stream layout follows the local field, so a primitive type change cannot be read
+                            if (localType != streamType && (localType.isPrimitive() || streamType.isPrimitive())) {
+                                throw new InvalidClassException(className, "Incompatible types for field " + names[i]);
+                            }
+                        }
+                        fields[i] = field;
                     }
                 } else {
                     serializableClass = null;
@@ -1152,7 +1673,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
             case ID_EXTERNALIZABLE_CLASS: {
                 final String className = readString();
                 final long uid = readLong();
-                final Class<?> clazz = classResolver.resolveClass(this, className, uid);
+                final Class<?> clazz = doResolveClass(this, className, uid);
                 final SimpleClassDescriptor descriptor = new SimpleClassDescriptor(clazz, ID_EXTERNALIZABLE_CLASS);
                 classCache.add(descriptor);
                 return descriptor;
@@ -1161,7 +1682,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
                 final String className = readString();
                 int idx = classCache.size();
                 classCache.add(null);
-                final Class<?> clazz = classResolver.resolveClass(this, className, 0L);
+                final Class<?> clazz = doResolveClass(this, className, 0L);
                 final Externalizer externalizer = (Externalizer) readObject();
                 final SimpleClassDescriptor descriptor = new ExternalizerClassDescriptor(clazz, externalizer);
                 classCache.set(idx, descriptor);
@@ -1169,7 +1690,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
             }
 
             case ID_ENUM_TYPE_CLASS: {
-                final SimpleClassDescriptor descriptor = new SimpleClassDescriptor(classResolver.resolveClass(this, readString(), 0L), ID_ENUM_TYPE_CLASS);
+                final SimpleClassDescriptor descriptor = new SimpleClassDescriptor(doResolveClass(this, readString(), 0L), ID_ENUM_TYPE_CLASS);
                 classCache.add(descriptor);
                 return descriptor;
             }
@@ -1414,7 +1935,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
     }
 
     protected String readString() throws IOException {
-        final int length = readInt();
+        final int length = readLength();
         return UTFUtils.readUTFBytes(this, length);
     }
 
@@ -1425,6 +1946,59 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
             throw new IOException("Unsupported protocol version " + version);
         }
         this.version = version;
+        if (version >= VARINT_VERSION) {
+            final int flags = readUnsignedByte();
+            if ((flags & ~FLAG_VARINT_VALUES) != 0) {
+                throw new StreamCorruptedException("Unsupported stream flags " + Integer.toHexString(flags));
+            }
+            varIntValues = (flags & FLAG_VARINT_VALUES) != 0;
+        } else {
+            varIntValues = false;
+        }
+    }
+
+    private int readLength() throws IOException {
+        return version >= VARINT_VERSION ? readVarInt() : readInt();
+    }
+
+    int readIntValue() throws IOException {
+        if (varIntValues) {
+            final int zz = readVarInt();
+            return zz >>> 1 ^ -(zz & 1);
+        } else {
+            return readInt();
+        }
+    }
+
+    long readLongValue() throws IOException {
+        if (varIntValues) {
+            long zz = 0L;
+            for (int shift = 0;; shift += 7) {
+                if (shift > 63) {
+                    throw new StreamCorruptedException("Malformed variable-length integer");
+                }
+                final int b = readUnsignedByte();
+                zz |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            return zz >>> 1 ^ -(zz & 1L);
+        } else {
+            return readLong();
+        }
+    }
+
+    private int readVarInt() throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final int b = readUnsignedByte();
+            v |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable-length integer");
     }
 
     protected Object doReadNewObject(final int streamClassType, final boolean unshared, final boolean discardMissing) throws ClassNotFoundException, IOException {
@@ -1432,7 +2006,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
         try {
             final int classType = descriptor.getTypeID();
             filterCheck(descriptor.getType(), -1, depth, totalRefs, totalBytesRead);
-            final List<Object> instanceCache = this.instanceCache;
+            final ReferenceTable<Object> instanceCache = this.instanceCache;
             switch (classType) {
                 case ID_PROXY_CLASS: {
                     final Class<?> type = descriptor.getType();
@@ -1626,9 +2200,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
     private Object doReadDoubleArray(final int cnt, final boolean unshared) throws IOException {
         filterCheck(double.class, cnt, depth, totalRefs, totalBytesRead);
         final double[] array = new double[cnt];
-        for (int i = 0; i < cnt; i ++) {
-            array[i] = readDouble();
-        }
+        readDoubles(array, 0, cnt);
         final Object resolvedObject = objectResolver.readResolve(array);
         instanceCache.add(unshared ? UNRESOLVED : resolvedObject);
         return resolvedObject;
@@ -1637,9 +2209,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
     private Object doReadFloatArray(final int cnt, final boolean unshared) throws IOException {
         filterCheck(float.class, cnt, depth, totalRefs, totalBytesRead);
         final float[] array = new float[cnt];
-        for (int i = 0; i < cnt; i ++) {
-            array[i] = readFloat();
-        }
+        readFloats(array, 0, cnt);
         final Object resolvedObject = objectResolver.readResolve(array);
         instanceCache.add(unshared ? UNRESOLVED : resolvedObject);
         return resolvedObject;
@@ -1648,9 +2218,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
     private Object doReadCharArray(final int cnt, final boolean unshared) throws IOException {
         filterCheck(char.class, cnt, depth, totalRefs, totalBytesRead);
         final char[] array = new char[cnt];
-        for (int i = 0; i < cnt; i ++) {
-            array[i] = readChar();
-        }
+        readChars(array, 0, cnt);
         final Object resolvedObject = objectResolver.readResolve(array);
         instanceCache.add(unshared ? UNRESOLVED : resolvedObject);
         return resolvedObject;
@@ -1659,9 +2227,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
     private Object doReadLongArray(final int cnt, final boolean unshared) throws IOException {
         filterCheck(long.class, cnt, depth, totalRefs, totalBytesRead);
         final long[] array = new long[cnt];
-        for (int i = 0; i < cnt; i ++) {
-            array[i] = readLong();
-        }
+        readLongs(array, 0, cnt);
         final Object resolvedObject = objectResolver.readResolve(array);
         instanceCache.add(unshared ? UNRESOLVED : resolvedObject);
         return resolvedObject;
@@ -1670,9 +2236,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
     private Object doReadIntArray(final int cnt, final boolean unshared) throws IOException {
         filterCheck(int.class, cnt, depth, totalRefs, totalBytesRead);
         final int[] array = new int[cnt];
-        for (int i = 0; i < cnt; i ++) {
-            array[i] = readInt();
-        }
+        readInts(array, 0, cnt);
         final Object resolvedObject = objectResolver.readResolve(array);
         instanceCache.add(unshared ? UNRESOLVED : resolvedObject);
         return resolvedObject;
@@ -1681,9 +2245,7 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
     private Object doReadShortArray(final int cnt, final boolean unshared) throws IOException {
         filterCheck(short.class, cnt, depth, totalRefs, totalBytesRead);
         final short[] array = new short[cnt];
-        for (int i = 0; i < cnt; i ++) {
-            array[i] = readShort();
-        }
+        readShorts(array, 0, cnt);
         final Object resolvedObject = objectResolver.readResolve(array);
         instanceCache.add(unshared ? UNRESOLVED : resolvedObject);
         return resolvedObject;
@@ -1808,10 +2370,10 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
                     values[serializableField.getRecordComponentIndex()] = readFloat();
                     break;
                 case INT:
-                    values[serializableField.getRecordComponentIndex()] = readInt();
+                    values[serializableField.getRecordComponentIndex()] = readIntValue();
                     break;
                 case LONG:
-                    values[serializableField.getRecordComponentIndex()] = readLong();
+                    values[serializableField.getRecordComponentIndex()] = readLongValue();
                     break;
                 case SHORT:
                     values[serializableField.getRecordComponentIndex()] = readShort();
@@ -1902,6 +2464,10 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
     }
 
     protected void readFields(final Object obj, final SerializableClassDescriptor descriptor, final boolean discardMissing) throws IOException, ClassNotFoundException {
+        if (compiledFieldAccess && ! varIntValues && descriptor instanceof BasicSerializableClassDescriptor) {
+            readCompiledFields(obj, (BasicSerializableClassDescriptor) descriptor, discardMissing);
+            return;
+        }
         for (SerializableField serializableField : descriptor.getFields()) {
             try {
                 if (! serializableField.isAccessible()) {
@@ -1928,11 +2494,11 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
                             break;
                         }
                         case INT: {
-                            readInt();
+                            readIntValue();
                             break;
                         }
                         case LONG: {
-                            readLong();
+                            readLongValue();
                             break;
                         }
                         case OBJECT: {
@@ -1967,11 +2533,11 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
                             break;
                         }
                         case INT: {
-                            serializableField.setInt(obj, readInt());
+                            serializableField.setInt(obj, readIntValue());
                             break;
                         }
                         case LONG: {
-                            serializableField.setLong(obj, readLong());
+                            serializableField.setLong(obj, readLongValue());
                             break;
                         }
                         case OBJECT: {
@@ -1992,6 +2558,46 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
         }
     }
 
+    private void readCompiledFields(final Object obj, final BasicSerializableClassDescriptor descriptor, final boolean discardMissing) throws IOException, ClassNotFoundException {
+        final CompiledFields compiledFields = descriptor.getCompiledFields();
+        final int cnt = compiledFields.getSegmentCount();
+        for (int i = 0; i < cnt; i ++) {
+            final int len = compiledFields.getPrimitiveLength(i);
+            if (len > 0) {
+                try {
+                    if (len <= buffer.length) {
+                        compiledFields.readPrimitives(i, obj, buffer, require(len));
+                    } else {
+                        byte[] bytes = fieldBuffer;
+                        if (bytes == null || bytes.length < len) {
+                            fieldBuffer = bytes = new byte[len];
+                        }
+                        readFully(bytes, 0, len);
+                        compiledFields.readPrimitives(i, obj, bytes, 0);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    TraceInformation.addObjectInformation(e, obj);
+                    throw e;
+                }
+            }
+            final SerializableField serializableField = compiledFields.getObjectField(i);
+            if (serializableField != null) {
+                try {
+                    if (serializableField.isAccessible()) {
+                        compiledFields.setObject(i, obj, doReadObject(serializableField.isUnshared(), discardMissing));
+                    } else {
+                        // missing; consume stream data only
+                        doReadObject(serializableField.isUnshared(), true);
+                    }
+                } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                    TraceInformation.addFieldInformation(e, descriptor.getSerializableClass(), serializableField);
+                    TraceInformation.addObjectInformation(e, obj);
+                    throw e;
+                }
+            }
+        }
+    }
+
     protected void discardFields(final SerializableClassDescriptor descriptor) throws IOException {
         for (SerializableField serializableField : descriptor.getFields()) {
             try {
@@ -2017,11 +2623,11 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
                         break;
                     }
                     case INT: {
-                        readInt();
+                        readIntValue();
                         break;
                     }
                     case LONG: {
-                        readLong();
+                        readLongValue();
                         break;
                     }
                     case OBJECT: {
@@ -2052,8 +2658,120 @@ public class RiverUnmarshaller extends AbstractUnmarshaller {
         (validators == null ? this.validators = new TreeSet<Validator>() : validators).add(validator);
     }
 
+    private void checkNotStreaming() {
+        if (streamingIterator != null) {
+            throw new IllegalStateException("Cannot read from the stream while a streaming iterator is active");
+        }
+    }
+
+    public int read() throws IOException {
+        checkNotStreaming();
+        return super.read();
+    }
+
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        checkNotStreaming();
+        return super.read(b, off, len);
+    }
+
+    public long skip(final long n) throws IOException {
+        checkNotStreaming();
+        return super.skip(n);
+    }
+
+    public void readFully(final byte[] b, final int off, final int len) throws IOException {
+        checkNotStreaming();
+        super.readFully(b, off, len);
+    }
+
+    public int skipBytes(final int n) throws IOException {
+        checkNotStreaming();
+        return super.skipBytes(n);
+    }
+
+    public boolean readBoolean() throws IOException {
+        checkNotStreaming();
+        return super.readBoolean();
+    }
+
+    public byte readByte() throws IOException {
+        checkNotStreaming();
+        return super.readByte();
+    }
+
+    public int readUnsignedByte() throws IOException {
+        checkNotStreaming();
+        return super.readUnsignedByte();
+    }
+
+    public short readShort() throws IOException {
+        checkNotStreaming();
+        return super.readShort();
+    }
+
+    public int readUnsignedShort() throws IOException {
+        checkNotStreaming();
+        return super.readUnsignedShort();
+    }
+
+    public char readChar() throws IOException {
+        checkNotStreaming();
+        return super.readChar();
+    }
+
+    public int readInt() throws IOException {
+        checkNotStreaming();
+        return super.readInt();
+    }
+
+    public long readLong() throws IOException {
+        checkNotStreaming();
+        return super.readLong();
+    }
+
+    public float readFloat() throws IOException {
+        checkNotStreaming();
+        return super.readFloat();
+    }
+
+    public double readDouble() throws IOException {
+        checkNotStreaming();
+        return super.readDouble();
+    }
+
+    public void readShorts(final short[] v, final int off, final int len) throws IOException {
+        checkNotStreaming();
+        super.readShorts(v, off, len);
+    }
+
+    public void readChars(final char[] v, final int off, final int len) throws IOException {
+        checkNotStreaming();
+        super.readChars(v, off, len);
+    }
+
+    public void readInts(final int[] v, final int off, final int len) throws IOException {
+        checkNotStreaming();
+        super.readInts(v, off, len);
+    }
+
+    public void readLongs(final long[] v, final int off, final int len) throws IOException {
+        checkNotStreaming();
+        super.readLongs(v, off, len);
+    }
+
+    public void readFloats(final float[] v, final int off, final int len) throws IOException {
+        checkNotStreaming();
+        super.readFloats(v, off, len);
+    }
+
+    public void readDoubles(final double[] v, final int off, final int len) throws IOException {
+        checkNotStreaming();
+        super.readDoubles(v, off, len);
+    }
+
     public String readUTF() throws IOException {
-        final int len = readInt();
+        checkNotStreaming();
+        final int len = readLength();
         return UTFUtils.readUTFBytes(this, len);
     }
     
@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.marshalling.river;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test case for {@link ReferenceTable}.
+ */
+public final class ReferenceTableTestCase {
+
+    @Test
+    public void testAddGetSet() {
+        final ReferenceTable<String> table = new ReferenceTable<String>(0);
+        Assert.assertEquals(table.capacity(), 16);
+        for (int i = 0; i < 100; i ++) {
+            table.add("e" + i);
+        }
+        Assert.assertEquals(table.size(), 100);
+        Assert.assertEquals(table.capacity(), 128);
+        for (int i = 0; i < 100; i ++) {
+            Assert.assertEquals(table.get(i), "e" + i);
+        }
+        table.set(50, "x");
+        Assert.assertEquals(table.get(50), "x");
+        table.add(null);
+        Assert.assertNull(table.get(100));
+        try {
+            table.get(101);
+            Assert.fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        try {
+            table.set(-1, "y");
+            Assert.fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void testClearRetainsCapacity() {
+        final ReferenceTable<Object> table = new ReferenceTable<Object>(16);
+        for (int i = 0; i < 1000; i ++) {
+            table.add(new Object());
+        }
+        Assert.assertEquals(table.capacity(), 1024);
+        // a large stream followed by another large stream keeps the grown array
+        for (int round = 0; round < 20; round ++) {
+            table.clear();
+            Assert.assertEquals(table.size(), 0);
+            try {
+                table.get(0);
+                Assert.fail("Expected IndexOutOfBoundsException");
+            } catch (IndexOutOfBoundsException expected) {
+            }
+            for (int i = 0; i < 300; i ++) {
+                table.add(new Object());
+            }
+        }
+        Assert.assertEquals(table.capacity(), 1024);
+    }
+
+    @Test
+    public void testClearAfterLargeMessage() {
+        final ReferenceTable<Object> table = new ReferenceTable<Object>(32);
+        for (int round = 0; round < 2; round ++) {
+            for (int i = 0; i < 200000; i ++) {
+                table.add(new Object());
+            }
+            Assert.assertEquals(table.capacity(), 262144);
+            table.clear();
+            // fifteen small messages keep the large array
+            for (int message = 0; message < 15; message ++) {
+                for (int i = 0; i < 10; i ++) {
+                    table.add(Integer.valueOf(i));
+                }
+                for (int i = 0; i < 10; i ++) {
+                    Assert.assertEquals(table.get(i), Integer.valueOf(i));
+                }
+                table.clear();
+                Assert.assertEquals(table.capacity(), 262144);
+            }
+            if (round == 0) {
+                // the sixteenth shrinks it back to the initial capacity
+                table.add(new Object());
+                table.clear();
+                Assert.assertEquals(table.capacity(), 32);
+            } else {
+                // a large message in between restarts the count
+                for (int i = 0; i < 100000; i ++) {
+                    table.add(new Object());
+                }
+                table.clear();
+                for (int message = 0; message < 15; message ++) {
+                    table.clear();
+                }
+                Assert.assertEquals(table.capacity(), 262144);
+                table.clear();
+                Assert.assertEquals(table.capacity(), 32);
+            }
+        }
+    }
+}
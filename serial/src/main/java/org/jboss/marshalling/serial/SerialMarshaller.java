@@ -597,6 +597,10 @@ public final class SerialMarshaller extends AbstractMarshaller implements Marsha
     }
     
     void writeNoBlockFlush(final byte[] bytes, final int off, int len) throws IOException {
+        if (isWritingInPlace()) {
+            super.write(bytes, off, len);
+            return;
+        }
         super.flush();
         byteOutput.write(bytes, off, len);
     }
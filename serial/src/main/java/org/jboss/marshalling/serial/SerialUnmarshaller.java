@@ -461,7 +461,7 @@ public final class SerialUnmarshaller extends AbstractUnmarshaller implements Un
                 }
                 Class<?> clazz = null;
                 try {
-                    clazz = classResolver.resolveClass(blockUnmarshaller, className, svu);
+                    clazz = doResolveClass(blockUnmarshaller, className, svu);
                 } catch (ClassNotFoundException cnfe) {
                     if (required) throw cnfe;
                 }
@@ -0,0 +1,187 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.test.marshalling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.Serializable;
+
+import org.jboss.marshalling.ContextClassResolver;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.Unmarshaller;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for reading River serializable fields whose stream layout differs from the local class, with and without
+ * compiled field access.  Each test writes one class and reads it back as another, standing in for a class which
+ * has changed between the writer and the reader.
+ */
+public final class CompiledFieldReaderTests {
+
+    public static final class Written implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        int a = 0x01020304;
+        long gone = -1L;
+        String note = "note";
+        Object goneObject = new Unknown();
+        double d = 2.5;
+        int z = 0x05060708;
+    }
+
+    public static final class Read implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        int a;
+        String note;
+        int z;
+        double d;
+    }
+
+    public static final class Unknown implements Serializable {
+        private static final long serialVersionUID = 1L;
+    }
+
+    public static final class Holder implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        int a = 1;
+        Object value = new Unknown();
+    }
+
+    public static final class WrittenLong implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        long a = 1L;
+        int z = 2;
+    }
+
+    public static final class ReadInt implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        int a;
+        int z;
+    }
+
+    public static final class WrittenString implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String a = "a";
+    }
+
+    public static final class ReadInteger implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        Integer a;
+    }
+
+    /**
+     * Resolves each written class as its local counterpart, and fails to resolve {@link Unknown}.
+     */
+    static final class EvolvingClassResolver extends ContextClassResolver {
+        public Class<?> resolveClass(final Unmarshaller unmarshaller, final String name, final long serialVersionUID) throws IOException, ClassNotFoundException {
+            if (name.equals(Unknown.class.getName())) {
+                throw new ClassNotFoundException(name);
+            } else if (name.equals(Written.class.getName())) {
+                return Read.class;
+            } else if (name.equals(WrittenLong.class.getName())) {
+                return ReadInt.class;
+            } else if (name.equals(WrittenString.class.getName())) {
+                return ReadInteger.class;
+            }
+            return super.resolveClass(unmarshaller, name, serialVersionUID);
+        }
+    }
+
+    private static Object roundTrip(final Object object, final boolean compiledFieldAccess) throws IOException, ClassNotFoundException {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final Marshaller marshaller = factory.createMarshaller(configuration);
+        marshaller.start(Marshalling.createByteOutput(baos));
+        marshaller.writeObject(object);
+        marshaller.writeObject("end");
+        marshaller.finish();
+        configuration.setClassResolver(new EvolvingClassResolver());
+        configuration.setCompiledFieldAccess(compiledFieldAccess);
+        final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration);
+        unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(baos.toByteArray())));
+        final Object result = unmarshaller.readObject();
+        // the stream is still in step after the object
+        assertEquals(unmarshaller.readObject(), "end");
+        unmarshaller.finish();
+        return result;
+    }
+
+    @Test
+    public void testMissingFields() throws Throwable {
+        for (boolean compiledFieldAccess : new boolean[] { false, true }) {
+            // the missing object field holds an unresolvable class, which is discarded rather than failing the read
+            final Read read = (Read) roundTrip(new Written(), compiledFieldAccess);
+            assertEquals(read.a, 0x01020304);
+            assertEquals(read.note, "note");
+            assertEquals(read.d, 2.5);
+            assertEquals(read.z, 0x05060708);
+        }
+    }
+
+    @Test
+    public void testUnresolvableField() throws Throwable {
+        for (boolean compiledFieldAccess : new boolean[] { false, true }) {
+            try {
+                // a field which is present locally is not discarded when its value cannot be resolved
+                roundTrip(new Holder(), compiledFieldAccess);
+                fail("Expected ClassNotFoundException");
+            } catch (ClassNotFoundException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testPrimitiveTypeMismatch() throws Throwable {
+        for (boolean compiledFieldAccess : new boolean[] { false, true }) {
+            try {
+                roundTrip(new WrittenLong(), compiledFieldAccess);
+                fail("Expected InvalidClassException");
+            } catch (InvalidClassException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testObjectTypeMismatch() throws Throwable {
+        for (boolean compiledFieldAccess : new boolean[] { false, true }) {
+            try {
+                final ReadInteger read = (ReadInteger) roundTrip(new WrittenString(), compiledFieldAccess);
+                assertNull(read.a);
+                fail("Expected ClassCastException");
+            } catch (ClassCastException expected) {
+            }
+        }
+    }
+}
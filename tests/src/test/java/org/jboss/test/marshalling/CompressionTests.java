@@ -0,0 +1,256 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.test.marshalling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.marshalling.AbstractMarshaller;
+import org.jboss.marshalling.CompressionCodec;
+import org.jboss.marshalling.DeflateCompressionCodec;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.MarshallingStatistics;
+import org.jboss.marshalling.Unmarshaller;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for compressed streams.
+ */
+public final class CompressionTests {
+
+    private static final String[] PROVIDERS = { "river", "serial" };
+
+    /**
+     * A codec with its own ID, which counts the blocks it compresses.
+     */
+    static final class CountingCodec implements CompressionCodec {
+        private final CompressionCodec delegate = new DeflateCompressionCodec(1);
+        final AtomicInteger blocks = new AtomicInteger();
+        final AtomicInteger releases = new AtomicInteger();
+
+        public int getId() {
+            return 200;
+        }
+
+        public String getName() {
+            return "counting";
+        }
+
+        public Compressor createCompressor() {
+            final Compressor compressor = delegate.createCompressor();
+            return new Compressor() {
+                public int compress(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff, final int dstLen) throws IOException {
+                    blocks.incrementAndGet();
+                    return compressor.compress(src, srcOff, srcLen, dst, dstOff, dstLen);
+                }
+
+                public void release() {
+                    releases.incrementAndGet();
+                    compressor.release();
+                }
+            };
+        }
+
+        public Decompressor createDecompressor() {
+            final Decompressor decompressor = delegate.createDecompressor();
+            return new Decompressor() {
+                public void decompress(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff, final int dstLen) throws IOException {
+                    decompressor.decompress(src, srcOff, srcLen, dst, dstOff, dstLen);
+                }
+
+                public void release() {
+                    releases.incrementAndGet();
+                    decompressor.release();
+                }
+            };
+        }
+    }
+
+    private static MarshallingConfiguration configuration(final CompressionCodec codec) {
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        configuration.setCompressionCodec(codec);
+        return configuration;
+    }
+
+    private static byte[] write(final String provider, final MarshallingConfiguration configuration, final Object... objects) throws IOException {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory(provider);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final Marshaller marshaller = factory.createMarshaller(configuration);
+        marshaller.start(Marshalling.createByteOutput(baos));
+        for (Object object : objects) {
+            marshaller.writeObject(object);
+            // blocks end at each flush
+            marshaller.flush();
+        }
+        marshaller.finish();
+        return baos.toByteArray();
+    }
+
+    private static Object read(final String provider, final MarshallingConfiguration configuration, final byte[] bytes) throws IOException, ClassNotFoundException {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory(provider);
+        final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration);
+        unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(bytes)));
+        final Object object = unmarshaller.readObject();
+        unmarshaller.finish();
+        return object;
+    }
+
+    private static List<String> compressibleList(final int size) {
+        final List<String> list = new ArrayList<String>(size);
+        for (int i = 0; i < size; i ++) {
+            list.add("value number " + (i % 100));
+        }
+        return list;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final MarshallingConfiguration configuration = configuration(new DeflateCompressionCodec());
+        final List<String> list = compressibleList(200);
+        for (String provider : PROVIDERS) {
+            assertEquals(read(provider, configuration, write(provider, configuration, list)), list, provider);
+            assertEquals(read(provider, configuration, write(provider, configuration, "x")), "x", provider);
+        }
+    }
+
+    @Test
+    public void testSmaller() throws Exception {
+        final List<String> list = compressibleList(2000);
+        for (String provider : PROVIDERS) {
+            final int plain = write(provider, new MarshallingConfiguration(), list).length;
+            final int compressed = write(provider, configuration(new DeflateCompressionCodec()), list).length;
+            assertTrue(compressed < plain / 4, provider + ": " + compressed + " >= " + plain + " / 4");
+        }
+    }
+
+    @Test
+    public void testLargeAndIncompressible() throws Exception {
+        // several blocks, which are stored since random data does not shrink
+        final byte[] random = new byte[300000];
+        new Random(17).nextBytes(random);
+        final MarshallingConfiguration configuration = configuration(new DeflateCompressionCodec());
+        for (String provider : PROVIDERS) {
+            final byte[] bytes = write(provider, configuration, random);
+            assertTrue(bytes.length < random.length + 1000, provider + ": " + bytes.length);
+            assertTrue(Arrays.equals((byte[]) read(provider, configuration, bytes), random), provider);
+        }
+    }
+
+    @Test
+    public void testCustomCodec() throws Exception {
+        final CountingCodec codec = new CountingCodec();
+        final MarshallingConfiguration configuration = configuration(codec);
+        final List<String> list = compressibleList(200);
+        final byte[] bytes = write("river", configuration, list, "second");
+        assertEquals(bytes[0] & 0xff, 200);
+        assertTrue(codec.blocks.get() >= 2, "blocks: " + codec.blocks.get());
+        final Unmarshaller unmarshaller = Marshalling.getProvidedMarshallerFactory("river").createUnmarshaller(configuration);
+        unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(bytes)));
+        assertEquals(unmarshaller.readObject(), list);
+        assertEquals(unmarshaller.readObject(), "second");
+        unmarshaller.finish();
+        // the codec used is recorded in the stream, so a reader configured with another codec can read a deflate stream
+        assertEquals(read("river", configuration, write("river", configuration(new DeflateCompressionCodec()), list)), list);
+        try {
+            read("river", configuration(new DeflateCompressionCodec()), bytes);
+            fail("Expected StreamCorruptedException");
+        } catch (StreamCorruptedException expected) {
+        }
+    }
+
+    @Test
+    public void testStatisticsCountCompressedBytes() throws Exception {
+        final MarshallingConfiguration configuration = configuration(new DeflateCompressionCodec());
+        configuration.setStatisticsEnabled(true);
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final Marshaller marshaller = factory.createMarshaller(configuration);
+        marshaller.start(Marshalling.createByteOutput(baos));
+        marshaller.writeObject(compressibleList(500));
+        marshaller.finish();
+        final MarshallingStatistics statistics = ((AbstractMarshaller) marshaller).getStatistics();
+        assertEquals(statistics.getBytes(), (long) baos.size());
+    }
+
+    @Test
+    public void testReleasedPerStream() throws Exception {
+        final CountingCodec codec = new CountingCodec();
+        final MarshallingConfiguration configuration = configuration(codec);
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final Marshaller marshaller = factory.createMarshaller(configuration);
+        final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration);
+        for (int i = 0; i < 3; i ++) {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            marshaller.start(Marshalling.createByteOutput(baos));
+            marshaller.writeObject(compressibleList(100));
+            marshaller.finish();
+            unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(baos.toByteArray())));
+            assertEquals(unmarshaller.readObject(), compressibleList(100));
+            unmarshaller.finish();
+        }
+        // one compressor release and one decompressor release per stream
+        assertEquals(codec.releases.get(), 6);
+    }
+
+    @Test
+    public void testWriteFailureReported() throws Exception {
+        final byte[] random = new byte[200000];
+        new Random(23).nextBytes(random);
+        for (String provider : PROVIDERS) {
+            // fail a single write of a block, after the codec ID has been written
+            final OutputStream outputStream = new OutputStream() {
+                private int writes;
+
+                public void write(final int b) {
+                }
+
+                public void write(final byte[] b, final int off, final int len) throws IOException {
+                    if (++ writes == 2) {
+                        throw new IOException("Injected failure");
+                    }
+                }
+            };
+            final Marshaller marshaller = Marshalling.getProvidedMarshallerFactory(provider).createMarshaller(configuration(new DeflateCompressionCodec()));
+            try {
+                marshaller.start(Marshalling.createByteOutput(outputStream));
+                for (int i = 0; i < 8; i ++) {
+                    marshaller.write(random, i * 25000, 25000);
+                }
+                marshaller.finish();
+                fail("Expected IOException (" + provider + ")");
+            } catch (IOException expected) {
+            }
+        }
+    }
+}
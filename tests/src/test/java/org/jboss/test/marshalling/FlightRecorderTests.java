@@ -0,0 +1,146 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.test.marshalling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InvalidClassException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.Unmarshaller;
+import org.jboss.marshalling.UnmarshallingObjectInputFilter;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for the flight recorder events emitted by marshallers and unmarshallers.
+ */
+public final class FlightRecorderTests {
+
+    private static final String[] EVENTS = {
+        "org.jboss.marshalling.Marshal",
+        "org.jboss.marshalling.Unmarshal",
+        "org.jboss.marshalling.WriteObject",
+        "org.jboss.marshalling.ReadObject",
+        "org.jboss.marshalling.ResolveClass",
+        "org.jboss.marshalling.FilterRejection",
+    };
+
+    @Test
+    public void testEvents() throws Exception {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        final TestComplexObject object = new TestComplexObject(true, (byte) 5, 'c', (short) 8192, 294902, 319203219042L, 21.125f, 42.625, "TestString", null);
+        final Path file = Files.createTempFile("marshalling", ".jfr");
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            try (Recording recording = new Recording()) {
+                for (String name : EVENTS) {
+                    recording.enable(name).withThreshold(Duration.ZERO);
+                }
+                recording.start();
+                final Marshaller marshaller = factory.createMarshaller(configuration);
+                marshaller.start(Marshalling.createByteOutput(baos));
+                marshaller.writeObject(object);
+                marshaller.finish();
+                final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration);
+                unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(baos.toByteArray())));
+                assertEquals(unmarshaller.readObject(), object);
+                unmarshaller.finish();
+                final MarshallingConfiguration rejecting = configuration.clone();
+                rejecting.setUnmarshallingFilter(UnmarshallingObjectInputFilter.REJECTING);
+                final Unmarshaller rejectingUnmarshaller = factory.createUnmarshaller(rejecting);
+                rejectingUnmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(baos.toByteArray())));
+                try {
+                    rejectingUnmarshaller.readObject();
+                    fail("Unmarshalling was expected to be rejected");
+                } catch (InvalidClassException expected) {
+                }
+                recording.stop();
+                recording.dump(file);
+            }
+            final Map<String, RecordedEvent> events = new HashMap<String, RecordedEvent>();
+            boolean wroteObject = false;
+            boolean resolvedClass = false;
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                final String name = event.getEventType().getName();
+                events.putIfAbsent(name, event);
+                if (name.equals("org.jboss.marshalling.WriteObject")) {
+                    wroteObject |= event.getClass("objectClass").getName().equals(TestComplexObject.class.getName());
+                } else if (name.equals("org.jboss.marshalling.ResolveClass")) {
+                    resolvedClass |= event.getString("className").equals(TestComplexObject.class.getName());
+                }
+            }
+            for (String name : EVENTS) {
+                assertNotNull(events.get(name), name);
+            }
+            assertEquals(events.get("org.jboss.marshalling.Marshal").getLong("bytes"), (long) baos.size());
+            assertEquals(events.get("org.jboss.marshalling.Unmarshal").getLong("bytes"), (long) baos.size());
+            assertTrue(wroteObject);
+            assertTrue(resolvedClass);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testStreamEventsDisabledByDefault() throws Exception {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        final Path file = Files.createTempFile("marshalling", ".jfr");
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            try (Recording recording = new Recording()) {
+                recording.start();
+                final Marshaller marshaller = factory.createMarshaller(configuration);
+                marshaller.start(Marshalling.createByteOutput(baos));
+                marshaller.writeObject("TestString");
+                marshaller.finish();
+                final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration);
+                unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(baos.toByteArray())));
+                assertEquals(unmarshaller.readObject(), "TestString");
+                unmarshaller.finish();
+                recording.stop();
+                recording.dump(file);
+            }
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                final String name = event.getEventType().getName();
+                assertFalse(name.equals("org.jboss.marshalling.Marshal") || name.equals("org.jboss.marshalling.Unmarshal"), name);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.test.marshalling;
+
+import org.jboss.marshalling.ByteBufferPool;
+import org.jboss.marshalling.ByteBufferSegmentOutput;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.ByteOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A marshaller provider which writes into the lent arrays of a {@link ByteBufferSegmentOutput} with small segments,
+ * copying the committed data to the test's target whenever the marshaller flushes.
+ */
+public class InPlaceTestMarshallerProvider implements TestMarshallerProvider {
+    private static final int SEGMENT_SIZE = 128;
+
+    private final TestMarshallerProvider delegate;
+
+    public InPlaceTestMarshallerProvider(final TestMarshallerProvider delegate) {
+        this.delegate = delegate;
+    }
+
+    public Marshaller create(final MarshallingConfiguration config, final ByteOutput target) throws IOException {
+        config.setBufferSize(SEGMENT_SIZE);
+        return delegate.create(config, new CopyingOutput(target));
+    }
+
+    @Override
+    public String toString() {
+        return delegate + " in place";
+    }
+
+    static final class CopyingOutput extends ByteBufferSegmentOutput {
+        private final ByteOutput target;
+        private long copied;
+
+        CopyingOutput(final ByteOutput target) {
+            super(new ByteBufferPool(SEGMENT_SIZE, false, 16));
+            this.target = target;
+        }
+
+        public void flush() throws IOException {
+            long skip = copied;
+            for (ByteBuffer buffer : getBuffers()) {
+                final int len = buffer.remaining();
+                if (skip >= len) {
+                    skip -= len;
+                    continue;
+                }
+                final int off = (int) skip;
+                skip = 0L;
+                final byte[] bytes = new byte[len - off];
+                buffer.position(off);
+                buffer.get(bytes);
+                target.write(bytes);
+            }
+            copied = size();
+            target.flush();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.test.marshalling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.ParallelMarshalling;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for writing and reading segmented containers with {@link ParallelMarshalling}.
+ */
+public final class ParallelMarshallingTests {
+
+    private static final ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+
+    public static final class Item implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final int id;
+        final String name;
+        final Item parent;
+
+        Item(final int id, final String name, final Item parent) {
+            this.id = id;
+            this.name = name;
+            this.parent = parent;
+        }
+    }
+
+    private static ParallelMarshalling parallel(final String name, final int segmentSize) {
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        configuration.setVersion(name.equals("river") ? 4 : 5);
+        return new ParallelMarshalling(Marshalling.getProvidedMarshallerFactory(name), configuration, forkJoinPool, segmentSize);
+    }
+
+    private static List<Object> items(final int size) {
+        final List<Object> list = new ArrayList<Object>();
+        Item parent = null;
+        for (int i = 0; i < size; i ++) {
+            final Item item = new Item(i, "item" + i, i % 7 == 0 ? null : parent);
+            list.add(item);
+            if (i % 7 == 0) {
+                parent = item;
+            }
+        }
+        return list;
+    }
+
+    private static byte[] write(final ParallelMarshalling parallel, final List<?> elements) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        parallel.write(Marshalling.createByteOutput(baos), elements);
+        return baos.toByteArray();
+    }
+
+    private static void assertItems(final List<Object> expected, final List<Object> actual) {
+        assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < expected.size(); i ++) {
+            final Item e = (Item) expected.get(i);
+            final Item a = (Item) actual.get(i);
+            assertEquals(a.id, e.id);
+            assertEquals(a.name, e.name);
+            assertEquals(a.parent == null ? -1 : a.parent.id, e.parent == null ? -1 : e.parent.id);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Throwable {
+        for (String name : new String[] { "river", "serial" }) {
+            for (int size : new int[] { 0, 1, 99, 100, 101, 1000 }) {
+                final ParallelMarshalling parallel = parallel(name, 100);
+                final List<Object> items = items(size);
+                final byte[] bytes = write(parallel, items);
+                assertItems(items, parallel.read(Marshalling.createByteInput(new ByteArrayInputStream(bytes))));
+                assertItems(items, parallel.readParallel(Marshalling.createByteInput(new ByteArrayInputStream(bytes))));
+            }
+        }
+    }
+
+    @Test
+    public void testSharedWithinSegment() throws Throwable {
+        final ParallelMarshalling parallel = parallel("river", 2);
+        final Item shared = new Item(0, "shared", null);
+        final List<Object> items = new ArrayList<Object>();
+        for (int i = 1; i <= 4; i ++) {
+            items.add(new Item(i, "item" + i, shared));
+        }
+        final List<Object> read = parallel.readParallel(Marshalling.createByteInput(new ByteArrayInputStream(write(parallel, items))));
+        assertSame(((Item) read.get(0)).parent, ((Item) read.get(1)).parent);
+        assertSame(((Item) read.get(2)).parent, ((Item) read.get(3)).parent);
+        assertNotSame(((Item) read.get(1)).parent, ((Item) read.get(2)).parent);
+    }
+
+    @Test
+    public void testTrailingData() throws Throwable {
+        final ParallelMarshalling parallel = parallel("river", 10);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        parallel.write(Marshalling.createByteOutput(baos), items(25));
+        baos.write(0x7f);
+        final ByteArrayInputStream is = new ByteArrayInputStream(baos.toByteArray());
+        assertEquals(parallel.read(Marshalling.createByteInput(is)).size(), 25);
+        assertEquals(is.read(), 0x7f);
+    }
+
+    @Test
+    public void testBadHeader() throws Throwable {
+        final ParallelMarshalling parallel = parallel("river", 10);
+        try {
+            parallel.read(Marshalling.createByteInput(new ByteArrayInputStream(new byte[16])));
+            fail("Expected StreamCorruptedException");
+        } catch (StreamCorruptedException expected) {
+        }
+    }
+
+    private static byte[] container(final int segmentCount, final int size, final int... segmentHeaders) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream dos = new DataOutputStream(baos);
+        dos.writeInt(0x4a4d5053);
+        dos.writeInt(1);
+        dos.writeInt(segmentCount);
+        dos.writeInt(size);
+        for (int value : segmentHeaders) {
+            dos.writeInt(value);
+        }
+        dos.flush();
+        return baos.toByteArray();
+    }
+
+    private static void assertReadFails(final ParallelMarshalling parallel, final byte[] bytes, final Class<? extends IOException> expected) throws Throwable {
+        for (int i = 0; i < 2; i ++) {
+            try {
+                if (i == 0) {
+                    parallel.read(Marshalling.createByteInput(new ByteArrayInputStream(bytes)));
+                } else {
+                    parallel.readParallel(Marshalling.createByteInput(new ByteArrayInputStream(bytes)));
+                }
+                fail("Expected " + expected.getSimpleName());
+            } catch (IOException e) {
+                assertEquals(e.getClass(), expected);
+            }
+        }
+    }
+
+    @Test
+    public void testHostileHeader() throws Throwable {
+        final ParallelMarshalling parallel = parallel("river", 10);
+        // huge counts and lengths with no data behind them must not be allocated up front
+        assertReadFails(parallel, container(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE), EOFException.class);
+        assertReadFails(parallel, container(1, 1, 1, -1), StreamCorruptedException.class);
+        assertReadFails(parallel, container(1, 1, -1, 0), StreamCorruptedException.class);
+        assertReadFails(parallel, container(1, 1, 2, 0), StreamCorruptedException.class);
+        assertReadFails(parallel, container(0, 1), StreamCorruptedException.class);
+        assertReadFails(parallel, container(1, -1), StreamCorruptedException.class);
+    }
+
+    @Test
+    public void testElementCountMismatch() throws Throwable {
+        final ParallelMarshalling parallel = parallel("river", 10);
+        final List<Object> items = items(25);
+        final byte[] bytes = write(parallel, items);
+        // claim one more element in the container and in the first segment than its stream holds
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.putInt(12, 26);
+        buffer.putInt(16, 11);
+        assertReadFails(parallel, bytes, EOFException.class);
+        // the pool must still hand out working unmarshallers afterwards
+        assertItems(items, parallel.readParallel(Marshalling.createByteInput(new ByteArrayInputStream(write(parallel, items)))));
+    }
+
+    @Test
+    public void testWriteFailure() throws Throwable {
+        final ParallelMarshalling parallel = parallel("river", 10);
+        final List<Object> items = items(50);
+        items.set(33, new Object());
+        try {
+            write(parallel, items);
+            fail("Expected NotSerializableException");
+        } catch (NotSerializableException expected) {
+        }
+        assertEquals(write(parallel, Collections.emptyList()).length, 16);
+    }
+}
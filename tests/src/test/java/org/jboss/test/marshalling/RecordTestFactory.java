@@ -34,7 +34,7 @@ public class RecordTestFactory {
     @DataProvider (name = "recordProvider")
     public static Object[][] parameters() {
 
-        Object[][] tests = new Object[6][3];
+        Object[][] tests = new Object[7][3];
 
         final MarshallingConfiguration config = new MarshallingConfiguration();
         final MarshallerFactory riverMarshallerFactory = Marshalling.getProvidedMarshallerFactory("river");
@@ -64,6 +64,12 @@ public class RecordTestFactory {
         tests[5][1] = new MarshallerFactoryTestUnmarshallerProvider(serialMarshallerFactory);
         tests[5][2] = config;
 
+        final MarshallingConfiguration varIntConfig = new MarshallingConfiguration();
+        varIntConfig.setVariableLengthIntegers(true);
+        tests[6][0] = new MarshallerFactoryTestMarshallerProvider(riverMarshallerFactory, 5);
+        tests[6][1] = new MarshallerFactoryTestUnmarshallerProvider(riverMarshallerFactory, 5);
+        tests[6][2] = varIntConfig;
+
         return tests;
     }
 
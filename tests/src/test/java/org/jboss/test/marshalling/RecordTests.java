@@ -28,6 +28,7 @@ import java.util.Set;
 import org.jboss.marshalling.Marshaller;
 import org.jboss.marshalling.MarshallingConfiguration;
 import org.jboss.marshalling.Unmarshaller;
+import org.jboss.marshalling.reflect.SerializableClassRegistry;
 import org.testng.AssertJUnit;
 import org.testng.annotations.Test;
 
@@ -105,6 +106,34 @@ public class RecordTests extends TestBase {
         });
     }
 
+    @Test
+    public void testCompiledFieldsExcluded() throws Throwable {
+        try {
+            SerializableClassRegistry.getInstance().lookup(Person.class).getCompiledFields();
+            AssertJUnit.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+        // records are still written through their components when compiled field access is enabled
+        Person p1 = new Person("John", "Doe", 31, true);
+        final boolean compiledFieldAccess = configuration.isCompiledFieldAccess();
+        configuration.setCompiledFieldAccess(true);
+        try {
+            runReadWriteTest(new ReadWriteTest() {
+                @Override
+                public void runWrite(final Marshaller marshaller) throws Throwable {
+                    marshaller.writeObject(p1);
+                }
+
+                @Override
+                public void runRead(final Unmarshaller unmarshaller) throws Throwable {
+                    AssertJUnit.assertEquals(p1, unmarshaller.readObject());
+                }
+            });
+        } finally {
+            configuration.setCompiledFieldAccess(compiledFieldAccess);
+        }
+    }
+
     public static record Marriage(Person p1, Person p2, String address) implements Serializable {};
 
     @Test
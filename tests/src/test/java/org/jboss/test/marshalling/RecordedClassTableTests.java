@@ -0,0 +1,192 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.test.marshalling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.marshalling.ClassTable;
+import org.jboss.marshalling.ClassTableRecorder;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.RecordedClassTable;
+import org.jboss.marshalling.Unmarshaller;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for {@link ClassTableRecorder} and {@link RecordedClassTable}.
+ */
+public final class RecordedClassTableTests {
+
+    public static final class Request implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String operation;
+        private final Argument argument;
+
+        public Request(final String operation, final Argument argument) {
+            this.operation = operation;
+            this.argument = argument;
+        }
+    }
+
+    public static final class Argument implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int value;
+
+        public Argument(final int value) {
+            this.value = value;
+        }
+    }
+
+    public static final class Rare implements Serializable {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static byte[] write(final MarshallerFactory factory, final MarshallingConfiguration configuration, final Object object) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final Marshaller marshaller = factory.createMarshaller(configuration);
+        marshaller.start(Marshalling.createByteOutput(baos));
+        marshaller.writeObject(object);
+        marshaller.finish();
+        return baos.toByteArray();
+    }
+
+    private static Object read(final MarshallerFactory factory, final MarshallingConfiguration configuration, final byte[] bytes) throws IOException, ClassNotFoundException {
+        final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration);
+        unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(bytes)));
+        final Object object = unmarshaller.readObject();
+        unmarshaller.finish();
+        return object;
+    }
+
+    private static RecordedClassTable reload(final RecordedClassTable table) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        table.store(baos);
+        return RecordedClassTable.load(new ByteArrayInputStream(baos.toByteArray()), RecordedClassTableTests.class.getClassLoader());
+    }
+
+    @Test
+    public void testRecordAndReplay() throws Exception {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final ClassTableRecorder recorder = new ClassTableRecorder();
+        final MarshallingConfiguration recording = new MarshallingConfiguration();
+        recording.setClassTable(recorder);
+        for (int i = 0; i < 3; i ++) {
+            write(factory, recording, new Request("op", new Argument(i)));
+        }
+        write(factory, recording, new Rare());
+        assertEquals(recorder.getCount(Request.class), 3L);
+        assertEquals(recorder.getCount(Argument.class), 3L);
+        assertEquals(recorder.getCount(Rare.class), 1L);
+        final List<Class<?>> ranked = recorder.getRankedClasses();
+        // equal counts are ordered by name
+        assertEquals(ranked.subList(0, 2), Arrays.<Class<?>>asList(Argument.class, Request.class));
+        assertTrue(ranked.indexOf(Rare.class) > 1);
+
+        final RecordedClassTable table = reload(recorder.createClassTable(null, 2));
+        assertEquals(table.getVersion(), 1);
+        assertEquals(table.getClassNames(), Arrays.asList(Argument.class.getName(), Request.class.getName()));
+
+        final MarshallingConfiguration plain = new MarshallingConfiguration();
+        final MarshallingConfiguration replaying = new MarshallingConfiguration();
+        replaying.setClassTable(table);
+        final Request request = new Request("op", new Argument(7));
+        final byte[] plainBytes = write(factory, plain, request);
+        final byte[] tableBytes = write(factory, replaying, request);
+        assertTrue(tableBytes.length < plainBytes.length);
+        final Request copy = (Request) read(factory, replaying, tableBytes);
+        assertEquals(copy.operation, "op");
+        assertEquals(copy.argument.value, 7);
+    }
+
+    @Test
+    public void testStableIndexes() throws Exception {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final ClassTableRecorder recorder = new ClassTableRecorder();
+        final MarshallingConfiguration recording = new MarshallingConfiguration();
+        recording.setClassTable(recorder);
+        write(factory, recording, new Argument(1));
+        final RecordedClassTable first = recorder.createClassTable(null, 10);
+        assertSame(recorder.createClassTable(first, 10), first);
+
+        recorder.clear();
+        for (int i = 0; i < 3; i ++) {
+            write(factory, recording, new Request("op", null));
+        }
+        write(factory, recording, new Argument(2));
+        final RecordedClassTable second = reload(recorder.createClassTable(first, 10));
+        assertEquals(second.getVersion(), 2);
+        assertEquals(second.getClassNames(), Arrays.asList(Argument.class.getName(), Request.class.getName()));
+
+        // a newer table reads streams written with an older one, but not the other way around
+        final MarshallingConfiguration firstConfiguration = new MarshallingConfiguration();
+        firstConfiguration.setClassTable(first);
+        final MarshallingConfiguration secondConfiguration = new MarshallingConfiguration();
+        secondConfiguration.setClassTable(second);
+        assertEquals(((Argument) read(factory, secondConfiguration, write(factory, firstConfiguration, new Argument(3)))).value, 3);
+        try {
+            read(factory, firstConfiguration, write(factory, secondConfiguration, new Request("op", null)));
+            fail("Expected StreamCorruptedException");
+        } catch (StreamCorruptedException expected) {
+        }
+    }
+
+    @Test
+    public void testLargeTable() throws Exception {
+        final List<String> names = new ArrayList<String>();
+        for (int i = 0; i < 200; i ++) {
+            names.add("org.jboss.test.marshalling.DoesNotExist" + i);
+        }
+        names.add(Argument.class.getName());
+        final RecordedClassTable table = new RecordedClassTable(1, names, getClass().getClassLoader());
+        assertEquals(table.size(), 201);
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        configuration.setClassTable(table);
+        assertEquals(((Argument) read(factory, configuration, write(factory, configuration, new Argument(4)))).value, 4);
+    }
+
+    @Test
+    public void testPassThrough() throws Exception {
+        final ClassTable delegate = new RecordedClassTable(1, Arrays.asList(Argument.class.getName()), getClass().getClassLoader());
+        final ClassTableRecorder recorder = new ClassTableRecorder(delegate);
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        configuration.setClassTable(recorder);
+        final byte[] bytes = write(factory, configuration, new Request("op", new Argument(5)));
+        assertEquals(recorder.getCount(Argument.class), 0L);
+        assertEquals(recorder.getCount(Request.class), 1L);
+        assertEquals(((Request) read(factory, configuration, bytes)).argument.value, 5);
+    }
+}
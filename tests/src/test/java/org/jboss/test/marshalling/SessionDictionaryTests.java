@@ -0,0 +1,193 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.test.marshalling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.SessionDictionary;
+import org.jboss.marshalling.SimpleClassResolver;
+import org.jboss.marshalling.Unmarshaller;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for {@link SessionDictionary}.
+ */
+public final class SessionDictionaryTests {
+
+    public static final class Invocation implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String method;
+        private final TimeUnit unit;
+        private final long timeout;
+
+        public Invocation(final String method, final TimeUnit unit, final long timeout) {
+            this.method = method;
+            this.unit = unit;
+            this.timeout = timeout;
+        }
+    }
+
+    private static MarshallingConfiguration configure(final SessionDictionary dictionary) {
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        configuration.setClassTable(dictionary.getClassTable());
+        configuration.setObjectTable(dictionary.getObjectTable());
+        return configuration;
+    }
+
+    private static byte[] write(final Marshaller marshaller, final Object object) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        marshaller.start(Marshalling.createByteOutput(baos));
+        marshaller.writeObject(object);
+        marshaller.finish();
+        return baos.toByteArray();
+    }
+
+    private static Object read(final Unmarshaller unmarshaller, final byte[] bytes) throws IOException, ClassNotFoundException {
+        unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(bytes)));
+        final Object object = unmarshaller.readObject();
+        unmarshaller.finish();
+        return object;
+    }
+
+    @DataProvider(name = "factories")
+    public Object[][] factories() {
+        return new Object[][] {
+                { Marshalling.getProvidedMarshallerFactory("river") },
+                { Marshalling.getProvidedMarshallerFactory("serial") },
+        };
+    }
+
+    @Test(dataProvider = "factories")
+    public void testSession(final MarshallerFactory factory) throws Exception {
+        final SessionDictionary sending = new SessionDictionary(64, 32, new SimpleClassResolver(getClass().getClassLoader()));
+        final SessionDictionary receiving = new SessionDictionary(64, 32, new SimpleClassResolver(getClass().getClassLoader()));
+        final Marshaller marshaller = factory.createMarshaller(configure(sending));
+        final Unmarshaller unmarshaller = factory.createUnmarshaller(configure(receiving));
+        final byte[] first = write(marshaller, new Invocation("invoke", TimeUnit.SECONDS, 30L));
+        final byte[] second = write(marshaller, new Invocation("invoke", TimeUnit.SECONDS, 60L));
+        assertTrue(second.length < first.length, second.length + " >= " + first.length);
+        assertEquals(sending.size(), 4);
+
+        final Invocation firstCopy = (Invocation) read(unmarshaller, first);
+        final Invocation secondCopy = (Invocation) read(unmarshaller, second);
+        assertEquals(receiving.size(), sending.size());
+        assertEquals(firstCopy.method, "invoke");
+        assertSame(firstCopy.unit, TimeUnit.SECONDS);
+        assertEquals(firstCopy.timeout, 30L);
+        assertSame(secondCopy.method, firstCopy.method);
+        assertSame(secondCopy.unit, TimeUnit.SECONDS);
+        assertEquals(secondCopy.timeout, 60L);
+    }
+
+    @Test(dataProvider = "factories")
+    public void testLimits(final MarshallerFactory factory) throws Exception {
+        final SessionDictionary sending = new SessionDictionary(1, 0, new SimpleClassResolver(getClass().getClassLoader()));
+        final SessionDictionary receiving = new SessionDictionary(1, 0, new SimpleClassResolver(getClass().getClassLoader()));
+        final Marshaller marshaller = factory.createMarshaller(configure(sending));
+        final Unmarshaller unmarshaller = factory.createUnmarshaller(configure(receiving));
+        final Invocation copy = (Invocation) read(unmarshaller, write(marshaller, new Invocation("invoke", TimeUnit.MINUTES, 1L)));
+        assertEquals(copy.method, "invoke");
+        assertSame(copy.unit, TimeUnit.MINUTES);
+        assertEquals(sending.size(), 1);
+        assertEquals(receiving.size(), 1);
+    }
+
+    @Test
+    public void testOutOfSync() throws Exception {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final SessionDictionary sending = new SessionDictionary(64, 32, new SimpleClassResolver(getClass().getClassLoader()));
+        final SessionDictionary receiving = new SessionDictionary(64, 32, new SimpleClassResolver(getClass().getClassLoader()));
+        final Marshaller marshaller = factory.createMarshaller(configure(sending));
+        final Unmarshaller unmarshaller = factory.createUnmarshaller(configure(receiving));
+        // the first stream is lost
+        write(marshaller, new Invocation("invoke", TimeUnit.SECONDS, 30L));
+        try {
+            read(unmarshaller, write(marshaller, "another"));
+            fail("Expected StreamCorruptedException");
+        } catch (StreamCorruptedException expected) {
+        }
+        // resetting only one side starts a new epoch there
+        sending.reset();
+        try {
+            read(factory.createUnmarshaller(configure(receiving)), write(marshaller, "again"));
+            fail("Expected StreamCorruptedException");
+        } catch (StreamCorruptedException expected) {
+        }
+        // the peers agree on a new epoch
+        sending.reset(5);
+        receiving.reset(5);
+        assertEquals(sending.getEpoch(), 5);
+        assertEquals(read(factory.createUnmarshaller(configure(receiving)), write(marshaller, "resynchronized")), "resynchronized");
+    }
+
+    @Test(dataProvider = "factories")
+    public void testClassResolver(final MarshallerFactory factory) throws Exception {
+        final AtomicInteger resolved = new AtomicInteger();
+        final SimpleClassResolver classResolver = new SimpleClassResolver(getClass().getClassLoader()) {
+            public Class<?> resolveClass(final Unmarshaller unmarshaller, final String name, final long serialVersionUID) throws IOException, ClassNotFoundException {
+                resolved.incrementAndGet();
+                return super.resolveClass(unmarshaller, name, serialVersionUID);
+            }
+        };
+        final SessionDictionary sending = new SessionDictionary(64, 0, classResolver);
+        final SessionDictionary receiving = new SessionDictionary(64, 0, classResolver);
+        final Marshaller marshaller = factory.createMarshaller(configure(sending));
+        final Unmarshaller unmarshaller = factory.createUnmarshaller(configure(receiving));
+        read(unmarshaller, write(marshaller, new Invocation("invoke", TimeUnit.SECONDS, 30L)));
+        // the receiving dictionary resolves each learned class once, through the given resolver
+        final int learned = resolved.get();
+        assertTrue(learned >= 2, "resolved " + learned);
+        read(unmarshaller, write(marshaller, new Invocation("invoke", TimeUnit.SECONDS, 60L)));
+        assertEquals(resolved.get(), learned);
+    }
+
+    @Test(dataProvider = "factories")
+    public void testStringPolicy(final MarshallerFactory factory) throws Exception {
+        final SimpleClassResolver classResolver = new SimpleClassResolver(getClass().getClassLoader());
+        final SessionDictionary sending = new SessionDictionary(64, string -> string.startsWith("invoke"), classResolver);
+        final SessionDictionary receiving = new SessionDictionary(64, (Predicate<String>) null, classResolver);
+        final Marshaller marshaller = factory.createMarshaller(configure(sending));
+        final Unmarshaller unmarshaller = factory.createUnmarshaller(configure(receiving));
+        final Invocation first = (Invocation) read(unmarshaller, write(marshaller, new Invocation("invoke", TimeUnit.SECONDS, 30L)));
+        final int size = sending.size();
+        assertEquals((String) read(unmarshaller, write(marshaller, "data")), "data");
+        assertEquals(sending.size(), size);
+        final Invocation second = (Invocation) read(unmarshaller, write(marshaller, new Invocation("invoke", TimeUnit.SECONDS, 60L)));
+        assertSame(second.method, first.method);
+        assertEquals(receiving.size(), sending.size());
+    }
+}
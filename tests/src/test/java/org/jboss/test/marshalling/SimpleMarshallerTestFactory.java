@@ -20,6 +20,7 @@ package org.jboss.test.marshalling;
 
 import java.io.IOException;
 import org.jboss.marshalling.AbstractClassResolver;
+import org.jboss.marshalling.DeflateCompressionCodec;
 import org.jboss.marshalling.FilterTests;
 import org.jboss.marshalling.Marshaller;
 import org.jboss.marshalling.Unmarshaller;
@@ -58,6 +59,12 @@ public final class SimpleMarshallerTestFactory {
         final TestMarshallerProvider riverTestMarshallerProviderV4 = new MarshallerFactoryTestMarshallerProvider(riverMarshallerFactory, 4);
         final TestUnmarshallerProvider riverTestUnmarshallerProviderV4 = new MarshallerFactoryTestUnmarshallerProvider(riverMarshallerFactory, 4);
 
+        final TestMarshallerProvider riverTestMarshallerProviderV5 = new MarshallerFactoryTestMarshallerProvider(riverMarshallerFactory, 5);
+        final TestUnmarshallerProvider riverTestUnmarshallerProviderV5 = new MarshallerFactoryTestUnmarshallerProvider(riverMarshallerFactory, 5);
+
+        final TestMarshallerProvider riverTestMarshallerProviderV6 = new MarshallerFactoryTestMarshallerProvider(riverMarshallerFactory, 6);
+        final TestUnmarshallerProvider riverTestUnmarshallerProviderV6 = new MarshallerFactoryTestUnmarshallerProvider(riverMarshallerFactory, 6);
+
         final MarshallerFactory serialMarshallerFactory = Marshalling.getProvidedMarshallerFactory("serial");
         final TestMarshallerProvider serialTestMarshallerProvider = new MarshallerFactoryTestMarshallerProvider(serialMarshallerFactory);
         final TestUnmarshallerProvider serialTestUnmarshallerProvider = new MarshallerFactoryTestUnmarshallerProvider(serialMarshallerFactory);
@@ -75,6 +82,14 @@ public final class SimpleMarshallerTestFactory {
                 create(riverTestMarshallerProviderV3, riverTestUnmarshallerProviderV3),
                 // river - v4 writer, v4 reader
                 create(riverTestMarshallerProviderV4, riverTestUnmarshallerProviderV4),
+                // river - v4 writer, v5 reader
+                create(riverTestMarshallerProviderV4, riverTestUnmarshallerProviderV5),
+                // river - v5 writer, v5 reader
+                create(riverTestMarshallerProviderV5, riverTestUnmarshallerProviderV5),
+                // river - v5 writer, v6 reader
+                create(riverTestMarshallerProviderV5, riverTestUnmarshallerProviderV6),
+                // river - v6 writer, v6 reader
+                create(riverTestMarshallerProviderV6, riverTestUnmarshallerProviderV6),
 
                 // serial
                 create(serialTestMarshallerProvider, serialTestUnmarshallerProvider),
@@ -90,6 +105,27 @@ public final class SimpleMarshallerTestFactory {
             // Add this combination
             c.add(new Object[] { pair.getA(), pair.getB(), configuration.clone() });
         }
+        // river - v4 writer, v4 reader, with compiled field access
+        final MarshallingConfiguration compiledConfiguration = configuration.clone();
+        compiledConfiguration.setCompiledFieldAccess(true);
+        c.add(new Object[] { riverTestMarshallerProviderV4, riverTestUnmarshallerProviderV4, compiledConfiguration });
+        // river - v5 writer, v5 reader, with variable-length int and long values
+        final MarshallingConfiguration varIntConfiguration = configuration.clone();
+        varIntConfiguration.setVariableLengthIntegers(true);
+        c.add(new Object[] { riverTestMarshallerProviderV5, riverTestUnmarshallerProviderV5, varIntConfiguration });
+        // variable-length values disable compiled field access
+        final MarshallingConfiguration compiledVarIntConfiguration = compiledConfiguration.clone();
+        compiledVarIntConfiguration.setVariableLengthIntegers(true);
+        c.add(new Object[] { riverTestMarshallerProviderV5, riverTestUnmarshallerProviderV5, compiledVarIntConfiguration });
+        // river and serial, writing in place into pooled segments
+        c.add(new Object[] { new InPlaceTestMarshallerProvider(riverTestMarshallerProviderV4), riverTestUnmarshallerProviderV4, configuration.clone() });
+        c.add(new Object[] { new InPlaceTestMarshallerProvider(serialTestMarshallerProvider), serialTestUnmarshallerProvider, configuration.clone() });
+        // river and serial, compressed
+        final MarshallingConfiguration compressedConfiguration = configuration.clone();
+        compressedConfiguration.setCompressionCodec(new DeflateCompressionCodec());
+        c.add(new Object[] { riverTestMarshallerProviderV4, riverTestUnmarshallerProviderV4, compressedConfiguration.clone() });
+        c.add(new Object[] { new InPlaceTestMarshallerProvider(riverTestMarshallerProviderV4), riverTestUnmarshallerProviderV4, compressedConfiguration.clone() });
+        c.add(new Object[] { serialTestMarshallerProvider, serialTestUnmarshallerProvider, compressedConfiguration.clone() });
         configuration.setClassResolver(new AbstractClassResolver() {
             protected ClassLoader getClassLoader() {
                 return SimpleMarshallerTestFactory.class.getClassLoader();
@@ -143,7 +179,17 @@ public final class SimpleMarshallerTestFactory {
     @Factory
     public Object[] getTests() {
         return new Object[] {
-                new FilterTests()
+                new FilterTests(),
+                new StatisticsTests(),
+                new CompiledFieldReaderTests(),
+                new FlightRecorderTests(),
+                new RecordedClassTableTests(),
+                new SessionDictionaryTests(),
+                new VariableLengthIntegerTests(),
+                new CompressionTests(),
+                new StreamingUnmarshallerTests(),
+                new StreamingMarshallerTests(),
+                new ParallelMarshallingTests()
         };
     }
 }
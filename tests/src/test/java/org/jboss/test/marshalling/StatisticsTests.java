@@ -0,0 +1,141 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.test.marshalling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.marshalling.AbstractMarshaller;
+import org.jboss.marshalling.AbstractMarshallerFactory;
+import org.jboss.marshalling.AbstractUnmarshaller;
+import org.jboss.marshalling.ClassTable;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.MarshallingStatistics;
+import org.jboss.marshalling.Unmarshaller;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for the statistics recorded by River marshallers and unmarshallers.
+ */
+public final class StatisticsTests {
+
+    public static final class Item implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int value;
+
+        public Item(final int value) {
+            this.value = value;
+        }
+    }
+
+    public static final class Holder implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Item first;
+        private final Item second;
+
+        public Holder(final Item first, final Item second) {
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    static final class HolderClassTable implements ClassTable {
+        public Writer getClassWriter(final Class<?> clazz) {
+            return clazz == Holder.class ? (marshaller, c) -> marshaller.writeByte(1) : null;
+        }
+
+        public Class<?> readClass(final Unmarshaller unmarshaller) throws IOException {
+            assertEquals((int) unmarshaller.readByte(), 1);
+            return Holder.class;
+        }
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        final AbstractMarshallerFactory factory = (AbstractMarshallerFactory) Marshalling.getProvidedMarshallerFactory("river");
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        configuration.setStatisticsEnabled(true);
+        configuration.setClassTable(new HolderClassTable());
+        final Item shared = new Item(1);
+        final List<Object> list = new ArrayList<Object>();
+        list.add(new Holder(shared, shared));
+        list.add(new Holder(shared, new Item(2)));
+
+        final MarshallingStatistics before = factory.getMarshallingStatistics();
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final Marshaller marshaller = factory.createMarshaller(configuration);
+        marshaller.start(Marshalling.createByteOutput(baos));
+        marshaller.writeObject(list);
+        marshaller.finish();
+        final MarshallingStatistics written = ((AbstractMarshaller) marshaller).getStatistics();
+        assertEquals(written.getStreams(), 1L);
+        assertEquals(written.getBytes(), (long) baos.size());
+        // at least the list, two holders and two items; class annotations may add more
+        assertTrue(written.getObjects() >= 5L);
+        assertEquals(written.getPeakInstanceCacheSize(), written.getObjects());
+        // the second reference to the shared item in each holder
+        assertEquals(written.getBackReferences(), 2L);
+        assertEquals(written.getClassTableHits(), 1L);
+        assertEquals(written.getRepeatedClassDescriptors(), 2L);
+        final MarshallingStatistics after = factory.getMarshallingStatistics();
+        assertEquals(after.getStreams() - before.getStreams(), 1L);
+        assertEquals(after.getBytes() - before.getBytes(), (long) baos.size());
+
+        final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration);
+        unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(baos.toByteArray())));
+        unmarshaller.readObject();
+        unmarshaller.finish();
+        final MarshallingStatistics read = ((AbstractUnmarshaller) unmarshaller).getStatistics();
+        assertEquals(read.getStreams(), 1L);
+        assertEquals(read.getBytes(), (long) baos.size());
+        assertEquals(read.getObjects(), written.getObjects());
+        assertEquals(read.getBackReferences(), written.getBackReferences());
+        assertEquals(read.getClassTableHits(), written.getClassTableHits());
+        assertEquals(read.getRepeatedClassDescriptors(), written.getRepeatedClassDescriptors());
+        assertEquals(read.getClassDescriptors(), written.getClassDescriptors());
+
+        // snapshots do not change when the marshaller is reused
+        marshaller.start(Marshalling.createByteOutput(new ByteArrayOutputStream()));
+        marshaller.writeObject(list);
+        marshaller.writeObject(list);
+        assertEquals(written.getStreams(), 1L);
+        assertEquals(written.getBackReferences(), 2L);
+        assertEquals(((AbstractMarshaller) marshaller).getStatistics().getBackReferences(), 3L);
+        marshaller.finish();
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        final AbstractMarshallerFactory factory = (AbstractMarshallerFactory) Marshalling.getProvidedMarshallerFactory("river");
+        final Marshaller marshaller = factory.createMarshaller(new MarshallingConfiguration());
+        assertNull(((AbstractMarshaller) marshaller).getStatistics());
+    }
+}
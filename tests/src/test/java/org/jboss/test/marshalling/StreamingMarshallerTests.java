@@ -0,0 +1,216 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.test.marshalling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.StreamingMarshaller;
+import org.jboss.marshalling.StreamingUnmarshaller;
+import org.jboss.marshalling.Unmarshaller;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for writing collections of unknown size with {@link StreamingMarshaller}.
+ */
+public final class StreamingMarshallerTests {
+
+    private static final int[] SIZES = { 0, 1, 254, 255, 256, 510, 1000 };
+
+    private static MarshallingConfiguration configuration(final int version) {
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        configuration.setVersion(version);
+        return configuration;
+    }
+
+    private static Unmarshaller unmarshaller(final int version, final byte[] bytes) throws IOException {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration(version));
+        unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(bytes)));
+        return unmarshaller;
+    }
+
+    private static List<Object> elements(final int size) {
+        final List<Object> list = new ArrayList<Object>();
+        for (int i = 0; i < size; i ++) {
+            list.add(i % 10 == 0 ? "ten" : "element" + i);
+        }
+        return list;
+    }
+
+    private static byte[] writeCollection(final int version, final Iterator<?> elements, final Object after) throws IOException {
+        return writeCollection(version, elements, false, after);
+    }
+
+    private static byte[] writeCollection(final int version, final Iterator<?> elements, final boolean bounded, final Object after) throws IOException {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final StreamingMarshaller marshaller = (StreamingMarshaller) factory.createMarshaller(configuration(version));
+        marshaller.start(Marshalling.createByteOutput(baos));
+        marshaller.writeCollection(elements, bounded);
+        marshaller.writeObject(after);
+        marshaller.finish();
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void testCollection() throws Exception {
+        for (int size : SIZES) {
+            final List<Object> elements = elements(size);
+            final Unmarshaller unmarshaller = unmarshaller(6, writeCollection(6, elements.iterator(), "ten"));
+            final Object read = unmarshaller.readObject();
+            assertTrue(read instanceof ArrayList, String.valueOf(read));
+            assertEquals(read, elements);
+            final Object after = unmarshaller.readObject();
+            assertEquals(after, "ten");
+            if (size > 0) {
+                // the element is not written again
+                assertSame(after, ((List<?>) read).get(0));
+            }
+            unmarshaller.finish();
+        }
+    }
+
+    @Test
+    public void testStreamedCollection() throws Exception {
+        for (int size : SIZES) {
+            final List<Object> elements = elements(size);
+            final StreamingUnmarshaller unmarshaller = (StreamingUnmarshaller) unmarshaller(6, writeCollection(6, elements.iterator(), "after"));
+            final Iterator<Object> iterator = unmarshaller.readCollectionElements(Object.class);
+            final List<Object> read = new ArrayList<Object>();
+            while (iterator.hasNext()) {
+                read.add(iterator.next());
+            }
+            assertEquals(read, elements);
+            assertEquals(unmarshaller.readObject(), "after");
+            unmarshaller.finish();
+        }
+    }
+
+    @Test
+    public void testMap() throws Exception {
+        final Map<String, Integer> map = IntStream.range(0, 600).boxed().collect(Collectors.toMap(i -> "key" + i, i -> i, (a, b) -> a, LinkedHashMap::new));
+        for (boolean bounded : new boolean[] { false, true }) {
+            final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            final StreamingMarshaller marshaller = (StreamingMarshaller) factory.createMarshaller(configuration(6));
+            marshaller.start(Marshalling.createByteOutput(baos));
+            marshaller.writeMap(map.entrySet().iterator(), bounded);
+            marshaller.writeMap(map.entrySet().stream().filter(e -> e.getValue().intValue() < 3));
+            marshaller.finish();
+            final StreamingUnmarshaller unmarshaller = (StreamingUnmarshaller) unmarshaller(6, baos.toByteArray());
+            final Object read = unmarshaller.readObject();
+            assertTrue(read instanceof LinkedHashMap, String.valueOf(read));
+            assertEquals(new ArrayList<Object>(((Map<?, ?>) read).entrySet()), new ArrayList<Object>(map.entrySet()));
+            final Iterator<Map.Entry<String, Integer>> iterator = unmarshaller.readMapEntries(String.class, Integer.class);
+            for (int i = 0; i < 3; i ++) {
+                assertEquals(iterator.next(), new AbstractMap.SimpleImmutableEntry<String, Integer>("key" + i, Integer.valueOf(i)));
+            }
+            assertFalse(iterator.hasNext());
+            unmarshaller.finish();
+        }
+    }
+
+    @Test
+    public void testBoundedCollection() throws Exception {
+        final Object before = new ArrayList<Object>(Collections.singletonList("before"));
+        final List<Object> elements = new ArrayList<Object>();
+        for (int i = 0; i < 600; i ++) {
+            elements.add(Arrays.asList("element" + i, before));
+        }
+        final Unmarshaller unmarshaller = unmarshaller(6, writeBounded(before, elements));
+        final Object readBefore = unmarshaller.readObject();
+        final List<?> read = (List<?>) unmarshaller.readObject();
+        assertEquals(read, elements);
+        // elements of the same chunk still share objects, but nothing is shared across chunks or with earlier objects
+        assertSame(((List<?>) read.get(0)).get(1), ((List<?>) read.get(254)).get(1));
+        assertNotSame(((List<?>) read.get(254)).get(1), ((List<?>) read.get(255)).get(1));
+        assertNotSame(((List<?>) read.get(0)).get(1), readBefore);
+        // objects written after the collection are written again too
+        final Object readAfter = unmarshaller.readObject();
+        assertEquals(readAfter, before);
+        assertNotSame(readAfter, readBefore);
+        assertNotSame(readAfter, ((List<?>) read.get(599)).get(1));
+        unmarshaller.finish();
+    }
+
+    private static byte[] writeBounded(final Object before, final List<Object> elements) throws IOException {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final StreamingMarshaller marshaller = (StreamingMarshaller) factory.createMarshaller(configuration(6));
+        marshaller.start(Marshalling.createByteOutput(baos));
+        marshaller.writeObject(before);
+        marshaller.writeCollection(elements.iterator(), true);
+        marshaller.writeObject(before);
+        marshaller.finish();
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void testOlderVersion() throws Exception {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final StreamingMarshaller marshaller = (StreamingMarshaller) factory.createMarshaller(configuration(4));
+        marshaller.start(Marshalling.createByteOutput(baos));
+        marshaller.flush();
+        final int size = baos.size();
+        try {
+            marshaller.writeCollection(elements(3).iterator());
+            fail("Expected IOException");
+        } catch (IOException expected) {
+        }
+        try {
+            marshaller.writeMap(Collections.<String, String>emptyMap().entrySet().iterator(), true);
+            fail("Expected IOException");
+        } catch (IOException expected) {
+        }
+        marshaller.flush();
+        assertEquals(baos.size(), size);
+    }
+
+    @Test
+    public void testOlderReader() throws Exception {
+        try {
+            unmarshaller(5, writeCollection(6, elements(3).iterator(), null)).readObject();
+            fail("Expected IOException");
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.test.marshalling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.InvalidObjectException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.StreamingMarshaller;
+import org.jboss.marshalling.StreamingUnmarshaller;
+import org.jboss.marshalling.UnmarshallingObjectInputFilter;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for reading River collections incrementally with {@link StreamingUnmarshaller}.
+ */
+public final class StreamingUnmarshallerTests {
+
+    private static byte[] write(final Object... objects) throws IOException {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final Marshaller marshaller = factory.createMarshaller(new MarshallingConfiguration());
+        marshaller.start(Marshalling.createByteOutput(baos));
+        for (Object object : objects) {
+            marshaller.writeObject(object);
+        }
+        marshaller.finish();
+        return baos.toByteArray();
+    }
+
+    private static StreamingUnmarshaller unmarshaller(final byte[] bytes) throws IOException {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final StreamingUnmarshaller unmarshaller = (StreamingUnmarshaller) factory.createUnmarshaller(new MarshallingConfiguration());
+        unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(bytes)));
+        return unmarshaller;
+    }
+
+    private static <E> List<E> drain(final Iterator<E> iterator) {
+        final List<E> list = new ArrayList<E>();
+        while (iterator.hasNext()) {
+            list.add(iterator.next());
+        }
+        try {
+            iterator.next();
+            fail("Expected NoSuchElementException");
+        } catch (NoSuchElementException expected) {
+        }
+        return list;
+    }
+
+    @Test
+    public void testList() throws Exception {
+        final List<Object> list = new ArrayList<Object>();
+        final String shared = "shared";
+        for (int i = 0; i < 70000; i ++) {
+            list.add(i % 100 == 0 ? shared : Integer.valueOf(i));
+        }
+        final List<Object> tail = Arrays.<Object>asList(shared, "tail");
+        final StreamingUnmarshaller unmarshaller = unmarshaller(write(list, tail));
+        final List<Object> read = drain(unmarshaller.readCollectionElements(Object.class));
+        assertEquals(read, list);
+        assertSame(read.get(100), read.get(0));
+        // back references into the streamed elements still resolve
+        final List<?> readTail = unmarshaller.readObject(List.class);
+        assertSame(readTail.get(0), read.get(0));
+        assertEquals(readTail.get(1), "tail");
+        unmarshaller.finish();
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        final StreamingUnmarshaller unmarshaller = unmarshaller(write(new ArrayList<Object>(), "next"));
+        assertFalse(unmarshaller.readCollectionElements(Object.class).hasNext());
+        assertEquals(unmarshaller.readObject(), "next");
+        unmarshaller.finish();
+    }
+
+    @Test
+    public void testSortedSet() throws Exception {
+        final TreeSet<String> set = new TreeSet<String>(Collections.reverseOrder());
+        set.addAll(Arrays.asList("a", "b", "c", "d"));
+        final StreamingUnmarshaller unmarshaller = unmarshaller(write(set));
+        assertEquals(drain(unmarshaller.readCollectionElements(String.class)), Arrays.asList("d", "c", "b", "a"));
+        unmarshaller.finish();
+    }
+
+    @Test
+    public void testMaps() throws Exception {
+        final Map<String, Integer> map = new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < 1000; i ++) {
+            map.put("key" + i, Integer.valueOf(i));
+        }
+        final EnumMap<TimeUnit, String> enumMap = new EnumMap<TimeUnit, String>(TimeUnit.class);
+        enumMap.put(TimeUnit.SECONDS, "s");
+        enumMap.put(TimeUnit.DAYS, "d");
+        final StreamingUnmarshaller unmarshaller = unmarshaller(write(map, enumMap));
+        final List<Map.Entry<String, Integer>> entries = drain(unmarshaller.readMapEntries(String.class, Integer.class));
+        assertEquals(entries, new ArrayList<Map.Entry<String, Integer>>(map.entrySet()));
+        final List<Map.Entry<TimeUnit, String>> enumEntries = drain(unmarshaller.readMapEntries(TimeUnit.class, String.class));
+        assertEquals(enumEntries, new ArrayList<Map.Entry<TimeUnit, String>>(enumMap.entrySet()));
+        unmarshaller.finish();
+    }
+
+    @Test
+    public void testOtherCollections() throws Exception {
+        // neither of these has a River collection form, so they are read in full
+        final List<String> list = Collections.unmodifiableList(new ArrayList<String>(Arrays.asList("x", "y")));
+        final Map<String, String> map = Collections.singletonMap("k", "v");
+        final StreamingUnmarshaller unmarshaller = unmarshaller(write(list, map));
+        assertEquals(drain(unmarshaller.readCollectionElements(String.class)), list);
+        assertEquals(drain(unmarshaller.readMapEntries(String.class, String.class)), new ArrayList<Map.Entry<String, String>>(map.entrySet()));
+        unmarshaller.finish();
+    }
+
+    @Test
+    public void testWrongType() throws Exception {
+        StreamingUnmarshaller unmarshaller = unmarshaller(write(new ArrayList<Object>(Arrays.asList("a"))));
+        try {
+            unmarshaller.readMapEntries(Object.class, Object.class);
+            fail("Expected InvalidObjectException");
+        } catch (InvalidObjectException expected) {
+        }
+        unmarshaller.finish();
+
+        unmarshaller = unmarshaller(write(new ArrayList<Object>(Arrays.asList("a", Integer.valueOf(1)))));
+        final Iterator<String> iterator = unmarshaller.readCollectionElements(String.class);
+        assertEquals(iterator.next(), "a");
+        try {
+            iterator.next();
+            fail("Expected UncheckedIOException");
+        } catch (UncheckedIOException expected) {
+            assertTrue(expected.getCause() instanceof InvalidObjectException);
+        }
+        assertFalse(iterator.hasNext());
+        unmarshaller.finish();
+    }
+
+    @Test
+    public void testAbandoned() throws Exception {
+        final Comparator<String> comparator = Collections.reverseOrder();
+        final StreamingUnmarshaller unmarshaller = unmarshaller(write(new ArrayList<Object>(Arrays.asList("a", "b")), comparator));
+        final Iterator<Object> iterator = unmarshaller.readCollectionElements(Object.class);
+        assertEquals(iterator.next(), "a");
+        try {
+            unmarshaller.readCollectionElements(Object.class);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+        }
+        unmarshaller.finish();
+        assertFalse(iterator.hasNext());
+        // the unmarshaller can be reused after it is finished
+        unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(write("again"))));
+        assertEquals(unmarshaller.readObject(), "again");
+        unmarshaller.finish();
+    }
+
+    @Test
+    public void testSpliterator() throws Exception {
+        final List<Object> list = new ArrayList<Object>();
+        for (int i = 0; i < 1000; i ++) {
+            list.add("element" + i);
+        }
+        final Map<String, Integer> map = Collections.singletonMap("k", Integer.valueOf(1));
+        final StreamingUnmarshaller unmarshaller = unmarshaller(write(list, map));
+        final Spliterator<Object> spliterator = unmarshaller.readCollectionSpliterator(Object.class);
+        assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED | Spliterator.SIZED));
+        assertEquals(spliterator.getExactSizeIfKnown(), 1000L);
+        assertEquals(StreamSupport.stream(spliterator, false).collect(Collectors.toList()), list);
+        final Spliterator<Map.Entry<String, Integer>> entries = unmarshaller.readMapSpliterator(String.class, Integer.class);
+        assertEquals(entries.getExactSizeIfKnown(), 1L);
+        assertEquals(StreamSupport.stream(entries, false).collect(Collectors.toList()), new ArrayList<Map.Entry<String, Integer>>(map.entrySet()));
+        unmarshaller.finish();
+    }
+
+    @Test
+    public void testBounded() throws Exception {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        configuration.setVersion(6);
+        final List<Object> shared = new ArrayList<Object>(Arrays.asList("shared"));
+        final List<Object> list = new ArrayList<Object>();
+        for (int i = 0; i < 600; i ++) {
+            list.add(Arrays.asList(Integer.valueOf(i), shared));
+        }
+        for (boolean bounded : new boolean[] { false, true }) {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            final StreamingMarshaller marshaller = (StreamingMarshaller) factory.createMarshaller(configuration);
+            marshaller.start(Marshalling.createByteOutput(baos));
+            marshaller.writeCollection(list.iterator(), bounded);
+            marshaller.writeObject(shared);
+            marshaller.finish();
+            final StreamingUnmarshaller unmarshaller = (StreamingUnmarshaller) factory.createUnmarshaller(configuration);
+            unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(baos.toByteArray())));
+            final Spliterator<List> spliterator = unmarshaller.readCollectionSpliterator(List.class);
+            // the size of a chunked collection is not known up front
+            assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+            final List<List> read = StreamSupport.stream(spliterator, false).collect(Collectors.toList());
+            assertEquals(read, list);
+            final Object after = unmarshaller.readObject();
+            assertSame(read.get(0).get(1), read.get(254).get(1));
+            if (bounded) {
+                // the instance cache is cleared after each chunk, so each chunk has its own copy
+                assertNotSame(read.get(254).get(1), read.get(255).get(1));
+                assertNotSame(read.get(599).get(1), after);
+            } else {
+                assertSame(read.get(254).get(1), read.get(255).get(1));
+                assertSame(read.get(599).get(1), after);
+            }
+            unmarshaller.finish();
+        }
+    }
+
+    @Test
+    public void testReadWhileStreaming() throws Exception {
+        final StreamingUnmarshaller unmarshaller = unmarshaller(write(new ArrayList<Object>(Arrays.asList("a", "b")), "next"));
+        final Iterator<Object> iterator = unmarshaller.readCollectionElements(Object.class);
+        assertEquals(iterator.next(), "a");
+        try {
+            unmarshaller.readObject();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            unmarshaller.readInt();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+        }
+        // the refused reads did not consume anything
+        assertEquals(iterator.next(), "b");
+        assertFalse(iterator.hasNext());
+        assertEquals(unmarshaller.readObject(), "next");
+        unmarshaller.finish();
+    }
+
+    @Test
+    public void testFilteredLength() throws Exception {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        configuration.setUnmarshallingFilter(UnmarshallingObjectInputFilter.Factory.createFilter("maxarray=10"));
+        final byte[] bytes = write(new LinkedList<Object>(Collections.nCopies(20, "element")));
+        final StreamingUnmarshaller unmarshaller = (StreamingUnmarshaller) factory.createUnmarshaller(configuration);
+        unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(bytes)));
+        try {
+            unmarshaller.readCollectionElements(Object.class);
+            fail("Expected InvalidClassException");
+        } catch (InvalidClassException expected) {
+        }
+        unmarshaller.finish();
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.test.marshalling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.Unmarshaller;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for the variable-length integers of River protocol version 5.
+ */
+public final class VariableLengthIntegerTests {
+
+    public static final class Values implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] ints;
+        private final long[] longs;
+        private final int small;
+        private final int negative;
+        private final int min;
+        private final int max;
+        private final long smallLong;
+        private final long minLong;
+        private final long maxLong;
+        private final Integer boxed;
+        private final Long boxedLong;
+
+        public Values(final int small, final int negative, final int min, final int max, final long smallLong, final long minLong, final long maxLong) {
+            this.small = small;
+            this.negative = negative;
+            this.min = min;
+            this.max = max;
+            this.smallLong = smallLong;
+            this.minLong = minLong;
+            this.maxLong = maxLong;
+            ints = new int[] { small, negative, min, max };
+            longs = new long[] { smallLong, minLong, maxLong };
+            boxed = Integer.valueOf(negative);
+            boxedLong = Long.valueOf(minLong);
+        }
+    }
+
+    /**
+     * Written with {@code putFields()}, read with {@code defaultReadObject()}.
+     */
+    public static final class PutFields implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private int count;
+        private long total;
+
+        public PutFields(final int count, final long total) {
+            this.count = count;
+            this.total = total;
+        }
+
+        private void writeObject(final ObjectOutputStream oos) throws IOException {
+            final ObjectOutputStream.PutField fields = oos.putFields();
+            fields.put("count", count);
+            fields.put("total", total);
+            oos.writeFields();
+        }
+
+        private void readObject(final ObjectInputStream ois) throws IOException, ClassNotFoundException {
+            ois.defaultReadObject();
+        }
+    }
+
+    /**
+     * Written with {@code defaultWriteObject()}, read with {@code readFields()}.
+     */
+    public static final class GetFields implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private int count;
+        private long total;
+
+        public GetFields(final int count, final long total) {
+            this.count = count;
+            this.total = total;
+        }
+
+        private void writeObject(final ObjectOutputStream oos) throws IOException {
+            oos.defaultWriteObject();
+        }
+
+        private void readObject(final ObjectInputStream ois) throws IOException, ClassNotFoundException {
+            final ObjectInputStream.GetField fields = ois.readFields();
+            count = fields.get("count", 0);
+            total = fields.get("total", 0L);
+        }
+    }
+
+    private static MarshallingConfiguration configuration(final int version, final boolean variableLengthIntegers) {
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        configuration.setVersion(version);
+        configuration.setVariableLengthIntegers(variableLengthIntegers);
+        return configuration;
+    }
+
+    private static byte[] write(final MarshallingConfiguration configuration, final Object object) throws IOException {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final Marshaller marshaller = factory.createMarshaller(configuration);
+        marshaller.start(Marshalling.createByteOutput(baos));
+        marshaller.writeObject(object);
+        marshaller.finish();
+        return baos.toByteArray();
+    }
+
+    private static Object read(final MarshallingConfiguration configuration, final byte[] bytes) throws IOException, ClassNotFoundException {
+        final MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration);
+        unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(bytes)));
+        final Object object = unmarshaller.readObject();
+        unmarshaller.finish();
+        return object;
+    }
+
+    @Test
+    public void testEdgeValues() throws Exception {
+        final Values values = new Values(3, -1, Integer.MIN_VALUE, Integer.MAX_VALUE, 300L, Long.MIN_VALUE, Long.MAX_VALUE);
+        // the reader does not need to be configured for variable-length integers
+        final Values copy = (Values) read(configuration(5, false), write(configuration(5, true), values));
+        assertEquals(copy.small, 3);
+        assertEquals(copy.negative, -1);
+        assertEquals(copy.min, Integer.MIN_VALUE);
+        assertEquals(copy.max, Integer.MAX_VALUE);
+        assertEquals(copy.smallLong, 300L);
+        assertEquals(copy.minLong, Long.MIN_VALUE);
+        assertEquals(copy.maxLong, Long.MAX_VALUE);
+        assertTrue(Arrays.equals(copy.ints, values.ints));
+        assertTrue(Arrays.equals(copy.longs, values.longs));
+        assertEquals(copy.boxed, Integer.valueOf(-1));
+        assertEquals(copy.boxedLong, Long.valueOf(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void testFieldsApi() throws Exception {
+        final MarshallingConfiguration configuration = configuration(5, true);
+        final PutFields putFields = (PutFields) read(configuration, write(configuration, new PutFields(-7, 1L << 40)));
+        assertEquals(putFields.count, -7);
+        assertEquals(putFields.total, 1L << 40);
+        final GetFields getFields = (GetFields) read(configuration, write(configuration, new GetFields(12, -5L)));
+        assertEquals(getFields.count, 12);
+        assertEquals(getFields.total, -5L);
+    }
+
+    @Test
+    public void testSize() throws Exception {
+        final Values values = new Values(3, -1, 0, 100, 300L, -2L, 0L);
+        final int v4 = write(configuration(4, false), values).length;
+        final int v5 = write(configuration(5, false), values).length;
+        final int v5VarInt = write(configuration(5, true), values).length;
+        assertTrue(v5 <= v4 + 1, v5 + " > " + v4 + " + 1");
+        assertTrue(v5VarInt < v5, v5VarInt + " >= " + v5);
+    }
+
+    @Test
+    public void testOlderReader() throws Exception {
+        try {
+            read(configuration(4, false), write(configuration(5, false), Integer.valueOf(1)));
+            fail("Expected IOException");
+        } catch (IOException expected) {
+        }
+    }
+}